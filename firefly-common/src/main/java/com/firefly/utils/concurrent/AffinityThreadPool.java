@@ -35,7 +35,7 @@ public class AffinityThreadPool extends AbstractExecutorService {
     }
 
     public AffinityThreadPool(ThreadFactory threadFactory) {
-        this(defaultPoolSize, threadFactory, ((workSize, task) -> task.hashCode() % workSize));
+        this(defaultPoolSize, threadFactory, ((workSize, task) -> Math.floorMod(task.hashCode(), workSize)));
     }
 
     public AffinityThreadPool(int poolSize, ThreadFactory threadFactory, WorkSelector workSelector) {
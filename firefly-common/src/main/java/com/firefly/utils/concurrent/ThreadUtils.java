@@ -1,5 +1,9 @@
 package com.firefly.utils.concurrent;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -7,6 +11,31 @@ import java.util.concurrent.TimeUnit;
  */
 abstract public class ThreadUtils {
 
+    private static final Method ofVirtual;
+    private static final Method builderName;
+    private static final Method builderFactory;
+    private static final Method newThreadPerTaskExecutor;
+
+    static {
+        Method[] methods;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            methods = new Method[]{
+                    Thread.class.getMethod("ofVirtual"),
+                    builderClass.getMethod("name", String.class, long.class),
+                    builderClass.getMethod("factory"),
+                    Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)};
+            // the virtual thread is a preview feature in JDK 19 and 20
+            methods[0].invoke(null);
+        } catch (Throwable t) {
+            methods = new Method[4];
+        }
+        ofVirtual = methods[0];
+        builderName = methods[1];
+        builderFactory = methods[2];
+        newThreadPerTaskExecutor = methods[3];
+    }
+
     public static void sleep(long millis) {
         try {
             Thread.sleep(millis);
@@ -20,4 +49,33 @@ abstract public class ThreadUtils {
         } catch (InterruptedException ignored) {
         }
     }
+
+    /**
+     * Whether the current JDK supports the virtual threads. They are looked up by reflection,
+     * so the code still runs on the JDK 8.
+     *
+     * @return True if the virtual threads are supported.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Create the executor that starts a new virtual thread for each task.
+     *
+     * @param namePrefix The name prefix of the virtual threads, a counter is appended to it.
+     * @return The executor, or null if the current JDK does not support the virtual threads.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (!isVirtualThreadSupported()) {
+            return null;
+        }
+        try {
+            Object builder = builderName.invoke(ofVirtual.invoke(null), namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderFactory.invoke(builder);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        } catch (Exception e) {
+            throw new IllegalStateException("create the virtual thread executor exception", e);
+        }
+    }
 }
@@ -0,0 +1,229 @@
+package com.firefly.utils.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The read-only composite of the byte buffers. It keeps the references of the added buffers instead of copying them,
+ * and provides the InputStream, String and ByteBuffer[] views of the content.
+ * <p>
+ * The caller transfers the ownership of the buffer when it adds the buffer, the content of the buffer
+ * must not be changed after that. It is not thread safe.
+ *
+ * @author Pengtao Qiu
+ */
+public class CompositeByteBuffer {
+
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private long remaining;
+
+    /**
+     * Add the buffer without copying it. The position of the buffer is not changed.
+     *
+     * @param buffer The buffer.
+     */
+    public void add(ByteBuffer buffer) {
+        if (buffer.hasRemaining()) {
+            buffers.add(buffer.slice());
+            remaining += buffer.remaining();
+        }
+    }
+
+    public long remaining() {
+        return remaining;
+    }
+
+    public boolean hasRemaining() {
+        return remaining > 0;
+    }
+
+    public int size() {
+        return buffers.size();
+    }
+
+    public void clear() {
+        buffers.clear();
+        remaining = 0;
+    }
+
+    /**
+     * Get the read-only views of the buffers, they share the content with this composite buffer.
+     *
+     * @return The read-only buffers.
+     */
+    public ByteBuffer[] getByteBuffers() {
+        ByteBuffer[] array = new ByteBuffer[buffers.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = buffers.get(i).asReadOnlyBuffer();
+        }
+        return array;
+    }
+
+    public List<ByteBuffer> getByteBufferList() {
+        return Arrays.asList(getByteBuffers());
+    }
+
+    /**
+     * Get the input stream that reads the buffers directly.
+     *
+     * @return A new input stream.
+     */
+    public InputStream getInputStream() {
+        return new CompositeInputStream(getByteBuffers());
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        for (ByteBuffer buffer : getByteBuffers()) {
+            BufferUtils.writeTo(buffer, out);
+        }
+    }
+
+    /**
+     * Decode the buffers to a string. The malformed input is replaced.
+     *
+     * @param charset The charset.
+     * @return The string.
+     */
+    public String toString(Charset charset) {
+        if (remaining == 0) {
+            return "";
+        }
+
+        CharsetDecoder decoder = charset.newDecoder()
+                                        .onMalformedInput(CodingErrorAction.REPLACE)
+                                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        if (buffers.size() == 1) {
+            try {
+                return decoder.decode(buffers.get(0).duplicate()).toString();
+            } catch (CharacterCodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        CharBuffer out = CharBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, (long) (remaining * (double) decoder.averageCharsPerByte()) + 1));
+        ByteBuffer pending = BufferUtils.EMPTY_BUFFER;
+        for (ByteBuffer buffer : buffers) {
+            ByteBuffer in = buffer.duplicate();
+            // the character is split by the buffers, decode it with the next bytes
+            while (pending.hasRemaining() && in.hasRemaining()) {
+                int pendingSize = pending.remaining();
+                int nextSize = Math.min(in.remaining(), 8);
+                ByteBuffer next = in.duplicate();
+                next.limit(next.position() + nextSize);
+                ByteBuffer merged = ByteBuffer.allocate(pendingSize + nextSize);
+                merged.put(pending).put(next).flip();
+                out = decode(decoder, merged, out, false);
+                int consumed = merged.position() - pendingSize;
+                if (consumed >= 0) {
+                    in.position(in.position() + consumed);
+                    pending = BufferUtils.EMPTY_BUFFER;
+                } else {
+                    in.position(in.position() + nextSize);
+                    pending = merged.slice();
+                }
+            }
+            out = decode(decoder, in, out, false);
+            if (in.hasRemaining()) {
+                pending = ByteBuffer.allocate(in.remaining());
+                pending.put(in).flip();
+            }
+        }
+        out = decode(decoder, pending, out, true);
+        while (decoder.flush(out).isOverflow()) {
+            out = grow(out);
+        }
+        out.flip();
+        return out.toString();
+    }
+
+    private static CharBuffer decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer out, boolean endOfInput) {
+        while (true) {
+            CoderResult result = decoder.decode(in, out, endOfInput);
+            if (result.isOverflow()) {
+                out = grow(out);
+            } else {
+                return out;
+            }
+        }
+    }
+
+    private static CharBuffer grow(CharBuffer out) {
+        CharBuffer buffer = CharBuffer.allocate(out.capacity() * 2 + 16);
+        out.flip();
+        buffer.put(out);
+        return buffer;
+    }
+
+    private static class CompositeInputStream extends InputStream {
+
+        private final ByteBuffer[] buffers;
+        private int index;
+
+        private CompositeInputStream(ByteBuffer[] buffers) {
+            this.buffers = buffers;
+        }
+
+        private ByteBuffer current() {
+            while (index < buffers.length) {
+                if (buffers[index].hasRemaining()) {
+                    return buffers[index];
+                }
+                index++;
+            }
+            return null;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer buffer = current();
+            return buffer == null ? -1 : buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int count = 0;
+            ByteBuffer buffer;
+            while (count < len && (buffer = current()) != null) {
+                int size = Math.min(len - count, buffer.remaining());
+                buffer.get(b, off + count, size);
+                count += size;
+            }
+            return count == 0 ? -1 : count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long count = 0;
+            ByteBuffer buffer;
+            while (count < n && (buffer = current()) != null) {
+                int size = (int) Math.min(n - count, buffer.remaining());
+                buffer.position(buffer.position() + size);
+                count += size;
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            long available = 0;
+            for (int i = index; i < buffers.length; i++) {
+                available += buffers[i].remaining();
+            }
+            return (int) Math.min(Integer.MAX_VALUE, available);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /**
  * IO Utilities. Provides stream handling utilities in singleton Threadpool
@@ -317,9 +318,25 @@ public class IO {
     }
 
     public static byte[] readBytes(InputStream in) throws IOException {
-        ByteArrayOutputStream bout = new ByteArrayOutputStream();
-        copy(in, bout);
-        return bout.toByteArray();
+        // the available bytes are the exact length of the most in-memory streams, so the bytes are copied once
+        int available = in.available();
+        byte[] bytes = new byte[available > 0 ? available : 4096];
+        int len = 0;
+        for (; ; ) {
+            if (len == bytes.length) {
+                int b = in.read();
+                if (b < 0) {
+                    return bytes;
+                }
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, 4096));
+                bytes[len++] = (byte) b;
+            }
+            int n = in.read(bytes, len, bytes.length - len);
+            if (n < 0) {
+                return len == bytes.length ? bytes : Arrays.copyOf(bytes, len);
+            }
+            len += n;
+        }
     }
 
     /**
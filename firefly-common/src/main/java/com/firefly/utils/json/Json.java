@@ -2,9 +2,11 @@ package com.firefly.utils.json;
 
 import com.firefly.utils.BeanUtils;
 import com.firefly.utils.exception.CommonRuntimeException;
+import com.firefly.utils.json.io.JsonByteReader;
 import com.firefly.utils.json.io.JsonStringReader;
 import com.firefly.utils.json.io.JsonStringWriter;
 import com.firefly.utils.json.parser.GeneralJSONObjectStateMacine;
+import com.firefly.utils.json.parser.LazyJSONObjectStateMachine;
 import com.firefly.utils.json.parser.ParserStateMachine;
 import com.firefly.utils.json.serializer.SerialStateMachine;
 import com.firefly.utils.lang.GenericTypeReference;
@@ -25,40 +27,115 @@ public abstract class Json {
         }
     }
 
-    @SuppressWarnings("unchecked")
     public static <T> T toObject(String json, Class<T> clazz) {
-        try (JsonReader reader = new JsonStringReader(json)) {
-            return (T) ParserStateMachine.toObject(reader, clazz, clazz);
+        return toObject(new JsonStringReader(json), clazz);
+    }
+
+    public static <T> T toObject(String json, GenericTypeReference<T> typeReference) {
+        return toObject(json, typeReference.getType());
+    }
+
+    public static <T> T toObject(String json, Type type) {
+        return toObject(new JsonStringReader(json), type);
+    }
+
+    public static JsonObject toJsonObject(String json) {
+        return toJsonObject(new JsonStringReader(json));
+    }
+
+    public static JsonArray toJsonArray(String json) {
+        return toJsonArray(new JsonStringReader(json));
+    }
+
+    /**
+     * Parse the JSON object lazily, the fields are parsed when they are accessed.
+     *
+     * @param json The JSON string.
+     * @return The lazy JSON object.
+     */
+    public static JsonObject toLazyJsonObject(String json) {
+        return LazyJSONObjectStateMachine.toJsonObject(json);
+    }
+
+    /**
+     * Parse the JSON array lazily, the elements are parsed when they are accessed.
+     *
+     * @param json The JSON string.
+     * @return The lazy JSON array.
+     */
+    public static JsonArray toLazyJsonArray(String json) {
+        return LazyJSONObjectStateMachine.toJsonArray(json);
+    }
+
+    /**
+     * Parse the UTF-8 JSON object lazily. The bytes are decoded to the characters directly, without a string.
+     * The reader is closed after parsing.
+     *
+     * @param reader The JSON byte reader.
+     * @return The lazy JSON object.
+     */
+    public static JsonObject toLazyJsonObject(JsonByteReader reader) {
+        try (JsonByteReader r = reader) {
+            return LazyJSONObjectStateMachine.toJsonObject(r.readRemainingChars());
+        }
+    }
+
+    /**
+     * Parse the UTF-8 JSON array lazily. The bytes are decoded to the characters directly, without a string.
+     * The reader is closed after parsing.
+     *
+     * @param reader The JSON byte reader.
+     * @return The lazy JSON array.
+     */
+    public static JsonArray toLazyJsonArray(JsonByteReader reader) {
+        try (JsonByteReader r = reader) {
+            return LazyJSONObjectStateMachine.toJsonArray(r.readRemainingChars());
+        }
+    }
+
+    /**
+     * Parse the JSON from the reader, such as the {@link JsonByteReader} that reads the UTF-8 bytes directly.
+     * The reader is closed after parsing.
+     *
+     * @param reader The JSON reader.
+     * @param clazz  The object type.
+     * @param <T>    The object type.
+     * @return The object.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T toObject(JsonReader reader, Class<T> clazz) {
+        try (JsonReader r = reader) {
+            return (T) ParserStateMachine.toObject(r, clazz, clazz);
         } catch (IOException e) {
             throw new CommonRuntimeException(e);
         }
     }
 
-    public static <T> T toObject(String json, GenericTypeReference<T> typeReference) {
-        return toObject(json, typeReference.getType());
+    public static <T> T toObject(JsonReader reader, GenericTypeReference<T> typeReference) {
+        return toObject(reader, typeReference.getType());
     }
 
     @SuppressWarnings("unchecked")
-    public static <T> T toObject(String json, Type type) {
-        try (JsonReader reader = new JsonStringReader(json)) {
+    public static <T> T toObject(JsonReader reader, Type type) {
+        try (JsonReader r = reader) {
             Class<?> extractedClass = BeanUtils.extractClass(type);
-            return (T) ParserStateMachine.toObject(reader, getImplClass(extractedClass), type);
+            return (T) ParserStateMachine.toObject(r, getImplClass(extractedClass), type);
         } catch (IOException e) {
             throw new CommonRuntimeException(e);
         }
     }
 
-    public static JsonObject toJsonObject(String json) {
-        try (JsonReader reader = new JsonStringReader(json)) {
-            return GeneralJSONObjectStateMacine.toJsonObject(reader);
+    public static JsonObject toJsonObject(JsonReader reader) {
+        try (JsonReader r = reader) {
+            return GeneralJSONObjectStateMacine.toJsonObject(r);
         } catch (IOException e) {
             throw new CommonRuntimeException(e);
         }
     }
 
-    public static JsonArray toJsonArray(String json) {
-        try (JsonReader reader = new JsonStringReader(json)) {
-            return GeneralJSONObjectStateMacine.toJsonArray(reader);
+    public static JsonArray toJsonArray(JsonReader reader) {
+        try (JsonReader r = reader) {
+            return GeneralJSONObjectStateMacine.toJsonArray(r);
         } catch (IOException e) {
             throw new CommonRuntimeException(e);
         }
@@ -54,6 +54,9 @@ public class DecodeCompiler {
         if (parserMetaInfos.length <= 0) {
             throw new JsonException("not support the " + clazz.getName());
         }
+        if (JavassistCodecCompiler.enable) {
+            parserMetaInfos = JavassistCodecCompiler.compile(clazz, parserMetaInfos);
+        }
         return parserMetaInfos;
     }
 
@@ -50,6 +50,9 @@ public class EncodeCompiler {
         }
 
         SerializerMetaInfo[] serializerMetaInfos = fieldSet.toArray(EMPTY_ARRAY);
+        if (JavassistCodecCompiler.enable) {
+            serializerMetaInfos = JavassistCodecCompiler.compile(clazz, serializerMetaInfos);
+        }
         if (serializerMetaInfos.length > 0) {
             serializerMetaInfos[0].setPropertyName(serializerMetaInfos[0].getPropertyNameString(), true);
         }
@@ -0,0 +1,24 @@
+package com.firefly.utils.json.compiler;
+
+/**
+ * Find the index of the JSON field name. The implementation is generated by the {@link JavassistCodecCompiler},
+ * it switches on the hash code of the field name.
+ *
+ * @author Pengtao Qiu
+ */
+public abstract class FieldIndex {
+
+    protected char[][] fields;
+
+    public void setFields(char[][] fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Find the index of the field name.
+     *
+     * @param field The field name.
+     * @return The index of the field name, or -1 if the field name is not found.
+     */
+    abstract public int indexOf(char[] field);
+}
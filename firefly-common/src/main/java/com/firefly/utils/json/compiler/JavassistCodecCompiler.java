@@ -0,0 +1,328 @@
+package com.firefly.utils.json.compiler;
+
+import com.firefly.utils.StringUtils;
+import com.firefly.utils.classproxy.AbstractProxyFactory;
+import com.firefly.utils.json.JsonReader;
+import com.firefly.utils.json.JsonWriter;
+import com.firefly.utils.json.support.ParserMetaInfo;
+import com.firefly.utils.json.support.SerializerMetaInfo;
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Generate the JSON codec of the bean class. The generated parser calls the setter with the primitive value
+ * that is read by the JsonReader, the generated serializer calls the getter and writes the primitive value
+ * to the JsonWriter, so the primitive values are not boxed and the properties are not accessed by reflection.
+ * One parser and one serializer are generated for each class, they switch on the index of the property.
+ * The generated field index switches on the hash code of the field name.
+ * <p>
+ * It is disabled by default, enable it by the system property "com.firefly.utils.json.compiler.JavassistCodecCompiler.enable"
+ * or set the {@link #enable} before the class is parsed or serialized first time. The properties that can not be
+ * generated, such as the non-public class or the property without the public setter and getter, use the reflection.
+ *
+ * @author Pengtao Qiu
+ */
+public class JavassistCodecCompiler {
+
+    public static volatile boolean enable = Boolean.getBoolean("com.firefly.utils.json.compiler.JavassistCodecCompiler.enable");
+
+    private static final Logger log = LoggerFactory.getLogger("firefly-system");
+
+    private static final Map<Class<?>, String> readerMap = new HashMap<>();
+    private static final Map<Class<?>, String> writerMap = new HashMap<>();
+
+    static {
+        readerMap.put(int.class, "reader.readInt()");
+        readerMap.put(long.class, "reader.readLong()");
+        readerMap.put(short.class, "(short) reader.readInt()");
+        readerMap.put(double.class, "reader.readDouble()");
+        readerMap.put(float.class, "reader.readFloat()");
+        readerMap.put(boolean.class, "reader.readBoolean()");
+        readerMap.put(String.class, "reader.readString()");
+
+        writerMap.put(int.class, "writer.writeInt({});");
+        writerMap.put(long.class, "writer.writeLong({});");
+        writerMap.put(short.class, "writer.writeShort({});");
+        writerMap.put(boolean.class, "writer.writeBoolean({});");
+        writerMap.put(double.class, "writer.write(String.valueOf({}));");
+        writerMap.put(float.class, "writer.write(String.valueOf({}));");
+    }
+
+    public static ParserMetaInfo[] compile(Class<?> clazz, ParserMetaInfo[] parserMetaInfos) {
+        if (!isAccessible(clazz)) {
+            return parserMetaInfos;
+        }
+        PropertyParser parser = createPropertyParser(clazz, parserMetaInfos);
+        if (parser == null) {
+            return parserMetaInfos;
+        }
+        ParserMetaInfo[] ret = new ParserMetaInfo[parserMetaInfos.length];
+        for (int i = 0; i < parserMetaInfos.length; i++) {
+            ret[i] = parser.isCompiled(i) ? new CompiledParserMetaInfo(parserMetaInfos[i], parser, i) : parserMetaInfos[i];
+        }
+        return ret;
+    }
+
+    public static SerializerMetaInfo[] compile(Class<?> clazz, SerializerMetaInfo[] serializerMetaInfos) {
+        if (!isAccessible(clazz)) {
+            return serializerMetaInfos;
+        }
+        PropertySerializer serializer = createPropertySerializer(clazz, serializerMetaInfos);
+        if (serializer == null) {
+            return serializerMetaInfos;
+        }
+        SerializerMetaInfo[] ret = new SerializerMetaInfo[serializerMetaInfos.length];
+        for (int i = 0; i < serializerMetaInfos.length; i++) {
+            ret[i] = serializer.isCompiled(i) ? new CompiledSerializerMetaInfo(serializerMetaInfos[i], serializer, i) : serializerMetaInfos[i];
+        }
+        return ret;
+    }
+
+    /**
+     * Generate the field index of the parser meta information.
+     *
+     * @param clazz           The class of the parser meta information.
+     * @param parserMetaInfos The parser meta information.
+     * @return The field index, the index is the index of the parser meta information. If the generation fails, it returns null.
+     */
+    public static FieldIndex createFieldIndex(Class<?> clazz, ParserMetaInfo[] parserMetaInfos) {
+        char[][] fields = new char[parserMetaInfos.length][];
+        Map<Integer, List<Integer>> hashMap = new TreeMap<>();
+        for (int i = 0; i < parserMetaInfos.length; i++) {
+            fields[i] = parserMetaInfos[i].getPropertyName();
+            hashMap.computeIfAbsent(parserMetaInfos[i].getPropertyNameString().hashCode(), k -> new ArrayList<>()).add(i);
+        }
+
+        StringBuilder code = new StringBuilder();
+        code.append("public int indexOf(char[] field) {\n")
+            .append("\tint h = 0;\n")
+            .append("\tfor (int i = 0; i < field.length; i++) {\n")
+            .append("\t\th = 31 * h + field[i];\n")
+            .append("\t}\n")
+            .append("\tswitch (h) {\n");
+        hashMap.forEach((hash, indexes) -> {
+            code.append(StringUtils.replace("\t\tcase {}:\n", hash));
+            indexes.forEach(index -> code.append(StringUtils.replace("\t\t\tif (java.util.Arrays.equals(field, fields[{}])) return {};\n", index, index)));
+            code.append("\t\t\treturn -1;\n");
+        });
+        code.append("\t\tdefault:\n")
+            .append("\t\t\treturn -1;\n")
+            .append("\t}\n")
+            .append("}");
+
+        try {
+            FieldIndex fieldIndex = (FieldIndex) createClass(FieldIndex.class, null, "com.firefly.utils.json.compiler.FieldIndex", code.toString())
+                    .getConstructor().newInstance();
+            fieldIndex.setFields(fields);
+            return fieldIndex;
+        } catch (Exception | LinkageError e) {
+            log.warn("generate the JSON field index of " + clazz.getName() + " exception, it uses the linear search", e);
+            return null;
+        }
+    }
+
+    /**
+     * Generate one parser for all properties of the class. It switches on the index of the parser meta information.
+     *
+     * @param clazz           The class of the parser meta information.
+     * @param parserMetaInfos The parser meta information.
+     * @return The property parser. If no property can be generated or the generation fails, it returns null.
+     */
+    private static PropertyParser createPropertyParser(Class<?> clazz, ParserMetaInfo[] parserMetaInfos) {
+        boolean[] compiled = new boolean[parserMetaInfos.length];
+        StringBuilder code = new StringBuilder();
+        code.append("public void invoke(int index, Object obj, com.firefly.utils.json.JsonReader reader) {\n")
+            .append("\tswitch (index) {\n");
+        for (int i = 0; i < parserMetaInfos.length; i++) {
+            Method setter = parserMetaInfos[i].getPropertyAccess().getSetterMethod();
+            if (!isAccessible(setter)) {
+                continue;
+            }
+
+            Class<?> parameterType = setter.getParameterTypes()[0];
+            String value = readerMap.get(parameterType);
+            String caseCode;
+            if (value != null && parameterType == parserMetaInfos[i].getExtractedType()) {
+                caseCode = StringUtils.replace("\t\t\t(({}) obj).{}({});\n", getTypeName(clazz), setter.getName(), value);
+            } else if (!parameterType.isPrimitive()) {
+                caseCode = StringUtils.replace("\t\t\t(({}) obj).{}(({}) getValue({}, reader));\n",
+                        getTypeName(clazz), setter.getName(), getTypeName(parameterType), i);
+            } else {
+                continue;
+            }
+            code.append(StringUtils.replace("\t\tcase {}:\n", i))
+                .append(caseCode)
+                .append("\t\t\treturn;\n");
+            compiled[i] = true;
+        }
+        code.append("\t\tdefault:\n")
+            .append("\t\t\tthrow new IllegalArgumentException(\"the property is not generated, the index is \" + index);\n")
+            .append("\t}\n")
+            .append("}");
+
+        if (!hasCompiled(compiled)) {
+            return null;
+        }
+        try {
+            PropertyParser parser = (PropertyParser) createClass(PropertyParser.class, clazz, "com.firefly.utils.json.compiler.PropertyParser", code.toString())
+                    .getConstructor().newInstance();
+            parser.init(parserMetaInfos, compiled);
+            return parser;
+        } catch (Exception | LinkageError e) {
+            log.warn("generate the JSON parser of " + clazz.getName() + " exception, it uses the reflection", e);
+            return null;
+        }
+    }
+
+    /**
+     * Generate one serializer for all properties of the class. It switches on the index of the serializer meta information.
+     *
+     * @param clazz               The class of the serializer meta information.
+     * @param serializerMetaInfos The serializer meta information.
+     * @return The property serializer. If no property can be generated or the generation fails, it returns null.
+     */
+    private static PropertySerializer createPropertySerializer(Class<?> clazz, SerializerMetaInfo[] serializerMetaInfos) {
+        boolean[] compiled = new boolean[serializerMetaInfos.length];
+        StringBuilder code = new StringBuilder();
+        code.append("public void toJson(int index, Object obj, com.firefly.utils.json.JsonWriter writer) throws java.io.IOException {\n")
+            .append("\tswitch (index) {\n");
+        for (int i = 0; i < serializerMetaInfos.length; i++) {
+            Method getter = serializerMetaInfos[i].getPropertyAccess().getGetterMethod();
+            if (!isAccessible(getter)) {
+                continue;
+            }
+
+            Class<?> returnType = getter.getReturnType();
+            String getValue = StringUtils.replace("(({}) obj).{}()", getTypeName(clazz), getter.getName());
+            String write = writerMap.get(returnType);
+            String caseCode;
+            if (write != null) {
+                caseCode = "\t\t\t" + StringUtils.replace(write, getValue) + "\n";
+            } else if (returnType == String.class) {
+                caseCode = StringUtils.replace("\t\t\twriteString(writer, {});\n", getValue);
+            } else if (!returnType.isPrimitive()) {
+                caseCode = StringUtils.replace("\t\t\twriteObject({}, writer, {});\n", i, getValue);
+            } else {
+                continue;
+            }
+            code.append(StringUtils.replace("\t\tcase {}:\n", i))
+                .append(caseCode)
+                .append("\t\t\treturn;\n");
+            compiled[i] = true;
+        }
+        code.append("\t\tdefault:\n")
+            .append("\t\t\tthrow new IllegalArgumentException(\"the property is not generated, the index is \" + index);\n")
+            .append("\t}\n")
+            .append("}");
+
+        if (!hasCompiled(compiled)) {
+            return null;
+        }
+        try {
+            PropertySerializer serializer = (PropertySerializer) createClass(PropertySerializer.class, clazz, "com.firefly.utils.json.compiler.PropertySerializer", code.toString())
+                    .getConstructor().newInstance();
+            serializer.init(serializerMetaInfos, compiled);
+            return serializer;
+        } catch (Exception | LinkageError e) {
+            log.warn("generate the JSON serializer of " + clazz.getName() + " exception, it uses the reflection", e);
+            return null;
+        }
+    }
+
+    private static boolean hasCompiled(boolean[] compiled) {
+        for (boolean c : compiled) {
+            if (c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Class<?> createClass(Class<?> superClass, Class<?> beanClass, String namePrefix, String code) throws Exception {
+        ClassPool classPool = ClassPool.getDefault();
+        classPool.insertClassPath(new ClassClassPath(superClass));
+        if (beanClass != null) {
+            classPool.insertClassPath(new ClassClassPath(beanClass));
+        }
+
+        CtClass cc = classPool.makeClass(namePrefix + UUID.randomUUID().toString().replace("-", ""));
+        cc.setSuperclass(classPool.get(superClass.getName()));
+        cc.addMethod(CtMethod.make(code, cc));
+        return cc.toClass(AbstractProxyFactory.classLoader, null);
+    }
+
+    private static boolean isAccessible(Class<?> clazz) {
+        if (!Modifier.isPublic(clazz.getModifiers())) {
+            return false;
+        }
+        if (clazz.isAnonymousClass() || clazz.isLocalClass()) {
+            return false;
+        }
+        if (clazz.isMemberClass() && !Modifier.isStatic(clazz.getModifiers())) {
+            return false;
+        }
+        return clazz.getEnclosingClass() == null || isAccessible(clazz.getEnclosingClass());
+    }
+
+    private static boolean isAccessible(Method method) {
+        return method != null
+                && Modifier.isPublic(method.getModifiers())
+                && Modifier.isPublic(method.getDeclaringClass().getModifiers());
+    }
+
+    private static String getTypeName(Class<?> clazz) {
+        if (clazz.isArray()) {
+            return getTypeName(clazz.getComponentType()) + "[]";
+        } else {
+            return clazz.getName();
+        }
+    }
+
+    private static class CompiledParserMetaInfo extends ParserMetaInfo {
+
+        private final PropertyParser parser;
+        private final int index;
+
+        CompiledParserMetaInfo(ParserMetaInfo parserMetaInfo, PropertyParser parser, int index) {
+            this.parser = parser;
+            this.index = index;
+            setPropertyNameString(parserMetaInfo.getPropertyNameString());
+            setPropertyAccess(parserMetaInfo.getPropertyAccess());
+            setExtractedType(parserMetaInfo.getExtractedType());
+            setParser(parserMetaInfo.getParser());
+        }
+
+        @Override
+        public void invoke(Object obj, JsonReader reader) {
+            parser.invoke(index, obj, reader);
+        }
+    }
+
+    private static class CompiledSerializerMetaInfo extends SerializerMetaInfo {
+
+        private final PropertySerializer serializer;
+        private final int index;
+
+        CompiledSerializerMetaInfo(SerializerMetaInfo serializerMetaInfo, PropertySerializer serializer, int index) {
+            this.serializer = serializer;
+            this.index = index;
+            setPropertyName(serializerMetaInfo.getPropertyNameString(), false);
+            setPropertyAccess(serializerMetaInfo.getPropertyAccess());
+            setSerializer(serializerMetaInfo.getSerializer());
+        }
+
+        @Override
+        public void toJson(Object obj, JsonWriter writer) throws IOException {
+            serializer.toJson(index, obj, writer);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.firefly.utils.json.compiler;
+
+import com.firefly.utils.exception.CommonRuntimeException;
+import com.firefly.utils.json.JsonReader;
+import com.firefly.utils.json.support.ParserMetaInfo;
+
+import java.io.IOException;
+
+/**
+ * Set the properties of the bean. The implementation is generated by the {@link JavassistCodecCompiler},
+ * one implementation sets all properties of the class, it switches on the index of the parser meta information.
+ *
+ * @author Pengtao Qiu
+ */
+public abstract class PropertyParser {
+
+    protected ParserMetaInfo[] parserMetaInfos;
+    private boolean[] compiled;
+
+    void init(ParserMetaInfo[] parserMetaInfos, boolean[] compiled) {
+        this.parserMetaInfos = parserMetaInfos;
+        this.compiled = compiled;
+    }
+
+    /**
+     * Check the property is set by the generated code.
+     *
+     * @param index The index of the parser meta information.
+     * @return If true, the property is set by the generated code.
+     */
+    public boolean isCompiled(int index) {
+        return compiled[index];
+    }
+
+    protected Object getValue(int index, JsonReader reader) {
+        try {
+            return parserMetaInfos[index].getValue(reader);
+        } catch (IOException e) {
+            throw new CommonRuntimeException(e);
+        }
+    }
+
+    /**
+     * Read the value and set the property.
+     *
+     * @param index  The index of the parser meta information.
+     * @param obj    The bean.
+     * @param reader The JSON reader.
+     */
+    abstract public void invoke(int index, Object obj, JsonReader reader);
+}
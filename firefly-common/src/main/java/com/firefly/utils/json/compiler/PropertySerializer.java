@@ -0,0 +1,59 @@
+package com.firefly.utils.json.compiler;
+
+import com.firefly.utils.json.JsonWriter;
+import com.firefly.utils.json.support.SerializerMetaInfo;
+
+import java.io.IOException;
+
+/**
+ * Write the properties of the bean. The implementation is generated by the {@link JavassistCodecCompiler},
+ * one implementation writes all properties of the class, it switches on the index of the serializer meta information.
+ *
+ * @author Pengtao Qiu
+ */
+public abstract class PropertySerializer {
+
+    protected SerializerMetaInfo[] serializerMetaInfos;
+    private boolean[] compiled;
+
+    void init(SerializerMetaInfo[] serializerMetaInfos, boolean[] compiled) {
+        this.serializerMetaInfos = serializerMetaInfos;
+        this.compiled = compiled;
+    }
+
+    /**
+     * Check the property is written by the generated code.
+     *
+     * @param index The index of the serializer meta information.
+     * @return If true, the property is written by the generated code.
+     */
+    public boolean isCompiled(int index) {
+        return compiled[index];
+    }
+
+    protected void writeString(JsonWriter writer, String value) throws IOException {
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            writer.writeStringWithQuote(value);
+        }
+    }
+
+    protected void writeObject(int index, JsonWriter writer, Object value) throws IOException {
+        if (value == null) {
+            writer.writeNull();
+        } else {
+            serializerMetaInfos[index].getSerializer().convertTo(writer, value);
+        }
+    }
+
+    /**
+     * Get the property and write the value.
+     *
+     * @param index  The index of the serializer meta information.
+     * @param obj    The bean.
+     * @param writer The JSON writer.
+     * @throws IOException If writing fails.
+     */
+    abstract public void toJson(int index, Object obj, JsonWriter writer) throws IOException;
+}
@@ -0,0 +1,745 @@
+package com.firefly.utils.json.io;
+
+import com.firefly.utils.VerifyUtils;
+import com.firefly.utils.json.JsonReader;
+import com.firefly.utils.json.exception.JsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The JSON reader decodes the UTF-8 bytes directly, it does not convert the bytes to a string before parsing.
+ * The bytes come from a heap buffer without copying, or from the direct buffers, the buffer list and the input stream
+ * through a refillable window. The window keeps the bytes after the mark, so the parsers can reset to the mark.
+ * <p>
+ * The position is the byte offset of the input.
+ *
+ * @author Pengtao Qiu
+ */
+public class JsonByteReader extends JsonReader {
+
+    public static final int DEFAULT_WINDOW_SIZE = 8 * 1024;
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+    private interface ByteSource {
+        int read(byte[] b, int off, int len) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private final ByteSource source;
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private long base; // the input offset of buf[0]
+    private int mark;
+    private char markLowSurrogate;
+    private int lastCharStart;
+    private char lowSurrogate;
+    private char[] chars = new char[64];
+    private int lengthHint;
+
+    public JsonByteReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    public JsonByteReader(byte[] bytes, int offset, int length) {
+        this.source = null;
+        this.buf = bytes;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.base = -offset;
+        this.mark = offset;
+        this.lastCharStart = offset;
+        this.lengthHint = length;
+    }
+
+    /**
+     * Read the remaining bytes of the buffer, the position of the buffer does not change.
+     *
+     * @param buffer The UTF-8 JSON bytes.
+     */
+    public JsonByteReader(ByteBuffer buffer) {
+        this(Collections.singletonList(buffer));
+    }
+
+    /**
+     * Read the remaining bytes of the buffers, the positions of the buffers do not change.
+     *
+     * @param buffers The UTF-8 JSON bytes.
+     */
+    public JsonByteReader(List<ByteBuffer> buffers) {
+        if (buffers.size() == 1 && buffers.get(0).hasArray()) {
+            ByteBuffer buffer = buffers.get(0);
+            this.source = null;
+            this.buf = buffer.array();
+            this.pos = buffer.arrayOffset() + buffer.position();
+            this.limit = buffer.arrayOffset() + buffer.limit();
+            this.base = -pos;
+            this.lengthHint = buffer.remaining();
+        } else {
+            buffers.forEach(b -> lengthHint += b.remaining());
+            Iterator<ByteBuffer> iterator = buffers.iterator();
+            this.source = new ByteSource() {
+                private ByteBuffer current;
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    while (current == null || !current.hasRemaining()) {
+                        if (!iterator.hasNext()) {
+                            return -1;
+                        }
+                        current = iterator.next().slice();
+                    }
+                    int n = Math.min(len, current.remaining());
+                    current.get(b, off, n);
+                    return n;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            this.buf = new byte[DEFAULT_WINDOW_SIZE];
+        }
+        this.mark = pos;
+        this.lastCharStart = pos;
+    }
+
+    public JsonByteReader(InputStream in) {
+        this(in, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Read the input stream through a refillable window.
+     *
+     * @param in         The UTF-8 JSON input stream. The reader closes it when the reader closes.
+     * @param windowSize The initial window size, the window grows when the marked bytes exceed it.
+     */
+    public JsonByteReader(InputStream in, int windowSize) {
+        this.source = new ByteSource() {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return in.read(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                in.close();
+            }
+        };
+        this.buf = new byte[Math.max(windowSize, 16)];
+    }
+
+    private boolean fill() {
+        if (source == null) {
+            return false;
+        }
+
+        int keep = Math.min(Math.min(mark, lastCharStart), pos);
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            pos -= keep;
+            limit -= keep;
+            mark -= keep;
+            lastCharStart -= keep;
+            base += keep;
+        }
+        if (limit == buf.length) {
+            byte[] newBuf = new byte[buf.length << 1];
+            System.arraycopy(buf, 0, newBuf, 0, limit);
+            buf = newBuf;
+        }
+
+        try {
+            int n;
+            do {
+                n = source.read(buf, limit, buf.length - limit);
+            } while (n == 0);
+            if (n < 0) {
+                return false;
+            }
+            limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new JsonException("read JSON bytes exception, " + e.getMessage());
+        }
+    }
+
+    private int nextByte() {
+        if (pos >= limit && !fill()) {
+            throw new JsonException("the JSON is incomplete, the position is " + position());
+        }
+        return buf[pos++];
+    }
+
+    private int nextContinuationByte() {
+        int b = nextByte();
+        if ((b & 0xC0) != 0x80) {
+            pos--;
+            return -1;
+        }
+        return b & 0x3F;
+    }
+
+    private void unread() {
+        pos = lastCharStart;
+        lowSurrogate = 0;
+    }
+
+    /**
+     * Decode the remaining UTF-8 bytes to the characters, such as the input of the lazy JSON parser.
+     * The character array has the exact length, it is not copied again when the input is ASCII.
+     *
+     * @return The remaining characters.
+     */
+    public char[] readRemainingChars() {
+        char[] chs = new char[lengthHint];
+        int n = 0;
+        while (!isEnd()) {
+            if (n == chs.length) {
+                chs = Arrays.copyOf(chs, Math.max(n << 1, 64));
+            }
+            chs[n++] = (char) read();
+        }
+        return n == chs.length ? chs : Arrays.copyOf(chs, n);
+    }
+
+    @Override
+    public void increasePosition() {
+        read();
+    }
+
+    @Override
+    public void decreasePosition() {
+        unread();
+    }
+
+    @Override
+    public int position() {
+        return (int) (base + pos);
+    }
+
+    @Override
+    public boolean isEnd() {
+        return lowSurrogate == 0 && pos >= limit && !fill();
+    }
+
+    @Override
+    public void mark(int readAheadLimit) {
+        mark = pos;
+        markLowSurrogate = lowSurrogate;
+    }
+
+    @Override
+    public void reset() {
+        pos = mark;
+        lowSurrogate = markLowSurrogate;
+    }
+
+    @Override
+    public boolean isEndFlag(char ch) {
+        switch (ch) {
+            case ',':
+            case '}':
+            case ']':
+            case ' ':
+            case ':':
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isString() {
+        char c = readAndSkipBlank();
+        return c == '"';
+    }
+
+    @Override
+    public boolean isArray() {
+        char c = readAndSkipBlank();
+        return c == '[';
+    }
+
+    @Override
+    public boolean isEmptyArray() {
+        mark(1024);
+        char c = readAndSkipBlank();
+
+        if (c == ']')
+            return true;
+
+        reset();
+        return false;
+    }
+
+    @Override
+    public boolean isObject() {
+        char c = readAndSkipBlank();
+        return c == '{';
+    }
+
+    @Override
+    public boolean isEmptyObject() {
+        mark(1024);
+        char c = readAndSkipBlank();
+
+        if (c == '}')
+            return true;
+
+        reset();
+        return false;
+    }
+
+    @Override
+    public boolean isColon() {
+        char c = readAndSkipBlank();
+        return c == ':';
+    }
+
+    @Override
+    public boolean isComma() {
+        char c = readAndSkipBlank();
+        return c == ',';
+    }
+
+    @Override
+    public boolean isNull() {
+        mark(1024);
+        char ch = readAndSkipBlank();
+        if (ch != 'n') {
+            reset();
+            return false;
+        }
+
+        if ('u' == read() && 'l' == read() && 'l' == read()) {
+            if (isEnd())
+                return true;
+
+            ch = readAndSkipBlank();
+            if (isEndFlag(ch)) {
+                unread();
+                return true;
+            } else {
+                reset();
+                return false;
+            }
+        } else {
+            reset();
+            return false;
+        }
+    }
+
+    /**
+     * Read a UTF-8 character. The supplementary character returns the high surrogate and then the low surrogate.
+     *
+     * @return The character.
+     */
+    @Override
+    public int read() {
+        if (lowSurrogate != 0) {
+            char c = lowSurrogate;
+            lowSurrogate = 0;
+            return c;
+        }
+
+        lastCharStart = pos;
+        int b = nextByte();
+        if (b >= 0) {
+            return b;
+        }
+
+        int b1, b2, b3;
+        if ((b & 0xE0) == 0xC0) {
+            if ((b1 = nextContinuationByte()) < 0) {
+                return REPLACEMENT_CHARACTER;
+            }
+            return ((b & 0x1F) << 6) | b1;
+        } else if ((b & 0xF0) == 0xE0) {
+            if ((b1 = nextContinuationByte()) < 0 || (b2 = nextContinuationByte()) < 0) {
+                return REPLACEMENT_CHARACTER;
+            }
+            return ((b & 0x0F) << 12) | (b1 << 6) | b2;
+        } else if ((b & 0xF8) == 0xF0) {
+            if ((b1 = nextContinuationByte()) < 0 || (b2 = nextContinuationByte()) < 0 || (b3 = nextContinuationByte()) < 0) {
+                return REPLACEMENT_CHARACTER;
+            }
+            int codePoint = ((b & 0x07) << 18) | (b1 << 12) | (b2 << 6) | b3;
+            if (!Character.isSupplementaryCodePoint(codePoint)) {
+                return REPLACEMENT_CHARACTER;
+            }
+            lowSurrogate = Character.lowSurrogate(codePoint);
+            return Character.highSurrogate(codePoint);
+        } else {
+            return REPLACEMENT_CHARACTER;
+        }
+    }
+
+    @Override
+    public char readAndSkipBlank() {
+        char c = (char) read();
+        if (c > ' ')
+            return c;
+        for (; ; ) {
+            c = (char) read();
+            if (c > ' ')
+                return c;
+        }
+    }
+
+    @Override
+    public boolean readBoolean() {
+        boolean ret = false;
+
+        if (isNull()) {
+            return false;
+        }
+
+        char ch = readAndSkipBlank();
+        boolean isString = (ch == '"');
+        if (isString) {
+            ch = readAndSkipBlank();
+        }
+        if (ch == 't' && 'r' == read() && 'u' == read() && 'e' == read()) {
+            ret = true;
+        } else if (ch == 'f' && 'a' == read() && 'l' == read() && 's' == read() && 'e' == read()) {
+            ret = false;
+        }
+        if (isString) {
+            ch = readAndSkipBlank();
+            if (ch != '"')
+                throw new JsonException("read boolean error, the position is " + position());
+        }
+
+        return ret;
+    }
+
+    @Override
+    public int readInt() {
+        return (int) readLong();
+    }
+
+    @Override
+    public long readLong() {
+        long value = 0;
+        if (isNull()) {
+            return value;
+        }
+        char ch = readAndSkipBlank();
+        boolean isString = (ch == '"');
+        if (isString) {
+            ch = readAndSkipBlank();
+        }
+        boolean negative = (ch == '-');
+
+        if (!negative) {
+            if (VerifyUtils.isDigit(ch))
+                value = (value << 3) + (value << 1) + (ch - '0');
+            else
+                throw new JsonException("read int error, character \"" + ch + "\" is not integer, the position is " + position());
+        }
+
+        while (!isEnd()) {
+            ch = (char) read();
+            if (ch > ' ') {
+                if (VerifyUtils.isDigit(ch)) {
+                    value = (value << 3) + (value << 1) + (ch - '0');
+                } else {
+                    if (isString) {
+                        if (ch == '"')
+                            break;
+                    } else {
+                        if (isEndFlag(ch)) {
+                            unread();
+                            break;
+                        } else {
+                            throw new JsonException("read int error, character \"" + ch + "\" is not integer, the position is " + position());
+                        }
+                    }
+                }
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    @Override
+    public String readValueAsString() {
+        int len = 0;
+        int endBlankLength = 0;
+        while (!isEnd()) {
+            char ch = (char) read();
+            if (ch <= ' ') {
+                if (len > 0) {
+                    len = append(len, ch);
+                    endBlankLength++;
+                }
+                continue;
+            }
+
+            if (isEndFlag(ch)) {
+                unread();
+                break;
+            }
+            len = append(len, ch);
+            endBlankLength = 0;
+        }
+        return new String(chars, 0, len - endBlankLength);
+    }
+
+    private String readNumberText() {
+        char ch = readAndSkipBlank();
+        boolean isString = (ch == '"');
+        if (!isString) {
+            unread();
+        }
+
+        int len = 0;
+        while (!isEnd()) {
+            ch = (char) read();
+            if (isString) {
+                if (ch == '"')
+                    break;
+            } else {
+                if (isEndFlag(ch)) {
+                    unread();
+                    break;
+                }
+            }
+            len = append(len, ch);
+        }
+        return new String(chars, 0, len).trim();
+    }
+
+    @Override
+    public BigInteger readBigInteger() {
+        if (isNull()) {
+            return new BigInteger("0");
+        }
+        return new BigInteger(readNumberText());
+    }
+
+    @Override
+    public BigDecimal readBigDecimal() {
+        if (isNull()) {
+            return new BigDecimal("0.0");
+        }
+        return new BigDecimal(readNumberText());
+    }
+
+    @Override
+    public double readDouble() {
+        if (isNull()) {
+            return 0.0;
+        }
+        return Double.parseDouble(readNumberText());
+    }
+
+    @Override
+    public float readFloat() {
+        if (isNull()) {
+            return 0.0F;
+        }
+        return Float.parseFloat(readNumberText());
+    }
+
+    @Override
+    public char[] readField(char[] chs) {
+        if (!isString()) {
+            throw new JsonException("read field error, the position is " + position());
+        }
+
+        mark(1024);
+        boolean skip = true;
+        for (char c : chs) {
+            if (c != (char) read()) {
+                skip = false;
+                break;
+            }
+        }
+        if (skip && '"' == read()) {
+            return null;
+        }
+
+        reset();
+        return readCharsUntilQuote();
+    }
+
+    @Override
+    public char[] readChars() {
+        if (!isString()) {
+            throw new JsonException("read field error, the position is " + position());
+        }
+        return readCharsUntilQuote();
+    }
+
+    private char[] readCharsUntilQuote() {
+        int len = 0;
+        for (; ; ) {
+            char c = (char) read();
+            if (c == '"')
+                break;
+            len = append(len, c);
+        }
+        char[] c = new char[len];
+        System.arraycopy(chars, 0, c, 0, len);
+        return c;
+    }
+
+    @Override
+    public void skipValue() {
+        char ch = readAndSkipBlank();
+        switch (ch) {
+            case '"': // skip string
+                for (; ; ) {
+                    ch = (char) read();
+                    if (ch == '"')
+                        break;
+                    else if (ch == '\\')
+                        read();
+                }
+                break;
+            case '[': // skip array
+                for (; ; ) {
+                    if (isEmptyArray())
+                        break;
+
+                    skipValue();
+                    ch = readAndSkipBlank();
+                    if (ch == ']')
+                        break;
+
+                    if (ch != ',')
+                        throw new JsonException("json string array format error, the position is " + position());
+                }
+                break;
+            case '{': // skip object
+                for (; ; ) {
+                    if (isEmptyObject())
+                        break;
+
+                    readChars();
+                    if (!isColon())
+                        throw new JsonException("json string object format error, the position is " + position());
+
+                    skipValue();
+                    ch = readAndSkipBlank();
+                    if (ch == '}')
+                        break;
+
+                    if (ch != ',')
+                        throw new JsonException("json string object format error, the position is " + position());
+                }
+                break;
+
+            default: // skip number or null
+                while (!isEnd()) {
+                    ch = (char) read();
+                    if (isEndFlag(ch)) {
+                        unread();
+                        break;
+                    }
+                }
+                break;
+        }
+    }
+
+    @Override
+    public String readString() {
+        if (isNull()) {
+            return null;
+        }
+        if (!isString()) {
+            throw new JsonException("read string error, the position is " + position());
+        }
+
+        int len = 0;
+        for (; ; ) {
+            char ch = (char) read();
+            if (ch == '"') {
+                return new String(chars, 0, len);
+            } else if (ch == '\\') {
+                char c0 = (char) read();
+                switch (c0) {
+                    case 'b':
+                        len = append(len, '\b');
+                        break;
+                    case 'n':
+                        len = append(len, '\n');
+                        break;
+                    case 'r':
+                        len = append(len, '\r');
+                        break;
+                    case 'f':
+                        len = append(len, '\f');
+                        break;
+                    case '\\':
+                        len = append(len, '\\');
+                        break;
+                    case '/':
+                        len = append(len, '/');
+                        break;
+                    case '"':
+                        len = append(len, '"');
+                        break;
+                    case 't':
+                        len = append(len, '\t');
+                        break;
+                    case 'u': // unicode char parse
+                        int value = 0;
+                        for (int i = 0; i < 4; i++) {
+                            value = (value << 4) + Character.digit((char) read(), 16);
+                        }
+                        len = append(len, (char) value);
+                        break;
+                }
+            } else {
+                len = append(len, ch);
+            }
+        }
+    }
+
+    private int append(int len, char c) {
+        if (len == chars.length) {
+            char[] newChars = new char[chars.length << 1];
+            System.arraycopy(chars, 0, newChars, 0, len);
+            chars = newChars;
+        }
+        chars[len] = c;
+        return len + 1;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (isEnd()) {
+            return -1;
+        }
+        int i = 0;
+        while (i < len && !isEnd()) {
+            cbuf[off + i] = (char) read();
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public void close() {
+        if (source != null) {
+            try {
+                source.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.firefly.utils.json.parser;
+
+import com.firefly.utils.json.JsonArray;
+import com.firefly.utils.json.JsonObject;
+import com.firefly.utils.json.exception.JsonException;
+import com.firefly.utils.json.support.JsonStructuralIndex;
+import com.firefly.utils.json.support.LazyJsonArray;
+import com.firefly.utils.json.support.LazyJsonObject;
+
+/**
+ * Parse the JSON object and array lazily. It builds the structural index of the document in one pass,
+ * and the fields are parsed only when they are accessed. It is faster than the {@link GeneralJSONObjectStateMacine}
+ * when only a few fields of a large document are read.
+ * <p>
+ * The caller chooses the lazy mode per call, e.g. {@link com.firefly.utils.json.Json#toLazyJsonObject(String)}.
+ *
+ * @author Pengtao Qiu
+ */
+abstract public class LazyJSONObjectStateMachine {
+
+    public static JsonObject toJsonObject(String json) {
+        return toJsonObject(json.toCharArray());
+    }
+
+    public static JsonArray toJsonArray(String json) {
+        return toJsonArray(json.toCharArray());
+    }
+
+    public static JsonObject toJsonObject(char[] json) {
+        JsonStructuralIndex index = new JsonStructuralIndex(json);
+        int start = index.skipBlank(0);
+        if (start >= index.getChars().length || index.getChars()[start] != '{') {
+            throw new JsonException("It is not a JSON object, the position is " + start);
+        }
+        return new LazyJsonObject(index, start, index.closeOf(start));
+    }
+
+    public static JsonArray toJsonArray(char[] json) {
+        JsonStructuralIndex index = new JsonStructuralIndex(json);
+        int start = index.skipBlank(0);
+        if (start >= index.getChars().length || index.getChars()[start] != '[') {
+            throw new JsonException("It is not a JSON array, the position is " + start);
+        }
+        return new LazyJsonArray(index, start, index.closeOf(start));
+    }
+}
@@ -4,6 +4,8 @@ import com.firefly.utils.exception.CommonRuntimeException;
 import com.firefly.utils.json.JsonReader;
 import com.firefly.utils.json.Parser;
 import com.firefly.utils.json.compiler.DecodeCompiler;
+import com.firefly.utils.json.compiler.FieldIndex;
+import com.firefly.utils.json.compiler.JavassistCodecCompiler;
 import com.firefly.utils.json.exception.JsonException;
 import com.firefly.utils.json.support.ParserMetaInfo;
 
@@ -17,10 +19,14 @@ public class ObjectParser implements Parser {
     private int max;
     private Map<String, ParserMetaInfo> map;
     private boolean useMap;
+    private FieldIndex fieldIndex;
 
     public void init(Class<?> clazz, Type type) {
         parserMetaInfos = DecodeCompiler.compile(clazz, type);
         max = parserMetaInfos.length - 1;
+        if (JavassistCodecCompiler.enable) {
+            fieldIndex = JavassistCodecCompiler.createFieldIndex(clazz, parserMetaInfos);
+        }
         if (max >= 8) {
             map = new HashMap<>();
             for (ParserMetaInfo parserMetaInfo : parserMetaInfos) {
@@ -104,7 +110,10 @@ public class ObjectParser implements Parser {
     }
 
     private ParserMetaInfo find(char[] field) {
-        if (useMap) {
+        if (fieldIndex != null) {
+            int index = fieldIndex.indexOf(field);
+            return index >= 0 ? parserMetaInfos[index] : null;
+        } else if (useMap) {
             return map.get(new String(field));
         } else {
             for (ParserMetaInfo parserMetaInfo : parserMetaInfos) {
@@ -0,0 +1,182 @@
+package com.firefly.utils.json.support;
+
+import com.firefly.utils.json.exception.JsonException;
+import com.firefly.utils.json.io.JsonStringReader;
+
+import java.util.Arrays;
+
+/**
+ * The structural index of a JSON document. It scans the document once and records the positions of
+ * the object and array brackets and their matched closing brackets, so that the lazy JSON object and array
+ * skip the nested values without parsing them.
+ *
+ * @author Pengtao Qiu
+ */
+public class JsonStructuralIndex {
+
+    private final char[] chars;
+    private int[] opens;
+    private int[] closes;
+    private int size;
+
+    public JsonStructuralIndex(char[] chars) {
+        this.chars = chars;
+        this.opens = new int[16];
+        this.closes = new int[16];
+        build();
+    }
+
+    private void build() {
+        int[] stack = new int[16];
+        int depth = 0;
+        int i = 0;
+        while (i < chars.length) {
+            char ch = chars[i];
+            switch (ch) {
+                case '"':
+                    i = endOfString(i);
+                    break;
+                case '{':
+                case '[':
+                    if (size == opens.length) {
+                        opens = Arrays.copyOf(opens, size << 1);
+                        closes = Arrays.copyOf(closes, size << 1);
+                    }
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth << 1);
+                    }
+                    opens[size] = i;
+                    closes[size] = -1;
+                    stack[depth++] = size++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        throw new JsonException("The bracket is not matched, the position is " + i);
+                    }
+                    int index = stack[--depth];
+                    if ((chars[opens[index]] == '{') != (ch == '}')) {
+                        throw new JsonException("The bracket is not matched, the position is " + i);
+                    }
+                    closes[index] = i;
+                    break;
+            }
+            i++;
+        }
+        if (depth != 0) {
+            throw new JsonException("The bracket is not closed, the position is " + opens[stack[depth - 1]]);
+        }
+    }
+
+    public char[] getChars() {
+        return chars;
+    }
+
+    /**
+     * Get the position of the closing bracket.
+     *
+     * @param open The position of the opening bracket.
+     * @return The position of the matched closing bracket.
+     */
+    public int closeOf(int open) {
+        int index = Arrays.binarySearch(opens, 0, size, open);
+        if (index < 0) {
+            throw new JsonException("It is not an object or array, the position is " + open);
+        }
+        return closes[index];
+    }
+
+    /**
+     * Get the position of the closing quote.
+     *
+     * @param open The position of the opening quote.
+     * @return The position of the closing quote.
+     */
+    public int endOfString(int open) {
+        int i = open + 1;
+        while (i < chars.length) {
+            char ch = chars[i];
+            if (ch == '"') {
+                return i;
+            } else if (ch == '\\') {
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        throw new JsonException("The string is not closed, the position is " + open);
+    }
+
+    /**
+     * Get the end position of the value.
+     *
+     * @param start The start position of the value.
+     * @return The position after the last character of the value.
+     */
+    public int endOfValue(int start) {
+        switch (chars[start]) {
+            case '{':
+            case '[':
+                return closeOf(start) + 1;
+            case '"':
+                return endOfString(start) + 1;
+            default:
+                int i = start;
+                while (i < chars.length) {
+                    char ch = chars[i];
+                    if (ch == ',' || ch == '}' || ch == ']' || ch <= ' ') {
+                        break;
+                    }
+                    i++;
+                }
+                if (i == start) {
+                    throw new JsonException("The value is empty, the position is " + start);
+                }
+                return i;
+        }
+    }
+
+    public int skipBlank(int i) {
+        while (i < chars.length && chars[i] <= ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Materialize the value. The object and array are lazy, the string is unescaped,
+     * and the other values are returned as the original text.
+     *
+     * @param start The start position of the value.
+     * @param end   The position after the last character of the value.
+     * @return The value.
+     */
+    public Object getValue(int start, int end) {
+        switch (chars[start]) {
+            case '{':
+                return new LazyJsonObject(this, start, end - 1);
+            case '[':
+                return new LazyJsonArray(this, start, end - 1);
+            case '"':
+                return getString(start, end - 1);
+            default:
+                return new String(chars, start, end - start);
+        }
+    }
+
+    /**
+     * Unescape the string.
+     *
+     * @param open  The position of the opening quote.
+     * @param close The position of the closing quote.
+     * @return The string.
+     */
+    public String getString(int open, int close) {
+        for (int i = open + 1; i < close; i++) {
+            if (chars[i] == '\\') {
+                return new JsonStringReader(new String(chars, open, close - open + 1)).readString();
+            }
+        }
+        return new String(chars, open + 1, close - open - 1);
+    }
+}
@@ -0,0 +1,322 @@
+package com.firefly.utils.json.support;
+
+import com.firefly.utils.json.JsonArray;
+import com.firefly.utils.json.exception.JsonException;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The JSON array that parses the element positions when it is accessed first time, and materializes an element
+ * when the element is got. The nested objects and arrays are also lazy. The get, size and isEmpty methods
+ * read the structural index, and the other methods materialize all elements into the list first.
+ * <p>
+ * The syntax errors of the unread elements are not detected. It is not thread safe, even for reading.
+ *
+ * @author Pengtao Qiu
+ */
+public class LazyJsonArray extends JsonArray {
+
+    private static final long serialVersionUID = -2870528146093591765L;
+
+    private transient JsonStructuralIndex index;
+    private transient int start;
+    private transient int end;
+
+    private transient int elementSize = -1;
+    private transient int[] elementStarts;
+    private transient int[] elementEnds;
+    private transient Object[] elements;
+
+    /**
+     * Create a lazy JSON array.
+     *
+     * @param index The structural index of the JSON document.
+     * @param start The position of the '['.
+     * @param end   The position of the ']'.
+     */
+    public LazyJsonArray(JsonStructuralIndex index, int start, int end) {
+        this.index = index;
+        this.start = start;
+        this.end = end;
+    }
+
+    private void parseElements() {
+        if (elementSize >= 0) {
+            return;
+        }
+
+        char[] chars = index.getChars();
+        int[] starts = new int[8];
+        int[] ends = new int[8];
+        int n = 0;
+        int i = index.skipBlank(start + 1);
+        if (i < end) {
+            while (true) {
+                if (n == starts.length) {
+                    starts = Arrays.copyOf(starts, n << 1);
+                    ends = Arrays.copyOf(ends, n << 1);
+                }
+                starts[n] = i;
+                ends[n] = index.endOfValue(i);
+                i = index.skipBlank(ends[n]);
+                n++;
+
+                if (i == end) {
+                    break;
+                } else if (chars[i] == ',') {
+                    i = index.skipBlank(i + 1);
+                } else {
+                    throw new JsonException("The error is at position " + i);
+                }
+            }
+        }
+
+        elementStarts = starts;
+        elementEnds = ends;
+        elements = new Object[n];
+        elementSize = n;
+    }
+
+    private boolean isLazy() {
+        return index != null;
+    }
+
+    /**
+     * Add all elements into the list and release the structural index.
+     */
+    public void materialize() {
+        if (!isLazy()) {
+            return;
+        }
+        parseElements();
+        super.ensureCapacity(elementSize);
+        for (int i = 0; i < elementSize; i++) {
+            super.add(get(i));
+        }
+        index = null;
+        elementStarts = null;
+        elementEnds = null;
+        elements = null;
+    }
+
+    @Override
+    public Object get(int i) {
+        if (isLazy()) {
+            parseElements();
+            if (i < 0 || i >= elementSize) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + elementSize);
+            }
+            Object element = elements[i];
+            if (element == null) {
+                element = index.getValue(elementStarts[i], elementEnds[i]);
+                elements[i] = element;
+            }
+            return element;
+        } else {
+            return super.get(i);
+        }
+    }
+
+    @Override
+    public int size() {
+        if (isLazy()) {
+            parseElements();
+            return elementSize;
+        } else {
+            return super.size();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void trimToSize() {
+        materialize();
+        super.trimToSize();
+    }
+
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        materialize();
+        super.ensureCapacity(minCapacity);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        materialize();
+        return super.contains(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        materialize();
+        return super.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        materialize();
+        return super.lastIndexOf(o);
+    }
+
+    @Override
+    public Object clone() {
+        materialize();
+        return super.clone();
+    }
+
+    @Override
+    public Object[] toArray() {
+        materialize();
+        return super.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        materialize();
+        return super.toArray(a);
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        materialize();
+        return super.set(index, element);
+    }
+
+    @Override
+    public boolean add(Object o) {
+        materialize();
+        return super.add(o);
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        materialize();
+        super.add(index, element);
+    }
+
+    @Override
+    public Object remove(int index) {
+        materialize();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        materialize();
+        return super.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        materialize();
+        super.clear();
+    }
+
+    @Override
+    public boolean addAll(Collection<?> c) {
+        materialize();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<?> c) {
+        materialize();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        materialize();
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        materialize();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        materialize();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public ListIterator<Object> listIterator(int index) {
+        materialize();
+        return super.listIterator(index);
+    }
+
+    @Override
+    public ListIterator<Object> listIterator() {
+        materialize();
+        return super.listIterator();
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        materialize();
+        return super.iterator();
+    }
+
+    @Override
+    public List<Object> subList(int fromIndex, int toIndex) {
+        materialize();
+        return super.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Object> action) {
+        materialize();
+        super.forEach(action);
+    }
+
+    @Override
+    public Spliterator<Object> spliterator() {
+        materialize();
+        return super.spliterator();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Object> filter) {
+        materialize();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Object> operator) {
+        materialize();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super Object> c) {
+        materialize();
+        super.sort(c);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        materialize();
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        materialize();
+        return super.hashCode();
+    }
+
+    private Object writeReplace() {
+        materialize();
+        return this;
+    }
+}
@@ -0,0 +1,340 @@
+package com.firefly.utils.json.support;
+
+import com.firefly.utils.json.JsonObject;
+import com.firefly.utils.json.exception.JsonException;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The JSON object that parses the fields when it is accessed first time, and materializes a value
+ * when the value is got. The nested objects and arrays are also lazy. The get, containsKey, size and isEmpty
+ * methods read the structural index, and the other methods materialize all fields into the map first.
+ * <p>
+ * The syntax errors of the unread fields are not detected. It is not thread safe, even for reading.
+ *
+ * @author Pengtao Qiu
+ */
+public class LazyJsonObject extends JsonObject {
+
+    private static final long serialVersionUID = 7431956102431530583L;
+    private static final int LINEAR_SEARCH_THRESHOLD = 8;
+
+    private transient JsonStructuralIndex index;
+    private transient int start;
+    private transient int end;
+
+    private transient int fieldSize = -1;
+    private transient String[] keys;
+    private transient int[] valueStarts;
+    private transient int[] valueEnds;
+    private transient Object[] values;
+    private transient Map<String, Integer> keyMap;
+
+    /**
+     * Create a lazy JSON object.
+     *
+     * @param index The structural index of the JSON document.
+     * @param start The position of the '{'.
+     * @param end   The position of the '}'.
+     */
+    public LazyJsonObject(JsonStructuralIndex index, int start, int end) {
+        this.index = index;
+        this.start = start;
+        this.end = end;
+    }
+
+    private void parseFields() {
+        if (fieldSize >= 0) {
+            return;
+        }
+
+        char[] chars = index.getChars();
+        List<String> keyList = new ArrayList<>();
+        int[] starts = new int[8];
+        int[] ends = new int[8];
+        int n = 0;
+        int i = index.skipBlank(start + 1);
+        if (i < end) {
+            while (true) {
+                if (chars[i] != '"') {
+                    throw new JsonException("The field name is not a string, the position is " + i);
+                }
+                int keyEnd = index.endOfString(i);
+                keyList.add(index.getString(i, keyEnd));
+                i = index.skipBlank(keyEnd + 1);
+                if (chars[i] != ':') {
+                    throw new JsonException("The error occur, near by the key \"" + keyList.get(n) + "\", the position is " + i);
+                }
+                i = index.skipBlank(i + 1);
+                if (n == starts.length) {
+                    starts = Arrays.copyOf(starts, n << 1);
+                    ends = Arrays.copyOf(ends, n << 1);
+                }
+                starts[n] = i;
+                ends[n] = index.endOfValue(i);
+                i = index.skipBlank(ends[n]);
+                n++;
+
+                if (i == end) {
+                    break;
+                } else if (chars[i] == ',') {
+                    i = index.skipBlank(i + 1);
+                } else {
+                    throw new JsonException("The error is at position " + i);
+                }
+            }
+        }
+
+        keys = keyList.toArray(new String[n]);
+        valueStarts = starts;
+        valueEnds = ends;
+        values = new Object[n];
+        if (n > LINEAR_SEARCH_THRESHOLD) {
+            keyMap = new HashMap<>(n << 1);
+            for (int j = 0; j < n; j++) {
+                keyMap.put(keys[j], j);
+            }
+        }
+        fieldSize = n;
+    }
+
+    private int indexOf(Object key) {
+        parseFields();
+        if (keyMap != null) {
+            Integer i = keyMap.get(key);
+            return i == null ? -1 : i;
+        } else {
+            // the last duplicate field overrides the previous one like the map
+            for (int i = fieldSize - 1; i >= 0; i--) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private Object getValue(int i) {
+        Object value = values[i];
+        if (value == null) {
+            value = index.getValue(valueStarts[i], valueEnds[i]);
+            values[i] = value;
+        }
+        return value;
+    }
+
+    private boolean isLazy() {
+        return index != null;
+    }
+
+    /**
+     * Put all fields into the map and release the structural index.
+     */
+    public void materialize() {
+        if (!isLazy()) {
+            return;
+        }
+        parseFields();
+        for (int i = 0; i < fieldSize; i++) {
+            super.put(keys[i], getValue(i));
+        }
+        index = null;
+        keys = null;
+        valueStarts = null;
+        valueEnds = null;
+        values = null;
+        keyMap = null;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (isLazy()) {
+            int i = indexOf(key);
+            return i < 0 ? null : getValue(i);
+        } else {
+            return super.get(key);
+        }
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        if (isLazy()) {
+            int i = indexOf(key);
+            return i < 0 ? defaultValue : getValue(i);
+        } else {
+            return super.getOrDefault(key, defaultValue);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (isLazy()) {
+            return indexOf(key) >= 0;
+        } else {
+            return super.containsKey(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        if (isLazy()) {
+            parseFields();
+            if (keyMap != null) {
+                return keyMap.size();
+            }
+            int size = 0;
+            for (int i = 0; i < fieldSize; i++) {
+                if (indexOf(keys[i]) == i) {
+                    size++;
+                }
+            }
+            return size;
+        } else {
+            return super.size();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (isLazy()) {
+            parseFields();
+            return fieldSize == 0;
+        } else {
+            return super.isEmpty();
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        materialize();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        materialize();
+        return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        materialize();
+        super.putAll(m);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        materialize();
+        return super.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        materialize();
+        super.clear();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        materialize();
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        materialize();
+        return super.values();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        materialize();
+        return super.entrySet();
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        materialize();
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        materialize();
+        return super.remove(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        materialize();
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        materialize();
+        return super.replace(key, value);
+    }
+
+    @Override
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        materialize();
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        materialize();
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        materialize();
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        materialize();
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        materialize();
+        super.forEach(action);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        materialize();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Object clone() {
+        materialize();
+        return super.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        materialize();
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        materialize();
+        return super.hashCode();
+    }
+
+    private Object writeReplace() {
+        materialize();
+        return this;
+    }
+}
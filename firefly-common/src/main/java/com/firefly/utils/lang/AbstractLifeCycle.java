@@ -2,12 +2,12 @@ package com.firefly.utils.lang;
 
 import com.firefly.utils.function.Action0;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class AbstractLifeCycle implements LifeCycle {
 
-    protected static final List<Action0> stopActions = new CopyOnWriteArrayList<>();
+    protected static final Set<Action0> stopActions = ConcurrentHashMap.newKeySet();
 
     static {
         try {
@@ -28,9 +28,10 @@ public abstract class AbstractLifeCycle implements LifeCycle {
     }
 
     protected volatile boolean start;
+    private final Action0 stopAction = this::stop;
 
     public AbstractLifeCycle() {
-        stopActions.add(this::stop);
+        stopActions.add(stopAction);
     }
 
     @Override
@@ -68,6 +69,7 @@ public abstract class AbstractLifeCycle implements LifeCycle {
 
             destroy();
             start = false;
+            stopActions.remove(stopAction);
         }
     }
 
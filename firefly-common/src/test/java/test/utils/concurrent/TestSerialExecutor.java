@@ -0,0 +1,60 @@
+package test.utils.concurrent;
+
+import com.firefly.utils.concurrent.SerialExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestSerialExecutor {
+
+    @Test
+    public void test() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        SerialExecutor executor = new SerialExecutor(pool);
+        int maxTask = 10000;
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(maxTask);
+        for (int i = 0; i < maxTask; i++) {
+            int index = i;
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                executed.add(index);
+                running.decrementAndGet();
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertThat(maxRunning.get(), is(1));
+        for (int i = 0; i < maxTask; i++) {
+            Assert.assertThat(executed.get(i), is(i));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testException() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        SerialExecutor executor = new SerialExecutor(pool);
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(() -> {
+            throw new IllegalStateException("test exception");
+        });
+        executor.execute(latch::countDown);
+        Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,80 @@
+package test.utils.io;
+
+import com.firefly.utils.io.BufferUtils;
+import com.firefly.utils.io.CompositeByteBuffer;
+import com.firefly.utils.io.IO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestCompositeByteBuffer {
+
+    private static final String TEXT = "hello 你好 😀 composite buffer, 中文字符 test";
+
+    private CompositeByteBuffer split(byte[] bytes, int size, boolean direct) {
+        CompositeByteBuffer compositeByteBuffer = new CompositeByteBuffer();
+        for (int i = 0; i < bytes.length; i += size) {
+            int length = Math.min(size, bytes.length - i);
+            ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+            buffer.put(bytes, i, length).flip();
+            compositeByteBuffer.add(buffer.asReadOnlyBuffer());
+            Assert.assertThat(buffer.position(), is(0));
+        }
+        return compositeByteBuffer;
+    }
+
+    @Test
+    public void testToString() {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        for (int size = 1; size <= bytes.length; size++) {
+            CompositeByteBuffer compositeByteBuffer = split(bytes, size, size % 2 == 0);
+            Assert.assertThat(compositeByteBuffer.remaining(), is((long) bytes.length));
+            Assert.assertThat(compositeByteBuffer.toString(StandardCharsets.UTF_8), is(TEXT));
+        }
+
+        byte[] utf16 = TEXT.getBytes(StandardCharsets.UTF_16);
+        Assert.assertThat(split(utf16, 3, false).toString(StandardCharsets.UTF_16), is(TEXT));
+        Assert.assertThat(new CompositeByteBuffer().toString(StandardCharsets.UTF_8), is(""));
+    }
+
+    @Test
+    public void testInputStream() throws IOException {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        CompositeByteBuffer compositeByteBuffer = split(bytes, 5, true);
+        try (InputStream in = compositeByteBuffer.getInputStream()) {
+            Assert.assertThat(in.available(), is(bytes.length));
+            Assert.assertThat(in.read(), is(bytes[0] & 0xFF));
+            Assert.assertThat(in.skip(6), is(6L));
+            Assert.assertThat(IO.readBytes(in), is(Arrays.copyOfRange(bytes, 7, bytes.length)));
+            Assert.assertThat(in.read(), is(-1));
+        }
+        // every stream reads from the beginning
+        Assert.assertThat(IO.toString(compositeByteBuffer.getInputStream(), "UTF-8"), is(TEXT));
+    }
+
+    @Test
+    public void testByteBuffers() {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        CompositeByteBuffer compositeByteBuffer = split(bytes, 7, false);
+        compositeByteBuffer.add(BufferUtils.EMPTY_BUFFER);
+        ByteBuffer[] buffers = compositeByteBuffer.getByteBuffers();
+        Assert.assertThat(buffers.length, is(compositeByteBuffer.size()));
+        Assert.assertThat(buffers[0].isReadOnly(), is(true));
+        Assert.assertThat(BufferUtils.toString(Arrays.asList(buffers), "UTF-8"), is(TEXT));
+        Assert.assertThat(BufferUtils.toString(compositeByteBuffer.getByteBufferList(), "UTF-8"), is(TEXT));
+
+        compositeByteBuffer.clear();
+        Assert.assertThat(compositeByteBuffer.hasRemaining(), is(false));
+        Assert.assertThat(compositeByteBuffer.getByteBuffers().length, is(0));
+    }
+}
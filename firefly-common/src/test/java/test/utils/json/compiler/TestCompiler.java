@@ -1,9 +1,15 @@
 package test.utils.json.compiler;
 
+import com.firefly.utils.json.Json;
 import com.firefly.utils.json.Parser;
 import com.firefly.utils.json.compiler.DecodeCompiler;
 import com.firefly.utils.json.compiler.EncodeCompiler;
+import com.firefly.utils.json.compiler.JavassistCodecCompiler;
+import com.firefly.utils.json.io.JsonStringReader;
+import com.firefly.utils.json.io.JsonStringWriter;
 import com.firefly.utils.json.parser.CollectionParser;
+import com.firefly.utils.json.parser.ObjectParser;
+import com.firefly.utils.json.serializer.ObjectSerializer;
 import com.firefly.utils.json.support.ParserMetaInfo;
 import com.firefly.utils.json.support.SerializerMetaInfo;
 import org.junit.Assert;
@@ -11,7 +17,11 @@ import org.junit.Test;
 import test.utils.json.CollectionObj;
 import test.utils.json.Group;
 import test.utils.json.SimpleObj;
+import test.utils.json.github.JsonBenchmark;
+import test.utils.json.github.Media;
+import test.utils.json.github.Player;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 
@@ -51,4 +61,50 @@ public class TestCompiler {
         }
     }
 
+    @Test
+    public void testJavassistCodec() throws IOException {
+        boolean enable = JavassistCodecCompiler.enable;
+        JavassistCodecCompiler.enable = true;
+        try {
+            ParserMetaInfo[] p = DecodeCompiler.compile(Media.class, Media.class);
+            SerializerMetaInfo[] s = EncodeCompiler.compile(Media.class);
+            for (int i = 0; i < p.length; i++) {
+                Assert.assertThat(p[i].getClass() == ParserMetaInfo.class, is(false));
+                Assert.assertThat(s[i].getClass() == SerializerMetaInfo.class, is(false));
+                Assert.assertThat(p[i].getPropertyNameString(), is(s[i].getPropertyNameString()));
+                // one parser and one serializer are generated for the class, not one class per property
+                Assert.assertThat(p[i].getClass() == p[0].getClass(), is(true));
+                Assert.assertThat(s[i].getClass() == s[0].getClass(), is(true));
+            }
+
+            ObjectSerializer serializer = new ObjectSerializer();
+            serializer.init(Media.class);
+            ObjectParser parser = new ObjectParser();
+            parser.init(Media.class, Media.class);
+
+            Media media = JsonBenchmark.createRecord().getMedia();
+            String json = Json.toJson(media);
+            try (JsonStringWriter writer = new JsonStringWriter()) {
+                serializer.convertTo(writer, media);
+                Assert.assertThat(writer.toString(), is(json));
+            }
+
+            // the reverse order fields are found by the field index
+            String reverseJson = "{\"width\":640,\"uri\":\"testURL\",\"unknown\":[1,2],\"title\":\"Javaone\",\"size\":58982400," +
+                    "\"player\":\"JAVA\",\"persons\":[\"Bill Gates\"],\"height\":480,\"format\":\"video/mpg4\"," +
+                    "\"duration\":18000000,\"copyright\":null,\"bitrate\":262144}";
+            for (String str : new String[]{json, reverseJson}) {
+                Media m = (Media) parser.convertTo(new JsonStringReader(str), Media.class);
+                Assert.assertThat(Json.toJson(m), is(Json.toJson(Json.toObject(str, Media.class))));
+            }
+            Media m = (Media) parser.convertTo(new JsonStringReader(reverseJson), Media.class);
+            Assert.assertThat(m.getWidth(), is(640));
+            Assert.assertThat(m.getSize(), is(58982400L));
+            Assert.assertThat(m.getPlayer(), is(Player.JAVA));
+            Assert.assertThat(m.getPersons().get(0), is("Bill Gates"));
+        } finally {
+            JavassistCodecCompiler.enable = enable;
+        }
+    }
+
 }
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.firefly.utils.function.Action1;
 import com.firefly.utils.function.Func1;
 import com.firefly.utils.json.Json;
+import com.firefly.utils.json.compiler.JavassistCodecCompiler;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -53,6 +54,9 @@ public class JsonBenchmark {
 
     public static void main(String[] args) throws Throwable {
         final int times = 1000 * 1000 * 2;
+        // run with the argument "compiled" to compare the generated codecs with the jackson
+        JavassistCodecCompiler.enable = args.length > 0 && "compiled".equals(args[0]);
+        System.out.println("firefly generated codecs: " + JavassistCodecCompiler.enable);
 
         System.out.println("warm up start");
         benchmark(times / 2);
@@ -3,7 +3,11 @@ package test.utils.json.parser;
 import com.firefly.utils.json.Json;
 import com.firefly.utils.json.JsonArray;
 import com.firefly.utils.json.JsonObject;
+import com.firefly.utils.json.JsonReader;
+import com.firefly.utils.json.exception.JsonException;
+import com.firefly.utils.json.io.JsonByteReader;
 import com.firefly.utils.json.io.JsonStringWriter;
+import com.firefly.utils.json.support.LazyJsonObject;
 import com.firefly.utils.lang.GenericTypeReference;
 import com.firefly.utils.lang.Pair;
 import com.firefly.utils.time.SafeSimpleDateFormat;
@@ -12,12 +16,16 @@ import org.junit.Test;
 import test.utils.json.*;
 import test.utils.json.BookDemo.TestBook;
 import test.utils.json.BookDemo.TestBook2;
+import test.utils.json.github.JsonBenchmark;
 import test.utils.json.github.MediaContent;
 import test.utils.json.github.Player;
 import test.utils.json.github.Size;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
@@ -131,6 +139,38 @@ public class TestParser {
         Assert.assertThat(temp.getHeight(), is(33.24));
     }
 
+    @Test
+    public void testByteReader() {
+        String jsonStr = "{\"id\":33442,\"date\":null,\"add1\":{}, \"add2\":{}, \"add3\":{}, \"add4\":{}, \"add5\":null,\"add6\":\"sdfsdf\",\"contact2\":{}, \"number\":30,\"height\":\" 33.24 \",\"name\":\"\u4e2d\u6587\\nAlvin\ud83d\ude00\\u0041\",\"type\":null,\"weight\":40.3}";
+        byte[] bytes = jsonStr.getBytes(StandardCharsets.UTF_8);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (byte b : bytes) {
+            buffers.add(ByteBuffer.wrap(new byte[]{b}));
+        }
+        List<JsonReader> readers = Arrays.asList(
+                new JsonByteReader(bytes),
+                new JsonByteReader(ByteBuffer.wrap(bytes)),
+                new JsonByteReader(buffers),
+                new JsonByteReader(new ByteArrayInputStream(bytes), 16));
+        for (JsonReader reader : readers) {
+            SimpleObj temp = Json.toObject(reader, SimpleObj.class);
+            Assert.assertThat(temp.getName(), is("\u4e2d\u6587\nAlvin\ud83d\ude00A"));
+            Assert.assertThat(temp.getId(), is(33442));
+            Assert.assertThat(temp.getWeight(), is(40.3F));
+            Assert.assertThat(temp.getHeight(), is(33.24));
+        }
+
+        JsonObject jsonObject = Json.toJsonObject(new JsonByteReader(new ByteArrayInputStream(bytes), 16));
+        Assert.assertThat(jsonObject.getString("name"), is("\u4e2d\u6587\nAlvin\ud83d\ude00A"));
+        Assert.assertThat(jsonObject.getInteger("number"), is(30));
+
+        String arrayStr = Json.toJson(Arrays.asList(1, 2, 3));
+        JsonArray jsonArray = Json.toJsonArray(new JsonByteReader(arrayStr.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertThat(jsonArray.size(), is(3));
+        Assert.assertThat(jsonArray.getInteger(2), is(3));
+    }
+
     @Test
     public void test4() {
         SimpleObj2 so2 = new SimpleObj2();
@@ -672,4 +712,69 @@ public class TestParser {
         Assert.assertThat(t, is(token));
     }
 
+    @Test
+    public void testLazyJsonObject() {
+        String json = Json.toJson(JsonBenchmark.createRecord());
+        JsonObject eager = Json.toJsonObject(json);
+        JsonObject lazy = Json.toLazyJsonObject(json);
+        Assert.assertThat(lazy instanceof LazyJsonObject, is(true));
+        Assert.assertThat(lazy.getJsonObject("media").getString("uri"), is("testURL"));
+        Assert.assertThat(lazy.getJsonObject("media").getLong("size"), is(58982400L));
+        Assert.assertThat(lazy.getJsonObject("media").getJsonArray("persons").getString(1), is("Steve Jobs"));
+        Assert.assertThat(lazy.getJsonArray("images").size(), is(2));
+        Assert.assertThat(lazy.getJsonArray("images").getJsonObject(0).getInteger("width"), is(1024));
+        Assert.assertThat(lazy.getJsonObject("media").getString("title"), is("Javaone Keynote \t Pengtao Qiu \r\n 2017-01-01"));
+        Assert.assertThat(lazy.getJsonObject("media").getJsonObject("copyright"), nullValue());
+        Assert.assertThat(lazy.containsKey("images"), is(true));
+        Assert.assertThat(lazy.get("unknown"), nullValue());
+        Assert.assertThat(lazy.size(), is(eager.size()));
+        Assert.assertThat(lazy, is(eager));
+        Assert.assertThat(eager, is(Json.toLazyJsonObject(json)));
+        Assert.assertThat(Json.toJson(Json.toLazyJsonObject(json)), is(Json.toJson(eager)));
+
+        JsonObject duplicate = Json.toLazyJsonObject(" { \"a\" : 1 , \"b\":{}, \"a\":\"x\\\"y\", \"c\" : [ ] } ");
+        Assert.assertThat(duplicate.size(), is(3));
+        Assert.assertThat(duplicate.getString("a"), is("x\"y"));
+        Assert.assertThat(duplicate.getJsonObject("b").isEmpty(), is(true));
+        Assert.assertThat(duplicate.getJsonArray("c").isEmpty(), is(true));
+        duplicate.put("d", "z");
+        Assert.assertThat(duplicate.size(), is(4));
+        Assert.assertThat(duplicate.getString("a"), is("x\"y"));
+        Assert.assertThat(duplicate.getString("d"), is("z"));
+
+        JsonArray array = Json.toLazyJsonArray("[1, \"a\", {\"b\": [true]}, [2, 3]]");
+        Assert.assertThat(array.size(), is(4));
+        Assert.assertThat(array.getJsonArray(3).getInteger(1), is(3));
+        Assert.assertThat(array.getJsonObject(2).getJsonArray("b").getBoolean(0), is(true));
+        Assert.assertThat(array, is(Json.toJsonArray("[1, \"a\", {\"b\": [true]}, [2, 3]]")));
+        array.add(4);
+        Assert.assertThat(array.getInteger(0), is(1));
+        Assert.assertThat(array.size(), is(5));
+
+        // the UTF-8 bytes are parsed without the string
+        byte[] utf8 = json.getBytes(StandardCharsets.UTF_8);
+        Assert.assertThat(Json.toLazyJsonObject(new JsonByteReader(utf8)), is(eager));
+        Assert.assertThat(Json.toLazyJsonObject(new JsonByteReader(Arrays.asList(
+                ByteBuffer.wrap(utf8, 0, 10), ByteBuffer.wrap(utf8, 10, utf8.length - 10)))), is(eager));
+        byte[] multiByte = "[\"中文\", \"\uD83D\uDE00\", {\"é\": 1}]".getBytes(StandardCharsets.UTF_8);
+        JsonArray multiByteArray = Json.toLazyJsonArray(new JsonByteReader(multiByte));
+        Assert.assertThat(multiByteArray.getString(0), is("中文"));
+        Assert.assertThat(multiByteArray.getString(1), is("\uD83D\uDE00"));
+        Assert.assertThat(multiByteArray.getJsonObject(2).getInteger("é"), is(1));
+
+        String[][] errors = {
+                {"{\"a\": [1}", "The bracket is not matched, the position is 8"},
+                {"{\"a\": 1", "The bracket is not closed, the position is 0"},
+                {"[1, 2]", "It is not a JSON object, the position is 0"}
+        };
+        for (String[] error : errors) {
+            try {
+                Json.toLazyJsonObject(error[0]);
+                Assert.fail();
+            } catch (JsonException e) {
+                Assert.assertThat(e.getMessage(), is(error[1]));
+            }
+        }
+    }
+
 }
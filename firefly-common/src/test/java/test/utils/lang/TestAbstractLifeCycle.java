@@ -0,0 +1,47 @@
+package test.utils.lang;
+
+import com.firefly.utils.lang.AbstractLifeCycle;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestAbstractLifeCycle {
+
+    static class TestLifeCycle extends AbstractLifeCycle {
+
+        static int getStopActionsSize() {
+            return stopActions.size();
+        }
+
+        @Override
+        protected void init() {
+        }
+
+        @Override
+        protected void destroy() {
+        }
+    }
+
+    @Test
+    public void testStopActions() {
+        int size = TestLifeCycle.getStopActionsSize();
+        List<TestLifeCycle> lifeCycles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TestLifeCycle lifeCycle = new TestLifeCycle();
+            lifeCycle.start();
+            lifeCycles.add(lifeCycle);
+        }
+        Assert.assertThat(TestLifeCycle.getStopActionsSize(), is(size + 100));
+
+        lifeCycles.parallelStream().forEach(AbstractLifeCycle::stop);
+        Assert.assertThat(TestLifeCycle.getStopActionsSize(), is(size));
+        lifeCycles.forEach(lifeCycle -> Assert.assertThat(lifeCycle.isStopped(), is(true)));
+    }
+}
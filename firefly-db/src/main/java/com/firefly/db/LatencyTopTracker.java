@@ -14,18 +14,38 @@ import java.util.concurrent.TimeUnit;
  */
 public class LatencyTopTracker {
 
+    private static final Duration LATENCY_THRESHOLD = Duration.ofMillis(25);
+    private static final long LATENCY_THRESHOLD_NANOS = LATENCY_THRESHOLD.toNanos();
+
     private final Top top;
 
     public LatencyTopTracker(MetricRegistry metricRegistry) {
         this.top = Top.builder(10) // 10 positions in the top
-                      .withLatencyThreshold(Duration.ofMillis(25)) // do not care about queries which shorter than 25ms
+                      .withLatencyThreshold(LATENCY_THRESHOLD) // do not care about queries which shorter than 25ms
                       .resetPositionsPeriodicallyByChunks(Duration.ofSeconds(60), 3) // position recorded in the top will take effect 60-80 seconds
                       .build();
         metricRegistry.registerAll(new TopMetricSet("jdbc-query-top", top, TimeUnit.MILLISECONDS, 3));
     }
 
     public void update(String sql, Exception exception, long currentTimestamp, long latencyTime) {
-        top.update(currentTimestamp, latencyTime, TimeUnit.MILLISECONDS, () -> sql +
+        update(sql, exception, currentTimestamp, latencyTime, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Update the top. The fast queries return immediately, and the description of the query is only built
+     * when the query enters the top.
+     *
+     * @param sql              The SQL.
+     * @param exception        The exception of the query, it may be null.
+     * @param currentTimestamp The current time in milliseconds.
+     * @param latency          The latency of the query.
+     * @param unit             The time unit of the latency.
+     */
+    public void update(String sql, Throwable exception, long currentTimestamp, long latency, TimeUnit unit) {
+        if (unit.toNanos(latency) < LATENCY_THRESHOLD_NANOS) {
+            return;
+        }
+        top.update(currentTimestamp, latency, unit, () -> sql +
                 (exception != null ? ("| " + exception.getMessage() + "| ") : "| ") +
                 SafeSimpleDateFormat.defaultDateFormat.format(new Date(currentTimestamp)));
     }
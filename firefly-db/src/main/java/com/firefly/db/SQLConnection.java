@@ -229,6 +229,36 @@ public interface SQLConnection {
      */
     <T> CompletableFuture<T> namedQuery(String sql, Func1<SQLResultSet, T> handler, Object paramObject);
 
+    /**
+     * Query records and emit the bound objects in chunks. The query is executed when the rows are requested first time,
+     * and the cursor only advances as far as the consumer requests, so that it can process millions of rows
+     * in constant memory. Some JDBC drivers only stream the result set in a transaction, such as PostgreSQL.
+     *
+     * @param sql       A SQL that may contain one or more '?' placeholders.
+     * @param clazz     The Class reference of bound object.
+     * @param fetchSize The JDBC fetch size and the max chunk size.
+     * @param handler   The handler receives the chunks of bound objects.
+     * @param params    SQL parameters.
+     * @param <T>       The type of bound object.
+     * @return The stream that requests the rows.
+     */
+    <T> SQLRowStream queryForStream(String sql, Class<T> clazz, int fetchSize, SQLRowHandler<T> handler, Object... params);
+
+    /**
+     * Query records and emit the converted objects in chunks. The query is executed when the rows are requested first time,
+     * and the cursor only advances as far as the consumer requests, so that it can process millions of rows
+     * in constant memory. Some JDBC drivers only stream the result set in a transaction, such as PostgreSQL.
+     *
+     * @param sql       A SQL that may contain one or more '?' placeholders.
+     * @param rowMapper The function that converts the current row to an object. It must not move the cursor.
+     * @param fetchSize The JDBC fetch size and the max chunk size.
+     * @param handler   The handler receives the chunks of converted objects.
+     * @param params    SQL parameters.
+     * @param <T>       The type of converted object.
+     * @return The stream that requests the rows.
+     */
+    <T> SQLRowStream queryForStream(String sql, Func1<Row, T> rowMapper, int fetchSize, SQLRowHandler<T> handler, Object... params);
+
     /**
      * Update records.
      *
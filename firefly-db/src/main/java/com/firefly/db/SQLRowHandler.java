@@ -0,0 +1,31 @@
+package com.firefly.db;
+
+import java.util.List;
+
+/**
+ * Receive the rows of the streaming query. The callbacks are invoked serially in the JDBC executor.
+ *
+ * @author Pengtao Qiu
+ */
+public interface SQLRowHandler<T> {
+
+    /**
+     * Receive a chunk of the converted rows. The chunk size is not greater than the requested row number and the fetch size.
+     *
+     * @param rows The converted rows.
+     */
+    void onRows(List<T> rows);
+
+    /**
+     * The query fails. The cursor has been closed.
+     *
+     * @param t The exception.
+     */
+    void onError(Throwable t);
+
+    /**
+     * The result set has not more rows. The cursor has been closed.
+     */
+    void onComplete();
+
+}
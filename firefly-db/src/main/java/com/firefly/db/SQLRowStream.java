@@ -0,0 +1,24 @@
+package com.firefly.db;
+
+/**
+ * The demand of the streaming query. The query is executed when the rows are requested first time,
+ * and the cursor only advances as far as the consumer requests, so the memory footprint is bounded by the fetch size
+ * and the requested row number.
+ *
+ * @author Pengtao Qiu
+ */
+public interface SQLRowStream {
+
+    /**
+     * Request more rows. The rows are emitted to the {@link SQLRowHandler} asynchronously.
+     *
+     * @param n The row number. It must be positive, the Long.MAX_VALUE means the unbounded demand.
+     */
+    void request(long n);
+
+    /**
+     * Stop emitting rows and close the cursor.
+     */
+    void cancel();
+
+}
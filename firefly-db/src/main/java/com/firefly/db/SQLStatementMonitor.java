@@ -0,0 +1,198 @@
+package com.firefly.db;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.github.rollingmetrics.histogram.HdrBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The monitor records the latency of the SQL statements. Every normalized SQL has a HdrHistogram timer
+ * named "jdbc-statement." + the normalized SQL, and the slow statements are reported by the {@link LatencyTopTracker}.
+ * <p>
+ * The normalized SQL replaces the literals with '?', collapses the whitespace and the parameter lists, so that
+ * the statements only differ in the values share a timer. When the statement number exceeds the max statements,
+ * the new statements are recorded by the timer "jdbc-statement.others".
+ *
+ * @author Pengtao Qiu
+ */
+public class SQLStatementMonitor {
+
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    public static final int DEFAULT_MAX_STATEMENTS = 256;
+    public static final String TIMER_PREFIX = "jdbc-statement.";
+
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+
+    @FunctionalInterface
+    public interface SQLExecution<R> {
+        R execute() throws SQLException;
+    }
+
+    private final MetricRegistry metricRegistry;
+    private final LatencyTopTracker latencyTopTracker;
+    private final int maxStatements;
+    private final Map<String, Timer> sqlTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> normalizedSqlTimers = new ConcurrentHashMap<>();
+    private final Timer othersTimer;
+
+    public SQLStatementMonitor(MetricRegistry metricRegistry) {
+        this(metricRegistry, DEFAULT_MAX_STATEMENTS);
+    }
+
+    public SQLStatementMonitor(MetricRegistry metricRegistry, int maxStatements) {
+        this.metricRegistry = metricRegistry;
+        this.maxStatements = maxStatements;
+        this.latencyTopTracker = new LatencyTopTracker(metricRegistry);
+        this.othersTimer = createTimer(TIMER_PREFIX + "others");
+    }
+
+    /**
+     * Execute the SQL and record the latency.
+     *
+     * @param sql       The SQL.
+     * @param params    The parameters, it is only used by the debug log.
+     * @param execution The SQL execution.
+     * @param <R>       The result type.
+     * @return The result of the execution.
+     * @throws SQLException The SQL exception of the execution.
+     */
+    public <R> R execute(String sql, Object params, SQLExecution<R> execution) throws SQLException {
+        long start = System.nanoTime();
+        Throwable exception = null;
+        try {
+            return execution.execute();
+        } catch (SQLException | RuntimeException e) {
+            exception = e;
+            throw e;
+        } finally {
+            record(sql, params, exception, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record the latency of the SQL.
+     *
+     * @param sql          The SQL.
+     * @param params       The parameters, it is only used by the debug log.
+     * @param exception    The exception of the execution, it may be null.
+     * @param latencyNanos The latency in nanoseconds.
+     */
+    public void record(String sql, Object params, Throwable exception, long latencyNanos) {
+        if (sql == null) {
+            sql = "";
+        }
+        getTimer(sql).update(latencyNanos, TimeUnit.NANOSECONDS);
+        latencyTopTracker.update(sql, exception, System.currentTimeMillis(), latencyNanos, TimeUnit.NANOSECONDS);
+        if (log.isDebugEnabled()) {
+            StringBuilder str = new StringBuilder(sql);
+            if (params instanceof Object[][]) {
+                str.append("|").append(Arrays.deepToString((Object[][]) params));
+            } else if (params instanceof Object[]) {
+                str.append("|").append(Arrays.toString((Object[]) params));
+            }
+            str.append("|").append(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+            log.debug(str.toString());
+        }
+    }
+
+    public Timer getTimer(String sql) {
+        Timer timer = sqlTimers.get(sql);
+        if (timer != null) {
+            return timer;
+        }
+
+        String normalizedSql = normalize(sql);
+        timer = normalizedSqlTimers.get(normalizedSql);
+        if (timer == null) {
+            if (normalizedSqlTimers.size() < maxStatements) {
+                timer = normalizedSqlTimers.computeIfAbsent(normalizedSql, k -> createTimer(TIMER_PREFIX + k));
+            } else {
+                timer = othersTimer;
+            }
+        }
+        if (sqlTimers.size() < maxStatements * 4) {
+            sqlTimers.putIfAbsent(sql, timer);
+        }
+        return timer;
+    }
+
+    private Timer createTimer(String name) {
+        Timer timer = new HdrBuilder().resetReservoirPeriodicallyByChunks(Duration.ofSeconds(60), 3)
+                                      .withSignificantDigits(2)
+                                      .buildTimer();
+        try {
+            return metricRegistry.register(name, timer);
+        } catch (IllegalArgumentException e) {
+            return metricRegistry.timer(name);
+        }
+    }
+
+    /**
+     * Replace the literals with '?', collapse the whitespace and the parameter lists.
+     *
+     * @param sql The SQL.
+     * @return The normalized SQL.
+     */
+    public static String normalize(String sql) {
+        StringBuilder str = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (str.length() > 0 && i < length) {
+                    str.append(' ');
+                }
+            } else if (c == '\'') {
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        i++;
+                    }
+                }
+                i++;
+                str.append('?');
+            } else if (Character.isDigit(c) && !isIdentifierPart(str)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                str.append('?');
+            } else {
+                str.append(c);
+                i++;
+            }
+        }
+        return PARAMETER_LIST.matcher(str).replaceAll("?");
+    }
+
+    private static boolean isIdentifierPart(StringBuilder str) {
+        if (str.length() == 0) {
+            return false;
+        }
+        char c = str.charAt(str.length() - 1);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '`' || c == '"' || c == '.';
+    }
+
+    public LatencyTopTracker getLatencyTopTracker() {
+        return latencyTopTracker;
+    }
+}
@@ -57,6 +57,17 @@ public class JDBCClient extends AbstractLifeCycle implements SQLClient {
         return jdbcHelper.asyncGetConnection().thenApply(c -> new JDBCConnection(jdbcHelper, c));
     }
 
+    /**
+     * Create a writer that coalesces the concurrent single row inserts and updates into JDBC batches.
+     *
+     * @param maxBatchSize The max rows of a batch.
+     * @param maxDelay     The max milliseconds that the first row of a batch waits.
+     * @return The write batcher. Stop it before this client stops.
+     */
+    public JDBCWriteBatcher newWriteBatcher(int maxBatchSize, long maxDelay) {
+        return new JDBCWriteBatcher(jdbcHelper, maxBatchSize, maxDelay);
+    }
+
     @Override
     public <T> CompletableFuture<T> newTransaction(Func1<SQLConnection, CompletableFuture<T>> func1) {
         return getConnection().thenCompose(conn -> conn.inTransaction(func1));
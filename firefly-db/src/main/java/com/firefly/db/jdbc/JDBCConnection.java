@@ -4,11 +4,8 @@ import com.firefly.db.*;
 import com.firefly.db.jdbc.helper.JDBCHelper;
 import com.firefly.db.namedparam.ParsedSql;
 import com.firefly.db.namedparam.PreparedSqlAndValues;
-import com.firefly.utils.BeanUtils;
-import com.firefly.utils.collection.ConcurrentLinkedHashMap;
 import com.firefly.utils.concurrent.Promise.Completable;
 import com.firefly.utils.function.Func1;
-import com.firefly.utils.lang.bean.PropertyAccess;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,9 +15,6 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import static com.firefly.db.namedparam.NamedParameterParser.parseSqlStatement;
-import static com.firefly.db.namedparam.NamedParameterParser.replaceParsedSql;
-
 /**
  * @author Pengtao Qiu
  */
@@ -28,8 +22,6 @@ public class JDBCConnection implements SQLConnection {
 
     private static Logger log = LoggerFactory.getLogger("firefly-system");
 
-    protected static final Map<String, ParsedSql> namedParamCache = new ConcurrentLinkedHashMap<>(true, 256);
-
     private final JDBCHelper jdbcHelper;
     private final Connection connection;
     private final AtomicBoolean autoCommit;
@@ -55,24 +47,16 @@ public class JDBCConnection implements SQLConnection {
         return connection;
     }
 
-    protected static ParsedSql parseSql(String sql) {
-        ParsedSql parsedSql = namedParamCache.get(sql);
-        if (parsedSql == null) {
-            parsedSql = parseSqlStatement(sql);
-            namedParamCache.put(sql, parsedSql);
-        }
-        return parsedSql;
+    protected ParsedSql parseSql(String sql) {
+        return jdbcHelper.getParsedSqlCache().parse(sql);
     }
 
-    protected static PreparedSqlAndValues getPreparedSqlAndValues(String sql, Map<String, Object> paramMap) {
-        return replaceParsedSql(parseSql(sql), paramMap);
+    protected PreparedSqlAndValues getPreparedSqlAndValues(String sql, Map<String, Object> paramMap) {
+        return jdbcHelper.getParsedSqlCache().getPreparedSqlAndValues(sql, paramMap);
     }
 
-    protected static PreparedSqlAndValues getPreparedSqlAndValues(String sql, Object object) {
-        Map<String, PropertyAccess> beanAccess = BeanUtils.getBeanAccess(object.getClass());
-        Map<String, Object> paramMap = new HashMap<>();
-        beanAccess.forEach((name, property) -> paramMap.put(name, property.getValue(object)));
-        return getPreparedSqlAndValues(sql, paramMap);
+    protected PreparedSqlAndValues getPreparedSqlAndValues(String sql, Object object) {
+        return jdbcHelper.getParsedSqlCache().getPreparedSqlAndValues(sql, object);
     }
 
     @Override
@@ -152,7 +136,7 @@ public class JDBCConnection implements SQLConnection {
     public <T> CompletableFuture<T> query(String sql, Func1<SQLResultSet, T> handler, Object... params) {
         return jdbcHelper.async(connection, (conn, helper) -> {
             try {
-                return Optional.ofNullable(helper.getRunner().query(connection, sql, rs -> handler.call(new JDBCResultSet(rs)), params))
+                return Optional.ofNullable(helper.monitor(sql, params, () -> helper.getRunner().query(connection, sql, rs -> handler.call(new JDBCResultSet(rs)), params)))
                                .orElseThrow(RecordNotFound::new);
             } catch (SQLException e) {
                 throw new DBException(e);
@@ -172,6 +156,20 @@ public class JDBCConnection implements SQLConnection {
         return query(preparedSqlAndValues.getPreparedSql(), handler, preparedSqlAndValues.getValues().toArray());
     }
 
+    @Override
+    public <T> SQLRowStream queryForStream(String sql, Class<T> clazz, int fetchSize, SQLRowHandler<T> handler, Object... params) {
+        return new JDBCRowStream<>(jdbcHelper, connection, sql, params, fetchSize,
+                JDBCRowStream.beanRowMapper(jdbcHelper, clazz), handler);
+    }
+
+    @Override
+    public <T> SQLRowStream queryForStream(String sql, Func1<Row, T> rowMapper, int fetchSize, SQLRowHandler<T> handler, Object... params) {
+        return new JDBCRowStream<>(jdbcHelper, connection, sql, params, fetchSize, rs -> {
+            JDBCResultSet row = new JDBCResultSet(rs);
+            return r -> rowMapper.call(row);
+        }, handler);
+    }
+
     @Override
     public CompletableFuture<Integer> update(String sql, Object... params) {
         return jdbcHelper.async(connection, (conn, helper) -> helper.update(connection, sql, params));
@@ -237,7 +235,7 @@ public class JDBCConnection implements SQLConnection {
     public <R> CompletableFuture<R> insertBatch(String sql, Object[][] params, Func1<SQLResultSet, R> handler) {
         return jdbcHelper.async(connection, (conn, helper) -> {
             try {
-                return helper.getRunner().insertBatch(connection, sql, rs -> handler.call(new JDBCResultSet(rs)), params);
+                return helper.monitor(sql, params, () -> helper.getRunner().insertBatch(connection, sql, rs -> handler.call(new JDBCResultSet(rs)), params));
             } catch (SQLException e) {
                 throw new DBException(e);
             }
@@ -253,7 +251,7 @@ public class JDBCConnection implements SQLConnection {
     public CompletableFuture<int[]> executeBatch(String sql, Object[][] params) {
         return jdbcHelper.async(connection, (conn, helper) -> {
             try {
-                return helper.getRunner().batch(connection, sql, params);
+                return helper.monitor(sql, params, () -> helper.getRunner().batch(connection, sql, params));
             } catch (SQLException e) {
                 throw new DBException(e);
             }
@@ -0,0 +1,192 @@
+package com.firefly.db.jdbc;
+
+import com.firefly.db.DBException;
+import com.firefly.db.SQLRowHandler;
+import com.firefly.db.SQLRowStream;
+import com.firefly.db.jdbc.helper.JDBCHelper;
+import com.firefly.db.jdbc.helper.RowMapper;
+import com.firefly.utils.function.Func1;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The streaming query that reads the result set in the JDBC executor. Only one task reads the cursor at a time,
+ * it stops when the requested rows have been emitted and the next request schedules a new task.
+ *
+ * @author Pengtao Qiu
+ */
+public class JDBCRowStream<T> implements SQLRowStream {
+
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    private final JDBCHelper jdbcHelper;
+    private final Connection connection;
+    private final String sql;
+    private final Object[] params;
+    private final int fetchSize;
+    private final Func1<ResultSet, RowMapper<T>> rowMapperFactory;
+    private final SQLRowHandler<T> handler;
+
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable requestError;
+    private boolean done;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private RowMapper<T> rowMapper;
+
+    public JDBCRowStream(JDBCHelper jdbcHelper, Connection connection, String sql, Object[] params, int fetchSize,
+                         Func1<ResultSet, RowMapper<T>> rowMapperFactory, SQLRowHandler<T> handler) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("The fetch size must be positive");
+        }
+        this.jdbcHelper = jdbcHelper;
+        this.connection = connection;
+        this.sql = sql;
+        this.params = params;
+        this.fetchSize = fetchSize;
+        this.rowMapperFactory = rowMapperFactory;
+        this.handler = handler;
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            requestError = new IllegalArgumentException("The requested row number must be positive");
+            schedule();
+            return;
+        }
+
+        long current, next;
+        do {
+            current = demand.get();
+            if (current == Long.MAX_VALUE) {
+                return;
+            }
+            next = current + n;
+            if (next < 0) {
+                next = Long.MAX_VALUE;
+            }
+        } while (!demand.compareAndSet(current, next));
+        schedule();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (wip.getAndIncrement() == 0) {
+            try {
+                jdbcHelper.getExecutorService().submit(this::drain);
+            } catch (Exception e) {
+                wip.set(0);
+                done = true;
+                handler.onError(e);
+            }
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            if (!done) {
+                if (cancelled) {
+                    done = true;
+                    closeCursor();
+                } else if (requestError != null) {
+                    done = true;
+                    closeCursor();
+                    handler.onError(requestError);
+                } else {
+                    try {
+                        emitRows();
+                    } catch (Throwable t) {
+                        log.error("streaming query exception, sql: {}", t, sql);
+                        done = true;
+                        closeCursor();
+                        handler.onError(t);
+                    }
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emitRows() throws SQLException {
+        if (resultSet == null) {
+            openCursor();
+        }
+
+        long requested = demand.get();
+        while (requested > 0 && !cancelled) {
+            int chunkSize = (int) Math.min(requested, fetchSize);
+            List<T> rows = new ArrayList<>(chunkSize);
+            boolean hasNext = true;
+            while (rows.size() < chunkSize && (hasNext = resultSet.next())) {
+                rows.add(rowMapper.mapRow(resultSet));
+            }
+
+            if (!rows.isEmpty()) {
+                if (requested != Long.MAX_VALUE) {
+                    requested = demand.addAndGet(-rows.size());
+                }
+                handler.onRows(rows);
+            }
+
+            if (!hasNext) {
+                done = true;
+                closeCursor();
+                handler.onComplete();
+                return;
+            }
+        }
+    }
+
+    private void openCursor() throws SQLException {
+        statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        jdbcHelper.getRunner().fillStatement(statement, params);
+        resultSet = jdbcHelper.monitor(sql, params, statement::executeQuery);
+        rowMapper = rowMapperFactory.call(resultSet);
+    }
+
+    private void closeCursor() {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (statement != null) {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            log.error("close the streaming query cursor exception", e);
+        } finally {
+            resultSet = null;
+            statement = null;
+        }
+    }
+
+    public static <T> Func1<ResultSet, RowMapper<T>> beanRowMapper(JDBCHelper jdbcHelper, Class<T> clazz) {
+        return rs -> {
+            try {
+                return jdbcHelper.getDefaultBeanProcessor().getRowMapper(rs.getMetaData(), clazz);
+            } catch (SQLException e) {
+                throw new DBException(e);
+            }
+        };
+    }
+
+}
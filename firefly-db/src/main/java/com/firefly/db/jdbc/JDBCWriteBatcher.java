@@ -0,0 +1,319 @@
+package com.firefly.db.jdbc;
+
+import com.codahale.metrics.Histogram;
+import com.firefly.db.jdbc.helper.JDBCHelper;
+import com.firefly.utils.concurrent.Scheduler;
+import com.firefly.utils.concurrent.Schedulers;
+import com.firefly.utils.lang.AbstractLifeCycle;
+import org.apache.commons.dbutils.handlers.ColumnListHandler;
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.firefly.db.jdbc.helper.JDBCConnectionUtils.*;
+
+/**
+ * The writer coalesces the concurrent single row inserts and updates that have the same SQL. The rows are
+ * collected until the batch size reaches the max batch size or the max delay elapses, then the batch executes
+ * on a pooled connection in one transaction. Every caller gets its own update count or generated key.
+ * <p>
+ * If the batch fails, it is rolled back and the rows execute one by one, so that a bad row only fails its own caller.
+ * The inserts also execute one by one when the JDBC driver does not return a generated key for each row of a batch.
+ * <p>
+ * When the writer stops, the pending batches execute immediately, and the rows added after stopping fail
+ * with an IllegalStateException.
+ *
+ * @author Pengtao Qiu
+ */
+public class JDBCWriteBatcher extends AbstractLifeCycle {
+
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_MAX_DELAY = 5L;
+
+    private final JDBCHelper jdbcHelper;
+    private final int maxBatchSize;
+    private final long maxDelay;
+    private final Map<BatchKey, Batch> pendingBatches = new ConcurrentHashMap<>();
+    private final Histogram batchSizeHistogram;
+    private final Scheduler scheduler = Schedulers.createScheduler();
+    // the adding holds the read lock, the stopping holds the write lock
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+    private boolean stopping;
+    private volatile boolean batchGeneratedKeysSupported = true;
+
+    public JDBCWriteBatcher(JDBCHelper jdbcHelper) {
+        this(jdbcHelper, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Create a write batcher.
+     *
+     * @param jdbcHelper   The JDBC helper that provides the connections and the executor.
+     * @param maxBatchSize The max rows of a batch.
+     * @param maxDelay     The max milliseconds that the first row of a batch waits.
+     */
+    public JDBCWriteBatcher(JDBCHelper jdbcHelper, int maxBatchSize, long maxDelay) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("The max batch size must be positive");
+        }
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("The max delay must not be negative");
+        }
+        this.jdbcHelper = jdbcHelper;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.batchSizeHistogram = jdbcHelper.getMetrics().histogram("jdbc.writeBatcher.batchSize");
+        start();
+    }
+
+    /**
+     * Insert a row with the batch of the same SQL.
+     *
+     * @param sql    The insert SQL.
+     * @param params The parameters of the row.
+     * @param <T>    The type of the generated key.
+     * @return The generated key of the row.
+     */
+    public <T> CompletableFuture<T> insert(String sql, Object... params) {
+        return add(new BatchKey(sql, true), params);
+    }
+
+    /**
+     * Update a row with the batch of the same SQL. The update count comes from the batch result of the JDBC driver,
+     * it may be {@link java.sql.Statement#SUCCESS_NO_INFO} (-2) when the driver executes the batch successfully
+     * but does not know the number of the updated rows.
+     *
+     * @param sql    The update SQL.
+     * @param params The parameters of the row.
+     * @return The update count of the row, or {@link java.sql.Statement#SUCCESS_NO_INFO}.
+     */
+    public CompletableFuture<Integer> update(String sql, Object... params) {
+        return add(new BatchKey(sql, false), params);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    private <T> CompletableFuture<T> add(BatchKey key, Object[] params) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        stopLock.readLock().lock();
+        try {
+            if (stopping || !isStarted()) {
+                future.completeExceptionally(new IllegalStateException("The write batcher is stopped"));
+            } else {
+                add(key, params, future);
+            }
+        } finally {
+            stopLock.readLock().unlock();
+        }
+        return future;
+    }
+
+    private <T> void add(BatchKey key, Object[] params, CompletableFuture<T> future) {
+        @SuppressWarnings("unchecked")
+        BatchEntry entry = new BatchEntry(params, (CompletableFuture<Object>) future);
+        Batch[] result = new Batch[2]; // 0: the new batch, 1: the full batch
+        pendingBatches.compute(key, (k, batch) -> {
+            if (batch == null) {
+                batch = new Batch(k);
+                result[0] = batch;
+            }
+            batch.entries.add(entry);
+            if (batch.entries.size() >= maxBatchSize) {
+                result[1] = batch;
+                return null;
+            }
+            return batch;
+        });
+
+        if (result[1] != null) {
+            if (result[1].timer != null) {
+                result[1].timer.cancel();
+            }
+            submit(result[1]);
+        } else if (result[0] != null) {
+            Batch batch = result[0];
+            batch.timer = scheduler.schedule(() -> flush(batch), maxDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(Batch batch) {
+        if (pendingBatches.remove(batch.key, batch)) {
+            submit(batch);
+        }
+    }
+
+    private void submit(Batch batch) {
+        try {
+            jdbcHelper.getExecutorService().submit(() -> execute(batch));
+        } catch (Exception e) {
+            batch.entries.forEach(entry -> entry.future.completeExceptionally(e));
+        }
+    }
+
+    private void execute(Batch batch) {
+        List<BatchEntry> entries = batch.entries;
+        batchSizeHistogram.update(entries.size());
+        Object[][] params = new Object[entries.size()][];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = entries.get(i).params;
+        }
+
+        List<?> results;
+        Connection connection = null;
+        try {
+            connection = jdbcHelper.getConnection();
+            setAutoCommit(connection, false);
+            try {
+                if (batch.key.insert && !batchGeneratedKeysSupported) {
+                    results = null;
+                } else {
+                    results = executeBatch(connection, batch.key, params);
+                    if (results.size() == entries.size()) {
+                        commit(connection);
+                    } else {
+                        // the driver does not return a generated key for each row of the batch
+                        log.warn("the JDBC driver returns {} generated keys for {} rows, the inserts execute one by one", results.size(), entries.size());
+                        batchGeneratedKeysSupported = false;
+                        rollback(connection);
+                        results = null;
+                    }
+                }
+            } catch (Throwable t) {
+                log.error("write batch exception, sql: {}, size: {}", t, batch.key.sql, entries.size());
+                rollback(connection);
+                results = null;
+            } finally {
+                setAutoCommit(connection, true);
+            }
+
+            if (results != null) {
+                for (int i = 0; i < entries.size(); i++) {
+                    entries.get(i).future.complete(results.get(i));
+                }
+            } else {
+                executeOneByOne(connection, batch.key, entries);
+            }
+        } catch (Throwable t) {
+            entries.forEach(entry -> entry.future.completeExceptionally(t));
+        } finally {
+            if (connection != null) {
+                close(connection);
+            }
+        }
+    }
+
+    private List<?> executeBatch(Connection connection, BatchKey key, Object[][] params) throws SQLException {
+        if (key.insert) {
+            return jdbcHelper.monitor(key.sql, params, () -> jdbcHelper.getRunner().insertBatch(connection, key.sql, new ColumnListHandler<>(1), params));
+        } else {
+            int[] counts = jdbcHelper.monitor(key.sql, params, () -> jdbcHelper.getRunner().batch(connection, key.sql, params));
+            List<Integer> results = new ArrayList<>(counts.length);
+            for (int count : counts) {
+                results.add(count);
+            }
+            return results;
+        }
+    }
+
+    private void executeOneByOne(Connection connection, BatchKey key, List<BatchEntry> entries) {
+        for (BatchEntry entry : entries) {
+            try {
+                Object result;
+                if (key.insert) {
+                    result = jdbcHelper.monitor(key.sql, entry.params, () -> jdbcHelper.getRunner().insert(connection, key.sql, new ScalarHandler<>(), entry.params));
+                } else {
+                    result = jdbcHelper.monitor(key.sql, entry.params, () -> jdbcHelper.getRunner().update(connection, key.sql, entry.params));
+                }
+                entry.future.complete(result);
+            } catch (Throwable t) {
+                entry.future.completeExceptionally(t);
+            }
+        }
+    }
+
+    @Override
+    protected void init() {
+    }
+
+    @Override
+    protected void destroy() {
+        stopLock.writeLock().lock();
+        try {
+            stopping = true;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+
+        // no batch is added after stopping, submit the pending batches before stopping the scheduler
+        new ArrayList<>(pendingBatches.values()).forEach(batch -> {
+            if (batch.timer != null) {
+                batch.timer.cancel();
+            }
+            flush(batch);
+        });
+        scheduler.stop();
+    }
+
+    private static class BatchKey {
+        private final String sql;
+        private final boolean insert;
+
+        private BatchKey(String sql, boolean insert) {
+            this.sql = sql;
+            this.insert = insert;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            BatchKey batchKey = (BatchKey) o;
+            return insert == batchKey.insert && Objects.equals(sql, batchKey.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, insert);
+        }
+    }
+
+    private static class Batch {
+        private final BatchKey key;
+        private final List<BatchEntry> entries = new ArrayList<>();
+        private volatile Scheduler.Future timer;
+
+        private Batch(BatchKey key) {
+            this.key = key;
+        }
+    }
+
+    private static class BatchEntry {
+        private final Object[] params;
+        private final CompletableFuture<Object> future;
+
+        private BatchEntry(Object[] params, CompletableFuture<Object> future) {
+            this.params = params;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.firefly.db.jdbc.helper;
+
+import java.beans.PropertyDescriptor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The super class of the row mappers that are generated by the {@link JavassistRowMapperFactory}.
+ * The generated code calls the primitive getters of the result set and the bean setters directly,
+ * the columns that have not a fast path are set by the reflective bean processor.
+ *
+ * @author Pengtao Qiu
+ */
+public abstract class AbstractRowMapper implements RowMapper<Object> {
+
+    protected final DefaultBeanProcessor beanProcessor;
+    protected final PropertyDescriptor[] props;
+
+    public AbstractRowMapper(DefaultBeanProcessor beanProcessor, PropertyDescriptor[] props) {
+        this.beanProcessor = beanProcessor;
+        this.props = props;
+    }
+
+    protected void setProperty(Object bean, ResultSet rs, int column, int propertyIndex) throws SQLException {
+        beanProcessor.setProperty(rs, bean, props[propertyIndex], column);
+    }
+
+    protected static Integer getNullableInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : Integer.valueOf(value);
+    }
+
+    protected static Long getNullableLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : Long.valueOf(value);
+    }
+
+    protected static Short getNullableShort(ResultSet rs, int column) throws SQLException {
+        short value = rs.getShort(column);
+        return rs.wasNull() ? null : Short.valueOf(value);
+    }
+
+    protected static Byte getNullableByte(ResultSet rs, int column) throws SQLException {
+        byte value = rs.getByte(column);
+        return rs.wasNull() ? null : Byte.valueOf(value);
+    }
+
+    protected static Float getNullableFloat(ResultSet rs, int column) throws SQLException {
+        float value = rs.getFloat(column);
+        return rs.wasNull() ? null : Float.valueOf(value);
+    }
+
+    protected static Double getNullableDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : Double.valueOf(value);
+    }
+
+    protected static Boolean getNullableBoolean(ResultSet rs, int column) throws SQLException {
+        boolean value = rs.getBoolean(column);
+        return rs.wasNull() ? null : Boolean.valueOf(value);
+    }
+}
@@ -29,6 +29,7 @@ public class DefaultBeanProcessor extends BeanProcessor {
     private final ConcurrentReferenceHashMap<Class<?>, SQLMapper> insertCache = new ConcurrentReferenceHashMap<>(128);
     private final ConcurrentReferenceHashMap<Class<?>, SQLMapper> queryCache = new ConcurrentReferenceHashMap<>(128);
     private final ConcurrentReferenceHashMap<Class<?>, SQLMapper> deleteCache = new ConcurrentReferenceHashMap<>(128);
+    private final ConcurrentReferenceHashMap<RowMapperKey, RowMapper<?>> rowMapperCache = new ConcurrentReferenceHashMap<>(128);
 
     /**
      * Set a bean's primitive properties to these defaults when SQL NULL is
@@ -57,8 +58,7 @@ public class DefaultBeanProcessor extends BeanProcessor {
 
     @Override
     public <T> T toBean(ResultSet rs, Class<? extends T> type) throws SQLException {
-        T bean = this.newInstance(type);
-        return this.populateBean(rs, bean);
+        return this.<T>getRowMapper(rs.getMetaData(), type).mapRow(rs);
     }
 
     @Override
@@ -69,16 +69,92 @@ public class DefaultBeanProcessor extends BeanProcessor {
             return results;
         }
 
-        PropertyDescriptor[] props = this.propertyDescriptors(type);
-        int[] columnToProperty = this.mapColumnsToProperties(rs.getMetaData(), props, type);
+        RowMapper<T> rowMapper = this.getRowMapper(rs.getMetaData(), type);
 
         do {
-            results.add(this.createBean(rs, type, props, columnToProperty));
+            results.add(rowMapper.mapRow(rs));
         } while (rs.next());
 
         return results;
     }
 
+    /**
+     * Get the row mapper of the bean type and the column layout of the result set. The row mapper is generated
+     * when the column layout of the bean type appears first time, the later result sets reuse it.
+     *
+     * @param <T>  The type of bean
+     * @param rsmd The result set meta data.
+     * @param type The bean type.
+     * @return The row mapper.
+     * @throws SQLException if a database error occurs.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowMapper<T> getRowMapper(ResultSetMetaData rsmd, Class<? extends T> type) throws SQLException {
+        RowMapperKey key = new RowMapperKey(type, getColumnNames(rsmd));
+        RowMapper<?> rowMapper = rowMapperCache.get(key);
+        if (rowMapper == null) {
+            rowMapper = createRowMapper(rsmd, type);
+            RowMapper<?> oldRowMapper = rowMapperCache.putIfAbsent(key, rowMapper);
+            if (oldRowMapper != null) {
+                rowMapper = oldRowMapper;
+            }
+        }
+        return (RowMapper<T>) rowMapper;
+    }
+
+    private <T> RowMapper<T> createRowMapper(ResultSetMetaData rsmd, Class<T> type) throws SQLException {
+        PropertyDescriptor[] props = this.propertyDescriptors(type);
+        int[] columnToProperty = this.mapColumnsToProperties(rsmd, props, type);
+        RowMapper<T> rowMapper = JavassistRowMapperFactory.INSTANCE.createRowMapper(this, type, props, columnToProperty);
+        if (rowMapper != null) {
+            return rowMapper;
+        } else {
+            return rs -> this.createBean(rs, type, props, columnToProperty);
+        }
+    }
+
+    private String[] getColumnNames(ResultSetMetaData rsmd) throws SQLException {
+        int cols = rsmd.getColumnCount();
+        String[] columnNames = new String[cols];
+        for (int col = 1; col <= cols; col++) {
+            columnNames[col - 1] = getColumnName(rsmd, col);
+        }
+        return columnNames;
+    }
+
+    private String getColumnName(ResultSetMetaData rsmd, int col) throws SQLException {
+        String columnName = rsmd.getColumnLabel(col);
+        if (null == columnName || 0 == columnName.length()) {
+            columnName = rsmd.getColumnName(col);
+        }
+        return columnName;
+    }
+
+    private static class RowMapperKey {
+        private final Class<?> type;
+        private final String[] columnNames;
+        private final int hashCode;
+
+        private RowMapperKey(Class<?> type, String[] columnNames) {
+            this.type = type;
+            this.columnNames = columnNames;
+            this.hashCode = 31 * type.hashCode() + Arrays.hashCode(columnNames);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RowMapperKey that = (RowMapperKey) o;
+            return type == that.type && Arrays.equals(columnNames, that.columnNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     /**
      * Creates a new object and initializes its fields from the ResultSet.
      *
@@ -136,22 +212,34 @@ public class DefaultBeanProcessor extends BeanProcessor {
                 continue;
             }
 
-            PropertyDescriptor prop = props[columnToProperty[i]];
-            Class<?> propType = prop.getPropertyType();
+            this.setProperty(rs, bean, props[columnToProperty[i]], i);
+        }
+
+        return bean;
+    }
+
+    /**
+     * Converts the column value and sets it to the bean property using reflection.
+     *
+     * @param rs     The result set.
+     * @param bean   The bean to be populated.
+     * @param prop   The property to set.
+     * @param column The column index in the result set.
+     * @throws SQLException if a database error occurs.
+     */
+    void setProperty(ResultSet rs, Object bean, PropertyDescriptor prop, int column) throws SQLException {
+        Class<?> propType = prop.getPropertyType();
 
-            Object value = null;
-            if (propType != null) {
-                value = this.processColumn(rs, i, propType);
+        Object value = null;
+        if (propType != null) {
+            value = this.processColumn(rs, column, propType);
 
-                if (value == null && propType.isPrimitive()) {
-                    value = primitiveDefaults.get(propType);
-                }
+            if (value == null && propType.isPrimitive()) {
+                value = primitiveDefaults.get(propType);
             }
-
-            this.callSetter(bean, prop, value);
         }
 
-        return bean;
+        this.callSetter(bean, prop, value);
     }
 
     /**
@@ -573,10 +661,7 @@ public class DefaultBeanProcessor extends BeanProcessor {
         Map<String, Mapper> map = getMapper(type);
 
         for (int col = 1; col <= cols; col++) {
-            String columnName = rsmd.getColumnLabel(col);
-            if (null == columnName || 0 == columnName.length()) {
-                columnName = rsmd.getColumnName(col);
-            }
+            String columnName = getColumnName(rsmd, col);
 
             for (int i = 0; i < props.length; i++) {
                 PropertyDescriptor p = props[i];
@@ -5,10 +5,10 @@ import com.codahale.metrics.ScheduledReporter;
 import com.firefly.db.*;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor.Mapper;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor.SQLMapper;
+import com.firefly.db.namedparam.ParsedSqlCache;
 import com.firefly.utils.Assert;
 import com.firefly.utils.ReflectUtils;
 import com.firefly.utils.ServiceUtils;
-import com.firefly.utils.classproxy.JavassistClassProxyFactory;
 import com.firefly.utils.concurrent.Promise;
 import com.firefly.utils.function.Func2;
 import com.firefly.utils.lang.AbstractLifeCycle;
@@ -43,7 +43,8 @@ public class JDBCHelper extends AbstractLifeCycle {
     private final ExecutorService executorService;
     private final boolean monitorEnable;
     private final MetricReporterFactory metricReporterFactory;
-    private final LatencyTopTracker latencyTopTracker;
+    private final SQLStatementMonitor statementMonitor;
+    private final ParsedSqlCache parsedSqlCache;
 
     public JDBCHelper(DataSource dataSource) {
         this(dataSource, true, null);
@@ -71,14 +72,14 @@ public class JDBCHelper extends AbstractLifeCycle {
             this.metricReporterFactory = ServiceUtils.loadService(MetricReporterFactory.class, new DefaultMetricReporterFactory());
         }
 
-        latencyTopTracker = new LatencyTopTracker(getMetrics());
+        statementMonitor = new SQLStatementMonitor(getMetrics());
+        parsedSqlCache = new ParsedSqlCache(getMetrics());
+        if (runner instanceof StatementCacheQueryRunner) {
+            ((StatementCacheQueryRunner) runner).registerMetrics(getMetrics());
+        }
 
         this.dataSource = dataSource;
-        if (monitorEnable) {
-            this.runner = getMonitorQueryRunner(runner);
-        } else {
-            this.runner = runner;
-        }
+        this.runner = runner;
         this.defaultBeanProcessor = defaultBeanProcessor;
         this.monitorEnable = monitorEnable;
         if (executorService != null) {
@@ -92,52 +93,21 @@ public class JDBCHelper extends AbstractLifeCycle {
         start();
     }
 
-    private QueryRunner getMonitorQueryRunner(QueryRunner queryRunner) {
-        try {
-            return JavassistClassProxyFactory.INSTANCE.createProxy(queryRunner,
-                    (handler, originalInstance, args) -> {
-                        String sql = "";
-                        Object[] params = null;
-                        Object[] batchParams = null;
-                        if (args != null && args.length > 0) {
-                            for (Object arg : args) {
-                                if (arg instanceof String) {
-                                    sql = (String) arg;
-                                } else if (arg instanceof Object[][]) {
-                                    batchParams = (Object[][]) arg;
-                                } else if (arg instanceof Object[]) {
-                                    params = (Object[]) arg;
-                                }
-                            }
-                        }
-                        long start = System.currentTimeMillis();
-                        Exception exception = null;
-                        Object ret;
-                        try {
-                            ret = handler.invoke(originalInstance, args);
-                        } catch (Exception e) {
-                            exception = e;
-                            throw new DBException(exception);
-                        } finally {
-                            long currentTime = System.currentTimeMillis();
-                            long latencyTime = currentTime - start;
-                            latencyTopTracker.update(sql, exception, currentTime, latencyTime);
-                            if (log.isDebugEnabled()) {
-                                StringBuilder str = new StringBuilder(sql);
-                                if (batchParams != null) {
-                                    str.append("|").append(Arrays.deepToString(batchParams));
-                                } else if (params != null) {
-                                    str.append("|").append(Arrays.toString(params));
-                                }
-                                str.append("|").append(latencyTime);
-                                log.debug(str.toString());
-                            }
-                        }
-                        return ret;
-                    }, null);
-        } catch (Throwable t) {
-            log.error("create QueryRunner proxy exception", t);
-            return queryRunner;
+    /**
+     * Execute the SQL, if the monitor is enabled, it records the latency of the SQL.
+     *
+     * @param sql       The SQL.
+     * @param params    The parameters, it is only used by the debug log.
+     * @param execution The SQL execution.
+     * @param <R>       The result type.
+     * @return The result of the execution.
+     * @throws SQLException The SQL exception of the execution.
+     */
+    public <R> R monitor(String sql, Object params, SQLStatementMonitor.SQLExecution<R> execution) throws SQLException {
+        if (monitorEnable) {
+            return statementMonitor.execute(sql, params, execution);
+        } else {
+            return execution.execute();
         }
     }
 
@@ -165,6 +135,14 @@ public class JDBCHelper extends AbstractLifeCycle {
         return defaultBeanProcessor;
     }
 
+    public SQLStatementMonitor getStatementMonitor() {
+        return statementMonitor;
+    }
+
+    public ParsedSqlCache getParsedSqlCache() {
+        return parsedSqlCache;
+    }
+
     public <T> T queryForSingleColumn(String sql, Object... params) {
         try (Connection connection = dataSource.getConnection()) {
             T ret = this.queryForSingleColumn(connection, sql, params);
@@ -178,7 +156,7 @@ public class JDBCHelper extends AbstractLifeCycle {
 
     public <T> T queryForSingleColumn(Connection connection, String sql, Object... params) {
         try {
-            return Optional.<T>ofNullable(runner.query(connection, sql, new ScalarHandler<>(), params)).orElseThrow(RecordNotFound::new);
+            return Optional.<T>ofNullable(monitor(sql, params, () -> runner.query(connection, sql, new ScalarHandler<>(), params))).orElseThrow(RecordNotFound::new);
         } catch (SQLException e) {
             log.error("query exception, sql: {}", e, sql);
             throw new DBException(e);
@@ -224,7 +202,7 @@ public class JDBCHelper extends AbstractLifeCycle {
     public <T> T queryForObject(Connection connection, String sql, Class<T> t, BeanProcessor beanProcessor,
                                 Object... params) {
         try {
-            return Optional.ofNullable(runner.query(connection, sql, new BeanHandler<>(t, new BasicRowProcessor(beanProcessor)), params)).orElseThrow(RecordNotFound::new);
+            return Optional.ofNullable(monitor(sql, params, () -> runner.query(connection, sql, new BeanHandler<>(t, new BasicRowProcessor(beanProcessor)), params))).orElseThrow(RecordNotFound::new);
         } catch (SQLException e) {
             log.error("query exception, sql: {}", e, sql);
             throw new DBException(e);
@@ -257,10 +235,10 @@ public class JDBCHelper extends AbstractLifeCycle {
     public <K, V> Map<K, V> queryForBeanMap(Connection connection, String sql, Class<V> t, String columnName,
                                             BeanProcessor beanProcessor, Object... params) {
         try {
-            return Optional.ofNullable(runner.query(
+            return Optional.ofNullable(monitor(sql, params, () -> runner.query(
                     connection, sql,
                     new DefaultBeanMapHandler<K, V>(t, new BasicRowProcessor(beanProcessor), 0, columnName),
-                    params)).orElse(Collections.emptyMap());
+                    params))).orElse(Collections.emptyMap());
         } catch (SQLException e) {
             log.error("query exception, sql: {}", e, sql);
             throw new DBException(e);
@@ -288,7 +266,7 @@ public class JDBCHelper extends AbstractLifeCycle {
 
     public <T> List<T> queryForList(Connection connection, String sql, Class<T> t, BeanProcessor beanProcessor, Object... params) {
         try {
-            return Optional.ofNullable(runner.query(connection, sql, new BeanListHandler<>(t, new BasicRowProcessor(beanProcessor)), params))
+            return Optional.ofNullable(monitor(sql, params, () -> runner.query(connection, sql, new BeanListHandler<>(t, new BasicRowProcessor(beanProcessor)), params)))
                            .orElse(Collections.emptyList());
         } catch (SQLException e) {
             log.error("query exception, sql: {}", e, sql);
@@ -337,7 +315,7 @@ public class JDBCHelper extends AbstractLifeCycle {
 
     public int update(Connection connection, String sql, Object... params) {
         try {
-            return runner.update(connection, sql, params);
+            return monitor(sql, params, () -> runner.update(connection, sql, params));
         } catch (SQLException e) {
             log.error("update exception, sql: {}", e, sql);
             throw new DBException(e);
@@ -411,7 +389,7 @@ public class JDBCHelper extends AbstractLifeCycle {
             });
         }
         try {
-            return getRunner().insertBatch(connection, sqlMapper.sql, rsh, params);
+            return monitor(sqlMapper.sql, params, () -> runner.insertBatch(connection, sqlMapper.sql, rsh, params));
         } catch (SQLException e) {
             log.error("insert batch exception", e);
             throw new DBException(e);
@@ -420,7 +398,7 @@ public class JDBCHelper extends AbstractLifeCycle {
 
     public <T> T insert(Connection connection, String sql, Object... params) {
         try {
-            return runner.insert(connection, sql, new ScalarHandler<T>(), params);
+            return monitor(sql, params, () -> runner.insert(connection, sql, new ScalarHandler<T>(), params));
         } catch (SQLException e) {
             log.error("insert exception, sql: {}", e, sql);
             throw new DBException(e);
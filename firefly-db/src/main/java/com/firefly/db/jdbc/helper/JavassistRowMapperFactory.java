@@ -0,0 +1,143 @@
+package com.firefly.db.jdbc.helper;
+
+import com.firefly.utils.StringUtils;
+import com.firefly.utils.collection.IdentityHashMap;
+import javassist.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.UUID;
+
+/**
+ * Generate the row mapper for the bean class and the column layout of the result set.
+ * The generated row mapper creates the bean using the constructor and sets the property using the setter directly.
+ * If the property type is primitive, it uses the primitive getter of the result set to avoid boxing.
+ *
+ * @author Pengtao Qiu
+ */
+public class JavassistRowMapperFactory {
+
+    private final static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    public static final JavassistRowMapperFactory INSTANCE = new JavassistRowMapperFactory();
+    public static ClassLoader classLoader;
+
+    private static final IdentityHashMap<Class<?>, String> getterMap = new IdentityHashMap<>();
+
+    static {
+        getterMap.put(int.class, "rs.getInt({})");
+        getterMap.put(long.class, "rs.getLong({})");
+        getterMap.put(short.class, "rs.getShort({})");
+        getterMap.put(byte.class, "rs.getByte({})");
+        getterMap.put(float.class, "rs.getFloat({})");
+        getterMap.put(double.class, "rs.getDouble({})");
+        getterMap.put(boolean.class, "rs.getBoolean({})");
+        getterMap.put(Integer.class, "getNullableInt(rs, {})");
+        getterMap.put(Long.class, "getNullableLong(rs, {})");
+        getterMap.put(Short.class, "getNullableShort(rs, {})");
+        getterMap.put(Byte.class, "getNullableByte(rs, {})");
+        getterMap.put(Float.class, "getNullableFloat(rs, {})");
+        getterMap.put(Double.class, "getNullableDouble(rs, {})");
+        getterMap.put(Boolean.class, "getNullableBoolean(rs, {})");
+        getterMap.put(String.class, "rs.getString({})");
+        getterMap.put(java.sql.Timestamp.class, "rs.getTimestamp({})");
+
+        classLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    private JavassistRowMapperFactory() {
+    }
+
+    /**
+     * Generate the row mapper.
+     *
+     * @param beanProcessor    The bean processor sets the property that has not a fast path.
+     * @param type             The bean type.
+     * @param props            The property descriptors.
+     * @param columnToProperty The column indices in the result set.
+     * @param <T>              The bean type.
+     * @return The row mapper, or null if the bean class can not be accessed by the generated code.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowMapper<T> createRowMapper(DefaultBeanProcessor beanProcessor, Class<T> type,
+                                            PropertyDescriptor[] props, int[] columnToProperty) {
+        if (!isAccessible(type)) {
+            return null;
+        }
+
+        try {
+            ClassPool classPool = ClassPool.getDefault();
+            classPool.insertClassPath(new ClassClassPath(AbstractRowMapper.class));
+
+            CtClass cc = classPool.makeClass("com.firefly.db.jdbc.helper.RowMapper" + UUID.randomUUID().toString().replace("-", ""));
+            cc.setSuperclass(classPool.get(AbstractRowMapper.class.getName()));
+
+            CtConstructor constructor = new CtConstructor(new CtClass[]{
+                    classPool.get(DefaultBeanProcessor.class.getName()),
+                    classPool.get(PropertyDescriptor[].class.getName())
+            }, cc);
+            constructor.setBody("{super($1, $2);}");
+            cc.addConstructor(constructor);
+            cc.addMethod(CtMethod.make(createMapRowCode(type, props, columnToProperty), cc));
+
+            return (RowMapper<T>) cc.toClass(classLoader, null)
+                                    .getConstructor(DefaultBeanProcessor.class, PropertyDescriptor[].class)
+                                    .newInstance(beanProcessor, props);
+        } catch (Throwable t) {
+            log.warn("create the row mapper of {} exception, use the reflection instead -> {}", type.getName(), t.getMessage());
+            return null;
+        }
+    }
+
+    private String createMapRowCode(Class<?> type, PropertyDescriptor[] props, int[] columnToProperty) {
+        String typeName = type.getName();
+        StringBuilder code = new StringBuilder();
+        code.append("public Object mapRow(java.sql.ResultSet rs) throws java.sql.SQLException {\n")
+            .append(StringUtils.replace("\t{} bean = new {}();\n", typeName, typeName));
+
+        for (int i = 1; i < columnToProperty.length; i++) {
+            if (columnToProperty[i] < 0) { // the property is not found
+                continue;
+            }
+
+            PropertyDescriptor prop = props[columnToProperty[i]];
+            Method setter = prop.getWriteMethod();
+            if (setter == null || setter.getParameterTypes().length != 1) {
+                continue;
+            }
+
+            String getter = getterMap.get(setter.getParameterTypes()[0]);
+            if (getter != null && Modifier.isPublic(setter.getDeclaringClass().getModifiers())) {
+                code.append(StringUtils.replace("\tbean.{}(", setter.getName()))
+                    .append(StringUtils.replace(getter, i))
+                    .append(");\n");
+            } else {
+                code.append(StringUtils.replace("\tsetProperty(bean, rs, {}, {});\n", i, columnToProperty[i]));
+            }
+        }
+
+        code.append("\treturn bean;\n")
+            .append("}");
+        return code.toString();
+    }
+
+    private boolean isAccessible(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers())
+                || Modifier.isAbstract(type.getModifiers())
+                || type.isAnonymousClass()
+                || type.isLocalClass()) {
+            return false;
+        }
+        if (type.isMemberClass() && !Modifier.isStatic(type.getModifiers())) {
+            return false;
+        }
+        try {
+            return Modifier.isPublic(type.getConstructor().getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.firefly.db.jdbc.helper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Convert the current row of the result set to an object.
+ *
+ * @author Pengtao Qiu
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Convert the current row of the result set to an object. It does not move the cursor.
+     *
+     * @param rs The result set.
+     * @return The converted object.
+     * @throws SQLException if a database error occurs.
+     */
+    T mapRow(ResultSet rs) throws SQLException;
+
+}
@@ -0,0 +1,194 @@
+package com.firefly.db.jdbc.helper;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.commons.dbutils.QueryRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * The QueryRunner caches the prepared statements per connection. When the QueryRunner closes a statement,
+ * the statement returns to the idle statements of its connection, and the next execution of the same SQL
+ * on the connection reuses it. A statement is only used by one execution at a time.
+ * The idle statements of a connection are evicted using LRU. The statements of a closed connection are closed and
+ * discarded when the QueryRunner closes the connection or sees a new connection.
+ * <p>
+ * A connection pool returns a new connection proxy on every borrow, and closes the statements of the proxy when
+ * it returns the connection. So the statements are only reused within one borrowed connection, such as a transaction.
+ * It only helps when the same SQL is executed many times on a connection. If the JDBC driver supports the
+ * statement cache (such as MySQL "cachePrepStmts"), prefer the driver cache.
+ *
+ * @author Pengtao Qiu
+ */
+public class StatementCacheQueryRunner extends QueryRunner {
+
+    public static final int DEFAULT_MAX_STATEMENTS_PER_CONNECTION = 64;
+
+    private final int maxStatementsPerConnection;
+    private final Map<Connection, LinkedHashMap<String, PreparedStatement>> idleStatements = new IdentityHashMap<>();
+    private final Map<Statement, CachedStatement> busyStatements = new IdentityHashMap<>();
+    private volatile Meter hitMeter;
+    private volatile Meter missMeter;
+
+    public StatementCacheQueryRunner() {
+        this(null, DEFAULT_MAX_STATEMENTS_PER_CONNECTION);
+    }
+
+    public StatementCacheQueryRunner(DataSource ds) {
+        this(ds, DEFAULT_MAX_STATEMENTS_PER_CONNECTION);
+    }
+
+    public StatementCacheQueryRunner(DataSource ds, int maxStatementsPerConnection) {
+        super(ds);
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    /**
+     * Report the cache hit and miss by the meters "jdbc.statementCache.hit" and "jdbc.statementCache.miss".
+     *
+     * @param metrics The metric registry.
+     */
+    public void registerMetrics(MetricRegistry metrics) {
+        hitMeter = metrics.meter("jdbc.statementCache.hit");
+        missMeter = metrics.meter("jdbc.statementCache.miss");
+    }
+
+    public int getMaxStatementsPerConnection() {
+        return maxStatementsPerConnection;
+    }
+
+    /**
+     * Get the number of the connections that have the idle statements.
+     *
+     * @return The number of the connections that have the idle statements.
+     */
+    public synchronized int getCachedConnectionSize() {
+        return idleStatements.size();
+    }
+
+    /**
+     * Get the number of the idle statements of all connections.
+     *
+     * @return The number of the idle statements of all connections.
+     */
+    public synchronized int getIdleStatementSize() {
+        return idleStatements.values().stream().mapToInt(Map::size).sum();
+    }
+
+    @Override
+    protected PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt;
+        synchronized (this) {
+            LinkedHashMap<String, PreparedStatement> statements = idleStatements.get(conn);
+            stmt = statements != null ? statements.remove(sql) : null;
+        }
+
+        if (stmt != null && !stmt.isClosed()) {
+            mark(hitMeter);
+        } else {
+            mark(missMeter);
+            stmt = super.prepareStatement(conn, sql);
+        }
+
+        synchronized (this) {
+            busyStatements.put(stmt, new CachedStatement(conn, sql));
+        }
+        return stmt;
+    }
+
+    @Override
+    protected void close(Statement stmt) throws SQLException {
+        CachedStatement cachedStatement;
+        synchronized (this) {
+            cachedStatement = busyStatements.remove(stmt);
+        }
+
+        if (cachedStatement == null || stmt.isClosed() || cachedStatement.connection.isClosed()) {
+            super.close(stmt);
+            return;
+        }
+
+        PreparedStatement preparedStatement = (PreparedStatement) stmt;
+        preparedStatement.clearParameters();
+
+        List<PreparedStatement> evictedStatements = new ArrayList<>();
+        synchronized (this) {
+            LinkedHashMap<String, PreparedStatement> statements = idleStatements.get(cachedStatement.connection);
+            if (statements == null) {
+                // a new connection is borrowed, discard the statements of the returned connections
+                evictClosedConnections(evictedStatements);
+                statements = new LinkedHashMap<>(16, 0.75f, true);
+                idleStatements.put(cachedStatement.connection, statements);
+            }
+            PreparedStatement previous = statements.put(cachedStatement.sql, preparedStatement);
+            if (previous != null) {
+                evictedStatements.add(previous);
+            }
+            Iterator<PreparedStatement> iterator = statements.values().iterator();
+            while (statements.size() > maxStatementsPerConnection && iterator.hasNext()) {
+                evictedStatements.add(iterator.next());
+                iterator.remove();
+            }
+        }
+
+        close(evictedStatements);
+    }
+
+    @Override
+    protected void close(Connection conn) throws SQLException {
+        LinkedHashMap<String, PreparedStatement> statements;
+        synchronized (this) {
+            statements = idleStatements.remove(conn);
+        }
+        if (statements != null) {
+            close(statements.values());
+        }
+        super.close(conn);
+    }
+
+    private void evictClosedConnections(List<PreparedStatement> evictedStatements) {
+        Iterator<Map.Entry<Connection, LinkedHashMap<String, PreparedStatement>>> iterator = idleStatements.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Connection, LinkedHashMap<String, PreparedStatement>> entry = iterator.next();
+            if (isClosed(entry.getKey())) {
+                evictedStatements.addAll(entry.getValue().values());
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private void close(Collection<PreparedStatement> statements) throws SQLException {
+        for (PreparedStatement statement : statements) {
+            super.close(statement);
+        }
+    }
+
+    private static void mark(Meter meter) {
+        if (meter != null) {
+            meter.mark();
+        }
+    }
+
+    private static class CachedStatement {
+        private final Connection connection;
+        private final String sql;
+
+        private CachedStatement(Connection connection, String sql) {
+            this.connection = connection;
+            this.sql = sql;
+        }
+    }
+}
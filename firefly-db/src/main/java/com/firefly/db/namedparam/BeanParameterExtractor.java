@@ -0,0 +1,44 @@
+package com.firefly.db.namedparam;
+
+import com.firefly.utils.BeanUtils;
+import com.firefly.utils.lang.bean.PropertyAccess;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extract the named parameter values of a SQL from the javabean. The property accessors are resolved once
+ * for the parsed SQL and the javabean class, so that it only reads the properties that the SQL uses.
+ *
+ * @author Pengtao Qiu
+ */
+public class BeanParameterExtractor {
+
+    private final PropertyAccess[] propertyAccesses;
+
+    public BeanParameterExtractor(ParsedSql parsedSql, Class<?> clazz) {
+        Map<String, PropertyAccess> beanAccess = BeanUtils.getBeanAccess(clazz);
+        List<ParameterHolder> parameterList = parsedSql.getParameterList();
+        propertyAccesses = new PropertyAccess[parameterList.size()];
+        for (int i = 0; i < propertyAccesses.length; i++) {
+            propertyAccesses[i] = beanAccess.get(parameterList.get(i).getParameterName());
+        }
+    }
+
+    /**
+     * Extract the parameter values.
+     *
+     * @param object The javabean.
+     * @return The parameter values, they are in the same order as the parameter list of the parsed SQL.
+     */
+    public Object[] extract(Object object) {
+        Object[] values = new Object[propertyAccesses.length];
+        for (int i = 0; i < values.length; i++) {
+            PropertyAccess propertyAccess = propertyAccesses[i];
+            if (propertyAccess != null) {
+                values[i] = propertyAccess.getValue(object);
+            }
+        }
+        return values;
+    }
+}
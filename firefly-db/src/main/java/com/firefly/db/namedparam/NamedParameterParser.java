@@ -1,10 +1,8 @@
 package com.firefly.db.namedparam;
 
 import com.firefly.utils.Assert;
-import com.firefly.utils.BeanUtils;
 import com.firefly.utils.CollectionUtils;
 import com.firefly.utils.exception.CommonRuntimeException;
-import com.firefly.utils.lang.bean.PropertyAccess;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -220,24 +218,61 @@ public class NamedParameterParser {
     }
 
     public static PreparedSqlAndValues replaceParsedSql(ParsedSql parsedSql, Map<String, Object> paramMap) {
+        List<ParameterHolder> parameterList = parsedSql.getParameterList();
+        Object[] parameterValues = new Object[parameterList.size()];
+        if (paramMap != null) {
+            for (int i = 0; i < parameterValues.length; i++) {
+                parameterValues[i] = paramMap.get(parameterList.get(i).getParameterName());
+            }
+        }
+        return replaceParsedSql(parsedSql, parameterValues);
+    }
+
+    /**
+     * Replace the named parameters with the '?' placeholders.
+     *
+     * @param parsedSql       The parsed SQL.
+     * @param parameterValues The parameter values, they are in the same order as the parameter list of the parsed SQL.
+     * @return The prepared SQL and values.
+     */
+    public static PreparedSqlAndValues replaceParsedSql(ParsedSql parsedSql, Object[] parameterValues) {
         final String originalSql = parsedSql.getOriginalSql();
-        if (CollectionUtils.isEmpty(parsedSql.getParameterList())) {
+        List<ParameterHolder> parameterList = parsedSql.getParameterList();
+        if (CollectionUtils.isEmpty(parameterList)) {
             return new PreparedSqlAndValues(originalSql, Collections.emptyList());
         }
 
+        boolean hasCollection = false;
+        for (Object value : parameterValues) {
+            if (value instanceof Collection) {
+                hasCollection = true;
+                break;
+            }
+        }
+
+        List<Object> values = new ArrayList<>(parameterValues.length);
+        if (!hasCollection) {
+            for (Object value : parameterValues) {
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            return new PreparedSqlAndValues(parsedSql.getPreparedSql(), values);
+        }
+
         StringBuilder actualSql = new StringBuilder(originalSql.length());
-        List<Object> values = new ArrayList<>();
         int lastIndex = 0;
-        for (ParameterHolder param : parsedSql.getParameterList()) {
+        for (int i = 0; i < parameterList.size(); i++) {
+            ParameterHolder param = parameterList.get(i);
             actualSql.append(originalSql, lastIndex, param.getStartIndex());
-            Object value = Optional.ofNullable(paramMap).map(map -> map.get(param.getParameterName())).orElse(null);
+            Object value = parameterValues[i];
             if (value == null) {
                 actualSql.append('?');
             } else {
                 if (value instanceof Collection) {
                     @SuppressWarnings("unchecked")
                     Collection<Object> objects = (Collection<Object>) value;
-                    actualSql.append(objects.parallelStream().map(o -> "?").collect(Collectors.joining(",")));
+                    actualSql.append(objects.stream().map(o -> "?").collect(Collectors.joining(",")));
                     values.addAll(objects);
                 } else {
                     actualSql.append('?');
@@ -269,9 +304,7 @@ public class NamedParameterParser {
      * @return parsed SQL and values.
      */
     public static PreparedSqlAndValues getPreparedSqlAndValues(String sql, Object object) {
-        Map<String, PropertyAccess> beanAccess = BeanUtils.getBeanAccess(object.getClass());
-        Map<String, Object> paramMap = new HashMap<>();
-        beanAccess.forEach((name, property) -> paramMap.put(name, property.getValue(object)));
-        return getPreparedSqlAndValues(sql, paramMap);
+        ParsedSql parsedSql = parseSqlStatement(sql);
+        return replaceParsedSql(parsedSql, new BeanParameterExtractor(parsedSql, object.getClass()).extract(object));
     }
 }
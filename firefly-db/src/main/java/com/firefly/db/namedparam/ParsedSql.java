@@ -14,7 +14,7 @@ public class ParsedSql {
     private int namedParameterCount;
     private int unnamedParameterCount;
     private int totalParameterCount;
-
+    private volatile String preparedSql;
 
     /**
      * Create a new instance of the {@link ParsedSql} class.
@@ -115,6 +115,28 @@ public class ParsedSql {
         return this.totalParameterCount;
     }
 
+    /**
+     * Return the SQL statement that replaces every named parameter with a single '?' placeholder.
+     * It is the prepared SQL when none of the parameter values is a collection.
+     *
+     * @return the SQL statement that replaces every named parameter with '?'.
+     */
+    public String getPreparedSql() {
+        String sql = preparedSql;
+        if (sql == null) {
+            StringBuilder actualSql = new StringBuilder(originalSql.length());
+            int lastIndex = 0;
+            for (ParameterHolder param : parameterList) {
+                actualSql.append(originalSql, lastIndex, param.getStartIndex()).append('?');
+                lastIndex = param.getEndIndex();
+            }
+            actualSql.append(originalSql, lastIndex, originalSql.length());
+            sql = actualSql.toString();
+            preparedSql = sql;
+        }
+        return sql;
+    }
+
     /**
      * Exposes the original SQL String.
      */
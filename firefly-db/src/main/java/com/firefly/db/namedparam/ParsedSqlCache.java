@@ -0,0 +1,120 @@
+package com.firefly.db.namedparam;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.utils.collection.ConcurrentLinkedHashMap;
+import com.firefly.utils.collection.ConcurrentReferenceHashMap;
+
+import java.util.Map;
+
+/**
+ * The bounded LRU cache of the parsed named parameter SQL. It also caches the parameter extractors of the javabean classes.
+ * The cache hit and miss are reported by the meters "jdbc.parsedSqlCache.hit" and "jdbc.parsedSqlCache.miss".
+ *
+ * @author Pengtao Qiu
+ */
+public class ParsedSqlCache {
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final Map<String, ParsedSql> parsedSqlCache;
+    private final ConcurrentReferenceHashMap<ExtractorKey, BeanParameterExtractor> extractorCache = new ConcurrentReferenceHashMap<>(128);
+    private final Meter hitMeter;
+    private final Meter missMeter;
+
+    public ParsedSqlCache(MetricRegistry metrics) {
+        this(DEFAULT_MAX_SIZE, metrics);
+    }
+
+    public ParsedSqlCache(int maxSize, MetricRegistry metrics) {
+        parsedSqlCache = new ConcurrentLinkedHashMap<>(true, maxSize);
+        if (metrics != null) {
+            hitMeter = metrics.meter("jdbc.parsedSqlCache.hit");
+            missMeter = metrics.meter("jdbc.parsedSqlCache.miss");
+        } else {
+            hitMeter = null;
+            missMeter = null;
+        }
+    }
+
+    /**
+     * Get the parsed SQL. If the cache has not the SQL, it parses the SQL and puts it in the cache.
+     *
+     * @param sql The named parameter SQL.
+     * @return The parsed SQL.
+     */
+    public ParsedSql parse(String sql) {
+        ParsedSql parsedSql = parsedSqlCache.get(sql);
+        if (parsedSql == null) {
+            mark(missMeter);
+            parsedSql = NamedParameterParser.parseSqlStatement(sql);
+            parsedSqlCache.put(sql, parsedSql);
+        } else {
+            mark(hitMeter);
+        }
+        return parsedSql;
+    }
+
+    /**
+     * Get the prepared SQL and values.
+     *
+     * @param sql      The named parameter SQL.
+     * @param paramMap The parameters.
+     * @return The prepared SQL and values.
+     */
+    public PreparedSqlAndValues getPreparedSqlAndValues(String sql, Map<String, Object> paramMap) {
+        return NamedParameterParser.replaceParsedSql(parse(sql), paramMap);
+    }
+
+    /**
+     * Get the prepared SQL and values.
+     *
+     * @param sql    The named parameter SQL.
+     * @param object The javabean that uses the property name to match parameter.
+     * @return The prepared SQL and values.
+     */
+    public PreparedSqlAndValues getPreparedSqlAndValues(String sql, Object object) {
+        ParsedSql parsedSql = parse(sql);
+        BeanParameterExtractor extractor = extractorCache.get(new ExtractorKey(parsedSql, object.getClass()),
+                key -> new BeanParameterExtractor(key.parsedSql, key.clazz));
+        return NamedParameterParser.replaceParsedSql(parsedSql, extractor.extract(object));
+    }
+
+    public int size() {
+        return parsedSqlCache.size();
+    }
+
+    public void clear() {
+        parsedSqlCache.clear();
+        extractorCache.clear();
+    }
+
+    private static void mark(Meter meter) {
+        if (meter != null) {
+            meter.mark();
+        }
+    }
+
+    private static class ExtractorKey {
+        private final ParsedSql parsedSql;
+        private final Class<?> clazz;
+
+        private ExtractorKey(ParsedSql parsedSql, Class<?> clazz) {
+            this.parsedSql = parsedSql;
+            this.clazz = clazz;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ExtractorKey that = (ExtractorKey) o;
+            return parsedSql == that.parsedSql && clazz == that.clazz;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(parsedSql) + clazz.hashCode();
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package test.db;
 
+import com.codahale.metrics.Timer;
 import com.firefly.db.RecordNotFound;
+import com.firefly.db.SQLStatementMonitor;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor.Mapper;
 import com.firefly.db.jdbc.helper.DefaultBeanProcessor.SQLMapper;
 import com.firefly.db.jdbc.helper.JDBCHelper;
+import com.firefly.db.jdbc.helper.StatementCacheQueryRunner;
 import com.firefly.utils.concurrent.Promise;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -118,6 +121,87 @@ public class TestJDBCHelper {
         Assert.assertThat(otherUser.getOtherInfo(), is("testOtherInfo"));
     }
 
+    @Test
+    public void testRowMapper() {
+        String sql = "select id, pt_name as name, length(pt_name) as name_length, null as score, 0.5 as rate, " +
+                "true as enabled, 10.25 as balance from `test`.`user` order by id";
+        for (int j = 0; j < 2; j++) {
+            List<UserSummary> list = jdbcHelper.queryForList(sql, UserSummary.class);
+            Assert.assertThat(list.size(), is(size));
+            for (int i = 1; i <= size; i++) {
+                UserSummary summary = list.get(i - 1);
+                Assert.assertThat(summary.getId(), is((long) i));
+                Assert.assertThat(summary.getName(), is("test" + i));
+                Assert.assertThat(summary.getNameLength(), is(("test" + i).length()));
+                Assert.assertThat(summary.getScore(), nullValue());
+                Assert.assertThat(summary.getRate(), is(0.5));
+                Assert.assertThat(summary.isEnabled(), is(true));
+                Assert.assertThat(summary.getBalance().doubleValue(), is(10.25));
+            }
+        }
+
+        UserSummary summary = jdbcHelper.queryForObject("select id, 3 as score from `test`.`user` where id = ?", UserSummary.class, 2L);
+        Assert.assertThat(summary.getId(), is(2L));
+        Assert.assertThat(summary.getScore(), is(3));
+        Assert.assertThat(summary.getName(), nullValue());
+    }
+
+    @Test
+    public void testStatementCache() {
+        StatementCacheQueryRunner runner = new StatementCacheQueryRunner(jdbcHelper.getDataSource(), 2);
+        JDBCHelper helper = new JDBCHelper(jdbcHelper.getDataSource(), runner, new DefaultBeanProcessor(), null, false, null);
+        try {
+            User user = helper.executeTransaction((conn, h) -> {
+                User u = null;
+                for (long i = 1; i <= size; i++) {
+                    u = h.queryForObject(conn, "select * from `test`.`user` where id = ?", User.class, i);
+                    Assert.assertThat(u.getId(), is(i));
+                }
+                h.update(conn, "update `test`.`user` set other_info = ? where id = ?", "cached", 1L);
+                return u;
+            });
+            Assert.assertThat(user.getId(), is((long) size));
+            Assert.assertThat(helper.queryForObject("select * from `test`.`user` where id = ?", User.class, 1L).getOtherInfo(), is("cached"));
+            Assert.assertThat(helper.getMetrics().meter("jdbc.statementCache.hit").getCount(), is((long) size - 1));
+        } finally {
+            helper.stop();
+        }
+    }
+
+    @Test
+    public void testStatementCacheWithPooledConnections() {
+        StatementCacheQueryRunner runner = new StatementCacheQueryRunner(jdbcHelper.getDataSource(), 2);
+        JDBCHelper helper = new JDBCHelper(jdbcHelper.getDataSource(), runner, new DefaultBeanProcessor(), null, false, null);
+        try {
+            // every query borrows a new connection proxy from the pool
+            for (int i = 0; i < 20; i++) {
+                long id = i % size + 1;
+                User user = helper.queryForObject("select * from `test`.`user` where id = ?", User.class, id);
+                Assert.assertThat(user.getId(), is(id));
+                Assert.assertThat(runner.getCachedConnectionSize(), lessThanOrEqualTo(1));
+                Assert.assertThat(runner.getIdleStatementSize(), lessThanOrEqualTo(2));
+            }
+        } finally {
+            helper.stop();
+        }
+    }
+
+    @Test
+    public void testStatementMonitor() {
+        Assert.assertThat(SQLStatementMonitor.normalize("select *  from `test`.`user1`\n where id = 10 and name = 'it''s' and id in (?, ?,?)"),
+                is("select * from `test`.`user1` where id = ? and name = ? and id in (?)"));
+
+        String sql = "select * from `test`.`user` where id = ?";
+        Timer timer = jdbcHelper.getStatementMonitor().getTimer(sql);
+        long count = timer.getCount();
+        for (long i = 1; i <= size; i++) {
+            jdbcHelper.queryForObject(sql, User.class, i);
+        }
+        Assert.assertThat(timer.getCount(), is(count + size));
+        Assert.assertThat(jdbcHelper.getStatementMonitor().getTimer("select * from `test`.`user`  where id = 3"), sameInstance(timer));
+        Assert.assertThat(jdbcHelper.getMetrics().getTimers().get(SQLStatementMonitor.TIMER_PREFIX + sql), sameInstance(timer));
+    }
+
     @Test
     public void testBeanProcessor() {
         DefaultBeanProcessor beanProcessor = jdbcHelper.getDefaultBeanProcessor();
@@ -2,7 +2,10 @@ package test.db;
 
 import com.firefly.db.SQLClient;
 import com.firefly.db.SQLConnection;
+import com.firefly.db.SQLRowHandler;
+import com.firefly.db.SQLRowStream;
 import com.firefly.db.jdbc.JDBCClient;
+import com.firefly.db.jdbc.JDBCWriteBatcher;
 import com.firefly.utils.concurrent.Promise.Completable;
 import com.firefly.utils.function.Func1;
 import com.zaxxer.hikari.HikariConfig;
@@ -12,13 +15,18 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 
 public class TestSQLClient {
@@ -140,6 +148,95 @@ public class TestSQLClient {
                 }).get();
     }
 
+    @Test
+    public void testQueryForStream() throws Exception {
+        List<List<User>> chunks = new ArrayList<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        sqlClient.getConnection().thenAccept(c -> {
+            SQLRowStream stream = c.queryForStream("select * from test.user order by id", User.class, 3, new SQLRowHandler<User>() {
+                @Override
+                public void onRows(List<User> rows) {
+                    chunks.add(rows);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    completed.completeExceptionally(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    c.close().thenAccept(completed::complete);
+                }
+            });
+            stream.request(4);
+            stream.request(Long.MAX_VALUE);
+        }).get();
+        completed.get();
+
+        List<Long> ids = chunks.stream().flatMap(List::stream).map(User::getId).collect(Collectors.toList());
+        Assert.assertThat(ids.size(), is(size));
+        Assert.assertThat(ids.get(0), is(1L));
+        Assert.assertThat(ids.get(size - 1), is((long) size));
+        Assert.assertTrue(chunks.stream().allMatch(chunk -> chunk.size() <= 3));
+    }
+
+    @Test
+    public void testWriteBatcher() throws Exception {
+        JDBCWriteBatcher batcher = ((JDBCClient) sqlClient).newWriteBatcher(8, 20);
+        try {
+            int count = 20;
+            List<CompletableFuture<Long>> keys = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                keys.add(batcher.insert("insert into `test`.`user`(pt_name, pt_password) values(?,?)", "batch " + i, "batch pwd " + i));
+            }
+            CompletableFuture.allOf(keys.toArray(new CompletableFuture[0])).get();
+
+            for (int i = 0; i < count; i++) {
+                long id = keys.get(i).get();
+                Assert.assertThat(id, is((long) size + i + 1));
+                exec(c -> c.queryById(id, User.class)).thenAccept(user -> Assert.assertThat(user.getPassword(), is("batch pwd " + (id - size - 1)))).get();
+            }
+
+            List<CompletableFuture<Integer>> counts = new ArrayList<>();
+            for (long id = 1; id <= size; id++) {
+                counts.add(batcher.update("update `test`.`user` set pt_name = ? where id = ?", "batch update " + id, id));
+            }
+            counts.add(batcher.update("update `test`.`user` set pt_name = ? where id = ?", "batch update", 0L));
+            for (int i = 0; i < size; i++) {
+                Assert.assertThat(counts.get(i).get(), is(1));
+            }
+            Assert.assertThat(counts.get(size).get(), is(0));
+            exec(c -> c.queryById(size, User.class)).thenAccept(user -> Assert.assertThat(user.getName(), is("batch update " + size))).get();
+        } finally {
+            batcher.stop();
+        }
+    }
+
+    @Test
+    public void testWriteBatcherStop() throws Exception {
+        JDBCWriteBatcher batcher = ((JDBCClient) sqlClient).newWriteBatcher(100, 60 * 1000L);
+        List<CompletableFuture<Integer>> counts = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            counts.add(batcher.update("update `test`.`user` set pt_name = ? where id = ?", "stop " + id, id));
+        }
+        batcher.stop();
+
+        // the pending batch executes when the batcher stops
+        for (CompletableFuture<Integer> count : counts) {
+            Assert.assertThat(count.get(2, TimeUnit.SECONDS), is(1));
+        }
+
+        CompletableFuture<Integer> rejected = batcher.update("update `test`.`user` set pt_name = ? where id = ?", "stop", 1L);
+        Assert.assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+    }
+
     @Test
     public void testNamedQuery() throws Exception {
         Map<String, Object> paramMap = new HashMap<>();
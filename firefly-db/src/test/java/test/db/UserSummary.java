@@ -0,0 +1,84 @@
+package test.db;
+
+import java.math.BigDecimal;
+
+public class UserSummary {
+    private long id;
+    private String name;
+    private int nameLength;
+    private Integer score;
+    private double rate;
+    private boolean enabled;
+    private BigDecimal balance;
+    private char level;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getNameLength() {
+        return nameLength;
+    }
+
+    public void setNameLength(int nameLength) {
+        this.nameLength = nameLength;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public char getLevel() {
+        return level;
+    }
+
+    public void setLevel(char level) {
+        this.level = level;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSummary [id=" + id + ", name=" + name + ", nameLength=" + nameLength + ", score=" + score
+                + ", rate=" + rate + ", enabled=" + enabled + ", balance=" + balance + ", level=" + level + "]";
+    }
+}
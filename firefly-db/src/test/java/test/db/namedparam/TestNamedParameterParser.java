@@ -1,7 +1,9 @@
 package test.db.namedparam;
 
+import com.codahale.metrics.MetricRegistry;
 import com.firefly.db.namedparam.NamedParameterParser;
 import com.firefly.db.namedparam.ParsedSql;
+import com.firefly.db.namedparam.ParsedSqlCache;
 import com.firefly.db.namedparam.PreparedSqlAndValues;
 import org.junit.Assert;
 import org.junit.Test;
@@ -82,6 +84,33 @@ public class TestNamedParameterParser {
         Assert.assertThat(preparedSqlAndValues.getValues().size(), is(5));
     }
 
+    @Test
+    public void testParsedSqlCache() {
+        MetricRegistry metrics = new MetricRegistry();
+        ParsedSqlCache cache = new ParsedSqlCache(metrics);
+        String sql = "select * from test where id = :id and name = :name and type in (:types)";
+        for (int i = 0; i < 3; i++) {
+            TestParamObject paramObject = new TestParamObject();
+            paramObject.setId(i);
+            paramObject.setName("hello");
+            paramObject.setTypes(Arrays.asList(1, 2));
+            PreparedSqlAndValues preparedSqlAndValues = cache.getPreparedSqlAndValues(sql, paramObject);
+            Assert.assertThat(preparedSqlAndValues.getPreparedSql(), is("select * from test where id = ? and name = ? and type in (?,?)"));
+            Assert.assertThat(preparedSqlAndValues.getValues(), is(Arrays.asList(i, "hello", 1, 2)));
+        }
+
+        Map<String, Object> paramMap = new HashMap<>();
+        paramMap.put("id", 1);
+        paramMap.put("name", "world");
+        PreparedSqlAndValues preparedSqlAndValues = cache.getPreparedSqlAndValues("select * from test where id = :id and name = :name", paramMap);
+        Assert.assertThat(preparedSqlAndValues.getPreparedSql(), is("select * from test where id = ? and name = ?"));
+        Assert.assertThat(preparedSqlAndValues.getValues(), is(Arrays.asList(1, "world")));
+
+        Assert.assertThat(cache.size(), is(2));
+        Assert.assertThat(metrics.meter("jdbc.parsedSqlCache.hit").getCount(), is(2L));
+        Assert.assertThat(metrics.meter("jdbc.parsedSqlCache.miss").getCount(), is(2L));
+    }
+
     public static class TestParamObject {
         private int id;
         private String name;
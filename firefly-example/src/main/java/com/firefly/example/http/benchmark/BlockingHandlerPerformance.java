@@ -0,0 +1,82 @@
+package com.firefly.example.http.benchmark;
+
+import com.firefly.$;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleHTTPClientConfiguration;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.HandlerExecutorMode;
+import com.firefly.server.http2.SimpleHTTPServerConfiguration;
+import com.firefly.utils.concurrent.ThreadUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The handler blocks 20ms on I/O. The client sends the requests through 200 connections for 10 seconds.
+ * <p>
+ * Linux 1 core, log level: INFO, the default JVM arguments
+ * <p>
+ * java version "1.8.0_392", the VIRTUAL_THREAD mode falls back on 200 platform threads
+ * FORK_JOIN_POOL: 63 requests/sec
+ * VIRTUAL_THREAD: 2237 requests/sec
+ * <p>
+ * java version "21.0.1"
+ * FORK_JOIN_POOL: 63 requests/sec
+ * VIRTUAL_THREAD: 2604 requests/sec
+ *
+ * @author Pengtao Qiu
+ */
+public class BlockingHandlerPerformance {
+
+    private static final int concurrency = 200;
+    private static final long duration = 10 * 1000L;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("virtual threads supported: " + ThreadUtils.isVirtualThreadSupported());
+        int port = 4456;
+        for (HandlerExecutorMode mode : HandlerExecutorMode.values()) {
+            System.out.println(mode + ": " + benchmark(mode, port++) + " requests/sec");
+        }
+    }
+
+    private static long benchmark(HandlerExecutorMode mode, int port) throws InterruptedException {
+        SimpleHTTPServerConfiguration serverConfiguration = new SimpleHTTPServerConfiguration();
+        serverConfiguration.setHandlerExecutorMode(mode);
+        serverConfiguration.setMaxHandlerThreads(concurrency);
+        HTTP2ServerBuilder server = $.httpServer(serverConfiguration);
+        server.router().get("/blocking").asyncHandler(ctx -> {
+            // simulate the blocking I/O, e.g., a JDBC query
+            ThreadUtils.sleep(20);
+            ctx.end("hello world!");
+        }).listen("127.0.0.1", port);
+
+        SimpleHTTPClientConfiguration clientConfiguration = new SimpleHTTPClientConfiguration();
+        clientConfiguration.setPoolSize(concurrency);
+        SimpleHTTPClient client = $.createHTTPClient(clientConfiguration);
+        String url = "http://127.0.0.1:" + port + "/blocking";
+
+        AtomicLong count = new AtomicLong();
+        CountDownLatch latch = new CountDownLatch(concurrency);
+        long end = System.currentTimeMillis() + duration;
+        for (int i = 0; i < concurrency; i++) {
+            send(client, url, end, count, latch);
+        }
+        latch.await();
+        client.stop();
+        server.stop();
+        return count.get() * 1000 / duration;
+    }
+
+    private static void send(SimpleHTTPClient client, String url, long end, AtomicLong count, CountDownLatch latch) {
+        client.get(url).submit().whenComplete((response, e) -> {
+            if (e == null) {
+                count.incrementAndGet();
+            }
+            if (System.currentTimeMillis() < end) {
+                send(client, url, end, count, latch);
+            } else {
+                latch.countDown();
+            }
+        });
+    }
+}
@@ -8,7 +8,6 @@ import com.firefly.net.tcp.SimpleTcpClient;
 import com.firefly.net.tcp.TcpConnection;
 import com.firefly.server.http2.SimpleHTTPServer;
 import com.firefly.server.http2.SimpleResponse;
-import com.firefly.utils.concurrent.Callback;
 import com.firefly.utils.concurrent.Promise;
 import com.firefly.utils.io.BufferUtils;
 
@@ -31,12 +30,12 @@ public class ProxyDemo {
             request.getAttributes().computeIfAbsent("tunnelSuccess", k -> {
                 CompletableFuture<TcpConnection> p = tcpClient.connect(request.getURI().getHost(), request.getURI().getPort());
                 p.thenAccept(tcpConn -> {
-                    serverConnection.upgradeHTTPTunnel().thenAccept(tunnel -> {
-                        tcpConn.receive(dstBuf -> tunnel.write(dstBuf, Callback.NOOP))
-                               .onException(e -> $.io.close(tcpConn))
-                               .onClose(() -> request.remove("tunnelSuccess"));
-                        tunnel.receive(tcpConn::write);
-                    });
+                    serverConnection.upgradeHTTPTunnel().thenAccept(tunnel -> tunnel.splice(tcpConn).onClose(splice -> {
+                        request.remove("tunnelSuccess");
+                        System.out.println("tunnel upstream: " + splice.getUpstreamBytes()
+                                + ", downstream: " + splice.getDownstreamBytes()
+                                + ", duration: " + splice.getDuration());
+                    }));
                     $.io.close(response);
                 }).exceptionally(e -> {
                     response.setStatus(HttpStatus.BAD_GATEWAY_502);
@@ -20,6 +20,8 @@ public class Config {
     private Handler handler;
 
     private boolean monitorEnable = true;
+    private boolean directReadBuffer;
+    private int affinityPoolSize;
     private MetricReporterFactory metricReporterFactory = ServiceUtils.loadService(MetricReporterFactory.class, new DefaultMetricReporterFactory());
 
     /**
@@ -187,11 +189,54 @@ public class Config {
         this.monitorEnable = monitorEnable;
     }
 
+    /**
+     * If the directReadBuffer is true, the session reads the data into the direct buffer, it avoids copying the data
+     * from the temporary direct buffer of the socket channel. The decoder must support the direct buffer.
+     *
+     * @return directReadBuffer The default value is false.
+     */
+    public boolean isDirectReadBuffer() {
+        return directReadBuffer;
+    }
+
+    /**
+     * If the directReadBuffer is true, the session reads the data into the direct buffer, it avoids copying the data
+     * from the temporary direct buffer of the socket channel. The decoder must support the direct buffer.
+     *
+     * @param directReadBuffer directReadBuffer. The default value is false.
+     */
+    public void setDirectReadBuffer(boolean directReadBuffer) {
+        this.directReadBuffer = directReadBuffer;
+    }
+
+    /**
+     * Get the number of the pinned workers. Each session decodes the received data and runs the tasks of its
+     * executor on the worker that is selected by the session id.
+     *
+     * @return The number of the pinned workers. The default value is 0, the sessions are not pinned.
+     */
+    public int getAffinityPoolSize() {
+        return affinityPoolSize;
+    }
+
+    /**
+     * Set the number of the pinned workers. If it is greater than 0, each session decodes the received data and runs
+     * the tasks of its executor on the worker that is selected by the session id, so the data of a connection stays
+     * in the cache of one core instead of hopping between the threads.
+     *
+     * @param affinityPoolSize The number of the pinned workers. The default value is 0, the sessions are not pinned.
+     */
+    public void setAffinityPoolSize(int affinityPoolSize) {
+        this.affinityPoolSize = affinityPoolSize;
+    }
+
     @Override
     public String toString() {
         return "Firefly asynchronous TCP configuration {" +
                 "timeout=" + timeout +
                 ", asynchronousCorePoolSize=" + asynchronousCorePoolSize +
+                ", directReadBuffer=" + directReadBuffer +
+                ", affinityPoolSize=" + affinityPoolSize +
                 '}';
     }
 }
@@ -2,6 +2,7 @@ package com.firefly.net;
 
 import java.io.Closeable;
 import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
 
 /**
  * @author Pengtao Qiu
@@ -42,4 +43,12 @@ public interface Connection extends Closeable {
 
     InetSocketAddress getRemoteAddress();
 
+    /**
+     * Get the executor that runs the tasks of this connection one by one in the submitted order. If the affinity pool
+     * of the TCP configuration is enabled, the tasks run on the pinned worker that also decodes this connection.
+     *
+     * @return The ordered executor of this connection.
+     */
+    Executor getExecutor();
+
 }
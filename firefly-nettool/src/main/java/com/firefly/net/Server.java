@@ -11,4 +11,18 @@ public interface Server extends LifeCycle {
     void listen(String host, int port);
 
     ExecutorService getNetExecutorService();
+
+    /**
+     * Close the server socket channel, the server does not accept new connections, but the accepted connections
+     * are still working until the server stops.
+     */
+    void stopAccepting();
+
+    /**
+     * Set the number of the pinned workers that is used when the affinity pool size of the configuration is not set.
+     * It does not change the configuration. It must be set before the server starts.
+     *
+     * @param defaultAffinityPoolSize The default number of the pinned workers.
+     */
+    void setDefaultAffinityPoolSize(int defaultAffinityPoolSize);
 }
@@ -6,6 +6,7 @@ import com.firefly.utils.concurrent.Callback;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.Collection;
+import java.util.concurrent.Executor;
 
 public interface Session {
 
@@ -65,6 +66,27 @@ public interface Session {
 
     boolean isWaitingForClose();
 
+    /**
+     * Stop reading the data from the remote endpoint after the current read operation completes.
+     * The received data stays in the socket receive buffer, so the remote endpoint is throttled by the TCP flow control.
+     */
+    void suspendRead();
+
+    /**
+     * Continue reading the data from the remote endpoint if the reading is suspended.
+     */
+    void resumeRead();
+
+    boolean isReadSuspended();
+
+    /**
+     * Get the executor that runs the tasks of this session one by one in the submitted order. If the affinity pool
+     * is enabled, the tasks run on the pinned worker that also decodes the received data of this session.
+     *
+     * @return The ordered executor of this session.
+     */
+    Executor getExecutor();
+
     InetSocketAddress getLocalAddress();
 
     InetSocketAddress getRemoteAddress();
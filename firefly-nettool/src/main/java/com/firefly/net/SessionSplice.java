@@ -0,0 +1,214 @@
+package com.firefly.net;
+
+import com.firefly.utils.concurrent.Callback;
+import com.firefly.utils.function.Action1;
+import com.firefly.utils.time.Millisecond100Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The splice forwards the data between two sessions. The received buffer is written to the other session
+ * without copying. When the pending output bytes of a session exceed the high watermark, the splice suspends
+ * reading the other session, and resumes it when the pending output bytes drop to the low watermark.
+ * <p>
+ * The splice does not receive the data by itself, the data handler of the connection calls the transfer method.
+ * When either session is closed, the splice closes the other session after its pending output is written.
+ *
+ * @author Pengtao Qiu
+ */
+public class SessionSplice {
+
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    public static final int DEFAULT_HIGH_WATERMARK = 64 * 1024;
+
+    private final Direction upstream;
+    private final Direction downstream;
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final long openTime;
+    private volatile long closeTime;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final List<Action1<SessionSplice>> closeListeners = new CopyOnWriteArrayList<>();
+
+    public SessionSplice(Session left, Session right) {
+        this(left, right, DEFAULT_HIGH_WATERMARK, DEFAULT_HIGH_WATERMARK / 2);
+    }
+
+    /**
+     * Create the splice between two sessions.
+     *
+     * @param left          The session that receives the upstream data, e.g., the client side of a tunnel.
+     * @param right         The session that receives the downstream data, e.g., the target server side of a tunnel.
+     * @param highWatermark The pending output bytes that suspend reading the other session.
+     * @param lowWatermark  The pending output bytes that resume reading the other session.
+     */
+    public SessionSplice(Session left, Session right, long highWatermark, long lowWatermark) {
+        if (lowWatermark > highWatermark) {
+            throw new IllegalArgumentException("The low watermark must be less than or equal to the high watermark");
+        }
+        this.upstream = new Direction(left, right);
+        this.downstream = new Direction(right, left);
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.openTime = Millisecond100Clock.currentTimeMillis();
+    }
+
+    /**
+     * Forward the buffer received from the source session to the other session.
+     *
+     * @param source The session that receives the buffer.
+     * @param buffer The received buffer. The splice takes the ownership of the buffer.
+     */
+    public void transfer(Session source, ByteBuffer buffer) {
+        if (source == upstream.source) {
+            upstream.transfer(buffer);
+        } else if (source == downstream.source) {
+            downstream.transfer(buffer);
+        } else {
+            throw new IllegalArgumentException("The session " + source.getSessionId() + " is not a part of the splice");
+        }
+    }
+
+    /**
+     * Close both sessions after their pending output is written.
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            closeTime = Millisecond100Clock.currentTimeMillis();
+            upstream.target.close();
+            downstream.target.close();
+            // the paused session would never read the end of the stream
+            upstream.source.resumeRead();
+            downstream.source.resumeRead();
+            log.info("The splice between the session {} and {} is closed. upstream: {}, downstream: {}, duration: {}ms",
+                    upstream.source.getSessionId(), downstream.source.getSessionId(),
+                    getUpstreamBytes(), getDownstreamBytes(), getDuration());
+            closeListeners.forEach(listener -> {
+                try {
+                    listener.call(this);
+                } catch (Throwable t) {
+                    log.error("The splice close listener exception", t);
+                }
+            });
+        }
+    }
+
+    public SessionSplice onClose(Action1<SessionSplice> closeListener) {
+        closeListeners.add(closeListener);
+        return this;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Get the bytes that are forwarded from the left session to the right session.
+     *
+     * @return The upstream bytes.
+     */
+    public long getUpstreamBytes() {
+        return upstream.transferredBytes.sum();
+    }
+
+    /**
+     * Get the bytes that are forwarded from the right session to the left session.
+     *
+     * @return The downstream bytes.
+     */
+    public long getDownstreamBytes() {
+        return downstream.transferredBytes.sum();
+    }
+
+    /**
+     * Get the number of times that the splice suspends reading a session.
+     *
+     * @return The number of the suspensions.
+     */
+    public long getSuspendedCount() {
+        return upstream.suspendedCount.sum() + downstream.suspendedCount.sum();
+    }
+
+    public long getOpenTime() {
+        return openTime;
+    }
+
+    public long getCloseTime() {
+        return closeTime;
+    }
+
+    /**
+     * Get the time in milliseconds from the splice opens to it closes, or to now if it is still open.
+     *
+     * @return The duration of the splice.
+     */
+    public long getDuration() {
+        long end = closed.get() ? closeTime : Millisecond100Clock.currentTimeMillis();
+        return end - openTime;
+    }
+
+    public long getHighWatermark() {
+        return highWatermark;
+    }
+
+    public long getLowWatermark() {
+        return lowWatermark;
+    }
+
+    private class Direction {
+        private final Session source;
+        private final Session target;
+        private final AtomicLong pendingBytes = new AtomicLong();
+        private final LongAdder transferredBytes = new LongAdder();
+        private final LongAdder suspendedCount = new LongAdder();
+
+        Direction(Session source, Session target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        void transfer(ByteBuffer buffer) {
+            int length = buffer.remaining();
+            if (length == 0) {
+                return;
+            }
+            if (closed.get()) {
+                log.debug("The splice is closed. It discards {} bytes of the session {}", length, source.getSessionId());
+                return;
+            }
+            transferredBytes.add(length);
+            pendingBytes.addAndGet(length);
+            target.write(buffer, new Callback() {
+                @Override
+                public void succeeded() {
+                    if (pendingBytes.addAndGet(-length) <= lowWatermark && source.isReadSuspended()) {
+                        source.resumeRead();
+                    }
+                }
+
+                @Override
+                public void failed(Throwable x) {
+                    log.warn("The splice writes data to the session {} failure. {}", target.getSessionId(), x.getMessage());
+                    close();
+                }
+            });
+
+            if (pendingBytes.get() > highWatermark) {
+                source.suspendRead();
+                suspendedCount.increment();
+                // the pending output may be written before the reading is suspended
+                if (pendingBytes.get() <= lowWatermark) {
+                    source.resumeRead();
+                }
+            }
+        }
+    }
+}
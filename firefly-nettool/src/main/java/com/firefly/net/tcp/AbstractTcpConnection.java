@@ -8,6 +8,7 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 
 public abstract class AbstractTcpConnection implements TcpConnection {
@@ -42,6 +43,15 @@ public abstract class AbstractTcpConnection implements TcpConnection {
         return this;
     }
 
+    /**
+     * Get the underlying TCP session. The data of the secure connection is encrypted in the TCP session.
+     *
+     * @return The TCP session.
+     */
+    public Session getSession() {
+        return session;
+    }
+
     public void notifyClose() {
         closeListeners.forEach(Action0::call);
     }
@@ -169,4 +179,9 @@ public abstract class AbstractTcpConnection implements TcpConnection {
     public long getMaxIdleTimeout() {
         return session.getMaxIdleTimeout();
     }
+
+    @Override
+    public Executor getExecutor() {
+        return session.getExecutor();
+    }
 }
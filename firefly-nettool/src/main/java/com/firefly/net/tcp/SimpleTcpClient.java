@@ -11,6 +11,7 @@ import com.firefly.utils.lang.AbstractLifeCycle;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SimpleTcpClient extends AbstractLifeCycle {
 
@@ -18,6 +19,7 @@ public class SimpleTcpClient extends AbstractLifeCycle {
     private TcpConfiguration config;
 
     private Map<Integer, Promise<TcpConnection>> context = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionId = new AtomicInteger(0);
 
     public SimpleTcpClient() {
         this(new TcpConfiguration());
@@ -67,9 +69,10 @@ public class SimpleTcpClient extends AbstractLifeCycle {
 
     public void connect(String host, int port, Promise<TcpConnection> promise) {
         start();
-        int sessionId = client.connect(host, port);
-
-        context.put(sessionId, promise);
+        // register the promise before connecting, the session may be opened before the connect method returns
+        int id = sessionId.getAndIncrement();
+        context.put(id, promise);
+        client.connect(host, port, id);
     }
 
     public abstract class AbstractHandler extends AbstractSimpleHandler {
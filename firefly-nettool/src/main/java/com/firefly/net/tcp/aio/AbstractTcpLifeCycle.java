@@ -4,6 +4,7 @@ import com.codahale.metrics.ScheduledReporter;
 import com.firefly.net.Config;
 import com.firefly.net.event.DefaultNetEvent;
 import com.firefly.net.exception.NetException;
+import com.firefly.utils.concurrent.AffinityThreadPool;
 import com.firefly.utils.lang.AbstractLifeCycle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,8 +25,10 @@ abstract public class AbstractTcpLifeCycle extends AbstractLifeCycle {
     protected AtomicInteger sessionId = new AtomicInteger();
     protected AsynchronousChannelGroup group;
     protected ExecutorService netExecutorService;
+    protected AffinityThreadPool affinityThreadPool;
     protected AsynchronousTcpWorker worker;
     protected ScheduledReporter reporter;
+    protected int defaultAffinityPoolSize;
 
     abstract protected String getThreadName();
 
@@ -33,6 +36,29 @@ abstract public class AbstractTcpLifeCycle extends AbstractLifeCycle {
         return netExecutorService;
     }
 
+    /**
+     * Get the pool of the pinned workers that decode the received data of the sessions.
+     *
+     * @return The affinity thread pool, or null if the affinity pool size is not set.
+     */
+    public AffinityThreadPool getAffinityThreadPool() {
+        return affinityThreadPool;
+    }
+
+    public int getDefaultAffinityPoolSize() {
+        return defaultAffinityPoolSize;
+    }
+
+    /**
+     * Set the number of the pinned workers that is used when the affinity pool size of the configuration is not set.
+     * It does not change the configuration. It must be set before the life cycle starts.
+     *
+     * @param defaultAffinityPoolSize The default number of the pinned workers. The default value is 0, the sessions are not pinned.
+     */
+    public void setDefaultAffinityPoolSize(int defaultAffinityPoolSize) {
+        this.defaultAffinityPoolSize = defaultAffinityPoolSize;
+    }
+
     @Override
     protected void init() {
         if (config == null)
@@ -76,8 +102,18 @@ abstract public class AbstractTcpLifeCycle extends AbstractLifeCycle {
                 log.info("initialize the fixed size thread pool. thread number: {}", config.getAsynchronousCorePoolSize());
             }
             group = AsynchronousChannelGroup.withThreadPool(netExecutorService);
+            int affinityPoolSize = config.getAffinityPoolSize() > 0 ? config.getAffinityPoolSize() : defaultAffinityPoolSize;
+            if (affinityPoolSize > 0) {
+                AtomicInteger threadId = new AtomicInteger();
+                affinityThreadPool = new AffinityThreadPool(affinityPoolSize, r -> {
+                    Thread thread = new Thread(r, getThreadName() + "affinity-" + threadId.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }, SessionTask.workSelector);
+                log.info("initialize the affinity thread pool. thread number: {}", affinityPoolSize);
+            }
             log.info(config.toString());
-            worker = new AsynchronousTcpWorker(config, new DefaultNetEvent(config));
+            worker = new AsynchronousTcpWorker(config, new DefaultNetEvent(config), netExecutorService, affinityThreadPool);
             if (config.isMonitorEnable()) {
                 reporter = config.getMetricReporterFactory().getScheduledReporter();
                 try {
@@ -93,6 +129,9 @@ abstract public class AbstractTcpLifeCycle extends AbstractLifeCycle {
 
     @Override
     protected void destroy() {
+        if (affinityThreadPool != null) {
+            affinityThreadPool.shutdown();
+        }
         if (group != null) {
             try {
                 group.shutdown();
@@ -3,6 +3,7 @@ package com.firefly.net.tcp.aio;
 import com.firefly.net.*;
 import com.firefly.utils.ProjectVersion;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.StandardSocketOptions;
 import java.nio.channels.AsynchronousServerSocketChannel;
@@ -13,6 +14,8 @@ import static com.firefly.net.tcp.TcpPerformanceParameter.BACKLOG;
 
 public class AsynchronousTcpServer extends AbstractTcpLifeCycle implements Server {
 
+    private volatile AsynchronousServerSocketChannel serverSocketChannel;
+
     public AsynchronousTcpServer() {
     }
 
@@ -43,7 +46,8 @@ public class AsynchronousTcpServer extends AbstractTcpLifeCycle implements Serve
     @Override
     public void listen(String host, int port) {
         start();
-        listen(bind(host, port));
+        serverSocketChannel = bind(host, port);
+        listen(serverSocketChannel);
         System.out.println(ProjectVersion.getAsciiArt());
         log.info("start server. host: {}, port: {}", host, port);
     }
@@ -74,6 +78,10 @@ public class AsynchronousTcpServer extends AbstractTcpLifeCycle implements Serve
 
             @Override
             public void failed(Throwable t, Integer sessionId) {
+                if (!serverSocketChannel.isOpen()) {
+                    log.info("server stops accepting channel {}", sessionId);
+                    return;
+                }
                 try {
                     try {
                         config.getHandler().failedAcceptingSession(sessionId, t);
@@ -88,6 +96,24 @@ public class AsynchronousTcpServer extends AbstractTcpLifeCycle implements Serve
         });
     }
 
+    @Override
+    public void stopAccepting() {
+        AsynchronousServerSocketChannel channel = serverSocketChannel;
+        if (channel != null && channel.isOpen()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error("close server socket channel exception", e);
+            }
+        }
+    }
+
+    @Override
+    protected void destroy() {
+        stopAccepting();
+        super.destroy();
+    }
+
     @Override
     protected String getThreadName() {
         return "firefly-aio-tcp-server-";
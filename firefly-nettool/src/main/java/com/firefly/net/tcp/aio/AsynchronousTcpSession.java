@@ -6,6 +6,7 @@ import com.firefly.net.buffer.FileRegion;
 import com.firefly.net.exception.NetException;
 import com.firefly.net.tcp.aio.metric.SessionMetric;
 import com.firefly.utils.concurrent.Callback;
+import com.firefly.utils.concurrent.SerialExecutor;
 import com.firefly.utils.io.BufferUtils;
 import com.firefly.utils.time.Millisecond100Clock;
 import com.firefly.utils.time.SafeSimpleDateFormat;
@@ -17,6 +18,8 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
@@ -38,6 +41,8 @@ public class AsynchronousTcpSession implements Session {
     private final AtomicBoolean shutdownOutput = new AtomicBoolean(false);
     private final AtomicBoolean shutdownInput = new AtomicBoolean(false);
     private final AtomicBoolean waitingForClose = new AtomicBoolean(false);
+    private final AtomicBoolean readSuspended = new AtomicBoolean(false);
+    private final AtomicBoolean readPaused = new AtomicBoolean(false);
 
     private final AsynchronousSocketChannel socketChannel;
     private volatile InetSocketAddress localAddress;
@@ -51,8 +56,11 @@ public class AsynchronousTcpSession implements Session {
     private boolean isWriting = false;
     private final Queue<OutputEntry<?>> outputBuffer = new LinkedList<>();
     private final BufferSizePredictor bufferSizePredictor = new AdaptiveBufferSizePredictor();
+    private final ExecutorService affinityExecutorService;
+    private final Executor executor;
 
-    AsynchronousTcpSession(int sessionId, Config config, SessionMetric sessionMetric, NetEvent netEvent, AsynchronousSocketChannel socketChannel) {
+    AsynchronousTcpSession(int sessionId, Config config, SessionMetric sessionMetric, NetEvent netEvent, AsynchronousSocketChannel socketChannel,
+                           ExecutorService netExecutorService, ExecutorService affinityExecutorService) {
         this.sessionId = sessionId;
         this.openTime = Millisecond100Clock.currentTimeMillis();
         this.config = config;
@@ -60,12 +68,19 @@ public class AsynchronousTcpSession implements Session {
         this.socketChannel = socketChannel;
         this.sessionMetric = sessionMetric;
         this.sessionMetric.getActiveSessionCount().inc();
+        this.affinityExecutorService = affinityExecutorService;
+        if (affinityExecutorService != null) {
+            // the worker thread runs the tasks in order
+            this.executor = task -> affinityExecutorService.execute(new SessionTask(sessionId, task));
+        } else {
+            this.executor = new SerialExecutor(netExecutorService);
+        }
     }
 
     private ByteBuffer allocateReadBuffer() {
         int size = BufferUtils.normalizeBufferSize(bufferSizePredictor.nextBufferSize());
         sessionMetric.getAllocatedInputBufferSize().update(size);
-        return ByteBuffer.allocate(size);
+        return config.isDirectReadBuffer() ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
     }
 
     void _read() {
@@ -81,6 +96,39 @@ public class AsynchronousTcpSession implements Session {
         }
     }
 
+    private void readNext() {
+        if (readSuspended.get()) {
+            readPaused.set(true);
+            // the resumeRead may be called before the paused flag is set
+            if (readSuspended.get() || !readPaused.compareAndSet(true, false)) {
+                return;
+            }
+        }
+        _read();
+    }
+
+    @Override
+    public void suspendRead() {
+        readSuspended.set(true);
+    }
+
+    @Override
+    public void resumeRead() {
+        if (readSuspended.compareAndSet(true, false) && readPaused.compareAndSet(true, false) && isOpen()) {
+            _read();
+        }
+    }
+
+    @Override
+    public boolean isReadSuspended() {
+        return readSuspended.get();
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+
     private class InputCompletionHandler implements CompletionHandler<Integer, AsynchronousTcpSession> {
 
         private final ByteBuffer buf;
@@ -105,12 +153,20 @@ public class AsynchronousTcpSession implements Session {
             session.bufferSizePredictor.previousReceivedBufferSize(currentReadBytes);
             session.readBytes += currentReadBytes;
             buf.flip();
+            if (affinityExecutorService != null) {
+                executor.execute(this::decode);
+            } else {
+                decode();
+            }
+        }
+
+        private void decode() {
             try {
-                config.getDecoder().decode(buf, session);
+                config.getDecoder().decode(buf, AsynchronousTcpSession.this);
             } catch (Throwable t) {
-                netEvent.notifyExceptionCaught(session, t);
+                netEvent.notifyExceptionCaught(AsynchronousTcpSession.this, t);
             } finally {
-                _read();
+                readNext();
             }
         }
 
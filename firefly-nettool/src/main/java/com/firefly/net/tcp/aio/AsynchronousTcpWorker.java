@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.net.StandardSocketOptions;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.Channel;
+import java.util.concurrent.ExecutorService;
 
 public class AsynchronousTcpWorker implements Worker {
     private static Logger log = LoggerFactory.getLogger("firefly-system");
@@ -19,10 +20,15 @@ public class AsynchronousTcpWorker implements Worker {
     private final Config config;
     private final NetEvent netEvent;
     private final SessionMetric sessionMetric;
+    private final ExecutorService netExecutorService;
+    private final ExecutorService affinityExecutorService;
 
-    AsynchronousTcpWorker(Config config, NetEvent netEvent) {
+    AsynchronousTcpWorker(Config config, NetEvent netEvent,
+                          ExecutorService netExecutorService, ExecutorService affinityExecutorService) {
         this.config = config;
         this.netEvent = netEvent;
+        this.netExecutorService = netExecutorService;
+        this.affinityExecutorService = affinityExecutorService;
         MetricRegistry metrics = config.getMetricReporterFactory().getMetricRegistry();
         sessionMetric = new SessionMetric(metrics, "aio.tcpSession");
     }
@@ -35,7 +41,8 @@ public class AsynchronousTcpWorker implements Worker {
             socketChannel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
             socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, false);
 
-            AsynchronousTcpSession session = new AsynchronousTcpSession(sessionId, config, sessionMetric, netEvent, socketChannel);
+            AsynchronousTcpSession session = new AsynchronousTcpSession(sessionId, config, sessionMetric, netEvent, socketChannel,
+                    netExecutorService, affinityExecutorService);
             netEvent.notifySessionOpened(session);
             session._read();
         } catch (IOException e) {
@@ -0,0 +1,29 @@
+package com.firefly.net.tcp.aio;
+
+import com.firefly.utils.concurrent.AffinityThreadPool;
+
+/**
+ * The task of a session. The affinity thread pool selects the worker by the session id.
+ *
+ * @author Pengtao Qiu
+ */
+class SessionTask implements Runnable {
+
+    static final AffinityThreadPool.WorkSelector workSelector = (workSize, task) -> {
+        int key = task instanceof SessionTask ? ((SessionTask) task).sessionId : task.hashCode();
+        return Math.floorMod(key, workSize);
+    };
+
+    private final int sessionId;
+    private final Runnable task;
+
+    SessionTask(int sessionId, Runnable task) {
+        this.sessionId = sessionId;
+        this.task = task;
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+}
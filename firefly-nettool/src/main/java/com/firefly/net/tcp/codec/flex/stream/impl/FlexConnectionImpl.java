@@ -23,6 +23,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 /**
  * @author Pengtao Qiu
@@ -335,4 +336,9 @@ public class FlexConnectionImpl implements FlexConnection {
             onDataFrame(stream, dataFrame, listener);
         }
     }
+
+    @Override
+    public Executor getExecutor() {
+        return tcpConnection.getExecutor();
+    }
 }
@@ -1,9 +1,11 @@
 package com.firefly.reactive.adapter.db;
 
+import com.firefly.db.Row;
 import com.firefly.db.SQLConnection;
 import com.firefly.db.SQLResultSet;
 import com.firefly.db.TransactionIsolation;
 import com.firefly.utils.function.Func1;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -231,6 +233,30 @@ public interface ReactiveSQLConnection {
      */
     <T> Mono<T> namedQuery(String sql, Func1<SQLResultSet, T> handler, Object paramObject);
 
+    /**
+     * Query records and emit the bound objects by demand. The cursor only advances as far as the subscriber requests.
+     *
+     * @param sql       A SQL that may contain one or more '?' placeholders.
+     * @param clazz     The Class reference of bound object.
+     * @param fetchSize The JDBC fetch size and the max chunk size.
+     * @param params    SQL parameters.
+     * @param <T>       The type of bound object.
+     * @return The result that is wrapped by Flux.
+     */
+    <T> Flux<T> queryForStream(String sql, Class<T> clazz, int fetchSize, Object... params);
+
+    /**
+     * Query records and emit the converted objects by demand. The cursor only advances as far as the subscriber requests.
+     *
+     * @param sql       A SQL that may contain one or more '?' placeholders.
+     * @param rowMapper The function that converts the current row to an object.
+     * @param fetchSize The JDBC fetch size and the max chunk size.
+     * @param params    SQL parameters.
+     * @param <T>       The type of converted object.
+     * @return The result that is wrapped by Flux.
+     */
+    <T> Flux<T> queryForStream(String sql, Func1<Row, T> rowMapper, int fetchSize, Object... params);
+
     /**
      * Update records.
      *
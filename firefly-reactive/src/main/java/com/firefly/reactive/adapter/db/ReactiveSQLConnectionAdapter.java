@@ -1,10 +1,10 @@
 package com.firefly.reactive.adapter.db;
 
-import com.firefly.db.SQLConnection;
-import com.firefly.db.SQLResultSet;
-import com.firefly.db.TransactionIsolation;
+import com.firefly.db.*;
 import com.firefly.utils.concurrent.Promise;
 import com.firefly.utils.function.Func1;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -91,6 +91,48 @@ public class ReactiveSQLConnectionAdapter implements ReactiveSQLConnection {
         return Mono.fromCompletionStage(sqlConnection.query(sql, handler, params));
     }
 
+    @Override
+    public <T> Flux<T> queryForStream(String sql, Class<T> clazz, int fetchSize, Object... params) {
+        return Flux.create(sink -> {
+            SQLRowStream stream = sqlConnection.queryForStream(sql, clazz, fetchSize, new FluxSinkRowHandler<>(sink), params);
+            sink.onRequest(stream::request);
+            sink.onDispose(stream::cancel);
+        });
+    }
+
+    @Override
+    public <T> Flux<T> queryForStream(String sql, Func1<Row, T> rowMapper, int fetchSize, Object... params) {
+        return Flux.create(sink -> {
+            SQLRowStream stream = sqlConnection.queryForStream(sql, rowMapper, fetchSize, new FluxSinkRowHandler<>(sink), params);
+            sink.onRequest(stream::request);
+            sink.onDispose(stream::cancel);
+        });
+    }
+
+    private static class FluxSinkRowHandler<T> implements SQLRowHandler<T> {
+
+        private final FluxSink<T> sink;
+
+        private FluxSinkRowHandler(FluxSink<T> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void onRows(List<T> rows) {
+            rows.forEach(sink::next);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            sink.error(t);
+        }
+
+        @Override
+        public void onComplete() {
+            sink.complete();
+        }
+    }
+
     @Override
     public <T> Mono<T> namedQuery(String sql, Func1<SQLResultSet, T> handler, Map<String, Object> paramMap) {
         return Mono.fromCompletionStage(sqlConnection.namedQuery(sql, handler, paramMap));
@@ -17,6 +17,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -178,6 +179,21 @@ public class TestReactiveSQLClient {
         }).verifyComplete();
     }
 
+    @Test
+    public void testQueryForStream() {
+        Mono<List<Long>> ids = exec(c -> c.queryForStream("select * from test.user", User.class, 3)
+                                          .map(User::getId)
+                                          .collectList());
+        StepVerifier.create(ids).assertNext(idList -> Assert.assertThat(idList.size(), is(size))).verifyComplete();
+
+        Mono<List<String>> names = exec(c -> c.queryForStream("select pt_name from test.user order by id", row -> row.getString(1), 4)
+                                              .take(2)
+                                              .collectList());
+        StepVerifier.create(names)
+                    .assertNext(nameList -> Assert.assertThat(nameList, is(Arrays.asList("test transaction 0", "test transaction 1"))))
+                    .verifyComplete();
+    }
+
     @Test
     public void testQueryById() {
         Mono<User> user = exec(c -> c.queryById(1, User.class));
@@ -1,5 +1,6 @@
 package com.firefly.client.http2;
 
+import com.firefly.codec.http2.frame.ErrorCode;
 import com.firefly.codec.http2.frame.GoAwayFrame;
 import com.firefly.codec.http2.frame.ResetFrame;
 import com.firefly.codec.http2.stream.Session;
@@ -36,7 +37,10 @@ public class ClientHTTP2SessionListener extends Session.Listener.Adapter {
     @Override
     public void onClose(Session session, GoAwayFrame frame) {
         log.warn("Client received the GoAwayFrame -> {}", frame.toString());
-        Optional.ofNullable(connection).ifPresent(IO::close);
+        // the graceful GO_AWAY closes the session after the existing streams are finished
+        if (frame.getError() != ErrorCode.NO_ERROR.code) {
+            Optional.ofNullable(connection).ifPresent(IO::close);
+        }
     }
 
     @Override
@@ -145,6 +145,14 @@ public class HTTP1ClientConnection extends AbstractHTTP1Connection implements HT
         return new HttpParser(responseHandler, config.getMaxRequestHeadLength());
     }
 
+    /**
+     * The response that has neither the content length nor the chunked encoding is ended by closing the connection.
+     */
+    void parseEndOfFile() {
+        parser.atEOF();
+        parser.parseNext(BufferUtils.EMPTY_BUFFER);
+    }
+
     HttpParser getParser() {
         return parser;
     }
@@ -8,8 +8,6 @@ import com.firefly.net.Session;
 
 import java.nio.ByteBuffer;
 
-import static com.firefly.utils.io.BufferUtils.toHeapBuffer;
-
 public class HTTP1ClientDecoder extends DecoderChain {
 
     private final WebSocketDecoder webSocketDecoder;
@@ -23,30 +21,29 @@ public class HTTP1ClientDecoder extends DecoderChain {
 
     @Override
     public void decode(ByteBuffer buffer, Session session) {
-        ByteBuffer buf = toHeapBuffer(buffer);
         AbstractConnection abstractConnection = (AbstractConnection) session.getAttachment();
         switch (abstractConnection.getConnectionType()) {
             case HTTP1: {
                 final HTTP1ClientConnection http1Connection = (HTTP1ClientConnection) session.getAttachment();
                 final HttpParser parser = http1Connection.getParser();
-                while (buf.hasRemaining()) {
-                    parser.parseNext(buf);
+                while (buffer.hasRemaining()) {
+                    parser.parseNext(buffer);
                     if (http1Connection.getUpgradeHTTP2Complete()) {
-                        http2ClientDecoder.decode(buf, session);
+                        http2ClientDecoder.decode(buffer, session);
                         break;
                     } else if (http1Connection.getUpgradeWebSocketComplete()) {
-                        webSocketDecoder.decode(buf, session);
+                        webSocketDecoder.decode(buffer, session);
                         break;
                     }
                 }
             }
             break;
             case HTTP2: {
-                http2ClientDecoder.decode(buf, session);
+                http2ClientDecoder.decode(buffer, session);
             }
             break;
             case WEB_SOCKET: {
-                webSocketDecoder.decode(buf, session);
+                webSocketDecoder.decode(buffer, session);
             }
             break;
             default:
@@ -99,6 +99,9 @@ public class HTTP2ClientHandler extends AbstractHTTPHandler {
     @Override
     public void sessionClosed(Session session) throws Throwable {
         try {
+            if (session.getAttachment() instanceof HTTP1ClientConnection) {
+                ((HTTP1ClientConnection) session.getAttachment()).parseEndOfFile();
+            }
             super.sessionClosed(session);
         } finally {
             http2ClientContext.remove(session.getSessionId());
@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 /**
  * @author Pengtao Qiu
@@ -198,4 +199,8 @@ abstract public class AbstractConnection implements Connection, ConnectionExtInf
         }
     }
 
+    @Override
+    public Executor getExecutor() {
+        return tcpSession.getExecutor();
+    }
 }
@@ -0,0 +1,90 @@
+package com.firefly.codec.common;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The shared pool of the raw (nowrap) Deflater and Inflater. The WebSocket compression extension borrows an instance
+ * for a message when the context takeover is disabled, and the HTTP response compression borrows an instance
+ * for a response body, so the idle connections do not hold the native zlib state.
+ * <p>
+ * The pool does not block, it creates a new instance when it is empty, and ends the released instance
+ * when the idle instances exceed the max idle size.
+ *
+ * @author Pengtao Qiu
+ */
+public class CompressionPool {
+
+    private static final CompressionPool defaultPool = new CompressionPool(
+            Integer.getInteger("com.firefly.codec.common.CompressionPool.maxIdle",
+                    Runtime.getRuntime().availableProcessors() * 4));
+
+    private final int maxIdle;
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleDeflaters = new AtomicInteger();
+    private final AtomicInteger idleInflaters = new AtomicInteger();
+
+    public CompressionPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public static CompressionPool getDefault() {
+        return defaultPool;
+    }
+
+    public Deflater acquireDeflater() {
+        Deflater deflater = deflaters.poll();
+        if (deflater != null) {
+            idleDeflaters.decrementAndGet();
+            return deflater;
+        } else {
+            return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+    }
+
+    public void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (idleDeflaters.incrementAndGet() <= maxIdle) {
+            deflaters.offer(deflater);
+        } else {
+            idleDeflaters.decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    public Inflater acquireInflater() {
+        Inflater inflater = inflaters.poll();
+        if (inflater != null) {
+            idleInflaters.decrementAndGet();
+            return inflater;
+        } else {
+            return new Inflater(true);
+        }
+    }
+
+    public void releaseInflater(Inflater inflater) {
+        inflater.reset();
+        if (idleInflaters.incrementAndGet() <= maxIdle) {
+            inflaters.offer(inflater);
+        } else {
+            idleInflaters.decrementAndGet();
+            inflater.end();
+        }
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public int getIdleDeflaters() {
+        return idleDeflaters.get();
+    }
+
+    public int getIdleInflaters() {
+        return idleInflaters.get();
+    }
+}
@@ -6,8 +6,8 @@ import com.firefly.utils.function.Action2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author Pengtao Qiu
@@ -17,8 +17,8 @@ public class ConnectionEvent<T extends Connection> {
     private static Logger log = LoggerFactory.getLogger("firefly-system");
 
     private final T connection;
-    private final List<Action1<T>> closedListeners = new LinkedList<>();
-    private final List<Action2<T, Throwable>> exceptionListeners = new LinkedList<>();
+    private final List<Action1<T>> closedListeners = new CopyOnWriteArrayList<>();
+    private final List<Action2<T, Throwable>> exceptionListeners = new CopyOnWriteArrayList<>();
 
     public ConnectionEvent(T connection) {
         this.connection = connection;
@@ -661,8 +661,26 @@ public class HttpParser {
                                     }
                                     _uri.append(array, p - 1, len + 1);
                                     buffer.position(i - buffer.arrayOffset());
-                                } else
+                                } else {
+                                    // the direct buffer, scan it using the absolute get
+                                    int p = buffer.position();
+                                    int l = buffer.limit();
+                                    int i = p;
+                                    while (i < l && buffer.get(i) > HttpTokens.SPACE)
+                                        i++;
+
+                                    int len = i - p;
+                                    _headerBytes += len;
+
+                                    if (_maxHeaderBytes > 0 && ++_headerBytes > _maxHeaderBytes) {
+                                        LOG.warn("URI is too large >" + _maxHeaderBytes);
+                                        throw new BadMessageException(HttpStatus.URI_TOO_LONG_414);
+                                    }
                                     _uri.append(t.getByte());
+                                    for (int j = p; j < i; j++)
+                                        _uri.append(buffer.get(j));
+                                    buffer.position(i);
+                                }
                             }
                             break;
 
@@ -743,8 +761,8 @@ public class HttpParser {
 
                                 // try quick look ahead for HTTP Version
                                 HttpVersion version;
-                                if (buffer.position() > 0 && buffer.hasArray())
-                                    version = HttpVersion.lookAheadGet(buffer.array(), buffer.arrayOffset() + buffer.position() - 1, buffer.arrayOffset() + buffer.limit());
+                                if (buffer.position() > 0)
+                                    version = HttpVersion.lookAheadGet(buffer, buffer.position() - 1);
                                 else
                                     version = HttpVersion.CACHE.getBest(buffer, 0, buffer.remaining());
 
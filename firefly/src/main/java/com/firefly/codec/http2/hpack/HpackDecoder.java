@@ -218,12 +218,10 @@ public class HpackDecoder {
     public static String toASCIIString(ByteBuffer buffer, int length) {
         StringBuilder builder = new StringBuilder(length);
         int position = buffer.position();
-        int start = buffer.arrayOffset() + position;
-        int end = start + length;
-        buffer.position(position + length);
-        byte[] array = buffer.array();
-        for (int i = start; i < end; i++)
-            builder.append((char) (0x7f & array[i]));
+        int end = position + length;
+        buffer.position(end);
+        for (int i = position; i < end; i++)
+            builder.append((char) (0x7f & buffer.get(i)));
         return builder.toString();
     }
 
@@ -331,15 +331,13 @@ public class Huffman {
         int current = 0;
         int bits = 0;
 
-        byte[] array = buffer.array();
+        // use the absolute get, the buffer may be a direct buffer
         int position = buffer.position();
-        int start = buffer.arrayOffset() + position;
-        int end = start + length;
-        buffer.position(position + length);
-
+        int end = position + length;
+        buffer.position(end);
 
-        for (int i = start; i < end; i++) {
-            int b = array[i] & 0xFF;
+        for (int i = position; i < end; i++) {
+            int b = buffer.get(i) & 0xFF;
             current = (current << 8) | b;
             bits += 8;
             while (bits >= 8) {
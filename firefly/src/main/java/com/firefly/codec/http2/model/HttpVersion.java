@@ -64,10 +64,28 @@ public enum HttpVersion {
      * @return A HttpVersion if a match or null if no easy match.
      */
     public static HttpVersion lookAheadGet(ByteBuffer buffer) {
+        return lookAheadGet(buffer, buffer.position());
+    }
+
+    /**
+     * Optimised lookup to find a HTTP Version and trailing white space in a
+     * heap or direct buffer. The buffer is not modified.
+     *
+     * @param buffer   buffer containing ISO-8859-1 characters
+     * @param position The first valid index of the buffer
+     * @return A HttpVersion if a match or null if no easy match.
+     */
+    public static HttpVersion lookAheadGet(ByteBuffer buffer, int position) {
         if (buffer.hasArray())
-            return lookAheadGet(buffer.array(), buffer.arrayOffset() + buffer.position(),
+            return lookAheadGet(buffer.array(), buffer.arrayOffset() + position,
                     buffer.arrayOffset() + buffer.limit());
-        return null;
+
+        if (buffer.limit() - position < 9)
+            return null;
+        byte[] bytes = new byte[9];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(position + i);
+        return lookAheadGet(bytes, 0, bytes.length);
     }
 
     private final String _string;
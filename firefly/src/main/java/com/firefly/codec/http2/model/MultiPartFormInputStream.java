@@ -3,6 +3,7 @@ package com.firefly.codec.http2.model;
 import com.firefly.utils.StringUtils;
 import com.firefly.utils.collection.LazyList;
 import com.firefly.utils.collection.MultiMap;
+import com.firefly.utils.function.Action1;
 import com.firefly.utils.io.BufferUtils;
 import com.firefly.utils.io.ByteArrayOutputStream2;
 import com.firefly.utils.lang.QuotedStringTokenizer;
@@ -43,6 +44,9 @@ public class MultiPartFormInputStream {
     private boolean _writeFilesWithFilenames;
     private boolean _parsed;
     private int _bufferSize = 16 * 1024;
+    private MultiPartParser _parser;
+    private long _total;
+    private Action1<Part> _partListener;
 
     public class MultiPart implements Part {
         protected String _name;
@@ -260,12 +264,14 @@ public class MultiPartFormInputStream {
     }
 
     /**
-     * @param in            Request input stream
+     * Create the multipart parser without the input stream. The content is fed by the {@link #parse(ByteBuffer)}
+     * as it arrives, and the {@link #parseComplete()} is called when the content ends.
+     *
      * @param contentType   Content-Type header
      * @param config        MultipartConfigElement
      * @param contextTmpDir javax.servlet.context.tempdir
      */
-    public MultiPartFormInputStream(InputStream in, String contentType, MultipartConfigElement config, File contextTmpDir) {
+    public MultiPartFormInputStream(String contentType, MultipartConfigElement config, File contextTmpDir) {
         _contentType = contentType;
         _config = config;
         _contextTmpDir = contextTmpDir;
@@ -274,6 +280,16 @@ public class MultiPartFormInputStream {
 
         if (_config == null)
             _config = new MultipartConfigElement(_contextTmpDir.getAbsolutePath());
+    }
+
+    /**
+     * @param in            Request input stream
+     * @param contentType   Content-Type header
+     * @param config        MultipartConfigElement
+     * @param contextTmpDir javax.servlet.context.tempdir
+     */
+    public MultiPartFormInputStream(InputStream in, String contentType, MultipartConfigElement config, File contextTmpDir) {
+        this(contentType, config, contextTmpDir);
 
         if (in instanceof ServletInputStream) {
             if (((ServletInputStream) in).isFinished()) {
@@ -407,93 +423,158 @@ public class MultiPartFormInputStream {
         // have we already parsed the input?
         if (_parsed)
             return;
-        _parsed = true;
-
-        try {
-            // initialize
-            _parts = new MultiMap<>();
-
-            // if its not a multipart request, don't parse it
-            if (_contentType == null || !_contentType.startsWith("multipart/form-data"))
-                return;
-
-            // sort out the location to which to write the files
-            if (_config.getLocation() == null)
-                _tmpDir = _contextTmpDir;
-            else if ("".equals(_config.getLocation()))
-                _tmpDir = _contextTmpDir;
-            else {
-                File f = new File(_config.getLocation());
-                if (f.isAbsolute())
-                    _tmpDir = f;
-                else
-                    _tmpDir = new File(_contextTmpDir, _config.getLocation());
-            }
-
-            if (!_tmpDir.exists())
-                _tmpDir.mkdirs();
-
-            String contentTypeBoundary = "";
-            int bstart = _contentType.indexOf("boundary=");
-            if (bstart >= 0) {
-                int bend = _contentType.indexOf(";", bstart);
-                bend = (bend < 0 ? _contentType.length() : bend);
-                contentTypeBoundary = QuotedStringTokenizer.unquote(value(_contentType.substring(bstart, bend)).trim());
-            }
 
-            Handler handler = new Handler();
-            MultiPartParser parser = new MultiPartParser(handler, contentTypeBoundary);
+        // the content is fed by the parse(ByteBuffer)
+        if (_in == null) {
+            parseComplete();
+            return;
+        }
 
+        try {
             byte[] data = new byte[_bufferSize];
             int len;
-            long total = 0;
 
             while (true) {
 
                 len = _in.read(data);
 
                 if (len > 0) {
-                    // keep running total of size of bytes read from input and throw an exception if exceeds MultipartConfigElement._maxRequestSize
-                    total += len;
-                    if (_config.getMaxRequestSize() > 0 && total > _config.getMaxRequestSize()) {
-                        _err = new IllegalStateException("Request exceeds maxRequestSize (" + _config.getMaxRequestSize() + ")");
+                    if (parse(BufferUtils.toBuffer(data, 0, len)))
                         return;
-                    }
-
-                    ByteBuffer buffer = BufferUtils.toBuffer(data);
-                    buffer.limit(len);
-                    if (parser.parse(buffer, false))
-                        break;
-
-                    if (buffer.hasRemaining())
-                        throw new IllegalStateException("Buffer did not fully consume");
-
                 } else if (len == -1) {
-                    parser.parse(BufferUtils.EMPTY_BUFFER, true);
-                    break;
+                    parseComplete();
+                    return;
                 }
 
             }
+        } catch (Throwable e) {
+            _err = e;
+            _parsed = true;
+        }
+    }
 
-            // check for exceptions
-            if (_err != null) {
-                return;
-            }
+    /**
+     * Parse the content incrementally. Every part is written to the memory or the temp file as the content arrives,
+     * so the content is not buffered and read again.
+     *
+     * @param buffer The content, the position of the buffer is not changed.
+     * @return If true, the parsing is complete or failed, and the remaining content can be discarded.
+     */
+    public boolean parse(ByteBuffer buffer) {
+        if (_parsed)
+            return true;
+
+        try {
+            if (_parser == null && !initParser())
+                return true;
 
-            // check we read to the end of the message
-            if (parser.getState() != MultiPartParser.State.END) {
-                if (parser.getState() == MultiPartParser.State.PREAMBLE)
-                    _err = new IOException("Missing initial multi part boundary");
-                else
-                    _err = new IOException("Incomplete Multipart");
+            // keep running total of size of bytes read from input and throw an exception if exceeds MultipartConfigElement._maxRequestSize
+            _total += buffer.remaining();
+            if (_config.getMaxRequestSize() > 0 && _total > _config.getMaxRequestSize()) {
+                _err = new IllegalStateException("Request exceeds maxRequestSize (" + _config.getMaxRequestSize() + ")");
+                _parsed = true;
+                return true;
             }
 
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Parsing Complete {} err={}", parser, _err);
+            // the parser searches the boundary in the backing array, the direct or read-only buffer is copied
+            ByteBuffer content;
+            if (buffer.hasArray()) {
+                content = buffer.slice();
+            } else {
+                content = ByteBuffer.allocate(buffer.remaining());
+                content.put(buffer.slice()).flip();
             }
+            if (_parser.parse(content, false)) {
+                checkComplete();
+                return true;
+            }
+
+            if (content.hasRemaining())
+                throw new IllegalStateException("Buffer did not fully consume");
 
+            return false;
         } catch (Throwable e) {
             _err = e;
+            _parsed = true;
+            return true;
+        }
+    }
+
+    /**
+     * Notify the parser that the content ends.
+     */
+    public void parseComplete() {
+        if (_parsed)
+            return;
+
+        try {
+            if (_parser == null && !initParser())
+                return;
+
+            _parser.parse(BufferUtils.EMPTY_BUFFER, true);
+            checkComplete();
+        } catch (Throwable e) {
+            _err = e;
+            _parsed = true;
+        }
+    }
+
+    private boolean initParser() {
+        // initialize
+        _parts = new MultiMap<>();
+
+        // if its not a multipart request, don't parse it
+        if (_contentType == null || !_contentType.startsWith("multipart/form-data")) {
+            _parsed = true;
+            return false;
+        }
+
+        // sort out the location to which to write the files
+        if (_config.getLocation() == null)
+            _tmpDir = _contextTmpDir;
+        else if ("".equals(_config.getLocation()))
+            _tmpDir = _contextTmpDir;
+        else {
+            File f = new File(_config.getLocation());
+            if (f.isAbsolute())
+                _tmpDir = f;
+            else
+                _tmpDir = new File(_contextTmpDir, _config.getLocation());
+        }
+
+        if (!_tmpDir.exists())
+            _tmpDir.mkdirs();
+
+        String contentTypeBoundary = "";
+        int bstart = _contentType.indexOf("boundary=");
+        if (bstart >= 0) {
+            int bend = _contentType.indexOf(";", bstart);
+            bend = (bend < 0 ? _contentType.length() : bend);
+            contentTypeBoundary = QuotedStringTokenizer.unquote(value(_contentType.substring(bstart, bend)).trim());
+        }
+
+        _parser = new MultiPartParser(new Handler(), contentTypeBoundary);
+        return true;
+    }
+
+    private void checkComplete() {
+        _parsed = true;
+
+        // check for exceptions
+        if (_err != null) {
+            return;
+        }
+
+        // check we read to the end of the message
+        if (_parser.getState() != MultiPartParser.State.END) {
+            if (_parser.getState() == MultiPartParser.State.PREAMBLE)
+                _err = new IOException("Missing initial multi part boundary");
+            else
+                _err = new IOException("Incomplete Multipart");
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Parsing Complete {} err={}", _parser, _err);
         }
     }
 
@@ -599,7 +680,9 @@ public class MultiPartFormInputStream {
             if (last) {
                 try {
                     _part.close();
-                } catch (IOException e) {
+                    if (_partListener != null)
+                        _partListener.call(_part);
+                } catch (Throwable e) {
                     _err = e;
                     return true;
                 }
@@ -627,6 +710,15 @@ public class MultiPartFormInputStream {
         }
     }
 
+    /**
+     * Set the listener that receives every part when the part content is complete.
+     *
+     * @param partListener The part listener.
+     */
+    public void setPartListener(Action1<Part> partListener) {
+        _partListener = partListener;
+    }
+
     public void setDeleteOnExit(boolean deleteOnExit) {
         _deleteOnExit = deleteOnExit;
     }
@@ -27,7 +27,6 @@ abstract public class AbstractHTTP1OutputStream extends HTTPOutputStream {
             return;
 
         final HttpGenerator generator = getHttpGenerator();
-        final Session tcpSession = getSession();
         HttpGenerator.Result generatorResult;
         ByteBuffer header = getHeaderByteBuffer();
 
@@ -35,9 +34,9 @@ abstract public class AbstractHTTP1OutputStream extends HTTPOutputStream {
         if (generatorResult == HttpGenerator.Result.FLUSH && generator.getState() == HttpGenerator.State.COMMITTED) {
             if (data != null) {
                 ByteBuffer[] headerAndData = new ByteBuffer[]{header, data};
-                tcpSession.encode(headerAndData);
+                encode(headerAndData);
             } else {
-                tcpSession.encode(header);
+                encode(header);
             }
             committed = true;
         } else {
@@ -54,7 +53,6 @@ abstract public class AbstractHTTP1OutputStream extends HTTPOutputStream {
             return;
 
         final HttpGenerator generator = getHttpGenerator();
-        final Session tcpSession = getSession();
         HttpGenerator.Result generatorResult;
 
         if (!committed) {
@@ -66,14 +64,14 @@ abstract public class AbstractHTTP1OutputStream extends HTTPOutputStream {
                 generatorResult = generate(null, null, chunk, data, false);
                 if (generatorResult == HttpGenerator.Result.FLUSH && generator.getState() == HttpGenerator.State.COMMITTED) {
                     ByteBuffer[] chunkAndData = new ByteBuffer[]{chunk, data};
-                    tcpSession.encode(chunkAndData);
+                    encode(chunkAndData);
                 } else {
                     generateHTTPMessageExceptionally(generatorResult, generator.getState(), HttpGenerator.Result.FLUSH, HttpGenerator.State.COMMITTED);
                 }
             } else {
                 generatorResult = generate(null, null, null, data, false);
                 if (generatorResult == HttpGenerator.Result.FLUSH && generator.getState() == HttpGenerator.State.COMMITTED) {
-                    tcpSession.encode(data);
+                    encode(data);
                 } else {
                     generateHTTPMessageExceptionally(generatorResult, generator.getState(), HttpGenerator.Result.FLUSH, HttpGenerator.State.COMMITTED);
                 }
@@ -89,14 +87,13 @@ abstract public class AbstractHTTP1OutputStream extends HTTPOutputStream {
         try {
             log.debug("http1 output stream is closing");
             final HttpGenerator generator = getHttpGenerator();
-            final Session tcpSession = getSession();
             HttpGenerator.Result generatorResult;
 
             if (!committed) {
                 ByteBuffer header = getHeaderByteBuffer();
                 generatorResult = generate(info, header, null, null, true);
                 if (generatorResult == HttpGenerator.Result.FLUSH && generator.getState() == HttpGenerator.State.COMPLETING) {
-                    tcpSession.encode(header);
+                    encode(header);
                     generateLastData(generator);
                 } else {
                     generateHTTPMessageExceptionally(generatorResult, generator.getState(), HttpGenerator.Result.FLUSH, HttpGenerator.State.COMPLETING);
@@ -109,9 +106,9 @@ abstract public class AbstractHTTP1OutputStream extends HTTPOutputStream {
                     if (generatorResult == HttpGenerator.Result.CONTINUE && generator.getState() == HttpGenerator.State.COMPLETING) {
                         generatorResult = generate(null, null, null, null, true);
                         if (generatorResult == HttpGenerator.Result.NEED_CHUNK && generator.getState() == HttpGenerator.State.COMPLETING) {
-                            generateLastChunk(generator, tcpSession);
+                            generateLastChunk(generator);
                         } else if (generatorResult == HttpGenerator.Result.NEED_CHUNK_TRAILER && generator.getState() == HttpGenerator.State.COMPLETING) {
-                            generateTrailer(generator, tcpSession);
+                            generateTrailer(generator);
                         }
                     } else {
                         generateHTTPMessageExceptionally(generatorResult, generator.getState(), HttpGenerator.Result.CONTINUE, HttpGenerator.State.COMPLETING);
@@ -130,22 +127,22 @@ abstract public class AbstractHTTP1OutputStream extends HTTPOutputStream {
         }
     }
 
-    private void generateLastChunk(HttpGenerator generator, Session tcpSession) throws IOException {
+    private void generateLastChunk(HttpGenerator generator) throws IOException {
         ByteBuffer chunk = BufferUtils.allocate(HttpGenerator.CHUNK_SIZE);
         HttpGenerator.Result generatorResult = generate(null, null, chunk, null, true);
         if (generatorResult == HttpGenerator.Result.FLUSH && generator.getState() == HttpGenerator.State.COMPLETING) {
-            tcpSession.encode(chunk);
+            encode(chunk);
             generateLastData(generator);
         } else {
             generateHTTPMessageExceptionally(generatorResult, generator.getState(), HttpGenerator.Result.FLUSH, HttpGenerator.State.COMPLETING);
         }
     }
 
-    private void generateTrailer(HttpGenerator generator, Session tcpSession) throws IOException {
+    private void generateTrailer(HttpGenerator generator) throws IOException {
         ByteBuffer trailer = getTrailerByteBuffer();
         HttpGenerator.Result generatorResult = generate(null, null, trailer, null, true);
         if (generatorResult == HttpGenerator.Result.FLUSH && generator.getState() == HttpGenerator.State.COMPLETING) {
-            tcpSession.encode(trailer);
+            encode(trailer);
             generateLastData(generator);
         } else {
             generateHTTPMessageExceptionally(generatorResult, generator.getState(), HttpGenerator.Result.FLUSH, HttpGenerator.State.COMPLETING);
@@ -158,7 +155,7 @@ abstract public class AbstractHTTP1OutputStream extends HTTPOutputStream {
             if (generatorResult == HttpGenerator.Result.DONE) {
                 generateHTTPMessageSuccessfully();
             } else if (generatorResult == HttpGenerator.Result.SHUTDOWN_OUT) {
-                getSession().close();
+                closeSession();
             } else {
                 generateHTTPMessageExceptionally(generatorResult, generator.getState(), HttpGenerator.Result.DONE, HttpGenerator.State.END);
             }
@@ -177,6 +174,23 @@ abstract public class AbstractHTTP1OutputStream extends HTTPOutputStream {
         }
     }
 
+    /**
+     * Write the generated HTTP message data to the TCP session.
+     *
+     * @param message The ByteBuffer or ByteBuffer array.
+     * @throws IOException If the message can not be written.
+     */
+    protected void encode(Object message) throws IOException {
+        getSession().encode(message);
+    }
+
+    /**
+     * Close the TCP session after the HTTP message that is not persistent is generated.
+     */
+    protected void closeSession() {
+        getSession().close();
+    }
+
     abstract protected ByteBuffer getHeaderByteBuffer();
 
     abstract protected ByteBuffer getTrailerByteBuffer();
@@ -27,6 +27,9 @@ public class HTTP2Configuration {
     private String characterEncoding = "UTF-8";
     private String protocol; // HTTP/2.0, HTTP/1.1
     private int http2PingInterval = 10 * 1000;
+    private long drainTimeout;
+    private int maxPipelinedRequests = 16;
+    private int maxPipelineBufferSize = 1024 * 1024;
 
     // WebSocket settings
     private int websocketPingInterval = 10 * 1000;
@@ -362,4 +365,65 @@ public class HTTP2Configuration {
     public void setWebsocketPingInterval(int websocketPingInterval) {
         this.websocketPingInterval = websocketPingInterval;
     }
+
+    /**
+     * Get the max time that the server waits for the in-flight requests when it stops. The time unit is millisecond.
+     *
+     * @return The max time that the server waits for the in-flight requests. The time unit is millisecond.
+     */
+    public long getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    /**
+     * Set the max time that the server waits for the in-flight requests when it stops. The time unit is millisecond.
+     * If the value is greater than 0, the server stops accepting the new connections, responds the "Connection: close"
+     * header in HTTP1 or sends the GO_AWAY frame in HTTP2, and waits for the in-flight requests before it stops.
+     * The default value is 0, the server stops immediately.
+     *
+     * @param drainTimeout The max time that the server waits for the in-flight requests. The time unit is millisecond.
+     */
+    public void setDrainTimeout(long drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Get the max number of the pipelined requests in a HTTP1 connection.
+     *
+     * @return The max number of the pipelined requests in a HTTP1 connection.
+     */
+    public int getMaxPipelinedRequests() {
+        return maxPipelinedRequests;
+    }
+
+    /**
+     * Set the max number of the pipelined requests in a HTTP1 connection. The handlers of the pipelined requests
+     * run concurrently, and the responses are sent in the request order. The server stops reading the connection
+     * when the number of the unfinished requests reaches this value. The default value is 16.
+     *
+     * @param maxPipelinedRequests The max number of the pipelined requests in a HTTP1 connection.
+     */
+    public void setMaxPipelinedRequests(int maxPipelinedRequests) {
+        this.maxPipelinedRequests = maxPipelinedRequests;
+    }
+
+    /**
+     * Get the max bytes of the buffered responses in a HTTP1 connection.
+     *
+     * @return The max bytes of the buffered responses in a HTTP1 connection.
+     */
+    public int getMaxPipelineBufferSize() {
+        return maxPipelineBufferSize;
+    }
+
+    /**
+     * Set the max bytes of the responses that are completed out of order and wait for the previous responses
+     * in a HTTP1 connection. When the limit is exceeded, the later response is aborted and the connection
+     * is closed after the previous responses are sent. The default value is 1MB.
+     *
+     * @param maxPipelineBufferSize The max bytes of the buffered responses in a HTTP1 connection.
+     */
+    public void setMaxPipelineBufferSize(int maxPipelineBufferSize) {
+        this.maxPipelineBufferSize = maxPipelineBufferSize;
+    }
 }
@@ -19,6 +19,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -48,6 +49,8 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
     private int initialSessionRecvWindow;
     private boolean pushEnabled;
     private long idleTime;
+    private volatile boolean draining;
+    private final AtomicBoolean pendingDisconnect = new AtomicBoolean();
 
     public HTTP2Session(Scheduler scheduler, com.firefly.net.Session endPoint, Generator generator,
                         Session.Listener listener, FlowControlStrategy flowControl,
@@ -315,7 +318,9 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
                     if (closed.compareAndSet(current, CloseState.REMOTELY_CLOSED)) {
                         // We received a GO_AWAY, so try to write
                         // what's in the queue and then disconnect.
-                        notifyClose(this, frame, new DisconnectCallback());
+                        // The graceful GO_AWAY waits for the existing
+                        // streams before disconnecting.
+                        notifyClose(this, frame, new DisconnectCallback(frame.getError() == ErrorCode.NO_ERROR.code));
                         return;
                     }
                     break;
@@ -487,6 +492,28 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
         }
     }
 
+    /**
+     * Send a GO_AWAY frame with the last stream id, but do not shut down the output, so that the existing streams
+     * can be finished. The new streams of the other peer are refused, and the session is disconnected after
+     * all the streams are removed.
+     *
+     * @return True if the session starts draining, false if the session is closed or draining.
+     */
+    public synchronized boolean drain() {
+        if (draining || isClosed()) {
+            return false;
+        }
+        draining = true;
+        control(null, Callback.NOOP, newGoAwayFrame(ErrorCode.NO_ERROR.code, "draining"));
+        pendingDisconnect.set(true);
+        disconnectIfNoStreams();
+        return true;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
     private GoAwayFrame newGoAwayFrame(int error, String reason) {
         byte[] payload = null;
         if (reason != null) {
@@ -571,6 +598,11 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
     }
 
     protected StreamSPI createRemoteStream(int streamId) {
+        if (draining) {
+            reset(new ResetFrame(streamId, ErrorCode.REFUSED_STREAM_ERROR.code), Callback.NOOP);
+            return null;
+        }
+
         // SPEC: exceeding max concurrent streams is treated as stream error.
         while (true) {
             long encoded = remoteStreamCount.get();
@@ -622,6 +654,7 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
             if (log.isDebugEnabled()) {
                 log.debug("Removed {} {}", stream.isLocal() ? "local" : "remote", stream);
             }
+            disconnectIfNoStreams();
         }
     }
 
@@ -986,7 +1019,11 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
                 case GO_AWAY: {
                     // We just sent a GO_AWAY, only shutdown the
                     // output without closing yet, to allow reads.
-                    getEndPoint().shutdownOutput();
+                    // The draining GO_AWAY keeps the output open
+                    // until the existing streams are finished.
+                    if (closed.get() != CloseState.NOT_CLOSED) {
+                        getEndPoint().shutdownOutput();
+                    }
                     break;
                 }
                 case WINDOW_UPDATE: {
@@ -1164,7 +1201,23 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
         }
     }
 
+    private void disconnectIfNoStreams() {
+        if (streams.isEmpty() && pendingDisconnect.compareAndSet(true, false)) {
+            disconnectAfterGoAway();
+        }
+    }
+
+    private void disconnectAfterGoAway() {
+        frames(null, Callback.NOOP, newGoAwayFrame(ErrorCode.NO_ERROR.code, null), new DisconnectFrame());
+    }
+
     private class DisconnectCallback implements Callback {
+        private final boolean graceful;
+
+        private DisconnectCallback(boolean graceful) {
+            this.graceful = graceful;
+        }
+
         @Override
         public void succeeded() {
             complete();
@@ -1176,7 +1229,12 @@ public abstract class HTTP2Session implements SessionSPI, Parser.Listener {
         }
 
         private void complete() {
-            frames(null, Callback.NOOP, newGoAwayFrame(ErrorCode.NO_ERROR.code, null), new DisconnectFrame());
+            if (graceful) {
+                pendingDisconnect.set(true);
+                disconnectIfNoStreams();
+            } else {
+                disconnectAfterGoAway();
+            }
         }
     }
 
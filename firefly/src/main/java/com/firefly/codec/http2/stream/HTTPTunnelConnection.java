@@ -1,6 +1,8 @@
 package com.firefly.codec.http2.stream;
 
+import com.firefly.net.SessionSplice;
 import com.firefly.net.buffer.FileRegion;
+import com.firefly.net.tcp.TcpConnection;
 import com.firefly.utils.concurrent.Callback;
 import com.firefly.utils.function.Action1;
 
@@ -22,4 +24,21 @@ public interface HTTPTunnelConnection extends HTTPConnection {
 
     void receive(Action1<ByteBuffer> content);
 
+    /**
+     * Forward the data between the tunnel and the plaintext TCP connection without copying. The splice suspends
+     * reading one side when the pending output of the other side exceeds the high watermark, and closes both sides
+     * when either side is closed. It replaces the receive callbacks of the tunnel and the TCP connection.
+     *
+     * @param connection    The plaintext TCP connection, e.g., the connection to the target server of the proxy.
+     * @param highWatermark The pending output bytes that suspend reading the other side.
+     * @param lowWatermark  The pending output bytes that resume reading the other side.
+     * @return The splice that counts the forwarded bytes and the duration of the tunnel.
+     */
+    SessionSplice splice(TcpConnection connection, long highWatermark, long lowWatermark);
+
+    default SessionSplice splice(TcpConnection connection) {
+        return splice(connection, SessionSplice.DEFAULT_HIGH_WATERMARK, SessionSplice.DEFAULT_HIGH_WATERMARK / 2);
+    }
+
+
 }
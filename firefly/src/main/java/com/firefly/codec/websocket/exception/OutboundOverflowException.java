@@ -0,0 +1,10 @@
+package com.firefly.codec.websocket.exception;
+
+/**
+ * Exception when the outbound buffer of the connection exceeds the limits and the message is not sent.
+ */
+public class OutboundOverflowException extends WebSocketException {
+    public OutboundOverflowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.firefly.codec.websocket.model;
+
+/**
+ * Behavior for how the WebSocket connection sends the message when the outbound buffer exceeds the limits
+ * of the {@link com.firefly.codec.websocket.stream.WebSocketPolicy}.
+ * <ul>
+ * <li>QUEUE: queue the message without limit, the limits only change the writability of the connection.</li>
+ * <li>FAIL: complete the send future exceptionally with the {@link com.firefly.codec.websocket.exception.OutboundOverflowException}.</li>
+ * <li>SUSPEND: hold the message until the connection is writable again, the send future is completed after the message is written.
+ * The held messages are limited by the max suspended frames and bytes, the message that exceeds them fails with the
+ * {@link com.firefly.codec.websocket.exception.OutboundOverflowException}.</li>
+ * </ul>
+ */
+public enum OutboundOverflowBehavior {
+    QUEUE, FAIL, SUSPEND
+}
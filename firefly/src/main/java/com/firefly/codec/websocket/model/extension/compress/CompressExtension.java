@@ -1,5 +1,9 @@
 package com.firefly.codec.websocket.model.extension.compress;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.firefly.codec.common.CompressionPool;
 import com.firefly.codec.websocket.frame.DataFrame;
 import com.firefly.codec.websocket.frame.Frame;
 import com.firefly.codec.websocket.model.OpCode;
@@ -10,10 +14,12 @@ import com.firefly.utils.io.BufferUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
@@ -66,13 +72,24 @@ public abstract class CompressExtension extends AbstractExtension {
 
     private final static boolean NOWRAP = true;
 
+    private static final ThreadLocal<byte[]> inputBuffer = ThreadLocal.withInitial(() -> new byte[INPUT_MAX_BUFFER_SIZE]);
+    private static final ThreadLocal<byte[]> decompressBuffer = ThreadLocal.withInitial(() -> new byte[DECOMPRESS_BUF_SIZE]);
+
     private final Queue<FrameEntry> entries = new ArrayDeque<>();
     private final IteratingCallback flusher = new Flusher();
+    private final Object inflaterLock = new Object();
+    private volatile boolean closed;
     private Deflater deflaterImpl;
     private Inflater inflaterImpl;
     protected AtomicInteger decompressCount = new AtomicInteger(0);
     private int tailDrop = TAIL_DROP_NEVER;
     private int rsvUse = RSV_USE_ALWAYS;
+    private CompressionPool compressionPool = CompressionPool.getDefault();
+    private boolean pooledDeflater;
+    private boolean pooledInflater;
+    private Histogram compressionRatio;
+    private Timer compressionTime;
+    private Timer decompressionTime;
 
     protected CompressExtension() {
         tailDrop = getTailDropMode();
@@ -82,18 +99,108 @@ public abstract class CompressExtension extends AbstractExtension {
 
     public Deflater getDeflater() {
         if (deflaterImpl == null) {
-            deflaterImpl = new Deflater(Deflater.DEFAULT_COMPRESSION, NOWRAP);
+            if (pooledDeflater) {
+                deflaterImpl = compressionPool.acquireDeflater();
+            } else {
+                deflaterImpl = new Deflater(Deflater.DEFAULT_COMPRESSION, NOWRAP);
+            }
         }
         return deflaterImpl;
     }
 
     public Inflater getInflater() {
         if (inflaterImpl == null) {
-            inflaterImpl = new Inflater(NOWRAP);
+            if (pooledInflater) {
+                inflaterImpl = compressionPool.acquireInflater();
+            } else {
+                inflaterImpl = new Inflater(NOWRAP);
+            }
         }
         return inflaterImpl;
     }
 
+    /**
+     * Reset the compression context at the end of the message. If the deflater is pooled,
+     * it is returned to the pool, and the next message borrows a deflater again.
+     */
+    protected void resetDeflater() {
+        if (deflaterImpl != null) {
+            if (pooledDeflater) {
+                compressionPool.releaseDeflater(deflaterImpl);
+                deflaterImpl = null;
+            } else {
+                deflaterImpl.reset();
+            }
+        }
+    }
+
+    /**
+     * Reset the decompression context at the end of the message. If the inflater is pooled,
+     * it is returned to the pool, and the next message borrows an inflater again.
+     */
+    protected void resetInflater() {
+        synchronized (inflaterLock) {
+            if (inflaterImpl != null) {
+                if (pooledInflater) {
+                    compressionPool.releaseInflater(inflaterImpl);
+                    inflaterImpl = null;
+                } else {
+                    inflaterImpl.reset();
+                }
+            }
+        }
+    }
+
+    public boolean isPooledDeflater() {
+        return pooledDeflater;
+    }
+
+    /**
+     * Borrow the deflater from the pool for every message. It must be set only when the outgoing context takeover
+     * is disabled, because the compression context is reset at the end of the message.
+     *
+     * @param pooledDeflater If true, the deflater is borrowed from the pool.
+     */
+    public void setPooledDeflater(boolean pooledDeflater) {
+        this.pooledDeflater = pooledDeflater;
+    }
+
+    public boolean isPooledInflater() {
+        return pooledInflater;
+    }
+
+    /**
+     * Borrow the inflater from the pool for every message. It must be set only when the incoming context takeover
+     * is disabled, because the decompression context is reset at the end of the message.
+     *
+     * @param pooledInflater If true, the inflater is borrowed from the pool.
+     */
+    public void setPooledInflater(boolean pooledInflater) {
+        this.pooledInflater = pooledInflater;
+    }
+
+    public CompressionPool getCompressionPool() {
+        return compressionPool;
+    }
+
+    public void setCompressionPool(CompressionPool compressionPool) {
+        this.compressionPool = compressionPool;
+    }
+
+    /**
+     * Report the compression ratio (the percentage of the compressed size to the original size),
+     * the compression time and the decompression time.
+     *
+     * @param metrics The metric registry.
+     * @param prefix  The metric name prefix, e.g. the websocket endpoint.
+     */
+    public void setMetrics(MetricRegistry metrics, String prefix) {
+        String name = MetricRegistry.name(prefix, getName());
+        compressionRatio = metrics.histogram(name + ".compressionRatio");
+        compressionTime = metrics.timer(name + ".compressionTime");
+        decompressionTime = metrics.timer(name + ".decompressionTime");
+    }
+
     /**
      * Indicates use of RSV1 flag for indicating deflation is in use.
      */
@@ -137,9 +244,18 @@ public abstract class CompressExtension extends AbstractExtension {
         if ((buf == null) || (!buf.hasRemaining())) {
             return;
         }
-        byte[] output = new byte[DECOMPRESS_BUF_SIZE];
+        synchronized (inflaterLock) {
+            if (closed) {
+                LOG.debug("The extension is closed, discard the compressed data");
+                return;
+            }
+            decompress(getInflater(), accumulator, buf);
+        }
+    }
 
-        Inflater inflater = getInflater();
+    private void decompress(Inflater inflater, ByteAccumulator accumulator, ByteBuffer buf) throws DataFormatException {
+        long start = decompressionTime != null ? System.nanoTime() : 0;
+        byte[] output = decompressBuffer.get();
 
         while (buf.hasRemaining() && inflater.needsInput()) {
             if (!supplyInput(inflater, buf)) {
@@ -166,6 +282,9 @@ public abstract class CompressExtension extends AbstractExtension {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Decompress: exiting {}", toDetail(inflater));
         }
+        if (decompressionTime != null) {
+            decompressionTime.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     @Override
@@ -178,6 +297,10 @@ public abstract class CompressExtension extends AbstractExtension {
             notifyCallbackFailure(callback, new ZipException());
             return;
         }
+        if (closed) {
+            notifyCallbackFailure(callback, new ClosedChannelException());
+            return;
+        }
 
         FrameEntry entry = new FrameEntry(frame, callback);
         if (LOG.isDebugEnabled())
@@ -237,16 +360,17 @@ public abstract class CompressExtension extends AbstractExtension {
             inputOffset = buf.position() + buf.arrayOffset();
             buf.position(buf.position() + len);
         } else {
-            // Only create an return byte buffer that is reasonable in size
+            // Copy a chunk that is reasonable in size to the thread local buffer,
+            // the inflater consumes all input before the next chunk is supplied
             len = Math.min(INPUT_MAX_BUFFER_SIZE, buf.remaining());
-            input = new byte[len];
+            input = inputBuffer.get();
             inputOffset = 0;
             buf.get(input, 0, len);
         }
 
         inflater.setInput(input, inputOffset, len);
         if (LOG.isDebugEnabled()) {
-            LOG.debug("Supplied {} input bytes: {}", input.length, toDetail(inflater));
+            LOG.debug("Supplied {} input bytes: {}", len, toDetail(inflater));
         }
         return true;
     }
@@ -270,16 +394,17 @@ public abstract class CompressExtension extends AbstractExtension {
             inputOffset = buf.position() + buf.arrayOffset();
             buf.position(buf.position() + len);
         } else {
-            // Only create an return byte buffer that is reasonable in size
+            // Copy a chunk that is reasonable in size to the thread local buffer,
+            // the deflater consumes all input before the next chunk is supplied
             len = Math.min(INPUT_MAX_BUFFER_SIZE, buf.remaining());
-            input = new byte[len];
+            input = inputBuffer.get();
             inputOffset = 0;
             buf.get(input, 0, len);
         }
 
         deflater.setInput(input, inputOffset, len);
         if (LOG.isDebugEnabled()) {
-            LOG.debug("Supplied {} input bytes: {}", input.length, toDetail(deflater));
+            LOG.debug("Supplied {} input bytes: {}", len, toDetail(deflater));
         }
         return true;
     }
@@ -312,12 +437,42 @@ public abstract class CompressExtension extends AbstractExtension {
 
     }
 
+    /**
+     * Release the compression context. The flusher may be compressing a frame, so the deflater is released
+     * by the flusher when it becomes idle. The inflater is released after the current frame is decompressed.
+     */
     @Override
     protected void destroy() {
-        if (deflaterImpl != null)
-            deflaterImpl.end();
-        if (inflaterImpl != null)
-            inflaterImpl.end();
+        closed = true;
+        synchronized (inflaterLock) {
+            if (inflaterImpl != null) {
+                if (pooledInflater) {
+                    compressionPool.releaseInflater(inflaterImpl);
+                } else {
+                    inflaterImpl.end();
+                }
+                inflaterImpl = null;
+            }
+        }
+        if (flusher.isFailed()) {
+            // the failed flusher never compresses again
+            endDeflater();
+        } else {
+            flusher.iterate();
+        }
+    }
+
+    private void endDeflater() {
+        synchronized (flusher) {
+            if (deflaterImpl != null) {
+                if (pooledDeflater) {
+                    compressionPool.releaseDeflater(deflaterImpl);
+                } else {
+                    deflaterImpl.end();
+                }
+                deflaterImpl = null;
+            }
+        }
     }
 
     @Override
@@ -346,6 +501,14 @@ public abstract class CompressExtension extends AbstractExtension {
 
         @Override
         protected Action process() throws Exception {
+            if (closed) {
+                // the connection is closed, the frames can not be written, and no frame is being compressed
+                FrameEntry entry;
+                while ((entry = pollEntry()) != null)
+                    notifyCallbackFailure(entry.callback, new ClosedChannelException());
+                endDeflater();
+                return Action.IDLE;
+            }
             if (finished) {
                 current = pollEntry();
                 LOG.debug("Processing {}", current);
@@ -379,10 +542,12 @@ public abstract class CompressExtension extends AbstractExtension {
                 data = BufferUtils.EMPTY_BUFFER;
 
             int remaining = data.remaining();
-            int outputLength = Math.max(256, data.remaining());
+            // the stored blocks and the sync flush marker make the output larger than the input in the worst case
+            int outputLength = Math.max(256, remaining + (remaining >> 12) + 64);
             if (LOG.isDebugEnabled())
                 LOG.debug("Compressing {}: {} bytes in {} bytes chunk", entry, remaining, outputLength);
 
+            long start = compressionTime != null ? System.nanoTime() : 0;
             boolean needsCompress = true;
 
             Deflater deflater = getDeflater();
@@ -392,27 +557,38 @@ public abstract class CompressExtension extends AbstractExtension {
                 needsCompress = false;
             }
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-
+            // Compress the data to the output array directly, it becomes the payload without copying
             byte[] output = new byte[outputLength];
+            int length = 0;
 
             boolean fin = frame.isFin();
 
-            // Compress the data
             while (needsCompress) {
-                int compressed = deflater.deflate(output, 0, outputLength, Deflater.SYNC_FLUSH);
-
-                // Append the output for the eventual frame.
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length << 1);
+                }
+                int compressed = deflater.deflate(output, length, output.length - length, Deflater.SYNC_FLUSH);
                 if (LOG.isDebugEnabled())
                     LOG.debug("Wrote {} bytes to output buffer", compressed);
-                out.write(output, 0, compressed);
+                length += compressed;
 
-                if (compressed < outputLength) {
-                    needsCompress = false;
+                if (length < output.length) {
+                    // all input is compressed and flushed, supply the next chunk of the direct buffer
+                    needsCompress = supplyInput(deflater, data);
                 }
             }
 
-            ByteBuffer payload = ByteBuffer.wrap(out.toByteArray());
+            if (output.length > INPUT_MAX_BUFFER_SIZE && length < (output.length >> 1)) {
+                // do not hold the large array until the frame is written
+                output = Arrays.copyOf(output, length);
+            }
+            ByteBuffer payload = ByteBuffer.wrap(output, 0, length);
+            if (compressionTime != null) {
+                compressionTime.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (remaining > 0) {
+                    compressionRatio.update(length * 100L / remaining);
+                }
+            }
 
             if (payload.remaining() > 0) {
                 // Handle tail bytes generated by SYNC_FLUSH.
@@ -467,6 +643,7 @@ public abstract class CompressExtension extends AbstractExtension {
             FrameEntry entry;
             while ((entry = pollEntry()) != null)
                 notifyCallbackFailure(entry.callback, x);
+            endDeflater();
         }
 
         @Override
@@ -4,6 +4,7 @@ import com.firefly.codec.websocket.exception.BadPayloadException;
 import com.firefly.codec.websocket.frame.Frame;
 import com.firefly.codec.websocket.model.ExtensionConfig;
 import com.firefly.codec.websocket.model.OpCode;
+import com.firefly.codec.websocket.stream.WebSocketPolicy;
 import com.firefly.utils.concurrent.Callback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +25,8 @@ public class PerMessageDeflateExtension extends CompressExtension {
     private boolean incomingContextTakeover = true;
     private boolean outgoingContextTakeover = true;
     private boolean incomingCompressed;
+    private boolean clientNoContextTakeover;
+    private boolean serverNoContextTakeover;
 
     @Override
     public String getName() {
@@ -70,7 +73,7 @@ public class PerMessageDeflateExtension extends CompressExtension {
         if (frame.isFin() && !incomingContextTakeover) {
             LOG.debug("Incoming Context Reset");
             decompressCount.set(0);
-            getInflater().reset();
+            resetInflater();
         }
         super.nextIncomingFrame(frame);
     }
@@ -79,7 +82,7 @@ public class PerMessageDeflateExtension extends CompressExtension {
     protected void nextOutgoingFrame(Frame frame, Callback callback) {
         if (frame.isFin() && !outgoingContextTakeover) {
             LOG.debug("Outgoing Context Reset");
-            getDeflater().reset();
+            resetDeflater();
         }
         super.nextOutgoingFrame(frame, callback);
     }
@@ -109,26 +112,12 @@ public class PerMessageDeflateExtension extends CompressExtension {
                 }
                 case "client_no_context_takeover": {
                     configNegotiated.setParameter("client_no_context_takeover");
-                    switch (getPolicy().getBehavior()) {
-                        case CLIENT:
-                            incomingContextTakeover = false;
-                            break;
-                        case SERVER:
-                            outgoingContextTakeover = false;
-                            break;
-                    }
+                    clientNoContextTakeover = true;
                     break;
                 }
                 case "server_no_context_takeover": {
                     configNegotiated.setParameter("server_no_context_takeover");
-                    switch (getPolicy().getBehavior()) {
-                        case CLIENT:
-                            outgoingContextTakeover = false;
-                            break;
-                        case SERVER:
-                            incomingContextTakeover = false;
-                            break;
-                    }
+                    serverNoContextTakeover = true;
                     break;
                 }
                 default: {
@@ -137,11 +126,42 @@ public class PerMessageDeflateExtension extends CompressExtension {
             }
         }
 
-        LOG.debug("config: outgoingContextTakover={}, incomingContextTakeover={} : {}", outgoingContextTakeover, incomingContextTakeover, this);
-
+        configureContextTakeover();
         super.setConfig(configNegotiated);
     }
 
+    @Override
+    public void setPolicy(WebSocketPolicy policy) {
+        super.setPolicy(policy);
+        configureContextTakeover();
+    }
+
+    /**
+     * The client_no_context_takeover disables the context takeover of the client compressor,
+     * and the server_no_context_takeover disables the context takeover of the server compressor (RFC 7692 section 7.1.1).
+     * The Deflater/Inflater is borrowed from the pool per message when the context takeover is disabled.
+     * The behavior is known after the policy is set, so it is configured when both the config and policy are set.
+     */
+    private void configureContextTakeover() {
+        if (getPolicy() == null || configNegotiated == null) {
+            return;
+        }
+
+        switch (getPolicy().getBehavior()) {
+            case CLIENT:
+                outgoingContextTakeover = !clientNoContextTakeover;
+                incomingContextTakeover = !serverNoContextTakeover;
+                break;
+            case SERVER:
+                outgoingContextTakeover = !serverNoContextTakeover;
+                incomingContextTakeover = !clientNoContextTakeover;
+                break;
+        }
+        setPooledDeflater(!outgoingContextTakeover);
+        setPooledInflater(!incomingContextTakeover);
+        LOG.debug("config: outgoingContextTakover={}, incomingContextTakeover={} : {}", outgoingContextTakeover, incomingContextTakeover, this);
+    }
+
     @Override
     public String toString() {
         return String.format("%s[requested=\"%s\", negotiated=\"%s\"]",
@@ -28,6 +28,36 @@ public interface WebSocketConnection extends OutgoingFrames, Connection, Connect
      */
     WebSocketConnection onException(Action2<WebSocketConnection, Throwable> exceptionListener);
 
+    /**
+     * Register the writability change callback. It is called when the outbound buffered bytes or frames exceed
+     * the limits of the {@link WebSocketPolicy} and when they fall to half of the limits.
+     *
+     * @param writabilityListener The writability change callback, the second argument is the new writability.
+     * @return The WebSocket connection.
+     */
+    WebSocketConnection onWritabilityChanged(Action2<WebSocketConnection, Boolean> writabilityListener);
+
+    /**
+     * If the outbound buffer does not exceed the limits of the {@link WebSocketPolicy}, the connection is writable.
+     *
+     * @return If true, the connection is writable.
+     */
+    boolean isWritable();
+
+    /**
+     * Get the bytes of the messages that have been sent but have not been written to the network.
+     *
+     * @return The outbound buffered bytes.
+     */
+    long getOutboundBufferedBytes();
+
+    /**
+     * Get the number of the frames that have been sent but have not been written to the network.
+     *
+     * @return The outbound buffered frames.
+     */
+    int getOutboundBufferedFrames();
+
     /**
      * Get the read/write idle timeout.
      *
@@ -1,6 +1,7 @@
 package com.firefly.codec.websocket.stream;
 
 import com.firefly.codec.websocket.exception.MessageTooLargeException;
+import com.firefly.codec.websocket.model.OutboundOverflowBehavior;
 import com.firefly.codec.websocket.model.StatusCode;
 import com.firefly.codec.websocket.model.WebSocketBehavior;
 
@@ -75,6 +76,54 @@ public class WebSocketPolicy {
      */
     private int inputBufferSize = 4 * KB;
 
+    /**
+     * The maximum bytes of the messages that have been sent but have not been written to the network.
+     * The bytes are the encoded frames after the extensions, such as permessage-deflate, compress them.
+     * The messages that wait for the extensions are limited by the max outbound buffered frames.
+     * <p>
+     * The connection is not writable when the buffered bytes exceed it, and it is writable again
+     * when the buffered bytes fall to half of it. Zero or negative values indicate no limit.
+     * <p>
+     * Default: 0
+     */
+    private long maxOutboundBufferedBytes;
+
+    /**
+     * The maximum number of the frames that have been sent but have not been written to the network.
+     * <p>
+     * Zero or negative values indicate no limit.
+     * <p>
+     * Default: 0
+     */
+    private int maxOutboundBufferedFrames;
+
+    /**
+     * How to send the message when the connection is not writable.
+     * <p>
+     * Default: {@link OutboundOverflowBehavior#QUEUE}
+     */
+    private OutboundOverflowBehavior outboundOverflowBehavior = OutboundOverflowBehavior.QUEUE;
+
+    /**
+     * The maximum number of the frames that wait for the writable connection when the outbound overflow behavior
+     * is {@link OutboundOverflowBehavior#SUSPEND}. The frame that exceeds it fails.
+     * <p>
+     * Zero or negative values indicate no limit.
+     * <p>
+     * Default: 1024
+     */
+    private int maxSuspendedFrames = 1024;
+
+    /**
+     * The maximum payload bytes of the frames that wait for the writable connection when the outbound overflow
+     * behavior is {@link OutboundOverflowBehavior#SUSPEND}. The frame that exceeds it fails.
+     * <p>
+     * Zero or negative values indicate no limit.
+     * <p>
+     * Default: 4MB
+     */
+    private long maxSuspendedBytes = 4 * 1024 * 1024;
+
     /**
      * Behavior of the websockets
      */
@@ -123,6 +172,11 @@ public class WebSocketPolicy {
         clone.maxBinaryMessageBufferSize = this.maxBinaryMessageBufferSize;
         clone.inputBufferSize = this.inputBufferSize;
         clone.asyncWriteTimeout = this.asyncWriteTimeout;
+        clone.maxOutboundBufferedBytes = this.maxOutboundBufferedBytes;
+        clone.maxOutboundBufferedFrames = this.maxOutboundBufferedFrames;
+        clone.outboundOverflowBehavior = this.outboundOverflowBehavior;
+        clone.maxSuspendedFrames = this.maxSuspendedFrames;
+        clone.maxSuspendedBytes = this.maxSuspendedBytes;
         return clone;
     }
 
@@ -309,6 +363,91 @@ public class WebSocketPolicy {
         this.maxTextMessageSize = size;
     }
 
+    /**
+     * Get the maximum bytes of the messages that have been sent but have not been written to the network.
+     *
+     * @return the maximum outbound buffered bytes, zero or negative values indicate no limit.
+     */
+    public long getMaxOutboundBufferedBytes() {
+        return maxOutboundBufferedBytes;
+    }
+
+    /**
+     * The maximum bytes of the messages that have been sent but have not been written to the network.
+     *
+     * @param maxOutboundBufferedBytes the maximum outbound buffered bytes, zero or negative values indicate no limit.
+     */
+    public void setMaxOutboundBufferedBytes(long maxOutboundBufferedBytes) {
+        this.maxOutboundBufferedBytes = maxOutboundBufferedBytes;
+    }
+
+    /**
+     * Get the maximum number of the frames that have been sent but have not been written to the network.
+     *
+     * @return the maximum outbound buffered frames, zero or negative values indicate no limit.
+     */
+    public int getMaxOutboundBufferedFrames() {
+        return maxOutboundBufferedFrames;
+    }
+
+    /**
+     * The maximum number of the frames that have been sent but have not been written to the network.
+     *
+     * @param maxOutboundBufferedFrames the maximum outbound buffered frames, zero or negative values indicate no limit.
+     */
+    public void setMaxOutboundBufferedFrames(int maxOutboundBufferedFrames) {
+        this.maxOutboundBufferedFrames = maxOutboundBufferedFrames;
+    }
+
+    public OutboundOverflowBehavior getOutboundOverflowBehavior() {
+        return outboundOverflowBehavior;
+    }
+
+    /**
+     * How to send the message when the connection is not writable.
+     *
+     * @param outboundOverflowBehavior the outbound overflow behavior.
+     */
+    public void setOutboundOverflowBehavior(OutboundOverflowBehavior outboundOverflowBehavior) {
+        this.outboundOverflowBehavior = outboundOverflowBehavior;
+    }
+
+    /**
+     * Get the maximum number of the suspended frames.
+     *
+     * @return the maximum suspended frames, zero or negative values indicate no limit.
+     */
+    public int getMaxSuspendedFrames() {
+        return maxSuspendedFrames;
+    }
+
+    /**
+     * The maximum number of the frames that wait for the writable connection.
+     *
+     * @param maxSuspendedFrames the maximum suspended frames, zero or negative values indicate no limit.
+     */
+    public void setMaxSuspendedFrames(int maxSuspendedFrames) {
+        this.maxSuspendedFrames = maxSuspendedFrames;
+    }
+
+    /**
+     * Get the maximum payload bytes of the suspended frames.
+     *
+     * @return the maximum suspended bytes, zero or negative values indicate no limit.
+     */
+    public long getMaxSuspendedBytes() {
+        return maxSuspendedBytes;
+    }
+
+    /**
+     * The maximum payload bytes of the frames that wait for the writable connection.
+     *
+     * @param maxSuspendedBytes the maximum suspended bytes, zero or negative values indicate no limit.
+     */
+    public void setMaxSuspendedBytes(long maxSuspendedBytes) {
+        this.maxSuspendedBytes = maxSuspendedBytes;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -321,6 +460,11 @@ public class WebSocketPolicy {
         builder.append(",asyncWriteTimeout=").append(asyncWriteTimeout);
         builder.append(",idleTimeout=").append(idleTimeout);
         builder.append(",inputBufferSize=").append(inputBufferSize);
+        builder.append(",maxOutboundBufferedBytes=").append(maxOutboundBufferedBytes);
+        builder.append(",maxOutboundBufferedFrames=").append(maxOutboundBufferedFrames);
+        builder.append(",outboundOverflowBehavior=").append(outboundOverflowBehavior);
+        builder.append(",maxSuspendedFrames=").append(maxSuspendedFrames);
+        builder.append(",maxSuspendedBytes=").append(maxSuspendedBytes);
         builder.append("]");
         return builder.toString();
     }
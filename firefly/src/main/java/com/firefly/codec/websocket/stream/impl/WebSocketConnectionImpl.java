@@ -1,5 +1,8 @@
 package com.firefly.codec.websocket.stream.impl;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.firefly.codec.common.AbstractConnection;
 import com.firefly.codec.common.ConnectionEvent;
 import com.firefly.codec.common.ConnectionType;
@@ -7,6 +10,7 @@ import com.firefly.codec.http2.model.HttpHeader;
 import com.firefly.codec.http2.model.MetaData;
 import com.firefly.codec.http2.stream.HTTP2Configuration;
 import com.firefly.codec.websocket.decode.Parser;
+import com.firefly.codec.websocket.exception.OutboundOverflowException;
 import com.firefly.codec.websocket.encode.Generator;
 import com.firefly.codec.websocket.frame.*;
 import com.firefly.codec.websocket.model.CloseInfo;
@@ -14,6 +18,7 @@ import com.firefly.codec.websocket.model.Extension;
 import com.firefly.codec.websocket.model.IncomingFrames;
 import com.firefly.codec.websocket.model.WebSocketBehavior;
 import com.firefly.codec.websocket.model.extension.AbstractExtension;
+import com.firefly.codec.websocket.model.extension.compress.CompressExtension;
 import com.firefly.codec.websocket.stream.ExtensionNegotiator;
 import com.firefly.codec.websocket.stream.IOState;
 import com.firefly.codec.websocket.stream.WebSocketConnection;
@@ -28,11 +33,16 @@ import com.firefly.utils.function.Action2;
 import com.firefly.utils.io.BufferUtils;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Pengtao Qiu
@@ -48,6 +58,17 @@ public class WebSocketConnectionImpl extends AbstractConnection implements WebSo
     protected IOState ioState;
     protected final HTTP2Configuration config;
     protected final ExtensionNegotiator extensionNegotiator = new ExtensionNegotiator();
+    protected final AtomicLong outboundBufferedBytes = new AtomicLong();
+    protected final AtomicInteger outboundBufferedFrames = new AtomicInteger();
+    protected final AtomicBoolean writable = new AtomicBoolean(true);
+    protected final Queue<SuspendedFrame> suspendedFrames = new ArrayDeque<>();
+    protected long suspendedBytes;
+    protected final List<Action2<WebSocketConnection, Boolean>> writabilityListeners = new CopyOnWriteArrayList<>();
+    protected final Histogram outboundBufferedBytesHistogram;
+    protected final Histogram outboundBufferedFramesHistogram;
+    protected final Meter outboundOverflowMeter;
+    protected final MetricRegistry metrics;
+    protected List<Extension> extensions = Collections.emptyList();
 
     public WebSocketConnectionImpl(SecureSession secureSession, Session tcpSession,
                                    IncomingFrames nextIncomingFrames, WebSocketPolicy policy,
@@ -66,6 +87,11 @@ public class WebSocketConnectionImpl extends AbstractConnection implements WebSo
         ioState = new IOState();
         ioState.onOpened();
 
+        metrics = config.getTcpConfiguration().getMetricReporterFactory().getMetricRegistry();
+        outboundBufferedBytesHistogram = metrics.histogram("websocket.outboundBufferedBytes");
+        outboundBufferedFramesHistogram = metrics.histogram("websocket.outboundBufferedFrames");
+        outboundOverflowMeter = metrics.meter("websocket.outboundOverflow");
+
         extensionNegotiator.setNextOutgoingFrames((frame, callback) -> {
             if (policy.getBehavior() == WebSocketBehavior.CLIENT && frame instanceof WebSocketFrame) {
                 WebSocketFrame webSocketFrame = (WebSocketFrame) frame;
@@ -76,7 +102,8 @@ public class WebSocketConnectionImpl extends AbstractConnection implements WebSo
             ByteBuffer buf = ByteBuffer.allocate(Generator.MAX_HEADER_LENGTH + frame.getPayloadLength());
             generator.generateWholeFrame(frame, buf);
             BufferUtils.flipToFlush(buf, 0);
-            tcpSession.encode(new ByteBufferOutputEntry(callback, buf));
+            // the bytes are counted after the extensions, such as the compression, encode the frame
+            tcpSession.encode(new ByteBufferOutputEntry(track(buf.remaining(), 0, callback), buf));
             if (frame.getType() == Frame.Type.CLOSE && frame instanceof CloseFrame) {
                 CloseFrame closeFrame = (CloseFrame) frame;
                 CloseInfo closeInfo = new CloseInfo(closeFrame.getPayload(), false);
@@ -116,6 +143,17 @@ public class WebSocketConnectionImpl extends AbstractConnection implements WebSo
     }
 
     public void notifyClose() {
+        List<SuspendedFrame> frames;
+        synchronized (suspendedFrames) {
+            frames = new ArrayList<>(suspendedFrames);
+            suspendedFrames.clear();
+            suspendedBytes = 0;
+        }
+        frames.forEach(f -> f.callback.failed(new OutboundOverflowException("The websocket connection " + getSessionId() + " is closed")));
+        // release the compression context and other resources of the extensions
+        extensions.stream().filter(e -> e instanceof AbstractExtension)
+                  .map(e -> (AbstractExtension) e)
+                  .forEach(AbstractExtension::stop);
         connectionEvent.notifyClose();
     }
 
@@ -135,7 +173,181 @@ public class WebSocketConnectionImpl extends AbstractConnection implements WebSo
 
     @Override
     public void outgoingFrame(Frame frame, Callback callback) {
-        extensionNegotiator.getOutgoingFrames().outgoingFrame(frame, callback);
+        extensionNegotiator.getOutgoingFrames().outgoingFrame(frame, track(0, 1, callback));
+    }
+
+    @Override
+    public boolean isWritable() {
+        return writable.get();
+    }
+
+    @Override
+    public WebSocketConnection onWritabilityChanged(Action2<WebSocketConnection, Boolean> writabilityListener) {
+        writabilityListeners.add(writabilityListener);
+        return this;
+    }
+
+    @Override
+    public long getOutboundBufferedBytes() {
+        return outboundBufferedBytes.get();
+    }
+
+    @Override
+    public int getOutboundBufferedFrames() {
+        return outboundBufferedFrames.get();
+    }
+
+    /**
+     * Count the outbound buffered bytes and frames until the callback completes.
+     *
+     * @param size     The encoded bytes.
+     * @param count    The number of the frames.
+     * @param callback The callback of writing the frame.
+     * @return The callback that releases the counted bytes and frames.
+     */
+    protected Callback track(int size, int count, Callback callback) {
+        long bytes = outboundBufferedBytes.addAndGet(size);
+        int frames = outboundBufferedFrames.addAndGet(count);
+        if (size != 0) {
+            outboundBufferedBytesHistogram.update(bytes);
+        }
+        if (count != 0) {
+            outboundBufferedFramesHistogram.update(frames);
+        }
+        if (isOverHighWaterMark(bytes, frames) && writable.compareAndSet(true, false)) {
+            notifyWritabilityChanged(false);
+        }
+        return new Callback() {
+            @Override
+            public void succeeded() {
+                release();
+                callback.succeeded();
+            }
+
+            @Override
+            public void failed(Throwable x) {
+                release();
+                callback.failed(x);
+            }
+
+            private void release() {
+                long bytes = outboundBufferedBytes.addAndGet(-size);
+                int frames = outboundBufferedFrames.addAndGet(-count);
+                if (!writable.get() && isUnderLowWaterMark(bytes, frames) && writable.compareAndSet(false, true)) {
+                    notifyWritabilityChanged(true);
+                    resumeSuspendedFrames();
+                }
+            }
+        };
+    }
+
+    private boolean isOverHighWaterMark(long bytes, int frames) {
+        long maxBytes = policy.getMaxOutboundBufferedBytes();
+        int maxFrames = policy.getMaxOutboundBufferedFrames();
+        return (maxBytes > 0 && bytes > maxBytes) || (maxFrames > 0 && frames > maxFrames);
+    }
+
+    private boolean isUnderLowWaterMark(long bytes, int frames) {
+        long maxBytes = policy.getMaxOutboundBufferedBytes();
+        int maxFrames = policy.getMaxOutboundBufferedFrames();
+        return (maxBytes <= 0 || bytes <= maxBytes / 2) && (maxFrames <= 0 || frames <= maxFrames / 2);
+    }
+
+    private void notifyWritabilityChanged(boolean writable) {
+        if (log.isDebugEnabled()) {
+            log.debug("The websocket connection {} writability changed: {}, buffered bytes: {}, buffered frames: {}",
+                    getSessionId(), writable, outboundBufferedBytes.get(), outboundBufferedFrames.get());
+        }
+        writabilityListeners.forEach(listener -> listener.call(this, writable));
+    }
+
+    /**
+     * Send the data frame according to the {@link WebSocketPolicy#getOutboundOverflowBehavior()}
+     * when the connection is not writable.
+     *
+     * @param frame    The data frame.
+     * @param callback The callback of writing the frame.
+     */
+    public void sendDataFrame(Frame frame, Callback callback) {
+        send(c -> outgoingFrame(frame, c), frame.getPayloadLength(), callback);
+    }
+
+    /**
+     * Send the generated data frame according to the {@link WebSocketPolicy#getOutboundOverflowBehavior()}
+     * when the connection is not writable. The caller must check the {@link #isEncodedFrameSupported()}.
+     *
+     * @param frame    The generated data frame.
+     * @param callback The callback of writing the frame.
+     */
+    public void sendEncodedDataFrame(ByteBuffer frame, Callback callback) {
+        send(c -> sendEncodedFrame(frame, c), frame.remaining(), callback);
+    }
+
+    private void send(Action1<Callback> sender, int size, Callback callback) {
+        switch (policy.getOutboundOverflowBehavior()) {
+            case FAIL:
+                if (!isWritable()) {
+                    outboundOverflowMeter.mark();
+                    callback.failed(new OutboundOverflowException("The websocket connection " + getSessionId()
+                            + " is not writable, buffered bytes: " + outboundBufferedBytes.get()
+                            + ", buffered frames: " + outboundBufferedFrames.get()));
+                    return;
+                }
+                break;
+            case SUSPEND:
+                // check and send under the lock of resuming, so that the frame never overtakes a suspended frame
+                String overflow = null;
+                synchronized (suspendedFrames) {
+                    if (isWritable() && suspendedFrames.isEmpty()) {
+                        sender.call(callback);
+                        return;
+                    }
+                    outboundOverflowMeter.mark();
+                    if (isSuspendedQueueFull(size)) {
+                        overflow = "The websocket connection " + getSessionId()
+                                + " suspends too many frames, suspended bytes: " + suspendedBytes
+                                + ", suspended frames: " + suspendedFrames.size();
+                    } else {
+                        suspendedBytes += size;
+                        suspendedFrames.offer(new SuspendedFrame(sender, size, callback));
+                    }
+                }
+                if (overflow != null) {
+                    callback.failed(new OutboundOverflowException(overflow));
+                } else {
+                    resumeSuspendedFrames();
+                }
+                return;
+        }
+        sender.call(callback);
+    }
+
+    private boolean isSuspendedQueueFull(int size) {
+        long maxBytes = policy.getMaxSuspendedBytes();
+        int maxFrames = policy.getMaxSuspendedFrames();
+        return (maxBytes > 0 && suspendedBytes + size > maxBytes) || (maxFrames > 0 && suspendedFrames.size() >= maxFrames);
+    }
+
+    protected void resumeSuspendedFrames() {
+        synchronized (suspendedFrames) {
+            SuspendedFrame suspendedFrame;
+            while (isWritable() && (suspendedFrame = suspendedFrames.poll()) != null) {
+                suspendedBytes -= suspendedFrame.size;
+                suspendedFrame.sender.call(suspendedFrame.callback);
+            }
+        }
+    }
+
+    protected static class SuspendedFrame {
+        protected final Action1<Callback> sender;
+        protected final int size;
+        protected final Callback callback;
+
+        protected SuspendedFrame(Action1<Callback> sender, int size, Callback callback) {
+            this.sender = sender;
+            this.size = size;
+            this.callback = callback;
+        }
     }
 
     public void setNextIncomingFrames(IncomingFrames nextIncomingFrames) {
@@ -147,13 +359,16 @@ public class WebSocketConnectionImpl extends AbstractConnection implements WebSo
             } else {
                 metaData = upgradeRequest;
             }
-            List<Extension> extensions = extensionNegotiator.parse(metaData);
+            extensions = extensionNegotiator.parse(metaData);
             if (!extensions.isEmpty()) {
                 generator.configureFromExtensions(extensions);
                 parser.configureFromExtensions(extensions);
                 extensions.stream().filter(e -> e instanceof AbstractExtension)
                           .map(e -> (AbstractExtension) e)
                           .forEach(e -> e.setPolicy(policy));
+                extensions.stream().filter(e -> e instanceof CompressExtension)
+                          .map(e -> (CompressExtension) e)
+                          .forEach(e -> e.setMetrics(metrics, MetricRegistry.name("websocket", upgradeRequest.getURI().getPath())));
             }
         }
     }
@@ -208,7 +423,7 @@ public class WebSocketConnectionImpl extends AbstractConnection implements WebSo
         TextFrame textFrame = new TextFrame();
         textFrame.setPayload(text);
         CompletableFuture<Boolean> future = new CompletableFuture<>();
-        outgoingFrame(textFrame, new Callback() {
+        sendDataFrame(textFrame, new Callback() {
             @Override
             public void succeeded() {
                 future.complete(true);
@@ -236,7 +451,7 @@ public class WebSocketConnectionImpl extends AbstractConnection implements WebSo
         BinaryFrame binaryFrame = new BinaryFrame();
         setData.call(binaryFrame, data);
         CompletableFuture<Boolean> future = new CompletableFuture<>();
-        outgoingFrame(binaryFrame, new Callback() {
+        sendDataFrame(binaryFrame, new Callback() {
             @Override
             public void succeeded() {
                 future.complete(true);
@@ -250,6 +465,27 @@ public class WebSocketConnectionImpl extends AbstractConnection implements WebSo
         return future;
     }
 
+    /**
+     * Send the frame that has been generated. The buffer is not modified, so the same frame can be shared
+     * by many connections. It bypasses the extensions, the caller must check the {@link #isEncodedFrameSupported()}.
+     *
+     * @param frame    The generated frame.
+     * @param callback The callback of writing the frame.
+     */
+    public void sendEncodedFrame(ByteBuffer frame, Callback callback) {
+        tcpSession.encode(new ByteBufferOutputEntry(track(frame.remaining(), 1, callback), frame.duplicate()));
+    }
+
+    /**
+     * The generated frame can be sent directly when the connection is the server side (the frames are not masked)
+     * and no extensions are negotiated.
+     *
+     * @return If true, the connection can send the generated frame.
+     */
+    public boolean isEncodedFrameSupported() {
+        return policy.getBehavior() == WebSocketBehavior.SERVER && extensions.isEmpty();
+    }
+
     @Override
     public MetaData.Request getUpgradeRequest() {
         return upgradeRequest;
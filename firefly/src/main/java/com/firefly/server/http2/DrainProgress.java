@@ -0,0 +1,67 @@
+package com.firefly.server.http2;
+
+/**
+ * The progress of the server draining. The server reports the progress when it starts draining, when the number
+ * of the in-flight requests changes, and when it completes or the drain timeout expires.
+ *
+ * @author Pengtao Qiu
+ */
+public class DrainProgress {
+
+    public enum State {
+        STARTED, DRAINING, COMPLETED, TIMEOUT
+    }
+
+    private final State state;
+    private final int connections;
+    private final int inflightRequests;
+    private final long elapsedTime;
+
+    public DrainProgress(State state, int connections, int inflightRequests, long elapsedTime) {
+        this.state = state;
+        this.connections = connections;
+        this.inflightRequests = inflightRequests;
+        this.elapsedTime = elapsedTime;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Get the number of the opened connections.
+     *
+     * @return The number of the opened connections.
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * Get the number of the requests in progress.
+     *
+     * @return The number of the requests in progress.
+     */
+    public int getInflightRequests() {
+        return inflightRequests;
+    }
+
+    /**
+     * Get the elapsed time since the server starts draining. The time unit is millisecond.
+     *
+     * @return The elapsed time since the server starts draining.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    @Override
+    public String toString() {
+        return "DrainProgress{" +
+                "state=" + state +
+                ", connections=" + connections +
+                ", inflightRequests=" + inflightRequests +
+                ", elapsedTime=" + elapsedTime +
+                '}';
+    }
+}
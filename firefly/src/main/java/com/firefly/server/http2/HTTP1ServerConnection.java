@@ -1,5 +1,8 @@
 package com.firefly.server.http2;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.firefly.codec.http2.decode.HttpParser;
 import com.firefly.codec.http2.decode.HttpParser.RequestHandler;
 import com.firefly.codec.http2.decode.HttpParser.ResponseHandler;
@@ -21,13 +24,16 @@ import com.firefly.utils.Assert;
 import com.firefly.utils.CollectionUtils;
 import com.firefly.utils.codec.Base64Utils;
 import com.firefly.utils.concurrent.Promise;
+import com.firefly.utils.function.Action1;
 import com.firefly.utils.io.BufferUtils;
 import com.firefly.utils.io.IO;
 import com.firefly.utils.lang.TypeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -45,6 +51,20 @@ public class HTTP1ServerConnection extends AbstractHTTP1Connection implements HT
     private final AtomicBoolean upgradeHTTP2Complete = new AtomicBoolean(false);
     private final AtomicBoolean upgradeWebSocketComplete = new AtomicBoolean(false);
     private Promise<HTTPTunnelConnection> tunnelConnectionPromise;
+    private boolean draining;
+
+    // the response output streams of the unfinished requests in the request order
+    private final LinkedList<HTTP1ServerResponseOutputStream> pipeline = new LinkedList<>();
+    private final Histogram pipelineDepthHistogram;
+    private final Meter pipelineBufferedMeter;
+    private HTTP1ServerResponseOutputStream lastStarted;
+    private long bufferedBytes;
+    private int peakPipelineDepth;
+    private boolean parsingStopped;
+    private boolean parsingSuspended;
+    private boolean parsingResuming;
+    private ByteBuffer pendingInput;
+    private Action1<ByteBuffer> pendingParser;
 
     HTTP1ServerConnection(HTTP2Configuration config, Session tcpSession, SecureSession secureSession,
                           HTTP1ServerRequestHandler requestHandler,
@@ -55,6 +75,10 @@ public class HTTP1ServerConnection extends AbstractHTTP1Connection implements HT
         this.serverSessionListener = serverSessionListener;
         this.serverRequestHandler = requestHandler;
         this.webSocketHandler = webSocketHandler;
+
+        MetricRegistry metrics = config.getTcpConfiguration().getMetricReporterFactory().getMetricRegistry();
+        pipelineDepthHistogram = metrics.histogram("http2.HTTP1ServerConnection.pipeline.depth");
+        pipelineBufferedMeter = metrics.meter("http2.HTTP1ServerConnection.pipeline.buffered");
     }
 
     @Override
@@ -79,13 +103,309 @@ public class HTTP1ServerConnection extends AbstractHTTP1Connection implements HT
     }
 
     void response100Continue() {
-        serverRequestHandler.outputStream.response100Continue();
+        try {
+            serverRequestHandler.outputStream.response100Continue();
+        } catch (IOException e) {
+            log.warn("the server connection {} sends 100 continue exception: {}", getSessionId(), e.getMessage());
+        }
     }
 
-    private void responseH2c() {
+    private void responseH2c() throws IOException {
         serverRequestHandler.outputStream.responseH2c();
     }
 
+    /**
+     * Stop parsing the new requests. The queued responses are still sent, the last one carries the
+     * "Connection: close" header, and the connection is closed after it.
+     */
+    @Override
+    public void drain() {
+        boolean idle;
+        synchronized (this) {
+            draining = true;
+            parsingStopped = true;
+            idle = pipeline.isEmpty();
+        }
+        if (idle) {
+            close();
+        }
+    }
+
+    public synchronized boolean isDraining() {
+        return draining;
+    }
+
+    @Override
+    public synchronized int getInflightRequests() {
+        return pipeline.size();
+    }
+
+    /**
+     * Get the number of the pipelined requests whose responses have not been sent completely.
+     *
+     * @return The number of the pipelined requests whose responses have not been sent completely.
+     */
+    public synchronized int getPipelineDepth() {
+        return pipeline.size();
+    }
+
+    /**
+     * Get the max pipeline depth of this connection.
+     *
+     * @return The max pipeline depth of this connection.
+     */
+    public synchronized int getPeakPipelineDepth() {
+        return peakPipelineDepth;
+    }
+
+    /**
+     * Get the number of the responses that are completed out of order and wait for the previous responses.
+     *
+     * @return The number of the buffered responses.
+     */
+    public synchronized int getBufferedResponses() {
+        return (int) pipeline.stream().filter(o -> o.completed).count();
+    }
+
+    synchronized void requestStarted(HTTP1ServerResponseOutputStream outputStream) {
+        outputStream.queued = true;
+        lastStarted = outputStream;
+        pipeline.add(outputStream);
+        peakPipelineDepth = Math.max(peakPipelineDepth, pipeline.size());
+        pipelineDepthHistogram.update(pipeline.size());
+    }
+
+    private boolean isPipelineFull() {
+        int maxPipelinedRequests = config.getMaxPipelinedRequests();
+        return maxPipelinedRequests > 0 && pipeline.size() >= maxPipelinedRequests;
+    }
+
+    /**
+     * Stop reading the connection if the pipeline is full. The remaining data will be parsed
+     * after the first response is sent. If the connection is draining, or the last request is not persistent,
+     * or a response is aborted, the remaining data is discarded and the connection is closed after
+     * the queued responses.
+     *
+     * @param buffer The remaining data.
+     * @param parser The parser of the remaining data.
+     * @return If true, the pipeline is full or the connection will be closed, and the parsing is suspended.
+     */
+    synchronized boolean suspendParsing(ByteBuffer buffer, Action1<ByteBuffer> parser) {
+        if (!parsingStopped && lastStarted != null && !isPersistentRequest(lastStarted.request)) {
+            parsingStopped = true;
+        }
+        if (parsingStopped) {
+            log.debug("the server connection {} stops parsing the requests", getSessionId());
+            buffer.position(buffer.limit());
+            pendingInput = null;
+            if (!parsingSuspended) {
+                parsingSuspended = true;
+                tcpSession.suspendRead();
+            }
+            return true;
+        }
+        if (!isPipelineFull()) {
+            return false;
+        }
+
+        log.debug("the server connection {} pipeline is full, depth: {}", getSessionId(), pipeline.size());
+        if (buffer.hasRemaining()) {
+            pendingInput = BufferUtils.allocate(buffer.remaining());
+            BufferUtils.append(pendingInput, buffer);
+        } else {
+            pendingInput = null;
+        }
+        pendingParser = parser;
+        parsingSuspended = true;
+        tcpSession.suspendRead();
+        return true;
+    }
+
+    /**
+     * Parse the pending data on the session executor, so the thread that completes the response does not run
+     * the handlers of the pending requests.
+     */
+    private void resumeParsing() {
+        ByteBuffer input;
+        synchronized (this) {
+            if (!parsingSuspended || parsingStopped || parsingResuming || isPipelineFull()) {
+                return;
+            }
+            parsingSuspended = false;
+            parsingResuming = true;
+            input = pendingInput;
+            pendingInput = null;
+        }
+
+        tcpSession.getExecutor().execute(() -> {
+            try {
+                if (input != null) {
+                    pendingParser.call(input);
+                }
+            } finally {
+                boolean resumeRead;
+                synchronized (this) {
+                    parsingResuming = false;
+                    resumeRead = !parsingSuspended;
+                }
+                if (resumeRead) {
+                    log.debug("the server connection {} resumes reading", getSessionId());
+                    tcpSession.resumeRead();
+                } else {
+                    // the pipeline is full again, but the responses may be sent during the parsing
+                    resumeParsing();
+                }
+            }
+        });
+    }
+
+    /**
+     * Send the data of the response in the request order. The data of the response that is not the first
+     * in the pipeline is buffered until the previous responses are sent completely. If the buffered bytes
+     * of the connection exceed the max pipeline buffer size, the response is aborted.
+     */
+    private synchronized void encode(HTTP1ServerResponseOutputStream outputStream, Object message) throws IOException {
+        if (outputStream.aborted) {
+            throw new IOException("the pipelined response is aborted");
+        }
+        if (outputStream.queued && pipeline.peekFirst() != outputStream) {
+            long size = remaining(message);
+            int maxPipelineBufferSize = config.getMaxPipelineBufferSize();
+            if (maxPipelineBufferSize > 0 && bufferedBytes + size > maxPipelineBufferSize) {
+                abort(outputStream);
+                throw new IOException("the pipelined responses exceed the max buffer size " + maxPipelineBufferSize);
+            }
+            outputStream.bufferedMessages.add(message);
+            bufferedBytes += size;
+        } else {
+            tcpSession.encode(message);
+        }
+    }
+
+    /**
+     * Discard the buffered data of the response. The response can not be sent, so the connection stops parsing
+     * and is closed after the previous responses are sent.
+     */
+    private void abort(HTTP1ServerResponseOutputStream outputStream) {
+        log.warn("the server connection {} aborts the pipelined response, buffered bytes: {}", getSessionId(), bufferedBytes);
+        outputStream.bufferedMessages.forEach(m -> bufferedBytes -= remaining(m));
+        outputStream.bufferedMessages.clear();
+        outputStream.aborted = true;
+        outputStream.completed = true;
+        outputStream.shutdown = true;
+        parsingStopped = true;
+    }
+
+    private static long remaining(Object message) {
+        if (message instanceof ByteBuffer) {
+            return ((ByteBuffer) message).remaining();
+        } else if (message instanceof ByteBuffer[]) {
+            long size = 0;
+            for (ByteBuffer buffer : (ByteBuffer[]) message) {
+                size += buffer.remaining();
+            }
+            return size;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Check whether the response is the last one that is sent before the draining connection is closed.
+     *
+     * @param outputStream The response output stream.
+     * @return If true, the response must carry the "Connection: close" header.
+     */
+    private synchronized boolean isLastDrainingResponse(HTTP1ServerResponseOutputStream outputStream) {
+        return draining && (!outputStream.queued || pipeline.peekLast() == outputStream);
+    }
+
+    private void responseCompleted(HTTP1ServerResponseOutputStream outputStream, boolean shutdown) {
+        boolean close = false;
+        synchronized (this) {
+            if (outputStream.aborted) {
+                return;
+            }
+            outputStream.completed = true;
+            outputStream.shutdown = shutdown;
+            if (pipeline.peekFirst() != outputStream) {
+                pipelineBufferedMeter.mark();
+                return;
+            }
+
+            while (!pipeline.isEmpty() && pipeline.peekFirst().completed) {
+                HTTP1ServerResponseOutputStream first = pipeline.pollFirst();
+                first.queued = false;
+                if (first.shutdown || !isPersistent(first)) {
+                    pipeline.forEach(o -> o.queued = false);
+                    pipeline.clear();
+                    close = true;
+                    break;
+                }
+
+                HTTP1ServerResponseOutputStream next = pipeline.peekFirst();
+                if (next != null) {
+                    next.bufferedMessages.forEach(m -> {
+                        bufferedBytes -= remaining(m);
+                        tcpSession.encode(m);
+                    });
+                    next.bufferedMessages.clear();
+                }
+            }
+            if (parsingStopped && pipeline.isEmpty()) {
+                // the connection is draining or the last request is not persistent
+                close = true;
+            }
+        }
+
+        if (close) {
+            close();
+        } else {
+            resumeParsing();
+        }
+    }
+
+    private static boolean isPersistentRequest(MetaData.Request request) {
+        String requestConnectionValue = request.getFields().get(HttpHeader.CONNECTION);
+        switch (request.getHttpVersion()) {
+            case HTTP_1_0:
+                return "keep-alive".equalsIgnoreCase(requestConnectionValue);
+            case HTTP_1_1:
+                return !"close".equalsIgnoreCase(requestConnectionValue);
+            default:
+                return true;
+        }
+    }
+
+    private boolean isPersistent(HTTP1ServerResponseOutputStream outputStream) {
+        final MetaData.Request request = outputStream.request;
+        final MetaData.Response response = outputStream.response;
+
+        String requestConnectionValue = request.getFields().get(HttpHeader.CONNECTION);
+        String responseConnectionValue = response.getFields().get(HttpHeader.CONNECTION);
+
+        switch (request.getHttpVersion()) {
+            case HTTP_1_0:
+                if ("keep-alive".equalsIgnoreCase(requestConnectionValue)
+                        && "keep-alive".equalsIgnoreCase(responseConnectionValue)) {
+                    log.debug("the server {} connection {} is persistent", response.getHttpVersion(), getSessionId());
+                    return true;
+                } else {
+                    return false;
+                }
+            case HTTP_1_1: // the persistent connection is default in HTTP 1.1
+                if ("close".equalsIgnoreCase(requestConnectionValue)
+                        || "close".equalsIgnoreCase(responseConnectionValue)) {
+                    return false;
+                } else {
+                    log.debug("the server {} connection {} is persistent", response.getHttpVersion(), getSessionId());
+                    return true;
+                }
+            default:
+                throw new IllegalStateException("server response does not support the http version " + getHttpVersion());
+        }
+    }
+
     @Override
     public void upgradeHTTPTunnel(Promise<HTTPTunnelConnection> tunnelConnectionPromise) {
         this.tunnelConnectionPromise = tunnelConnectionPromise;
@@ -111,11 +431,23 @@ public class HTTP1ServerConnection extends AbstractHTTP1Connection implements HT
 
     static class HTTP1ServerResponseOutputStream extends AbstractHTTP1OutputStream {
 
+        private final MetaData.Request request;
+        private final MetaData.Response response;
         private final HTTP1ServerConnection connection;
         private final HttpGenerator httpGenerator;
 
-        HTTP1ServerResponseOutputStream(MetaData.Response response, HTTP1ServerConnection connection) {
+        // guarded by the connection
+        private final List<Object> bufferedMessages = new LinkedList<>();
+        private boolean queued;
+        private boolean completed;
+        private boolean aborted;
+        private boolean shutdown;
+
+        HTTP1ServerResponseOutputStream(MetaData.Request request, MetaData.Response response,
+                                        HTTP1ServerConnection connection) {
             super(response, false);
+            this.request = request;
+            this.response = response;
             this.connection = connection;
             httpGenerator = new HttpGenerator(true, true);
         }
@@ -124,46 +456,47 @@ public class HTTP1ServerConnection extends AbstractHTTP1Connection implements HT
             return connection;
         }
 
-        void responseH2c() {
-            getSession().encode(ByteBuffer.wrap(H2C_BYTES));
+        void responseH2c() throws IOException {
+            encode(ByteBuffer.wrap(H2C_BYTES));
         }
 
-        void response100Continue() {
-            getSession().encode(ByteBuffer.wrap(CONTINUE_100_BYTES));
+        void response100Continue() throws IOException {
+            encode(ByteBuffer.wrap(CONTINUE_100_BYTES));
         }
 
         @Override
-        protected void generateHTTPMessageSuccessfully() {
-            log.debug("server session {} generates the HTTP message completely", connection.getSessionId());
-
-            final MetaData.Response response = connection.getResponse();
-            final MetaData.Request request = connection.getRequest();
+        protected synchronized void commit(ByteBuffer data) throws IOException {
+            addDrainingConnectionHeader();
+            super.commit(data);
+        }
 
-            String requestConnectionValue = request.getFields().get(HttpHeader.CONNECTION);
-            String responseConnectionValue = response.getFields().get(HttpHeader.CONNECTION);
+        @Override
+        public synchronized void close() throws IOException {
+            addDrainingConnectionHeader();
+            super.close();
+        }
 
-            switch (request.getHttpVersion()) {
-                case HTTP_1_0:
-                    if ("keep-alive".equalsIgnoreCase(requestConnectionValue)
-                            && "keep-alive".equalsIgnoreCase(responseConnectionValue)) {
-                        log.debug("the server {} connection {} is persistent", response.getHttpVersion(), connection.getSessionId());
-                    } else {
-                        connection.close();
-                    }
-                    break;
-                case HTTP_1_1: // the persistent connection is default in HTTP 1.1
-                    if ("close".equalsIgnoreCase(requestConnectionValue)
-                            || "close".equalsIgnoreCase(responseConnectionValue)) {
-                        connection.close();
-                    } else {
-                        log.debug("the server {} connection {} is persistent", response.getHttpVersion(),
-                                connection.getSessionId());
-                    }
-                    break;
-                default:
-                    throw new IllegalStateException("server response does not support the http version " + connection.getHttpVersion());
+        private void addDrainingConnectionHeader() {
+            if (!committed && !closed && connection.isLastDrainingResponse(this)) {
+                info.getFields().put(HttpHeader.CONNECTION, HttpHeaderValue.CLOSE);
             }
+        }
+
+        @Override
+        protected void encode(Object message) throws IOException {
+            connection.encode(this, message);
+        }
 
+        @Override
+        protected void closeSession() {
+            log.debug("server session {} generates the HTTP message and shuts down the output", connection.getSessionId());
+            connection.responseCompleted(this, true);
+        }
+
+        @Override
+        protected void generateHTTPMessageSuccessfully() {
+            log.debug("server session {} generates the HTTP message completely", connection.getSessionId());
+            connection.responseCompleted(this, false);
         }
 
         @Override
@@ -230,7 +563,11 @@ public class HTTP1ServerConnection extends AbstractHTTP1Connection implements HT
                 if (settingsFrame == null) {
                     throw new BadMessageException("settings frame parsing error");
                 } else {
-                    responseH2c();
+                    try {
+                        responseH2c();
+                    } catch (IOException e) {
+                        throw new IllegalStateException("the server sends the h2c response exception", e);
+                    }
 
                     HTTP2ServerConnection http2ServerConnection = new HTTP2ServerConnection(config,
                             tcpSession, secureSession, serverSessionListener);
@@ -265,7 +602,7 @@ public class HTTP1ServerConnection extends AbstractHTTP1Connection implements HT
 
                 WebSocketConnectionImpl webSocketConnection = new WebSocketConnectionImpl(
                         secureSession, tcpSession,
-                        null, webSocketHandler.getWebSocketPolicy(),
+                        null, webSocketHandler.getWebSocketPolicy(request),
                         request, response, config);
                 webSocketConnection.setNextIncomingFrames(new IncomingFrames() {
                     @Override
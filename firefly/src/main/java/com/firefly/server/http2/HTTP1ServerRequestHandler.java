@@ -31,7 +31,8 @@ public class HTTP1ServerRequestHandler implements RequestHandler {
 
         request = new HTTPServerRequest(method, uri, version);
         response = new HTTPServerResponse();
-        outputStream = new HTTP1ServerResponseOutputStream(response, connection);
+        outputStream = new HTTP1ServerResponseOutputStream(request, response, connection);
+        connection.requestStarted(outputStream);
 
         return HttpMethod.PRI.is(method) && connection.directUpgradeHTTP2(request);
     }
@@ -5,7 +5,11 @@ import com.firefly.codec.http2.model.HttpVersion;
 import com.firefly.codec.http2.stream.AbstractHTTPConnection;
 import com.firefly.codec.http2.stream.HTTPTunnelConnection;
 import com.firefly.net.SecureSession;
+import com.firefly.net.Session;
+import com.firefly.net.SessionSplice;
 import com.firefly.net.buffer.FileRegion;
+import com.firefly.net.tcp.AbstractTcpConnection;
+import com.firefly.net.tcp.TcpConnection;
 import com.firefly.utils.concurrent.Callback;
 import com.firefly.utils.function.Action1;
 
@@ -48,6 +52,21 @@ public class HTTP1ServerTunnelConnection extends AbstractHTTPConnection implemen
         this.content = content;
     }
 
+    @Override
+    public SessionSplice splice(TcpConnection connection, long highWatermark, long lowWatermark) {
+        if (isEncrypted() || connection.isSecureConnection() || !(connection instanceof AbstractTcpConnection)) {
+            throw new IllegalArgumentException("The splice only supports the plaintext connections");
+        }
+        Session target = ((AbstractTcpConnection) connection).getSession();
+        SessionSplice splice = new SessionSplice(tcpSession, target, highWatermark, lowWatermark);
+        receive(buffer -> splice.transfer(tcpSession, buffer));
+        onClose(c -> splice.close());
+        connection.receive(buffer -> splice.transfer(target, buffer))
+                  .onClose(splice::close)
+                  .onException(e -> splice.close());
+        return splice;
+    }
+
     @Override
     public ConnectionType getConnectionType() {
         return ConnectionType.HTTP_TUNNEL;
@@ -1,21 +1,39 @@
 package com.firefly.server.http2;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.firefly.codec.common.CommonDecoder;
 import com.firefly.codec.common.CommonEncoder;
 import com.firefly.codec.http2.stream.HTTP2Configuration;
 import com.firefly.codec.websocket.decode.WebSocketDecoder;
+import com.firefly.net.SecureSession;
 import com.firefly.net.Server;
+import com.firefly.net.Session;
 import com.firefly.net.tcp.aio.AsynchronousTcpServer;
+import com.firefly.utils.function.Action1;
 import com.firefly.utils.lang.AbstractLifeCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.ExecutorService;
 
 public class HTTP2Server extends AbstractLifeCycle {
 
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
     private final Server server;
+    private final HTTP2ServerHandler http2ServerHandler;
     private final HTTP2Configuration http2Configuration;
     private final String host;
     private final int port;
+    private final MetricRegistry metricRegistry;
+    private final Gauge<Integer> connectionsGauge;
+    private final Gauge<Integer> inflightGauge = this::getInflightRequests;
+    private final Meter drainTimeoutMeter;
+    private final Object drainLock = new Object();
+    private volatile boolean draining;
+    private Action1<DrainProgress> drainProgressListener;
 
     public HTTP2Server(String host, int port, HTTP2Configuration http2Configuration,
                        ServerHTTPHandler serverHTTPHandler) {
@@ -43,9 +61,23 @@ public class HTTP2Server extends AbstractLifeCycle {
 
         c.getTcpConfiguration().setDecoder(new CommonDecoder(new HTTP1ServerDecoder(new WebSocketDecoder(), new HTTP2ServerDecoder())));
         c.getTcpConfiguration().setEncoder(new CommonEncoder());
-        c.getTcpConfiguration().setHandler(new HTTP2ServerHandler(c, listener, serverHTTPHandler, webSocketHandler));
+        this.http2ServerHandler = new HTTP2ServerHandler(c, listener, serverHTTPHandler, webSocketHandler);
+        c.getTcpConfiguration().setHandler(http2ServerHandler);
         this.server = new AsynchronousTcpServer(c.getTcpConfiguration());
         this.http2Configuration = c;
+        http2ServerHandler.setSessionClosedListener(session -> {
+            if (draining) {
+                synchronized (drainLock) {
+                    drainLock.notifyAll();
+                }
+            }
+        });
+
+        connectionsGauge = () -> http2ServerHandler.getSessions().size();
+        metricRegistry = c.getTcpConfiguration().getMetricReporterFactory().getMetricRegistry();
+        metricRegistry.gauge("http2.HTTP2Server.connections", () -> connectionsGauge);
+        metricRegistry.gauge("http2.HTTP2Server.inflight", () -> inflightGauge);
+        drainTimeoutMeter = metricRegistry.meter("http2.HTTP2Server.drain.timeout");
     }
 
     public HTTP2Configuration getHttp2Configuration() {
@@ -64,13 +96,136 @@ public class HTTP2Server extends AbstractLifeCycle {
         return server.getNetExecutorService();
     }
 
+    /**
+     * Set the number of the pinned workers that is used when the affinity pool size of the TCP configuration is not set.
+     * It does not change the TCP configuration. It must be set before the server starts.
+     *
+     * @param defaultAffinityPoolSize The default number of the pinned workers.
+     */
+    public void setDefaultAffinityPoolSize(int defaultAffinityPoolSize) {
+        server.setDefaultAffinityPoolSize(defaultAffinityPoolSize);
+    }
+
+    /**
+     * Set the listener that receives the progress of the server draining.
+     *
+     * @param drainProgressListener The listener that receives the progress of the server draining.
+     */
+    public void setDrainProgressListener(Action1<DrainProgress> drainProgressListener) {
+        this.drainProgressListener = drainProgressListener;
+    }
+
+    /**
+     * Get the number of the requests in progress. The CONNECT tunnel is an in-flight request until it is closed.
+     *
+     * @return The number of the requests in progress.
+     */
+    public int getInflightRequests() {
+        int inflightRequests = 0;
+        for (Session session : http2ServerHandler.getSessions()) {
+            Object attachment = session.getAttachment();
+            if (attachment instanceof HTTPServerConnection) {
+                inflightRequests += ((HTTPServerConnection) attachment).getInflightRequests();
+            } else if (attachment instanceof HTTP1ServerTunnelConnection) {
+                inflightRequests++;
+            }
+        }
+        return inflightRequests;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Stop accepting the new connections, drain the HTTP connections, and wait for the in-flight requests.
+     * The HTTP1 connections respond the "Connection: close" header, and the HTTP2 connections send the GO_AWAY frame
+     * with the last stream id. The idle connections are closed immediately. The drained connections are closed
+     * after their last requests, so the server checks the in-flight requests when a connection is closed.
+     *
+     * @param timeout The max time that waits for the in-flight requests. The time unit is millisecond.
+     * @return True if all the in-flight requests are completed before the timeout.
+     */
+    public boolean drain(long timeout) {
+        long start = System.currentTimeMillis();
+        draining = true;
+        server.stopAccepting();
+        for (Session session : http2ServerHandler.getSessions()) {
+            Object attachment = session.getAttachment();
+            if (attachment instanceof HTTPServerConnection) {
+                ((HTTPServerConnection) attachment).drain();
+            } else if (attachment instanceof SecureSession) {
+                // the TLS handshake is not finished
+                session.close();
+            }
+        }
+
+        int inflightRequests = getInflightRequests();
+        log.info("the HTTP server starts draining. in-flight requests: {}", inflightRequests);
+        notifyDrainProgress(DrainProgress.State.STARTED, inflightRequests, start);
+        while (true) {
+            int current = getInflightRequests();
+            if (current == 0) {
+                log.info("the HTTP server drains completely. time: {}ms", System.currentTimeMillis() - start);
+                notifyDrainProgress(DrainProgress.State.COMPLETED, current, start);
+                return true;
+            }
+            if (System.currentTimeMillis() - start >= timeout) {
+                log.warn("the HTTP server drain timeout. in-flight requests: {}", current);
+                drainTimeoutMeter.mark();
+                notifyDrainProgress(DrainProgress.State.TIMEOUT, current, start);
+                return false;
+            }
+            if (current != inflightRequests) {
+                inflightRequests = current;
+                notifyDrainProgress(DrainProgress.State.DRAINING, current, start);
+            }
+            try {
+                synchronized (drainLock) {
+                    if (getInflightRequests() == current) {
+                        drainLock.wait(Math.max(timeout - (System.currentTimeMillis() - start), 1L));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                notifyDrainProgress(DrainProgress.State.TIMEOUT, current, start);
+                return false;
+            }
+        }
+    }
+
+    private void notifyDrainProgress(DrainProgress.State state, int inflightRequests, long start) {
+        Action1<DrainProgress> listener = drainProgressListener;
+        if (listener != null) {
+            try {
+                listener.call(new DrainProgress(state, http2ServerHandler.getSessions().size(), inflightRequests,
+                        System.currentTimeMillis() - start));
+            } catch (Throwable t) {
+                log.error("the drain progress listener exception", t);
+            }
+        }
+    }
+
     @Override
     protected void init() {
         server.listen(host, port);
     }
 
+    /**
+     * Drain the server before it is stopped if the drain timeout is greater than 0. It drains outside the life cycle
+     * lock, so the concurrent start and stop calls do not wait for the in-flight requests.
+     */
+    @Override
+    public void stop() {
+        if (isStarted() && !draining && http2Configuration.getDrainTimeout() > 0) {
+            drain(http2Configuration.getDrainTimeout());
+        }
+        super.stop();
+    }
+
     @Override
     protected void destroy() {
+        metricRegistry.removeMatching((name, metric) -> metric == connectionsGauge || metric == inflightGauge);
         if (server != null) {
             server.stop();
         }
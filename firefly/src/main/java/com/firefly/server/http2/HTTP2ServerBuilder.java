@@ -5,6 +5,7 @@ import com.firefly.codec.http2.model.HttpMethod;
 import com.firefly.codec.websocket.frame.Frame;
 import com.firefly.codec.websocket.stream.AbstractWebSocketBuilder;
 import com.firefly.codec.websocket.stream.WebSocketConnection;
+import com.firefly.codec.websocket.stream.WebSocketPolicy;
 import com.firefly.net.SecureSessionFactory;
 import com.firefly.server.http2.router.Handler;
 import com.firefly.server.http2.router.Router;
@@ -13,6 +14,9 @@ import com.firefly.server.http2.router.RoutingContext;
 import com.firefly.server.http2.router.handler.body.HTTPBodyConfiguration;
 import com.firefly.server.http2.router.handler.error.AbstractErrorResponseHandler;
 import com.firefly.server.http2.router.handler.error.DefaultErrorResponseHandlerLoader;
+import com.firefly.server.http2.router.handler.file.StaticFileHandler;
+import com.firefly.server.http2.router.handler.metric.RouterMetrics;
+import com.firefly.server.http2.router.impl.RouterManagerImpl;
 import com.firefly.server.http2.router.impl.RoutingContextImpl;
 import com.firefly.utils.function.Action1;
 import com.firefly.utils.function.Action2;
@@ -21,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * @author Pengtao Qiu
@@ -69,6 +74,26 @@ public class HTTP2ServerBuilder {
         return server;
     }
 
+    /**
+     * Record the latency, in-flight requests and status codes of every router
+     * into the metric registry of the server. It is disabled by default.
+     *
+     * @return HTTP2ServerBuilder
+     */
+    public HTTP2ServerBuilder enableRouterMetrics() {
+        check();
+        ((RouterManagerImpl) routerManager).setRouterMetrics(new RouterMetrics(server.getConfiguration()
+                                                                                     .getTcpConfiguration()
+                                                                                     .getMetricReporterFactory()
+                                                                                     .getMetricRegistry()));
+        return this;
+    }
+
+    public RouterMetrics getRouterMetrics() {
+        check();
+        return ((RouterManagerImpl) routerManager).getRouterMetrics();
+    }
+
     /**
      * register a new router
      *
@@ -177,10 +202,20 @@ public class HTTP2ServerBuilder {
     }
 
     public HTTP2ServerBuilder handler(Handler handler) {
+        registerMetrics(handler);
         currentRouter.handler(ctx -> handlerWrap(handler, ctx));
         return this;
     }
 
+    protected void registerMetrics(Handler handler) {
+        if (handler instanceof StaticFileHandler) {
+            ((StaticFileHandler) handler).registerMetrics(server.getConfiguration()
+                                                                .getTcpConfiguration()
+                                                                .getMetricReporterFactory()
+                                                                .getMetricRegistry());
+        }
+    }
+
     protected void handlerWrap(Handler handler, RoutingContext ctx) {
         try {
             currentCtx.set(ctx);
@@ -194,9 +229,13 @@ public class HTTP2ServerBuilder {
     }
 
     public HTTP2ServerBuilder asyncHandler(Handler handler) {
+        registerMetrics(handler);
         currentRouter.handler(ctx -> {
             ctx.getResponse().setAsynchronous(true);
-            server.getHandlerExecutorService().execute(() -> handlerWrap(handler, ctx));
+            Executor executor = server.getConfiguration().getHandlerExecutorMode() == HandlerExecutorMode.CONNECTION_AFFINITY
+                    ? ctx.getConnectionExecutor()
+                    : server.getHandlerExecutorService();
+            executor.execute(() -> handlerWrap(handler, ctx));
         });
         return this;
     }
@@ -210,11 +249,17 @@ public class HTTP2ServerBuilder {
     public class WebSocketBuilder extends AbstractWebSocketBuilder {
         protected final String path;
         protected Action1<WebSocketConnection> onConnect;
+        protected WebSocketPolicy webSocketPolicy;
 
         public WebSocketBuilder(String path) {
             this.path = path;
         }
 
+        public WebSocketBuilder policy(WebSocketPolicy webSocketPolicy) {
+            this.webSocketPolicy = webSocketPolicy;
+            return this;
+        }
+
         public WebSocketBuilder onConnect(Action1<WebSocketConnection> onConnect) {
             this.onConnect = onConnect;
             return this;
@@ -246,6 +291,11 @@ public class HTTP2ServerBuilder {
         private HTTP2ServerBuilder listenWebSocket() {
             server.registerWebSocket(path, new WebSocketHandler() {
 
+                @Override
+                public WebSocketPolicy getWebSocketPolicy() {
+                    return Optional.ofNullable(webSocketPolicy).orElse(defaultWebSocketPolicy);
+                }
+
                 @Override
                 public void onConnect(WebSocketConnection webSocketConnection) {
                     Optional.ofNullable(onConnect).ifPresent(c -> c.call(webSocketConnection));
@@ -48,6 +48,16 @@ public class HTTP2ServerConnection extends AbstractHTTP2Connection implements HT
         return http2Session;
     }
 
+    @Override
+    public void drain() {
+        http2Session.drain();
+    }
+
+    @Override
+    public int getInflightRequests() {
+        return http2Session.getStreams().size();
+    }
+
     @Override
     public void upgradeHTTPTunnel(Promise<HTTPTunnelConnection> promise) {
         throw new IllegalStateException("the http2 connection can not upgrade to http tunnel");
@@ -7,14 +7,21 @@ import com.firefly.codec.http2.stream.HTTPConnection;
 import com.firefly.net.SecureSessionFactory;
 import com.firefly.net.Session;
 import com.firefly.utils.StringUtils;
+import com.firefly.utils.function.Action1;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HTTP2ServerHandler extends AbstractHTTPHandler {
 
     private final ServerSessionListener listener;
     private final ServerHTTPHandler serverHTTPHandler;
     private final WebSocketHandler webSocketHandler;
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private volatile Action1<Session> sessionClosedListener;
 
     public HTTP2ServerHandler(HTTP2Configuration config,
                               ServerSessionListener listener,
@@ -28,6 +35,7 @@ public class HTTP2ServerHandler extends AbstractHTTPHandler {
 
     @Override
     public void sessionOpened(final Session session) throws Throwable {
+        sessions.put(session.getSessionId(), session);
         if (config.isSecureConnectionEnabled()) {
             SecureSessionFactory factory = config.getSecureSessionFactory();
             session.attachObject(factory.create(session, false, sslSession -> {
@@ -79,4 +87,35 @@ public class HTTP2ServerHandler extends AbstractHTTPHandler {
         }
     }
 
+    @Override
+    public void sessionClosed(Session session) throws Throwable {
+        sessions.remove(session.getSessionId());
+        try {
+            super.sessionClosed(session);
+        } finally {
+            Action1<Session> listener = sessionClosedListener;
+            if (listener != null) {
+                listener.call(session);
+            }
+        }
+    }
+
+    /**
+     * Set the listener that is called after the TCP session is closed and removed from the opened sessions.
+     *
+     * @param sessionClosedListener The listener of the closed session.
+     */
+    public void setSessionClosedListener(Action1<Session> sessionClosedListener) {
+        this.sessionClosedListener = sessionClosedListener;
+    }
+
+    /**
+     * Get the opened TCP sessions. The attachment of the session is the HTTP, WebSocket or tunnel connection.
+     *
+     * @return The opened TCP sessions.
+     */
+    public Collection<Session> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
 }
@@ -12,4 +12,18 @@ public interface HTTPServerConnection extends HTTPConnection {
 
     CompletableFuture<HTTPTunnelConnection> upgradeHTTPTunnel();
 
+    /**
+     * Refuse the new requests and close the connection after the in-flight requests are completed.
+     * The HTTP1 connection responds the "Connection: close" header, and the HTTP2 connection sends
+     * the GO_AWAY frame with the last stream id.
+     */
+    void drain();
+
+    /**
+     * Get the number of the requests in progress.
+     *
+     * @return The number of the requests in progress.
+     */
+    int getInflightRequests();
+
 }
@@ -0,0 +1,27 @@
+package com.firefly.server.http2;
+
+/**
+ * The executor that runs the asynchronous handlers of the HTTP server.
+ *
+ * @author Pengtao Qiu
+ */
+public enum HandlerExecutorMode {
+
+    /**
+     * The fixed-size ForkJoinPool. It suits the non-blocking handlers.
+     */
+    FORK_JOIN_POOL,
+
+    /**
+     * Each handler runs on its own virtual thread. It suits the handlers that block on I/O.
+     * On the JDK without virtual threads, the handlers run on a bounded pool of platform threads.
+     */
+    VIRTUAL_THREAD,
+
+    /**
+     * The handlers of a connection run in order on the pinned worker that also decodes the connection, so the
+     * connection data stays in the cache of one core. It suits the short non-blocking handlers.
+     * If the affinity pool size of the TCP configuration is not set, it is set to the number of the processors.
+     */
+    CONNECTION_AFFINITY
+}
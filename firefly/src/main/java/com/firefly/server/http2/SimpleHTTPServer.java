@@ -8,6 +8,7 @@ import com.firefly.codec.http2.stream.HTTPOutputStream;
 import com.firefly.codec.websocket.frame.Frame;
 import com.firefly.codec.websocket.stream.WebSocketConnection;
 import com.firefly.codec.websocket.stream.WebSocketPolicy;
+import com.firefly.utils.concurrent.ThreadUtils;
 import com.firefly.utils.function.Action1;
 import com.firefly.utils.function.Action2;
 import com.firefly.utils.function.Action3;
@@ -24,6 +25,10 @@ import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SimpleHTTPServer extends AbstractLifeCycle {
 
@@ -39,9 +44,10 @@ public class SimpleHTTPServer extends AbstractLifeCycle {
     private Action1<SimpleRequest> earlyEof;
     private Action1<HTTPConnection> acceptConnection;
     private Action2<SimpleRequest, HTTPServerConnection> tunnel;
+    private Action1<DrainProgress> drainProgress;
 
     private Meter requestMeter;
-    private final ExecutorService handlerExecutorService;
+    private volatile ExecutorService handlerExecutorService;
 
     private Map<String, WebSocketHandler> webSocketHandlerMap = new HashMap<>();
     private WebSocketPolicy webSocketPolicy;
@@ -56,11 +62,36 @@ public class SimpleHTTPServer extends AbstractLifeCycle {
                                          .getMetricReporterFactory()
                                          .getMetricRegistry()
                                          .meter("http2.SimpleHTTPServer.request.count");
-        handlerExecutorService = new ForkJoinPool(defaultPoolSize, pool -> {
-            ForkJoinWorkerThread workerThread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
-            workerThread.setName("firefly-http-server-handler-pool-" + workerThread.getPoolIndex());
-            return workerThread;
-        }, null, true);
+    }
+
+    private ExecutorService createHandlerExecutorService() {
+        if (configuration.getHandlerExecutorMode() == HandlerExecutorMode.VIRTUAL_THREAD) {
+            ExecutorService virtualThreadExecutor = ThreadUtils.newVirtualThreadPerTaskExecutor("firefly-http-server-handler-virtual-");
+            if (virtualThreadExecutor != null) {
+                log.info("The HTTP server handlers run on the virtual threads");
+                return virtualThreadExecutor;
+            } else {
+                log.info("The JDK does not support the virtual threads. The HTTP server handlers run on at most {} platform threads",
+                        configuration.getMaxHandlerThreads());
+                AtomicInteger threadId = new AtomicInteger();
+                ThreadPoolExecutor platformThreadExecutor = new ThreadPoolExecutor(
+                        configuration.getMaxHandlerThreads(), configuration.getMaxHandlerThreads(),
+                        60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                        r -> {
+                            Thread thread = new Thread(r, "firefly-http-server-handler-thread-" + threadId.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+                platformThreadExecutor.allowCoreThreadTimeOut(true);
+                return platformThreadExecutor;
+            }
+        } else {
+            return new ForkJoinPool(defaultPoolSize, pool -> {
+                ForkJoinWorkerThread workerThread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                workerThread.setName("firefly-http-server-handler-pool-" + workerThread.getPoolIndex());
+                return workerThread;
+            }, null, true);
+        }
     }
 
     public SimpleHTTPServer acceptHTTPTunnelConnection(Action2<SimpleRequest, HTTPServerConnection> tunnel) {
@@ -88,6 +119,11 @@ public class SimpleHTTPServer extends AbstractLifeCycle {
         return this;
     }
 
+    public SimpleHTTPServer drainProgress(Action1<DrainProgress> drainProgress) {
+        this.drainProgress = drainProgress;
+        return this;
+    }
+
     public SimpleHTTPServer registerWebSocket(String uri, WebSocketHandler webSocketHandler) {
         webSocketHandlerMap.put(uri, webSocketHandler);
         return this;
@@ -102,14 +138,41 @@ public class SimpleHTTPServer extends AbstractLifeCycle {
         return http2Server.getNetExecutorService();
     }
 
+    /**
+     * Get the executor of the asynchronous handlers. It is created by the handler executor mode of the configuration
+     * when the server starts or this method is called first.
+     *
+     * @return The executor of the asynchronous handlers.
+     */
     public ExecutorService getHandlerExecutorService() {
-        return handlerExecutorService;
+        ExecutorService executorService = handlerExecutorService;
+        if (executorService == null) {
+            synchronized (this) {
+                executorService = handlerExecutorService;
+                if (executorService == null) {
+                    executorService = createHandlerExecutorService();
+                    handlerExecutorService = executorService;
+                }
+            }
+        }
+        return executorService;
     }
 
     public SimpleHTTPServerConfiguration getConfiguration() {
         return configuration;
     }
 
+    /**
+     * Stop accepting the new connections and wait for the in-flight requests. The server is still running
+     * after draining, call the stop method to release the resources.
+     *
+     * @param timeout The max time that waits for the in-flight requests. The time unit is millisecond.
+     * @return True if all the in-flight requests are completed before the timeout.
+     */
+    public boolean drain(long timeout) {
+        return http2Server.drain(timeout);
+    }
+
     public void listen(String host, int port) {
         configuration.setHost(host);
         configuration.setPort(port);
@@ -122,6 +185,7 @@ public class SimpleHTTPServer extends AbstractLifeCycle {
 
     @Override
     protected void init() {
+        getHandlerExecutorService();
         http2Server = new HTTP2Server(configuration.getHost(), configuration.getPort(), configuration, new ServerHTTPHandler.Adapter().acceptConnection(acceptConnection).acceptHTTPTunnelConnection((request, response, out, connection) -> {
             SimpleRequest r = new SimpleRequest(request, response, out, connection);
             request.setAttachment(r);
@@ -218,6 +282,16 @@ public class SimpleHTTPServer extends AbstractLifeCycle {
                 }
             }
 
+            @Override
+            public WebSocketPolicy getWebSocketPolicy(MetaData.Request request) {
+                WebSocketHandler handler = webSocketHandlerMap.get(request.getURI().getPath());
+                if (handler != null && handler.getWebSocketPolicy() != defaultWebSocketPolicy) {
+                    return handler.getWebSocketPolicy();
+                } else {
+                    return getWebSocketPolicy();
+                }
+            }
+
             @Override
             public void onFrame(Frame frame, WebSocketConnection connection) {
                 Optional.ofNullable(webSocketHandlerMap.get(connection.getUpgradeRequest().getURI().getPath()))
@@ -230,13 +304,31 @@ public class SimpleHTTPServer extends AbstractLifeCycle {
                         .ifPresent(handler -> handler.onError(t, connection));
             }
         });
+        http2Server.setDrainProgressListener(drainProgress);
+        if (configuration.getHandlerExecutorMode() == HandlerExecutorMode.CONNECTION_AFFINITY) {
+            http2Server.setDefaultAffinityPoolSize(defaultPoolSize);
+        }
         http2Server.start();
     }
 
+    /**
+     * Drain the server before it is stopped if the drain timeout is greater than 0. It drains outside the life cycle
+     * lock, so the concurrent start and stop calls do not wait for the in-flight requests.
+     */
+    @Override
+    public void stop() {
+        if (isStarted() && http2Server != null && !http2Server.isDraining() && configuration.getDrainTimeout() > 0) {
+            http2Server.drain(configuration.getDrainTimeout());
+        }
+        super.stop();
+    }
+
     @Override
     protected void destroy() {
         try {
-            handlerExecutorService.shutdown();
+            if (handlerExecutorService != null) {
+                handlerExecutorService.shutdown();
+            }
         } catch (Exception e) {
             log.warn("simple http server handler pool shutdown exception", e);
         } finally {
@@ -6,6 +6,8 @@ public class SimpleHTTPServerConfiguration extends HTTP2Configuration {
 
     private String host;
     private int port;
+    private HandlerExecutorMode handlerExecutorMode = HandlerExecutorMode.FORK_JOIN_POOL;
+    private int maxHandlerThreads = 200;
 
     /**
      * Get the HTTP server host name.
@@ -43,4 +45,43 @@ public class SimpleHTTPServerConfiguration extends HTTP2Configuration {
         this.port = port;
     }
 
+    /**
+     * Get the executor mode of the asynchronous handlers.
+     *
+     * @return The executor mode of the asynchronous handlers.
+     */
+    public HandlerExecutorMode getHandlerExecutorMode() {
+        return handlerExecutorMode;
+    }
+
+    /**
+     * Set the executor mode of the asynchronous handlers. The default value is FORK_JOIN_POOL. Use VIRTUAL_THREAD
+     * if the handlers block on I/O, e.g., the JDBC queries or the synchronous HTTP client requests.
+     *
+     * @param handlerExecutorMode The executor mode of the asynchronous handlers.
+     */
+    public void setHandlerExecutorMode(HandlerExecutorMode handlerExecutorMode) {
+        this.handlerExecutorMode = handlerExecutorMode;
+    }
+
+    /**
+     * Get the max number of the platform threads that run the asynchronous handlers when the VIRTUAL_THREAD mode
+     * falls back on the JDK without virtual threads.
+     *
+     * @return The max number of the platform handler threads.
+     */
+    public int getMaxHandlerThreads() {
+        return maxHandlerThreads;
+    }
+
+    /**
+     * Set the max number of the platform threads that run the asynchronous handlers when the VIRTUAL_THREAD mode
+     * falls back on the JDK without virtual threads. The default value is 200.
+     *
+     * @param maxHandlerThreads The max number of the platform handler threads.
+     */
+    public void setMaxHandlerThreads(int maxHandlerThreads) {
+        this.maxHandlerThreads = maxHandlerThreads;
+    }
+
 }
@@ -11,6 +11,9 @@ import com.firefly.utils.io.BufferUtils;
 import com.firefly.utils.json.Json;
 import com.firefly.utils.json.JsonArray;
 import com.firefly.utils.json.JsonObject;
+import com.firefly.utils.json.JsonReader;
+import com.firefly.utils.json.io.JsonByteReader;
+import com.firefly.utils.json.io.JsonStringReader;
 import com.firefly.utils.lang.GenericTypeReference;
 
 import java.nio.ByteBuffer;
@@ -159,19 +162,53 @@ public class SimpleRequest {
     }
 
     public <T> T getJsonBody(Class<T> clazz) {
-        return Json.toObject(getStringBody(), clazz);
+        return Json.toObject(getJsonReader(), clazz);
     }
 
     public <T> T getJsonBody(GenericTypeReference<T> typeReference) {
-        return Json.toObject(getStringBody(), typeReference);
+        return Json.toObject(getJsonReader(), typeReference);
     }
 
     public JsonObject getJsonObjectBody() {
-        return Json.toJsonObject(getStringBody());
+        return Json.toJsonObject(getJsonReader());
     }
 
     public JsonArray getJsonArrayBody() {
-        return Json.toJsonArray(getStringBody());
+        return Json.toJsonArray(getJsonReader());
+    }
+
+    /**
+     * Parse the JSON object body lazily, the fields are parsed when they are accessed.
+     *
+     * @return The lazy JSON object.
+     */
+    public JsonObject getLazyJsonObjectBody() {
+        if (stringBody != null) {
+            return Json.toLazyJsonObject(stringBody);
+        } else {
+            return Json.toLazyJsonObject(new JsonByteReader(requestBody));
+        }
+    }
+
+    /**
+     * Parse the JSON array body lazily, the elements are parsed when they are accessed.
+     *
+     * @return The lazy JSON array.
+     */
+    public JsonArray getLazyJsonArrayBody() {
+        if (stringBody != null) {
+            return Json.toLazyJsonArray(stringBody);
+        } else {
+            return Json.toLazyJsonArray(new JsonByteReader(requestBody));
+        }
+    }
+
+    private JsonReader getJsonReader() {
+        if (stringBody != null) {
+            return new JsonStringReader(stringBody);
+        } else {
+            return new JsonByteReader(requestBody);
+        }
     }
 
     public List<Cookie> getCookies() {
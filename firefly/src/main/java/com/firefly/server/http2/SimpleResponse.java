@@ -4,14 +4,20 @@ import com.firefly.codec.http2.model.*;
 import com.firefly.codec.http2.model.MetaData.Response;
 import com.firefly.codec.http2.stream.BufferedHTTPOutputStream;
 import com.firefly.codec.http2.stream.HTTPOutputStream;
+import com.firefly.utils.function.Action1;
+import com.firefly.utils.io.BufferUtils;
 import com.firefly.utils.io.IO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class SimpleResponse implements Closeable {
@@ -22,10 +28,14 @@ public class SimpleResponse implements Closeable {
     final HTTPOutputStream output;
     final HttpURI uri;
     PrintWriter printWriter;
-    BufferedHTTPOutputStream bufferedOutputStream;
+    OutputStream bufferedOutputStream;
+    Function<OutputStream, OutputStream> outputStreamWrapper;
+    OutputStream bodyCopy;
     int bufferSize = 8 * 1024;
     String characterEncoding = "UTF-8";
     boolean asynchronous;
+    List<Action1<SimpleResponse>> completeListeners;
+    boolean completed;
 
     public SimpleResponse(Response response, HTTPOutputStream output, HttpURI uri) {
         this.output = output;
@@ -91,7 +101,7 @@ public class SimpleResponse implements Closeable {
         }
 
         if (bufferedOutputStream == null) {
-            bufferedOutputStream = new BufferedHTTPOutputStream(output, bufferSize);
+            bufferedOutputStream = wrap(newBufferedOutputStream());
             return bufferedOutputStream;
         } else {
             return bufferedOutputStream;
@@ -104,7 +114,7 @@ public class SimpleResponse implements Closeable {
         }
         if (printWriter == null) {
             try {
-                printWriter = new PrintWriter(new OutputStreamWriter(new BufferedHTTPOutputStream(output, bufferSize), characterEncoding));
+                printWriter = new PrintWriter(new OutputStreamWriter(wrap(newBufferedOutputStream()), characterEncoding));
             } catch (UnsupportedEncodingException e) {
                 log.error("create print writer exception " + uri, e);
             }
@@ -114,6 +124,69 @@ public class SimpleResponse implements Closeable {
         }
     }
 
+    private OutputStream newBufferedOutputStream() {
+        final OutputStream copy = bodyCopy;
+        return new BufferedHTTPOutputStream(output, bufferSize) {
+            @Override
+            public synchronized void write(int b) throws IOException {
+                super.write(b);
+                if (copy != null) {
+                    copy.write(b);
+                }
+            }
+
+            @Override
+            public synchronized void write(byte[] array, int offset, int length) throws IOException {
+                super.write(array, offset, length);
+                if (copy != null && length > 0) {
+                    copy.write(array, offset, length);
+                }
+            }
+
+            @Override
+            public synchronized void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    complete();
+                }
+            }
+        };
+    }
+
+    private OutputStream wrap(OutputStream out) {
+        return outputStreamWrapper == null ? out : outputStreamWrapper.apply(out);
+    }
+
+    public Function<OutputStream, OutputStream> getOutputStreamWrapper() {
+        return outputStreamWrapper;
+    }
+
+    /**
+     * Set the function that wraps the buffered output stream of the response, e.g. compresses the response body.
+     * It must be set before the output stream or print writer is created.
+     *
+     * @param outputStreamWrapper The function that wraps the output stream.
+     */
+    public synchronized void setOutputStreamWrapper(Function<OutputStream, OutputStream> outputStreamWrapper) {
+        if (bufferedOutputStream != null || printWriter != null) {
+            throw new IllegalStateException("the response output stream has been created -> " + uri);
+        }
+        this.outputStreamWrapper = outputStreamWrapper;
+    }
+
+    /**
+     * Copy the response body that is sent to the client, it is the data written by the output stream wrappers,
+     * e.g. the compressed body. It must be set before the output stream or print writer is created.
+     *
+     * @param bodyCopy The output stream that receives the copy of the response body.
+     */
+    public synchronized void copyBodyTo(OutputStream bodyCopy) {
+        if (bufferedOutputStream != null || printWriter != null) {
+            throw new IllegalStateException("the response output stream has been created -> " + uri);
+        }
+        this.bodyCopy = bodyCopy;
+    }
 
     public String getCharacterEncoding() {
         return characterEncoding;
@@ -145,6 +218,54 @@ public class SimpleResponse implements Closeable {
         }
     }
 
+    /**
+     * Add the listener that is called once when the response is closed. If the response has completed,
+     * the listener is called immediately.
+     *
+     * @param listener The complete listener.
+     * @return The response.
+     */
+    public SimpleResponse onComplete(Action1<SimpleResponse> listener) {
+        synchronized (this) {
+            if (!completed) {
+                if (completeListeners == null) {
+                    completeListeners = new ArrayList<>(2);
+                }
+                completeListeners.add(listener);
+                return this;
+            }
+        }
+        callCompleteListener(listener);
+        return this;
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    private void complete() {
+        List<Action1<SimpleResponse>> listeners;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            listeners = completeListeners;
+            completeListeners = null;
+        }
+        if (listeners != null) {
+            listeners.forEach(this::callCompleteListener);
+        }
+    }
+
+    private void callCompleteListener(Action1<SimpleResponse> listener) {
+        try {
+            listener.call(this);
+        } catch (Throwable t) {
+            log.error("call the response complete listener exception " + uri, t);
+        }
+    }
+
     public synchronized void flush() throws IOException {
         if (bufferedOutputStream != null) {
             bufferedOutputStream.flush();
@@ -228,4 +349,33 @@ public class SimpleResponse implements Closeable {
     public SimpleResponse end(byte[] b) {
         return write(b).end();
     }
+
+    /**
+     * Write the buffer and end the response. If the output stream is neither wrapped nor used,
+     * the buffer is sent without copying it. The position of the buffer is not changed.
+     *
+     * @param buffer The response body.
+     * @return The response.
+     */
+    public synchronized SimpleResponse end(ByteBuffer buffer) {
+        ByteBuffer data = buffer.duplicate();
+        try {
+            if (outputStreamWrapper == null && bufferedOutputStream == null && printWriter == null) {
+                try {
+                    if (bodyCopy != null) {
+                        BufferUtils.writeTo(buffer.duplicate(), bodyCopy);
+                    }
+                    output.writeWithContentLength(data);
+                } finally {
+                    complete();
+                }
+            } else {
+                BufferUtils.writeTo(data, getOutputStream());
+                close();
+            }
+        } catch (IOException e) {
+            log.error("write data exception " + uri, e);
+        }
+        return this;
+    }
 }
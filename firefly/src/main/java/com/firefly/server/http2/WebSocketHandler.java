@@ -33,6 +33,10 @@ public interface WebSocketHandler {
         return defaultWebSocketPolicy;
     }
 
+    default WebSocketPolicy getWebSocketPolicy(MetaData.Request request) {
+        return getWebSocketPolicy();
+    }
+
     default void onFrame(Frame frame, WebSocketConnection connection) {
         if (log.isDebugEnabled()) {
             log.debug("The WebSocket connection {} received a  frame: {}", connection.getSessionId(), frame.toString());
@@ -25,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import static com.firefly.codec.oauth2.model.OAuth.*;
 
@@ -59,6 +60,15 @@ public interface RoutingContext extends Closeable {
         return getRequest().getConnection().getSessionId();
     }
 
+    /**
+     * Get the executor that runs the tasks of the current connection one by one in the submitted order.
+     *
+     * @return The ordered executor of the current connection.
+     */
+    default Executor getConnectionExecutor() {
+        return getRequest().getConnection().getExecutor();
+    }
+
     String getRouterParameter(String name);
 
     default String getWildcardMatchedResult(int index) {
@@ -266,6 +276,13 @@ public interface RoutingContext extends Closeable {
 
     BufferedReader getBufferedReader();
 
+    /**
+     * Get the read-only buffers of the HTTP body, the buffers share the content with the received data.
+     *
+     * @return The read-only buffers of the HTTP body.
+     */
+    ByteBuffer[] getBodyBuffers();
+
     String getStringBody(String charset);
 
     String getStringBody();
@@ -278,6 +295,21 @@ public interface RoutingContext extends Closeable {
 
     JsonArray getJsonArrayBody();
 
+    /**
+     * Parse the JSON object body lazily, the fields are parsed when they are accessed.
+     * It is faster when the handler reads only a few fields of a large body.
+     *
+     * @return The lazy JSON object.
+     */
+    JsonObject getLazyJsonObjectBody();
+
+    /**
+     * Parse the JSON array body lazily, the elements are parsed when they are accessed.
+     *
+     * @return The lazy JSON array.
+     */
+    JsonArray getLazyJsonArrayBody();
+
 
     // HTTP session API
     default HTTPSession getSessionNow() {
@@ -1,6 +1,10 @@
 package com.firefly.server.http2.router.handler.body;
 
+import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.utils.function.Action2;
+
 import javax.servlet.MultipartConfigElement;
+import javax.servlet.http.Part;
 
 /**
  * @author Pengtao Qiu
@@ -13,6 +17,7 @@ public class HTTPBodyConfiguration {
     private String tempFilePath = System.getProperty("java.io.tmpdir");
     private String charset = "UTF-8";
     private MultipartConfigElement multipartConfigElement = new MultipartConfigElement(tempFilePath, maxFileSize, maxRequestSize, bodyBufferThreshold);
+    private Action2<RoutingContext, Part> partListener;
 
     public int getBodyBufferThreshold() {
         return bodyBufferThreshold;
@@ -53,4 +58,18 @@ public class HTTPBodyConfiguration {
     public void setMultipartConfigElement(MultipartConfigElement multipartConfigElement) {
         this.multipartConfigElement = multipartConfigElement;
     }
+
+    public Action2<RoutingContext, Part> getPartListener() {
+        return partListener;
+    }
+
+    /**
+     * Set the listener that receives every multipart part when the part content is complete,
+     * it is called before the next handler.
+     *
+     * @param partListener The part listener.
+     */
+    public void setPartListener(Action2<RoutingContext, Part> partListener) {
+        this.partListener = partListener;
+    }
 }
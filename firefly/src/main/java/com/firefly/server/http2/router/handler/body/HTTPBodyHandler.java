@@ -7,18 +7,17 @@ import com.firefly.server.http2.router.Handler;
 import com.firefly.server.http2.router.RoutingContext;
 import com.firefly.server.http2.router.impl.RoutingContextImpl;
 import com.firefly.utils.StringUtils;
+import com.firefly.utils.function.Action2;
 import com.firefly.utils.io.BufferUtils;
-import com.firefly.utils.io.ByteArrayPipedStream;
+import com.firefly.utils.io.CompositeByteBuffer;
 import com.firefly.utils.io.FilePipedStream;
-import com.firefly.utils.io.IO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.http.Part;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.Charset;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Pengtao Qiu
@@ -63,8 +62,13 @@ public class HTTPBodyHandler implements Handler {
             return;
         }
 
+        if (isMultiPart(request) && (isChunked(request) || request.getContentLength() > 0)) {
+            parseMultiPart(ctx, request, httpBodyHandlerSPI);
+            return;
+        }
+
         if (isChunked(request)) {
-            httpBodyHandlerSPI.pipedStream = new ByteArrayPipedStream(4 * 1024);
+            httpBodyHandlerSPI.bodyBuffer = new CompositeByteBuffer();
         } else {
             long contentLength = request.getContentLength();
             if (contentLength <= 0) { // no content
@@ -74,32 +78,32 @@ public class HTTPBodyHandler implements Handler {
                 if (contentLength > configuration.getBodyBufferThreshold()) {
                     httpBodyHandlerSPI.pipedStream = new FilePipedStream(configuration.getTempFilePath());
                 } else {
-                    httpBodyHandlerSPI.pipedStream = new ByteArrayPipedStream((int) contentLength);
+                    // keep the received buffers without copying
+                    httpBodyHandlerSPI.bodyBuffer = new CompositeByteBuffer();
                 }
             }
         }
 
-        AtomicLong chunkedEncodingContentLength = new AtomicLong();
         ctx.content(buf -> {
             if (log.isDebugEnabled()) {
                 log.debug("http body handler received content size -> {}", buf.remaining());
             }
 
             try {
-                if (isChunked(request)) {
-                    if (chunkedEncodingContentLength.addAndGet(buf.remaining()) > configuration.getBodyBufferThreshold()
-                            && httpBodyHandlerSPI.pipedStream instanceof ByteArrayPipedStream) {
+                CompositeByteBuffer bodyBuffer = httpBodyHandlerSPI.bodyBuffer;
+                if (bodyBuffer != null) {
+                    if (bodyBuffer.remaining() + buf.remaining() > configuration.getBodyBufferThreshold()) {
                         // chunked encoding content dump to temp file
-                        IO.close(httpBodyHandlerSPI.pipedStream.getOutputStream());
                         FilePipedStream filePipedStream = new FilePipedStream(configuration.getTempFilePath());
-                        IO.copy(httpBodyHandlerSPI.pipedStream.getInputStream(), filePipedStream.getOutputStream());
-                        filePipedStream.getOutputStream().write(BufferUtils.toArray(buf));
+                        bodyBuffer.writeTo(filePipedStream.getOutputStream());
+                        BufferUtils.writeTo(buf, filePipedStream.getOutputStream());
                         httpBodyHandlerSPI.pipedStream = filePipedStream;
+                        httpBodyHandlerSPI.bodyBuffer = null;
                     } else {
-                        httpBodyHandlerSPI.pipedStream.getOutputStream().write(BufferUtils.toArray(buf));
+                        bodyBuffer.add(buf);
                     }
                 } else {
-                    httpBodyHandlerSPI.pipedStream.getOutputStream().write(BufferUtils.toArray(buf));
+                    BufferUtils.writeTo(buf, httpBodyHandlerSPI.pipedStream.getOutputStream());
                 }
             } catch (IOException e) {
                 log.error("http server receives http body exception", e);
@@ -107,18 +111,12 @@ public class HTTPBodyHandler implements Handler {
         }).contentComplete(req -> {
             try {
                 String contentType = MimeTypes.getContentTypeMIMEType(request.getFields().get(HttpHeader.CONTENT_TYPE));
-                httpBodyHandlerSPI.pipedStream.getOutputStream().close();
+                if (httpBodyHandlerSPI.pipedStream != null) {
+                    httpBodyHandlerSPI.pipedStream.getOutputStream().close();
+                }
                 if ("application/x-www-form-urlencoded".equalsIgnoreCase(contentType)) {
-                    try (InputStream inputStream = httpBodyHandlerSPI.pipedStream.getInputStream()) {
-                        httpBodyHandlerSPI.urlEncodedMap.decode(IO.toString(inputStream, configuration.getCharset()),
-                                Charset.forName(configuration.getCharset()));
-                    }
-                } else if ("multipart/form-data".equalsIgnoreCase(contentType)) {
-                    httpBodyHandlerSPI.multiPartFormInputStream = new MultiPartFormInputStream(
-                            httpBodyHandlerSPI.getInputStream(),
-                            request.getFields().get(HttpHeader.CONTENT_TYPE),
-                            configuration.getMultipartConfigElement(),
-                            new File(configuration.getTempFilePath()));
+                    httpBodyHandlerSPI.urlEncodedMap.decode(httpBodyHandlerSPI.getStringBody(configuration.getCharset()),
+                            Charset.forName(configuration.getCharset()));
                 }
             } catch (IOException e) {
                 log.error("http server ends receiving data exception", e);
@@ -126,6 +124,35 @@ public class HTTPBodyHandler implements Handler {
         }).messageComplete(req -> ctx.next());
     }
 
+    /**
+     * Feed the multipart parser as the content arrives. The parts are written to the memory or the temp file
+     * directly, the request body is not buffered.
+     */
+    private void parseMultiPart(RoutingContextImpl ctx, SimpleRequest request, HTTPBodyHandlerSPIImpl httpBodyHandlerSPI) {
+        MultiPartFormInputStream multiPartFormInputStream = new MultiPartFormInputStream(
+                request.getFields().get(HttpHeader.CONTENT_TYPE),
+                configuration.getMultipartConfigElement(),
+                new File(configuration.getTempFilePath()));
+        Action2<RoutingContext, Part> partListener = configuration.getPartListener();
+        if (partListener != null) {
+            multiPartFormInputStream.setPartListener(part -> partListener.call(ctx, part));
+        }
+        httpBodyHandlerSPI.multiPartFormInputStream = multiPartFormInputStream;
+
+        ctx.content(buf -> {
+            if (log.isDebugEnabled()) {
+                log.debug("http body handler received multi part content size -> {}", buf.remaining());
+            }
+            multiPartFormInputStream.parse(buf);
+        }).contentComplete(req -> multiPartFormInputStream.parseComplete())
+          .messageComplete(req -> ctx.next());
+    }
+
+    public boolean isMultiPart(SimpleRequest request) {
+        String contentType = MimeTypes.getContentTypeMIMEType(request.getFields().get(HttpHeader.CONTENT_TYPE));
+        return "multipart/form-data".equalsIgnoreCase(contentType);
+    }
+
     public boolean isChunked(SimpleRequest request) {
         String transferEncoding = request.getFields().get(HttpHeader.TRANSFER_ENCODING);
         return HttpHeaderValue.CHUNKED.asString().equals(transferEncoding)
@@ -3,11 +3,15 @@ package com.firefly.server.http2.router.handler.body;
 import com.firefly.codec.http2.encode.UrlEncoded;
 import com.firefly.codec.http2.model.MultiPartFormInputStream;
 import com.firefly.server.http2.router.spi.HTTPBodyHandlerSPI;
+import com.firefly.utils.io.CompositeByteBuffer;
 import com.firefly.utils.io.IO;
 import com.firefly.utils.io.PipedStream;
 import com.firefly.utils.json.Json;
 import com.firefly.utils.json.JsonArray;
 import com.firefly.utils.json.JsonObject;
+import com.firefly.utils.json.JsonReader;
+import com.firefly.utils.json.io.JsonByteReader;
+import com.firefly.utils.json.io.JsonStringReader;
 import com.firefly.utils.lang.GenericTypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +21,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.List;
@@ -30,11 +35,13 @@ public class HTTPBodyHandlerSPIImpl implements HTTPBodyHandlerSPI {
     private static final Logger log = LoggerFactory.getLogger("firefly-system");
 
     PipedStream pipedStream;
+    CompositeByteBuffer bodyBuffer;
     MultiPartFormInputStream multiPartFormInputStream;
     UrlEncoded urlEncodedMap;
     String charset;
     private BufferedReader bufferedReader;
     private String stringBody;
+    private byte[] bodyBytes;
 
 
     @Override
@@ -82,7 +89,9 @@ public class HTTPBodyHandlerSPIImpl implements HTTPBodyHandlerSPI {
 
     @Override
     public InputStream getInputStream() {
-        if (pipedStream == null) {
+        if (bodyBuffer != null) {
+            return bodyBuffer.getInputStream();
+        } else if (pipedStream == null) {
             return null;
         } else {
             try {
@@ -99,16 +108,12 @@ public class HTTPBodyHandlerSPIImpl implements HTTPBodyHandlerSPI {
         if (bufferedReader != null) {
             return bufferedReader;
         } else {
-            if (pipedStream == null) {
+            InputStream inputStream = getInputStream();
+            if (inputStream == null) {
                 return null;
             } else {
-                try {
-                    bufferedReader = new BufferedReader(new InputStreamReader(pipedStream.getInputStream()));
-                    return bufferedReader;
-                } catch (IOException e) {
-                    log.error("get buffered reader exception", e);
-                    return null;
-                }
+                bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
+                return bufferedReader;
             }
         }
     }
@@ -117,44 +122,108 @@ public class HTTPBodyHandlerSPIImpl implements HTTPBodyHandlerSPI {
     public String getStringBody(String charset) {
         if (stringBody != null) {
             return stringBody;
+        } else if (bodyBuffer != null) {
+            stringBody = bodyBuffer.toString(Charset.forName(charset));
+            return stringBody;
+        } else {
+            byte[] bytes = getBodyBytes();
+            if (bytes == null) {
+                return null;
+            } else {
+                stringBody = new String(bytes, Charset.forName(charset));
+                return stringBody;
+            }
+        }
+    }
+
+    @Override
+    public String getStringBody() {
+        return getStringBody(charset);
+    }
+
+    private byte[] getBodyBytes() {
+        if (bodyBytes != null) {
+            return bodyBytes;
         } else {
             if (getInputStream() == null) {
                 return null;
             } else {
                 try (InputStream inputStream = getInputStream()) {
-                    stringBody = IO.toString(inputStream, Charset.forName(charset));
-                    return stringBody;
+                    bodyBytes = IO.readBytes(inputStream);
+                    return bodyBytes;
                 } catch (IOException e) {
-                    log.error("get string body exception", e);
+                    log.error("get body bytes exception", e);
                     return null;
                 }
             }
         }
     }
 
+    private JsonReader getJsonReader() {
+        if (stringBody == null && isUTF8(charset)) {
+            if (bodyBuffer != null) {
+                return new JsonByteReader(bodyBuffer.getByteBufferList());
+            }
+            byte[] bytes = getBodyBytes();
+            if (bytes != null) {
+                return new JsonByteReader(bytes);
+            }
+        }
+        return new JsonStringReader(getStringBody());
+    }
+
+    private static boolean isUTF8(String charset) {
+        return charset == null || "UTF-8".equalsIgnoreCase(charset) || "UTF8".equalsIgnoreCase(charset);
+    }
+
     @Override
-    public String getStringBody() {
-        return getStringBody(charset);
+    public ByteBuffer[] getBodyBuffers() {
+        if (bodyBuffer != null) {
+            return bodyBuffer.getByteBuffers();
+        } else {
+            byte[] bytes = getBodyBytes();
+            return bytes == null ? null : new ByteBuffer[]{ByteBuffer.wrap(bytes).asReadOnlyBuffer()};
+        }
     }
 
     @Override
     public <T> T getJsonBody(Class<T> clazz) {
-        return Json.toObject(getStringBody(), clazz);
+        return Json.toObject(getJsonReader(), clazz);
     }
 
     @Override
     public <T> T getJsonBody(GenericTypeReference<T> typeReference) {
-        return Json.toObject(getStringBody(), typeReference);
+        return Json.toObject(getJsonReader(), typeReference);
     }
 
     @Override
     public JsonObject getJsonObjectBody() {
-        return Json.toJsonObject(getStringBody());
+        return Json.toJsonObject(getJsonReader());
     }
 
     @Override
     public JsonArray getJsonArrayBody() {
-        return Json.toJsonArray(getStringBody());
+        return Json.toJsonArray(getJsonReader());
+    }
+
+    @Override
+    public JsonObject getLazyJsonObjectBody() {
+        JsonReader reader = getJsonReader();
+        if (reader instanceof JsonByteReader) {
+            return Json.toLazyJsonObject((JsonByteReader) reader);
+        } else {
+            return Json.toLazyJsonObject(getStringBody());
+        }
+    }
+
+    @Override
+    public JsonArray getLazyJsonArrayBody() {
+        JsonReader reader = getJsonReader();
+        if (reader instanceof JsonByteReader) {
+            return Json.toLazyJsonArray((JsonByteReader) reader);
+        } else {
+            return Json.toLazyJsonArray(getStringBody());
+        }
     }
 
 }
@@ -0,0 +1,149 @@
+package com.firefly.server.http2.router.handler.cache;
+
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.HttpStatus;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class MicroCacheConfiguration {
+
+    private int maxEntries = 1024;
+    private int maxBodySize = 256 * 1024;
+    private long timeToLive = 1000;
+    private long staleWhileRevalidate = 4000;
+    private long maxWaitTime = 3000;
+    private long hitForPassTime = 5000;
+    private long maxMemorySize = 32 * 1024 * 1024;
+    private List<String> varyHeaders = Collections.singletonList(HttpHeader.ACCEPT_ENCODING.asString());
+    private Set<Integer> cacheableStatus = new HashSet<>(Arrays.asList(
+            HttpStatus.OK_200,
+            HttpStatus.NON_AUTHORITATIVE_INFORMATION_203,
+            HttpStatus.NO_CONTENT_204,
+            HttpStatus.MULTIPLE_CHOICES_300,
+            HttpStatus.MOVED_PERMANENTLY_301,
+            HttpStatus.NOT_FOUND_404,
+            HttpStatus.GONE_410));
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Set the max number of the cached responses, the least recently used response is evicted.
+     *
+     * @param maxEntries The max number of the cached responses.
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Set the max body size of the cached response, the larger response is not cached.
+     *
+     * @param maxBodySize The max body size.
+     */
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Set the time in milliseconds that the cached response is fresh.
+     *
+     * @param timeToLive The time to live in milliseconds.
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public long getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * Set the time in milliseconds after the response expires that the stale response is served
+     * while a request is revalidating it.
+     *
+     * @param staleWhileRevalidate The stale time in milliseconds.
+     */
+    public void setStaleWhileRevalidate(long staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * Set the max time in milliseconds that a request waits for the revalidating response. When the time is exceeded,
+     * the waiting request is sent to the next handlers, and the next request starts a new revalidation.
+     *
+     * @param maxWaitTime The max wait time in milliseconds.
+     */
+    public void setMaxWaitTime(long maxWaitTime) {
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    public long getHitForPassTime() {
+        return hitForPassTime;
+    }
+
+    /**
+     * Set the time in milliseconds that the requests of an uncacheable response are sent to the next handlers
+     * directly. During the time, the concurrent requests of the key do not wait for each other.
+     *
+     * @param hitForPassTime The hit-for-pass time in milliseconds.
+     */
+    public void setHitForPassTime(long hitForPassTime) {
+        this.hitForPassTime = hitForPassTime;
+    }
+
+    public long getMaxMemorySize() {
+        return maxMemorySize;
+    }
+
+    /**
+     * Set the max total bytes of the cached response bodies, the response is not cached if the limit is exceeded.
+     *
+     * @param maxMemorySize The max total bytes of the cached response bodies.
+     */
+    public void setMaxMemorySize(long maxMemorySize) {
+        this.maxMemorySize = maxMemorySize;
+    }
+
+    public List<String> getVaryHeaders() {
+        return varyHeaders;
+    }
+
+    /**
+     * Set the request headers that are a part of the cache key besides the host and URI. The default value is
+     * Accept-Encoding. The response whose Vary header names the other request headers is not cached.
+     *
+     * @param varyHeaders The request headers that are a part of the cache key.
+     */
+    public void setVaryHeaders(List<String> varyHeaders) {
+        this.varyHeaders = varyHeaders;
+    }
+
+    public Set<Integer> getCacheableStatus() {
+        return cacheableStatus;
+    }
+
+    public void setCacheableStatus(Set<Integer> cacheableStatus) {
+        this.cacheableStatus = cacheableStatus;
+    }
+}
@@ -0,0 +1,491 @@
+package com.firefly.server.http2.router.handler.cache;
+
+import com.firefly.codec.http2.model.HttpField;
+import com.firefly.codec.http2.model.HttpFields;
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.HttpMethod;
+import com.firefly.codec.http2.stream.HTTPConnection;
+import com.firefly.server.http2.SimpleResponse;
+import com.firefly.server.http2.router.Handler;
+import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.utils.collection.ConcurrentLinkedHashMap;
+import com.firefly.utils.time.HashTimeWheel;
+import com.firefly.utils.time.Millisecond100Clock;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The handler caches the complete responses of the GET requests for a short time. The cache key consists of the host,
+ * the URI and the vary headers of the configuration, and the least recently used response is evicted.
+ * <p>
+ * Only one request of a key is sent to the next handlers at a time. When the response expires, the first request
+ * revalidates it, and the concurrent requests receive the stale response during the stale-while-revalidate time,
+ * or wait for the revalidating response if there is no stale response. The waiting request is sent to the next handlers
+ * when it waits longer than the max wait time, and the revalidation is abandoned when the first request's connection
+ * is closed. The response is not cached if it sets cookies, or its Cache-Control is no-store, no-cache or private,
+ * or its body is larger than the max body size, or its Vary header names a request header that is not a part of
+ * the cache key, or the total bytes of the cached bodies exceed the max memory size. When the response is not
+ * cacheable, the requests of the key are sent to the next handlers without waiting during the hit-for-pass time.
+ *
+ * @author Pengtao Qiu
+ */
+public class MicroCacheHandler implements Handler {
+
+    private final MicroCacheConfiguration configuration;
+    private final Map<String, CachedResponse> cache;
+    private final Map<String, Long> passes;
+    private final Map<String, Revalidation> revalidations = new ConcurrentHashMap<>();
+    private final Map<HTTPConnection, Set<Revalidation>> connectionRevalidations = new ConcurrentHashMap<>();
+    private final AtomicLong memorySize = new AtomicLong();
+    private final HashTimeWheel timeWheel = new HashTimeWheel();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder staleCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder passCount = new LongAdder();
+
+    public MicroCacheHandler() {
+        this(new MicroCacheConfiguration());
+    }
+
+    public MicroCacheHandler(MicroCacheConfiguration configuration) {
+        this.configuration = configuration;
+        this.cache = new ConcurrentLinkedHashMap<>(true, Math.max(configuration.getMaxEntries(), 1),
+                new ConcurrentLinkedHashMap.MapEventListener<String, CachedResponse>() {
+                    @Override
+                    public boolean onEliminateEntry(String key, CachedResponse value) {
+                        release(value);
+                        return true;
+                    }
+
+                    @Override
+                    public CachedResponse onGetEntry(String key, CachedResponse value) {
+                        return value;
+                    }
+
+                    @Override
+                    public CachedResponse onPutEntry(String key, CachedResponse value, CachedResponse previousValue) {
+                        release(previousValue);
+                        return previousValue;
+                    }
+
+                    @Override
+                    public CachedResponse onRemoveEntry(String key, CachedResponse value) {
+                        release(value);
+                        return value;
+                    }
+                });
+        this.passes = new ConcurrentLinkedHashMap<>(true, Math.max(configuration.getMaxEntries(), 1));
+        timeWheel.setInterval(100);
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        if (!ctx.getMethod().equals(HttpMethod.GET.asString())
+                || ctx.getFields().contains(HttpHeader.AUTHORIZATION)
+                || ctx.getFields().contains(HttpHeader.CACHE_CONTROL, "no-cache")) {
+            ctx.next();
+            return;
+        }
+
+        String key = getKey(ctx);
+        long now = Millisecond100Clock.currentTimeMillis();
+        CachedResponse cachedResponse = cache.get(key);
+        if (cachedResponse != null && now < cachedResponse.expires) {
+            hitCount.increment();
+            cachedResponse.writeTo(ctx.getResponse(), now);
+            return;
+        }
+
+        Long passExpires = passes.get(key);
+        if (passExpires != null) {
+            if (now < passExpires) {
+                // the response of the key is not cacheable, the request does not wait for the others
+                passCount.increment();
+                ctx.next();
+                return;
+            }
+            passes.remove(key);
+        }
+
+        HTTPConnection connection = ctx.getRequest().getConnection();
+        Revalidation revalidation = new Revalidation(key, connection, now);
+        Revalidation current = revalidations.putIfAbsent(key, revalidation);
+        if (current != null && now - current.started >= configuration.getMaxWaitTime()) {
+            // the first request does not complete in the max wait time, the current request revalidates the response
+            current.complete(null);
+            current = revalidations.putIfAbsent(key, revalidation);
+        }
+        if (current != null) {
+            if (cachedResponse != null && now < cachedResponse.expires + configuration.getStaleWhileRevalidate()) {
+                staleCount.increment();
+                cachedResponse.writeTo(ctx.getResponse(), now);
+            } else {
+                await(ctx, current);
+            }
+            return;
+        }
+
+        missCount.increment();
+        watch(connection).add(revalidation);
+        if (!connection.isOpen()) {
+            // the connection is closed before the revalidation is watched
+            revalidation.complete(null);
+        }
+        BodyRecorder recorder = new BodyRecorder(configuration.getMaxBodySize());
+        SimpleResponse response = ctx.getResponse();
+        response.copyBodyTo(recorder);
+        response.onComplete(r -> {
+            CachedResponse newResponse = null;
+            try {
+                newResponse = createCachedResponse(r, recorder);
+                if (newResponse == null) {
+                    passes.put(key, Millisecond100Clock.currentTimeMillis() + configuration.getHitForPassTime());
+                } else if (store(key, newResponse)) {
+                    return;
+                }
+                newResponse = null;
+                cache.remove(key);
+            } finally {
+                revalidation.complete(newResponse);
+            }
+        });
+        try {
+            ctx.next();
+        } catch (RuntimeException e) {
+            revalidation.complete(null);
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for the revalidating response. The request is sent to the next handlers if the revalidation fails
+     * or the request waits longer than the max wait time. The waiting request resumes on the executor
+     * of its connection, not on the timer thread or the thread that completes the revalidating response.
+     */
+    private void await(RoutingContext ctx, Revalidation revalidation) {
+        coalescedCount.increment();
+        ctx.getResponse().setAsynchronous(true);
+        if (!timeWheel.isStarted()) {
+            timeWheel.start();
+        }
+        Executor executor = ctx.getConnectionExecutor();
+        AtomicBoolean done = new AtomicBoolean();
+        HashTimeWheel.Future timeout = timeWheel.add(configuration.getMaxWaitTime(), () -> {
+            if (done.compareAndSet(false, true)) {
+                timeoutCount.increment();
+                executor.execute(ctx::next);
+            }
+        });
+        revalidation.future.thenAccept(r -> {
+            if (done.compareAndSet(false, true)) {
+                timeout.cancel();
+                executor.execute(() -> {
+                    if (r != null) {
+                        r.writeTo(ctx.getResponse(), Millisecond100Clock.currentTimeMillis());
+                    } else {
+                        ctx.next();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Watch the connection, the revalidations of the connection are abandoned when the connection is closed.
+     *
+     * @param connection The HTTP connection.
+     * @return The revalidations of the connection.
+     */
+    private Set<Revalidation> watch(HTTPConnection connection) {
+        Set<Revalidation> set = connectionRevalidations.get(connection);
+        if (set != null) {
+            return set;
+        }
+        set = ConcurrentHashMap.newKeySet();
+        Set<Revalidation> previous = connectionRevalidations.putIfAbsent(connection, set);
+        if (previous != null) {
+            return previous;
+        }
+        connection.onClose(this::connectionClosed);
+        if (!connection.isOpen()) {
+            connectionClosed(connection);
+        }
+        return set;
+    }
+
+    private void connectionClosed(HTTPConnection connection) {
+        Set<Revalidation> set = connectionRevalidations.remove(connection);
+        if (set != null) {
+            set.forEach(revalidation -> revalidation.complete(null));
+        }
+    }
+
+    /**
+     * Put the response into the cache if the total bytes of the cached bodies do not exceed the max memory size.
+     * The responses that are out of the stale-while-revalidate time are evicted to make room for it.
+     */
+    private boolean store(String key, CachedResponse response) {
+        int size = response.body.capacity();
+        if (!reserve(size)) {
+            long now = Millisecond100Clock.currentTimeMillis();
+            for (Map.Entry<String, CachedResponse> entry : new ArrayList<>(cache.entrySet())) {
+                if (now >= entry.getValue().expires + configuration.getStaleWhileRevalidate()) {
+                    cache.remove(entry.getKey());
+                }
+            }
+            if (!reserve(size)) {
+                return false;
+            }
+        }
+        cache.put(key, response);
+        return true;
+    }
+
+    private boolean reserve(long length) {
+        long max = configuration.getMaxMemorySize();
+        while (true) {
+            long size = memorySize.get();
+            if (size + length > max) {
+                return false;
+            }
+            if (memorySize.compareAndSet(size, size + length)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(CachedResponse response) {
+        if (response != null) {
+            memorySize.addAndGet(-response.body.capacity());
+        }
+    }
+
+    private String getKey(RoutingContext ctx) {
+        StringBuilder key = new StringBuilder();
+        String host = ctx.getFields().get(HttpHeader.HOST);
+        if (host != null) {
+            key.append(host);
+        }
+        key.append('\n').append(ctx.getURI().toString());
+        for (String header : configuration.getVaryHeaders()) {
+            key.append('\n');
+            String value = ctx.getFields().get(header);
+            if (value != null) {
+                key.append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    private CachedResponse createCachedResponse(SimpleResponse response, BodyRecorder recorder) {
+        int status = response.getStatus() == 0 ? 200 : response.getStatus();
+        HttpFields fields = response.getFields();
+        if (recorder.overflow
+                || !configuration.getCacheableStatus().contains(status)
+                || fields.contains(HttpHeader.SET_COOKIE)
+                || fields.contains(HttpHeader.CACHE_CONTROL, "no-store")
+                || fields.contains(HttpHeader.CACHE_CONTROL, "no-cache")
+                || fields.contains(HttpHeader.CACHE_CONTROL, "private")
+                || !isVaryCovered(fields)) {
+            return null;
+        }
+
+        HttpFields cachedFields = new HttpFields(fields.size());
+        for (HttpField field : fields) {
+            if (field.getHeader() != HttpHeader.CONTENT_LENGTH && field.getHeader() != HttpHeader.TRANSFER_ENCODING) {
+                cachedFields.add(field);
+            }
+        }
+        long now = Millisecond100Clock.currentTimeMillis();
+        return new CachedResponse(status, cachedFields, recorder.toByteBuffer(), now, now + configuration.getTimeToLive());
+    }
+
+    /**
+     * Check the Vary header of the response. The response is cacheable only if the request headers
+     * in the Vary header are a part of the cache key.
+     */
+    private boolean isVaryCovered(HttpFields fields) {
+        for (String vary : fields.getCSV(HttpHeader.VARY, false)) {
+            if (vary.equals("*")) {
+                return false;
+            }
+            if (vary.equalsIgnoreCase(HttpHeader.HOST.asString())) {
+                continue;
+            }
+            if (configuration.getVaryHeaders().stream().noneMatch(vary::equalsIgnoreCase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public MicroCacheConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Get the total bytes of the cached bodies.
+     *
+     * @return The total bytes of the cached bodies.
+     */
+    public long getMemorySize() {
+        return memorySize.get();
+    }
+
+    public void clear() {
+        new ArrayList<>(cache.keySet()).forEach(cache::remove);
+    }
+
+    /**
+     * Stop the timer of the waiting requests. The timer starts again when a request waits for the revalidation.
+     */
+    public void stop() {
+        timeWheel.stop();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getStaleCount() {
+        return staleCount.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public long getPassCount() {
+        return passCount.sum();
+    }
+
+    public int getRevalidationCount() {
+        return revalidations.size();
+    }
+
+    private class Revalidation {
+        private final String key;
+        private final HTTPConnection connection;
+        private final long started;
+        private final CompletableFuture<CachedResponse> future = new CompletableFuture<>();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Revalidation(String key, HTTPConnection connection, long started) {
+            this.key = key;
+            this.connection = connection;
+            this.started = started;
+        }
+
+        /**
+         * Complete the revalidation at most once, the waiting requests are sent to the next handlers
+         * if the response is null.
+         *
+         * @param response The new cached response or null if the response is not cached.
+         */
+        private void complete(CachedResponse response) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            revalidations.remove(key, this);
+            Set<Revalidation> set = connectionRevalidations.get(connection);
+            if (set != null) {
+                set.remove(this);
+            }
+            future.complete(response);
+        }
+    }
+
+    /**
+     * Record the copies of the response body chunks, and write them into a direct buffer once
+     * when the response is completed.
+     */
+    private static class BodyRecorder extends OutputStream {
+        private final int maxSize;
+        private final List<byte[]> chunks = new LinkedList<>();
+        private int size;
+        private boolean overflow;
+
+        BodyRecorder(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (overflow || len <= 0) {
+                return;
+            }
+            if (size + len > maxSize) {
+                overflow = true;
+                chunks.clear();
+                return;
+            }
+            chunks.add(Arrays.copyOfRange(b, off, off + len));
+            size += len;
+        }
+
+        synchronized ByteBuffer toByteBuffer() {
+            ByteBuffer body = ByteBuffer.allocateDirect(size);
+            chunks.forEach(body::put);
+            body.flip();
+            return body.asReadOnlyBuffer();
+        }
+    }
+
+    private static class CachedResponse {
+        private final int status;
+        private final HttpFields fields;
+        private final ByteBuffer body;
+        private final long created;
+        private final long expires;
+
+        CachedResponse(int status, HttpFields fields, ByteBuffer body, long created, long expires) {
+            this.status = status;
+            this.fields = fields;
+            this.body = body;
+            this.created = created;
+            this.expires = expires;
+        }
+
+        void writeTo(SimpleResponse response, long now) {
+            response.setStatus(status);
+            HttpFields responseFields = response.getFields();
+            for (HttpField field : fields) {
+                responseFields.put(field);
+            }
+            responseFields.put(HttpHeader.AGE, String.valueOf(Math.max(now - created, 0) / 1000));
+            response.end(body);
+        }
+    }
+}
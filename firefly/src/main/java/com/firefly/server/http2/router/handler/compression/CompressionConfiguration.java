@@ -0,0 +1,75 @@
+package com.firefly.server.http2.router.handler.compression;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class CompressionConfiguration {
+
+    private int minSize = 256;
+    private Set<String> mimeTypes = new HashSet<>(Arrays.asList(
+            "text/html",
+            "text/plain",
+            "text/css",
+            "text/xml",
+            "text/javascript",
+            "application/javascript",
+            "application/json",
+            "application/xml",
+            "image/svg+xml"));
+    private List<String> encodings = Arrays.asList(ContentEncoding.GZIP.asString(), ContentEncoding.DEFLATE.asString());
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Set the min size of the response body that is compressed. The smaller body is sent without compression.
+     *
+     * @param minSize The min size of the compressed body.
+     */
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public Set<String> getMimeTypes() {
+        return mimeTypes;
+    }
+
+    public void setMimeTypes(Set<String> mimeTypes) {
+        this.mimeTypes = mimeTypes;
+    }
+
+    public List<String> getEncodings() {
+        return encodings;
+    }
+
+    /**
+     * Set the supported content encodings (gzip, deflate). The encoding is selected by the quality of
+     * the Accept-Encoding, and the first one of this list is used when the client accepts any encoding.
+     *
+     * @param encodings The supported content encodings.
+     */
+    public void setEncodings(List<String> encodings) {
+        this.encodings = encodings;
+    }
+
+    /**
+     * Check whether the content type is compressible. The parameters (e.g. charset) are ignored.
+     *
+     * @param contentType The content type of the response.
+     * @return If true, the content type is compressible.
+     */
+    public boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int i = contentType.indexOf(';');
+        String mimeType = (i >= 0 ? contentType.substring(0, i) : contentType).trim().toLowerCase();
+        return mimeTypes.contains(mimeType);
+    }
+}
@@ -0,0 +1,57 @@
+package com.firefly.server.http2.router.handler.compression;
+
+import com.firefly.codec.common.CompressionPool;
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.HttpMethod;
+import com.firefly.server.http2.SimpleResponse;
+import com.firefly.server.http2.router.Handler;
+import com.firefly.server.http2.router.RoutingContext;
+
+/**
+ * The handler negotiates the Accept-Encoding and compresses the response body using gzip or deflate.
+ * It must be placed before the handlers that write the response. The body that is smaller than the min size,
+ * or whose Content-Type is not compressible, or that has been encoded, is sent without compression.
+ *
+ * @author Pengtao Qiu
+ */
+public class CompressionHandler implements Handler {
+
+    private CompressionConfiguration configuration = new CompressionConfiguration();
+    private CompressionPool compressionPool = CompressionPool.getDefault();
+
+    public CompressionHandler() {
+    }
+
+    public CompressionHandler(CompressionConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public CompressionConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public void setConfiguration(CompressionConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public CompressionPool getCompressionPool() {
+        return compressionPool;
+    }
+
+    public void setCompressionPool(CompressionPool compressionPool) {
+        this.compressionPool = compressionPool;
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        final CompressionConfiguration c = configuration;
+        ctx.getResponse().getFields().add(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString());
+        ContentEncoding encoding = ContentEncoding.negotiate(
+                ctx.getFields().getQualityCSV(HttpHeader.ACCEPT_ENCODING), c.getEncodings());
+        if (encoding != null && !ctx.getMethod().equalsIgnoreCase(HttpMethod.HEAD.asString())) {
+            SimpleResponse response = ctx.getResponse();
+            response.setOutputStreamWrapper(out -> new CompressionOutputStream(out, response, encoding, c, compressionPool));
+        }
+        ctx.next();
+    }
+}
@@ -0,0 +1,122 @@
+package com.firefly.server.http2.router.handler.compression;
+
+import com.firefly.codec.common.CompressionPool;
+import com.firefly.codec.http2.model.HttpFields;
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.server.http2.SimpleResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The output stream that compresses the response body. It buffers the data until the size reaches
+ * the min size of the configuration, and then decides whether to compress the body using the status,
+ * Content-Type and Content-Encoding of the response. The headers are changed before the response is committed.
+ *
+ * @author Pengtao Qiu
+ */
+public class CompressionOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final SimpleResponse response;
+    private final ContentEncoding encoding;
+    private final CompressionConfiguration configuration;
+    private final CompressionPool compressionPool;
+    private byte[] pending;
+    private int pendingSize;
+    private OutputStream delegate;
+
+    public CompressionOutputStream(OutputStream out, SimpleResponse response, ContentEncoding encoding,
+                                   CompressionConfiguration configuration, CompressionPool compressionPool) {
+        this.out = out;
+        this.response = response;
+        this.encoding = encoding;
+        this.configuration = configuration;
+        this.compressionPool = compressionPool;
+        this.pending = new byte[Math.max(configuration.getMinSize(), 0)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (delegate == null) {
+            if (pendingSize + len < pending.length) {
+                System.arraycopy(b, off, pending, pendingSize, len);
+                pendingSize += len;
+                return;
+            }
+            decide(true);
+        }
+        delegate.write(b, off, len);
+    }
+
+    /**
+     * Flush the buffered data. The flush before the min size does not disable the compression. If nothing is
+     * buffered, the decision is deferred. Otherwise, more data follows the flushed data, so the buffered data
+     * is compressed if the response is compressible, and the compressor flushes it with the sync flush.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (delegate == null) {
+            if (pendingSize == 0) {
+                out.flush();
+                return;
+            }
+            decide(true);
+        }
+        delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate == null) {
+            decide(false);
+        }
+        delegate.close();
+    }
+
+    public boolean isCompressed() {
+        return delegate instanceof ContentEncodingOutputStream;
+    }
+
+    private void decide(boolean reachMinSize) throws IOException {
+        if (reachMinSize && isCompressible()) {
+            HttpFields fields = response.getFields();
+            fields.remove(HttpHeader.CONTENT_LENGTH);
+            fields.put(HttpHeader.CONTENT_ENCODING, encoding.asString());
+            delegate = new ContentEncodingOutputStream(out, encoding, compressionPool);
+        } else {
+            delegate = out;
+        }
+        if (pendingSize > 0) {
+            delegate.write(pending, 0, pendingSize);
+        }
+        pending = null;
+        pendingSize = 0;
+    }
+
+    private boolean isCompressible() {
+        if (response.isCommitted()) {
+            return false;
+        }
+        int status = response.getStatus(); // the status is 0 if the handler does not set it, it means 200
+        if ((status > 0 && status < HttpStatus.OK_200)
+                || status == HttpStatus.NO_CONTENT_204
+                || status == HttpStatus.PARTIAL_CONTENT_206
+                || status == HttpStatus.NOT_MODIFIED_304) {
+            return false;
+        }
+        HttpFields fields = response.getFields();
+        if (fields.contains(HttpHeader.CONTENT_ENCODING) || fields.contains(HttpHeader.CONTENT_RANGE)) {
+            return false;
+        }
+        return configuration.isCompressible(fields.get(HttpHeader.CONTENT_TYPE));
+    }
+}
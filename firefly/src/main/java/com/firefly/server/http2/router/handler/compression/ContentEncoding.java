@@ -0,0 +1,54 @@
+package com.firefly.server.http2.router.handler.compression;
+
+import java.util.List;
+
+/**
+ * The content encodings of the response compression.
+ *
+ * @author Pengtao Qiu
+ */
+public enum ContentEncoding {
+
+    GZIP("gzip"), DEFLATE("deflate");
+
+    private final String value;
+
+    ContentEncoding(String value) {
+        this.value = value;
+    }
+
+    public String asString() {
+        return value;
+    }
+
+    public static ContentEncoding from(String value) {
+        for (ContentEncoding encoding : values()) {
+            if (encoding.value.equalsIgnoreCase(value)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Select the content encoding using the Accept-Encoding values that are sorted by the quality.
+     *
+     * @param acceptEncodings    The Accept-Encoding values sorted by the quality, the q=0 values are excluded.
+     * @param supportedEncodings The supported encodings of the server.
+     * @return The selected encoding or null if the client does not accept any supported encoding.
+     */
+    public static ContentEncoding negotiate(List<String> acceptEncodings, List<String> supportedEncodings) {
+        for (String acceptEncoding : acceptEncodings) {
+            String value = acceptEncoding.trim();
+            if (value.equals("*")) {
+                return supportedEncodings.isEmpty() ? null : from(supportedEncodings.get(0));
+            }
+            for (String supportedEncoding : supportedEncodings) {
+                if (supportedEncoding.equalsIgnoreCase(value)) {
+                    return from(supportedEncoding);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,132 @@
+package com.firefly.server.http2.router.handler.compression;
+
+import com.firefly.codec.common.CompressionPool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+
+/**
+ * The output stream that encodes the data using the gzip (RFC 1952) or deflate (zlib, RFC 1950) format.
+ * It borrows a raw Deflater from the {@link CompressionPool}, writes the header and trailer itself,
+ * and releases the Deflater when it is closed.
+ *
+ * @author Pengtao Qiu
+ */
+public class ContentEncodingOutputStream extends OutputStream {
+
+    private static final byte[] GZIP_HEADER = new byte[]{
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final byte[] ZLIB_HEADER = new byte[]{0x78, (byte) 0x9c};
+
+    private final OutputStream out;
+    private final ContentEncoding encoding;
+    private final CompressionPool compressionPool;
+    private final Checksum checksum;
+    private final byte[] buffer = new byte[8 * 1024];
+    private Deflater deflater;
+    private long inputSize;
+    private boolean headerWritten;
+    private boolean closed;
+
+    public ContentEncodingOutputStream(OutputStream out, ContentEncoding encoding, CompressionPool compressionPool) {
+        this.out = out;
+        this.encoding = encoding;
+        this.compressionPool = compressionPool;
+        this.checksum = encoding == ContentEncoding.GZIP ? new CRC32() : new Adler32();
+        this.deflater = compressionPool.acquireDeflater();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkClosed();
+        writeHeader();
+        if (len <= 0) {
+            return;
+        }
+        checksum.update(b, off, len);
+        inputSize += len;
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate(Deflater.NO_FLUSH);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        checkClosed();
+        writeHeader();
+        deflate(Deflater.SYNC_FLUSH);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeHeader();
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+            writeTrailer();
+        } finally {
+            compressionPool.releaseDeflater(deflater);
+            deflater = null;
+            out.close();
+        }
+    }
+
+    private void deflate(int flush) throws IOException {
+        int len;
+        do {
+            len = deflater.deflate(buffer, 0, buffer.length, flush);
+            if (len > 0) {
+                out.write(buffer, 0, len);
+            }
+        } while (len == buffer.length);
+    }
+
+    private void writeHeader() throws IOException {
+        if (!headerWritten) {
+            headerWritten = true;
+            out.write(encoding == ContentEncoding.GZIP ? GZIP_HEADER : ZLIB_HEADER);
+        }
+    }
+
+    private void writeTrailer() throws IOException {
+        long value = checksum.getValue();
+        if (encoding == ContentEncoding.GZIP) {
+            byte[] trailer = new byte[8];
+            writeIntLE(trailer, 0, value);
+            writeIntLE(trailer, 4, inputSize);
+            out.write(trailer);
+        } else {
+            out.write(new byte[]{(byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value});
+        }
+    }
+
+    private static void writeIntLE(byte[] array, int offset, long value) {
+        array[offset] = (byte) value;
+        array[offset + 1] = (byte) (value >> 8);
+        array[offset + 2] = (byte) (value >> 16);
+        array[offset + 3] = (byte) (value >> 24);
+    }
+
+    private void checkClosed() throws IOException {
+        if (closed) {
+            throw new IOException("the stream is closed");
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.firefly.server.http2.router.handler.file;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.firefly.codec.http2.model.*;
+import com.firefly.utils.collection.ConcurrentLinkedHashMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The LRU cache of the static files. It keeps the metadata and the pre-built response headers of the file,
+ * and keeps the content of the small file in a direct buffer. The total bytes of the contents are limited
+ * by the max file cache memory size. The entry is validated by the last modified time and length of the file
+ * at most once per check interval, so the cache hit does not access the disk.
+ *
+ * @author Pengtao Qiu
+ */
+public class StaticFileCache {
+
+    private final StaticFileConfiguration configuration;
+    private final Map<String, CachedFile> cache;
+    private final AtomicLong memorySize = new AtomicLong();
+    private volatile MetricRegistry metricRegistry;
+    private volatile Meter hitMeter = new Meter();
+    private volatile Meter missMeter = new Meter();
+    private volatile Meter memoryBytesMeter = new Meter();
+
+    public StaticFileCache(StaticFileConfiguration configuration) {
+        this.configuration = configuration;
+        cache = new ConcurrentLinkedHashMap<>(true, Math.max(configuration.getFileCacheSize(), 1),
+                new ConcurrentLinkedHashMap.MapEventListener<String, CachedFile>() {
+                    @Override
+                    public boolean onEliminateEntry(String key, CachedFile value) {
+                        release(value);
+                        return true;
+                    }
+
+                    @Override
+                    public CachedFile onGetEntry(String key, CachedFile value) {
+                        return value;
+                    }
+
+                    @Override
+                    public CachedFile onPutEntry(String key, CachedFile value, CachedFile previousValue) {
+                        release(previousValue);
+                        return previousValue;
+                    }
+
+                    @Override
+                    public CachedFile onRemoveEntry(String key, CachedFile value) {
+                        release(value);
+                        return value;
+                    }
+                });
+        if (configuration.getMetricRegistry() != null) {
+            registerMetrics(configuration.getMetricRegistry());
+        }
+    }
+
+    /**
+     * Register the cache metrics in the metric registry. It takes effect only once, the metric registry
+     * of the configuration takes precedence over the metric registry of the server.
+     *
+     * @param metrics The metric registry.
+     */
+    public void registerMetrics(MetricRegistry metrics) {
+        if (metricRegistry != null || metrics == null) {
+            return;
+        }
+        synchronized (this) {
+            if (metricRegistry != null) {
+                return;
+            }
+            hitMeter = metrics.meter("http2.StaticFileHandler.cache.hit");
+            missMeter = metrics.meter("http2.StaticFileHandler.cache.miss");
+            memoryBytesMeter = metrics.meter("http2.StaticFileHandler.cache.memoryBytes");
+            metrics.gauge("http2.StaticFileHandler.cache.hitRatio", () -> new RatioGauge() {
+                @Override
+                protected Ratio getRatio() {
+                    return Ratio.of(hitMeter.getCount(), hitMeter.getCount() + missMeter.getCount());
+                }
+            });
+            metrics.gauge("http2.StaticFileHandler.cache.memorySize", () -> (Gauge<Long>) memorySize::get);
+            metricRegistry = metrics;
+        }
+    }
+
+    /**
+     * Get the cached file. If the file is changed or the entry is absent, it reloads the file.
+     *
+     * @param path The decoded path of the request.
+     * @return The cached file or null if the file does not exist.
+     */
+    public CachedFile get(String path) {
+        CachedFile cachedFile = cache.get(path);
+        long now = System.currentTimeMillis();
+        if (cachedFile != null) {
+            if (now - cachedFile.checkedTime < configuration.getFileCacheCheckInterval() || cachedFile.isValid()) {
+                cachedFile.checkedTime = now;
+                hitMeter.mark();
+                return cachedFile;
+            } else {
+                cache.remove(path);
+            }
+        }
+
+        missMeter.mark();
+        File file = new File(configuration.getRootPath(), path);
+        if (!file.isFile()) {
+            return null;
+        }
+        if (configuration.getFileCacheSize() > 0) {
+            long length = file.length();
+            boolean reserved = length <= configuration.getMaxCachedFileSize() && reserve(length);
+            cachedFile = new CachedFile(file, now, reserved);
+            if (reserved) {
+                // the file is changed or fails to load after the size is reserved
+                memorySize.addAndGet((cachedFile.content == null ? 0 : cachedFile.content.capacity()) - length);
+            }
+            cache.put(path, cachedFile);
+        } else {
+            cachedFile = new CachedFile(file, now, false);
+        }
+        return cachedFile;
+    }
+
+    private boolean reserve(long length) {
+        long max = configuration.getMaxFileCacheMemorySize();
+        while (true) {
+            long size = memorySize.get();
+            if (size + length > max) {
+                return false;
+            }
+            if (memorySize.compareAndSet(size, size + length)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(CachedFile cachedFile) {
+        if (cachedFile != null && cachedFile.content != null) {
+            memorySize.addAndGet(-cachedFile.content.capacity());
+        }
+    }
+
+    /**
+     * Record the bytes that are sent from the memory.
+     *
+     * @param size The bytes sent from the memory.
+     */
+    public void markMemoryBytes(long size) {
+        memoryBytesMeter.mark(size);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Get the total bytes of the file contents in the cache.
+     *
+     * @return The total bytes of the cached contents.
+     */
+    public long getMemorySize() {
+        return memorySize.get();
+    }
+
+    public void clear() {
+        new ArrayList<>(cache.keySet()).forEach(cache::remove);
+    }
+
+    public long getHitCount() {
+        return hitMeter.getCount();
+    }
+
+    public long getMissCount() {
+        return missMeter.getCount();
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytesMeter.getCount();
+    }
+
+    public class CachedFile {
+        private final File file;
+        private final long lastModified;
+        private final long length;
+        private final String mimeType;
+        private final File gzipFile;
+        private final long gzipLastModified;
+        private final long gzipLength;
+        private final HttpField contentTypeField;
+        private final HttpField lastModifiedField;
+        private final HttpField etagField;
+        private final HttpField gzipETagField;
+        private final HttpField contentLengthField;
+        private final ByteBuffer content;
+        private volatile long checkedTime;
+
+        CachedFile(File file, long checkedTime, boolean inMemory) {
+            this.file = file;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+            this.mimeType = MimeTypes.getDefaultMimeByExtension(file.getName());
+            File gzip = new File(file.getPath() + ".gz");
+            this.gzipFile = configuration.isPrecompressed() && gzip.isFile() ? gzip : null;
+            this.gzipLastModified = gzipFile == null ? 0 : gzipFile.lastModified();
+            this.gzipLength = gzipFile == null ? 0 : gzipFile.length();
+            this.contentTypeField = mimeType == null ? null : new PreEncodedHttpField(HttpHeader.CONTENT_TYPE, mimeType);
+            this.lastModifiedField = new PreEncodedHttpField(HttpHeader.LAST_MODIFIED, DateGenerator.formatDate(lastModified));
+            String tag = Long.toHexString(lastModified) + "-" + Long.toHexString(length);
+            String gzipTag = gzipFile == null ? tag : tag + "-" + Long.toHexString(gzipLastModified) + "-" + Long.toHexString(gzipLength);
+            this.etagField = new PreEncodedHttpField(HttpHeader.ETAG, "W/\"" + tag + "\"");
+            this.gzipETagField = new PreEncodedHttpField(HttpHeader.ETAG, "W/\"" + gzipTag + "-gzip\"");
+            this.contentLengthField = new PreEncodedHttpField(HttpHeader.CONTENT_LENGTH, String.valueOf(length));
+            this.content = inMemory && length <= configuration.getMaxCachedFileSize() ? load(file, length) : null;
+            this.checkedTime = checkedTime;
+        }
+
+        private ByteBuffer load(File file, long length) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) ;
+            } catch (IOException e) {
+                return null;
+            }
+            if (buffer.hasRemaining()) { // the file is truncated when it is read
+                return null;
+            }
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        }
+
+        boolean isValid() {
+            if (file.lastModified() != lastModified || file.length() != length) {
+                return false;
+            }
+            File gzip = new File(file.getPath() + ".gz");
+            if (gzipFile == null) {
+                return !configuration.isPrecompressed() || !gzip.isFile();
+            } else {
+                return gzip.lastModified() == gzipLastModified && gzip.length() == gzipLength;
+            }
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public boolean hasGzipVariant() {
+            return gzipFile != null;
+        }
+
+        /**
+         * Get the precompressed gzip variant of the file.
+         *
+         * @return The gzip file or null if the file has no precompressed variant.
+         */
+        public File getGzipFile() {
+            return gzipFile;
+        }
+
+        public long getGzipLength() {
+            return gzipLength;
+        }
+
+        public String getETag() {
+            return etagField.getValue();
+        }
+
+        /**
+         * Get the ETag of the gzip encoded response, it differs from the ETag of the identity response.
+         *
+         * @return The ETag of the gzip encoded response.
+         */
+        public String getGzipETag() {
+            return gzipETagField.getValue();
+        }
+
+        /**
+         * Get the content of the small file, the buffer is shared, the caller must use its duplicate.
+         *
+         * @return The read-only content or null if the file is not cached in the memory.
+         */
+        public ByteBuffer getContent() {
+            return content;
+        }
+
+        /**
+         * Put the ETag and Last-Modified headers.
+         *
+         * @param fields The response headers.
+         * @param gzip   If true, put the ETag of the gzip encoded response.
+         */
+        public void putValidators(HttpFields fields, boolean gzip) {
+            fields.put(gzip ? gzipETagField : etagField);
+            fields.put(lastModifiedField);
+        }
+
+        /**
+         * Put the Content-Type and Content-Length headers of the whole file.
+         *
+         * @param fields The response headers.
+         */
+        public void putContentHeaders(HttpFields fields) {
+            fields.put(contentLengthField);
+            if (contentTypeField != null) {
+                fields.put(contentTypeField);
+            }
+        }
+
+        /**
+         * Check the If-None-Match and If-Modified-Since headers of the request.
+         *
+         * @param requestFields The request headers.
+         * @param gzip          If true, the request is served by the gzip encoded response.
+         * @return If true, the client has the current version of the file.
+         */
+        public boolean isNotModified(HttpFields requestFields, boolean gzip) {
+            String ifNoneMatch = requestFields.get(HttpHeader.IF_NONE_MATCH);
+            if (ifNoneMatch != null) {
+                String etag = opaqueTag(gzip ? getGzipETag() : getETag());
+                for (String tag : ifNoneMatch.split(",")) {
+                    String t = tag.trim();
+                    if (t.equals("*") || opaqueTag(t).equals(etag)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            String ifModifiedSince = requestFields.get(HttpHeader.IF_MODIFIED_SINCE);
+            if (ifModifiedSince != null) {
+                long date = DateParser.parseDate(ifModifiedSince);
+                return date > 0 && lastModified / 1000 <= date / 1000;
+            }
+            return false;
+        }
+
+        private String opaqueTag(String tag) {
+            return tag.startsWith("W/") ? tag.substring(2) : tag;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.firefly.server.http2.router.handler.file;
 
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.server.http2.router.handler.compression.CompressionConfiguration;
+
 /**
  * @author Pengtao Qiu
  */
@@ -7,6 +10,16 @@ public class StaticFileConfiguration {
 
     private String rootPath;
     private int maxRangePart = 8;
+    private boolean precompressed = true;
+    private int compressedCacheSize = 256;
+    private long maxCompressedFileSize = 1024 * 1024;
+    private long maxCompressedCacheMemorySize = 8 * 1024 * 1024;
+    private CompressionConfiguration compressionConfiguration = new CompressionConfiguration();
+    private int fileCacheSize = 1024;
+    private long maxCachedFileSize = 64 * 1024;
+    private long maxFileCacheMemorySize = 32 * 1024 * 1024;
+    private long fileCacheCheckInterval = 1000L;
+    private MetricRegistry metricRegistry;
 
     public String getRootPath() {
         return rootPath;
@@ -23,4 +36,140 @@ public class StaticFileConfiguration {
     public void setMaxRangePart(int maxRangePart) {
         this.maxRangePart = maxRangePart;
     }
+
+    public boolean isPrecompressed() {
+        return precompressed;
+    }
+
+    /**
+     * If true, the handler sends the gzip variant (e.g. app.js.gz) of the file when it exists
+     * and the client accepts the gzip encoding.
+     *
+     * @param precompressed Serve the gzip variants of the files.
+     */
+    public void setPrecompressed(boolean precompressed) {
+        this.precompressed = precompressed;
+    }
+
+    public int getCompressedCacheSize() {
+        return compressedCacheSize;
+    }
+
+    /**
+     * Set the max number of the gzip compressed files in the LRU cache. If it is 0, the files are not compressed.
+     *
+     * @param compressedCacheSize The max number of the compressed files in the cache.
+     */
+    public void setCompressedCacheSize(int compressedCacheSize) {
+        this.compressedCacheSize = compressedCacheSize;
+    }
+
+    public long getMaxCompressedFileSize() {
+        return maxCompressedFileSize;
+    }
+
+    /**
+     * Set the max size of the file that is compressed and cached. The larger file is sent without compression.
+     *
+     * @param maxCompressedFileSize The max size of the compressed file.
+     */
+    public void setMaxCompressedFileSize(long maxCompressedFileSize) {
+        this.maxCompressedFileSize = maxCompressedFileSize;
+    }
+
+    public long getMaxCompressedCacheMemorySize() {
+        return maxCompressedCacheMemorySize;
+    }
+
+    /**
+     * Set the max total bytes of the compressed files in the LRU cache. When the cache reaches the limit,
+     * a new compressed file is sent without caching it.
+     *
+     * @param maxCompressedCacheMemorySize The max total bytes of the compressed files.
+     */
+    public void setMaxCompressedCacheMemorySize(long maxCompressedCacheMemorySize) {
+        this.maxCompressedCacheMemorySize = maxCompressedCacheMemorySize;
+    }
+
+    public CompressionConfiguration getCompressionConfiguration() {
+        return compressionConfiguration;
+    }
+
+    /**
+     * Set the min size and compressible MIME types of the files that are compressed.
+     *
+     * @param compressionConfiguration The compression configuration.
+     */
+    public void setCompressionConfiguration(CompressionConfiguration compressionConfiguration) {
+        this.compressionConfiguration = compressionConfiguration;
+    }
+
+    public int getFileCacheSize() {
+        return fileCacheSize;
+    }
+
+    /**
+     * Set the max number of the files in the LRU cache. The cache keeps the metadata and response headers
+     * of the files. If it is 0, the files are not cached.
+     *
+     * @param fileCacheSize The max number of the cached files.
+     */
+    public void setFileCacheSize(int fileCacheSize) {
+        this.fileCacheSize = fileCacheSize;
+    }
+
+    public long getMaxCachedFileSize() {
+        return maxCachedFileSize;
+    }
+
+    /**
+     * Set the max size of the file whose content is cached in the direct buffer.
+     *
+     * @param maxCachedFileSize The max size of the file content in the memory.
+     */
+    public void setMaxCachedFileSize(long maxCachedFileSize) {
+        this.maxCachedFileSize = maxCachedFileSize;
+    }
+
+    public long getMaxFileCacheMemorySize() {
+        return maxFileCacheMemorySize;
+    }
+
+    /**
+     * Set the max total bytes of the file contents in the cache. When the cached contents reach it,
+     * the cache keeps only the metadata of the new files until the LRU cache evicts the old files.
+     *
+     * @param maxFileCacheMemorySize The max total bytes of the file contents in the memory.
+     */
+    public void setMaxFileCacheMemorySize(long maxFileCacheMemorySize) {
+        this.maxFileCacheMemorySize = maxFileCacheMemorySize;
+    }
+
+    public long getFileCacheCheckInterval() {
+        return fileCacheCheckInterval;
+    }
+
+    /**
+     * Set the interval (milliseconds) of checking the last modified time and length of the cached file.
+     * The changed file is reloaded after the interval at the latest.
+     *
+     * @param fileCacheCheckInterval The check interval in milliseconds.
+     */
+    public void setFileCacheCheckInterval(long fileCacheCheckInterval) {
+        this.fileCacheCheckInterval = fileCacheCheckInterval;
+    }
+
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+
+    /**
+     * Set the metric registry that records the cache hits, misses and the bytes sent from the memory.
+     * If it is null, the handler uses the metric registry of the HTTP server builder that registers it.
+     *
+     * @param metricRegistry The metric registry.
+     */
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
 }
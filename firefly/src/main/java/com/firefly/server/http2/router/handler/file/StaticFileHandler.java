@@ -1,30 +1,76 @@
 package com.firefly.server.http2.router.handler.file;
 
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.codec.common.CompressionPool;
 import com.firefly.codec.http2.model.*;
 import com.firefly.net.buffer.FileRegion;
 import com.firefly.server.http2.router.Handler;
 import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.server.http2.router.handler.compression.ContentEncoding;
+import com.firefly.server.http2.router.handler.compression.ContentEncodingOutputStream;
 import com.firefly.server.http2.router.handler.error.AbstractErrorResponseHandler;
 import com.firefly.server.http2.router.handler.error.DefaultErrorResponseHandlerLoader;
+import com.firefly.server.http2.router.handler.file.StaticFileCache.CachedFile;
 import com.firefly.utils.StringUtils;
+import com.firefly.utils.collection.ConcurrentLinkedHashMap;
 import com.firefly.utils.concurrent.Callback;
 import com.firefly.utils.io.BufferUtils;
 import com.firefly.utils.io.IO;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * The handler sends the static files, it supports the range and conditional requests. The metadata, headers
+ * and small files are cached in the {@link StaticFileCache}. If the client accepts the gzip encoding,
+ * the handler sends the precompressed gzip variant of the file when it exists, or compresses the file
+ * and keeps the compressed copy in an LRU cache that is bounded by bytes. The gzip response has its own ETag.
+ *
  * @author Pengtao Qiu
  */
 public class StaticFileHandler implements Handler {
 
+    private static final List<String> GZIP_ENCODING = Collections.singletonList(ContentEncoding.GZIP.asString());
+
     private StaticFileConfiguration configuration;
     private AbstractErrorResponseHandler errorResponseHandler;
+    private final Map<String, CompressedFile> compressedFileCache;
+    private final AtomicLong compressedMemorySize = new AtomicLong();
+    private final StaticFileCache fileCache;
 
     public StaticFileHandler(StaticFileConfiguration configuration) {
         this.configuration = configuration;
         errorResponseHandler = DefaultErrorResponseHandlerLoader.getInstance().getHandler();
+        compressedFileCache = new ConcurrentLinkedHashMap<>(true, Math.max(configuration.getCompressedCacheSize(), 1),
+                new ConcurrentLinkedHashMap.MapEventListener<String, CompressedFile>() {
+                    @Override
+                    public boolean onEliminateEntry(String key, CompressedFile value) {
+                        release(value);
+                        return true;
+                    }
+
+                    @Override
+                    public CompressedFile onGetEntry(String key, CompressedFile value) {
+                        return value;
+                    }
+
+                    @Override
+                    public CompressedFile onPutEntry(String key, CompressedFile value, CompressedFile previousValue) {
+                        release(previousValue);
+                        return previousValue;
+                    }
+
+                    @Override
+                    public CompressedFile onRemoveEntry(String key, CompressedFile value) {
+                        release(value);
+                        return value;
+                    }
+                });
+        fileCache = new StaticFileCache(configuration);
     }
 
     public StaticFileHandler(String rootPath) {
@@ -33,16 +79,43 @@ public class StaticFileHandler implements Handler {
         errorResponseHandler = DefaultErrorResponseHandlerLoader.getInstance().getHandler();
     }
 
+    /**
+     * Register the file cache metrics in the metric registry of the server. The metric registry
+     * of the configuration takes precedence.
+     *
+     * @param metrics The metric registry of the server.
+     */
+    public void registerMetrics(MetricRegistry metrics) {
+        fileCache.registerMetrics(metrics);
+    }
+
     @Override
     public void handle(RoutingContext ctx) {
-        File file = new File(configuration.getRootPath(), ctx.getURI().getDecodedPath());
-        if (file.exists()) {
-            long contentLength = file.length();
-            String mimeType = MimeTypes.getDefaultMimeByExtension(file.getName());
+        CachedFile cachedFile = fileCache.get(ctx.getURI().getDecodedPath());
+        if (cachedFile != null) {
+            File file = cachedFile.getFile();
+            long contentLength = cachedFile.getLength();
+            String mimeType = cachedFile.getMimeType();
 
+            boolean encodable = isEncodable(cachedFile);
+            if (encodable && !ctx.getResponse().getFields().contains(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString())) {
+                ctx.getResponse().getFields().add(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString());
+            }
             List<String> reqRanges = ctx.getFields().getValuesList(HttpHeader.RANGE.asString());
-            if (reqRanges == null || reqRanges.isEmpty()) {
-                responseNoRange(ctx, file, contentLength, mimeType);
+            boolean noRange = reqRanges == null || reqRanges.isEmpty();
+            boolean gzip = encodable && noRange
+                    && ContentEncoding.negotiate(ctx.getFields().getQualityCSV(HttpHeader.ACCEPT_ENCODING), GZIP_ENCODING) != null;
+            cachedFile.putValidators(ctx.getResponse().getFields(), gzip);
+            if (cachedFile.isNotModified(ctx.getFields(), gzip)) {
+                ctx.setStatus(HttpStatus.NOT_MODIFIED_304);
+                ctx.end();
+                return;
+            }
+
+            if (noRange) {
+                if (!gzip || !responseCompressed(ctx, cachedFile)) {
+                    responseNoRange(ctx, cachedFile);
+                }
             } else {
                 // Parse the satisfiable ranges
                 List<InclusiveByteRange> ranges = InclusiveByteRange.satisfiableRanges(reqRanges, contentLength);
@@ -173,4 +246,120 @@ public class StaticFileHandler implements Handler {
         }
     }
 
+    protected void responseNoRange(RoutingContext ctx, CachedFile cachedFile) {
+        ByteBuffer content = cachedFile.getContent();
+        if (content == null) {
+            responseNoRange(ctx, cachedFile.getFile(), cachedFile.getLength(), cachedFile.getMimeType());
+        } else {
+            ctx.setStatus(HttpStatus.OK_200);
+            cachedFile.putContentHeaders(ctx.getResponse().getFields());
+            fileCache.markMemoryBytes(content.remaining());
+            ctx.getResponse().end(content);
+        }
+    }
+
+    protected boolean isEncodable(CachedFile cachedFile) {
+        long contentLength = cachedFile.getLength();
+        return cachedFile.hasGzipVariant()
+                || (configuration.getCompressedCacheSize() > 0
+                && contentLength >= configuration.getCompressionConfiguration().getMinSize()
+                && contentLength <= configuration.getMaxCompressedFileSize()
+                && configuration.getCompressionConfiguration().isCompressible(cachedFile.getMimeType()));
+    }
+
+    protected boolean responseCompressed(RoutingContext ctx, CachedFile cachedFile) {
+        File file = cachedFile.getFile();
+        long contentLength = cachedFile.getLength();
+        String mimeType = cachedFile.getMimeType();
+        if (cachedFile.hasGzipVariant()) {
+            ctx.put(HttpHeader.CONTENT_ENCODING, ContentEncoding.GZIP.asString());
+            responseNoRange(ctx, cachedFile.getGzipFile(), cachedFile.getGzipLength(), mimeType);
+            return true;
+        }
+
+        byte[] data;
+        try {
+            data = getCompressedFile(file, cachedFile.getLastModified(), contentLength);
+        } catch (IOException e) {
+            // send the identity response
+            cachedFile.putValidators(ctx.getResponse().getFields(), false);
+            return false;
+        }
+        ctx.setStatus(HttpStatus.OK_200);
+        ctx.put(HttpHeader.CONTENT_LENGTH, String.valueOf(data.length));
+        ctx.put(HttpHeader.CONTENT_ENCODING, ContentEncoding.GZIP.asString());
+        if (StringUtils.hasText(mimeType)) {
+            ctx.put(HttpHeader.CONTENT_TYPE, mimeType);
+        }
+        fileCache.markMemoryBytes(data.length);
+        ctx.end(data);
+        return true;
+    }
+
+    protected byte[] getCompressedFile(File file, long lastModified, long length) throws IOException {
+        String path = file.getAbsolutePath();
+        CompressedFile compressedFile = compressedFileCache.get(path);
+        if (compressedFile != null && compressedFile.lastModified == lastModified && compressedFile.length == length) {
+            return compressedFile.data;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) (length / 2) + 64);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file));
+             OutputStream gzip = new ContentEncodingOutputStream(out, ContentEncoding.GZIP, CompressionPool.getDefault())) {
+            IO.copy(in, gzip);
+        }
+        byte[] data = out.toByteArray();
+        if (reserve(data.length)) {
+            compressedFileCache.put(path, new CompressedFile(lastModified, length, data));
+        }
+        return data;
+    }
+
+    private boolean reserve(long length) {
+        long max = configuration.getMaxCompressedCacheMemorySize();
+        while (true) {
+            long size = compressedMemorySize.get();
+            if (size + length > max) {
+                return false;
+            }
+            if (compressedMemorySize.compareAndSet(size, size + length)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(CompressedFile compressedFile) {
+        if (compressedFile != null) {
+            compressedMemorySize.addAndGet(-compressedFile.data.length);
+        }
+    }
+
+    public int getCompressedFileCacheSize() {
+        return compressedFileCache.size();
+    }
+
+    /**
+     * Get the total bytes of the compressed files in the cache.
+     *
+     * @return The total bytes of the compressed files.
+     */
+    public long getCompressedMemorySize() {
+        return compressedMemorySize.get();
+    }
+
+    public StaticFileCache getFileCache() {
+        return fileCache;
+    }
+
+    private static class CompressedFile {
+        final long lastModified;
+        final long length;
+        final byte[] data;
+
+        CompressedFile(long lastModified, long length, byte[] data) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.data = data;
+        }
+    }
 }
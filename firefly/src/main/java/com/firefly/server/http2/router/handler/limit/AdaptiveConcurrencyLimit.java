@@ -0,0 +1,110 @@
+package com.firefly.server.http2.router.handler.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The concurrency limit that is adjusted by the AIMD algorithm using the observed latency. If the latency exceeds
+ * the min latency multiplied by the tolerance, the limit is decreased multiplicatively, otherwise the limit is increased
+ * by one when more than half of it is used. The limit is updated without locking, the concurrent updates may
+ * lose a sample of the min latency window.
+ *
+ * @author Pengtao Qiu
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final ConcurrencyLimitConfiguration configuration;
+    private final long latencyThreshold;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final AtomicLong minLatency = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicInteger samples = new AtomicInteger();
+
+    public AdaptiveConcurrencyLimit(ConcurrencyLimitConfiguration configuration) {
+        this.configuration = configuration;
+        this.latencyThreshold = TimeUnit.MILLISECONDS.toNanos(configuration.getLatencyThreshold());
+        this.limit = new AtomicInteger(clamp(configuration.getInitialLimit()));
+    }
+
+    /**
+     * Acquire a permit if the in-flight requests are less than the limit.
+     *
+     * @return If true, the request is admitted, and it must call the release method when it is completed.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release the permit and adjust the limit using the latency of the request.
+     *
+     * @param latency The latency of the request in nanoseconds.
+     */
+    public void release(long latency) {
+        int current = inflight.getAndDecrement();
+        update(latency, current);
+    }
+
+    /**
+     * Release the permit without adjusting the limit.
+     */
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    private void update(long latency, int current) {
+        long min;
+        if (samples.incrementAndGet() >= configuration.getMinLatencyWindow()) {
+            samples.set(0);
+            minLatency.set(latency);
+            min = latency;
+        } else {
+            min = minLatency.accumulateAndGet(latency, Math::min);
+        }
+
+        boolean backoff = latency > latencyThreshold && latency > min * configuration.getTolerance();
+        while (true) {
+            int currentLimit = limit.get();
+            int newLimit;
+            if (backoff) {
+                newLimit = clamp((int) (currentLimit * configuration.getBackoffRatio()));
+            } else if (current * 2 >= currentLimit) {
+                newLimit = clamp(currentLimit + 1);
+            } else {
+                return;
+            }
+            if (newLimit == currentLimit || limit.compareAndSet(currentLimit, newLimit)) {
+                return;
+            }
+        }
+    }
+
+    private int clamp(int value) {
+        return Math.max(configuration.getMinLimit(), Math.min(configuration.getMaxLimit(), value));
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public boolean isSaturated() {
+        return inflight.get() >= limit.get();
+    }
+
+    public ConcurrencyLimitConfiguration getConfiguration() {
+        return configuration;
+    }
+}
@@ -0,0 +1,126 @@
+package com.firefly.server.http2.router.handler.limit;
+
+import com.firefly.server.http2.router.Handler;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class ConcurrencyLimitConfiguration {
+
+    private int initialLimit = 64;
+    private int minLimit = 4;
+    private int maxLimit = 1024;
+    private double backoffRatio = 0.9;
+    private double tolerance = 2.0;
+    private long latencyThreshold = 5;
+    private int minLatencyWindow = 1000;
+    private Handler rejectHandler;
+    private int saturatedMaxConcurrentStreams = -1;
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * Set the ratio that the limit is multiplied by when the latency exceeds the tolerance.
+     *
+     * @param backoffRatio The backoff ratio, it is between 0 and 1.
+     */
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Set the tolerance of the latency. If the latency is greater than the min latency multiplied by the tolerance,
+     * the server is considered overloaded and the limit is decreased.
+     *
+     * @param tolerance The tolerance of the latency.
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public long getLatencyThreshold() {
+        return latencyThreshold;
+    }
+
+    /**
+     * Set the latency threshold in milliseconds. The latency that is less than it never decreases the limit,
+     * it avoids the noise of the very fast requests.
+     *
+     * @param latencyThreshold The latency threshold in milliseconds.
+     */
+    public void setLatencyThreshold(long latencyThreshold) {
+        this.latencyThreshold = latencyThreshold;
+    }
+
+    public int getMinLatencyWindow() {
+        return minLatencyWindow;
+    }
+
+    /**
+     * Set the sample number of the min latency window. The min latency is reset after this number of samples,
+     * so that the limit follows the change of the baseline latency.
+     *
+     * @param minLatencyWindow The sample number of the min latency window.
+     */
+    public void setMinLatencyWindow(int minLatencyWindow) {
+        this.minLatencyWindow = minLatencyWindow;
+    }
+
+    public Handler getRejectHandler() {
+        return rejectHandler;
+    }
+
+    /**
+     * Set the handler that responds the rejected requests. If it is null, the server responds 503.
+     *
+     * @param rejectHandler The reject handler.
+     */
+    public void setRejectHandler(Handler rejectHandler) {
+        this.rejectHandler = rejectHandler;
+    }
+
+    public int getSaturatedMaxConcurrentStreams() {
+        return saturatedMaxConcurrentStreams;
+    }
+
+    /**
+     * Set the max concurrent streams of the HTTP2 connections when the limit is reached. The server sends the
+     * SETTINGS frame to lower the max concurrent streams of the connection, and restores it when the in-flight requests
+     * fall below half of the limit. If it is negative, the max concurrent streams is not changed. The default value is -1.
+     *
+     * @param saturatedMaxConcurrentStreams The max concurrent streams when the server is saturated.
+     */
+    public void setSaturatedMaxConcurrentStreams(int saturatedMaxConcurrentStreams) {
+        this.saturatedMaxConcurrentStreams = saturatedMaxConcurrentStreams;
+    }
+}
@@ -0,0 +1,253 @@
+package com.firefly.server.http2.router.handler.limit;
+
+import com.firefly.codec.http2.frame.SettingsFrame;
+import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.codec.http2.stream.HTTP2Session;
+import com.firefly.codec.http2.stream.HTTPConnection;
+import com.firefly.server.http2.HTTP2ServerConnection;
+import com.firefly.server.http2.router.Handler;
+import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.server.http2.router.impl.RoutingContextImpl;
+import com.firefly.utils.concurrent.Callback;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The handler limits the concurrent requests using the {@link AdaptiveConcurrencyLimit}. The request must acquire
+ * the global limit and the limit of its route group, otherwise it is rejected with 503 or the reject handler
+ * of the configuration. The permits are released once, when the response is completed or the connection is closed.
+ * <p>
+ * The rejected request body is discarded. To reject the request before the body is received, register this handler
+ * with a router id less than the HTTP body handler's, e.g. router(-1).path("*").
+ *
+ * @author Pengtao Qiu
+ */
+public class ConcurrencyLimitHandler implements Handler {
+
+    private final ConcurrencyLimitConfiguration configuration;
+    private final AdaptiveConcurrencyLimit limit;
+    private final Map<String, AdaptiveConcurrencyLimit> groupLimits = new ConcurrentHashMap<>();
+    private final Map<HTTP2ServerConnection, Integer> throttledConnections = new ConcurrentHashMap<>();
+    private final Map<HTTPConnection, Set<Permit>> connectionPermits = new ConcurrentHashMap<>();
+    private final LongAdder rejectedCount = new LongAdder();
+    private Function<RoutingContext, String> routeGroup;
+    private ConcurrencyLimitConfiguration routeGroupConfiguration;
+
+    public ConcurrencyLimitHandler() {
+        this(new ConcurrencyLimitConfiguration());
+    }
+
+    public ConcurrencyLimitHandler(ConcurrencyLimitConfiguration configuration) {
+        this.configuration = configuration;
+        this.limit = new AdaptiveConcurrencyLimit(configuration);
+    }
+
+    /**
+     * Limit the concurrent requests of every route group besides the global limit.
+     *
+     * @param routeGroup    The function returns the route group of the request, the request is only limited by
+     *                      the global limit if the group is null.
+     * @param configuration The configuration of the route group limits.
+     * @return The handler.
+     */
+    public ConcurrencyLimitHandler routeGroup(Function<RoutingContext, String> routeGroup,
+                                              ConcurrencyLimitConfiguration configuration) {
+        this.routeGroup = routeGroup;
+        this.routeGroupConfiguration = configuration;
+        return this;
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        AdaptiveConcurrencyLimit groupLimit = getGroupLimit(ctx);
+        if (!limit.tryAcquire()) {
+            reject(ctx);
+            return;
+        }
+        if (groupLimit != null && !groupLimit.tryAcquire()) {
+            limit.release();
+            reject(ctx);
+            return;
+        }
+        if (limit.isSaturated()) {
+            throttle(ctx);
+        }
+
+        HTTPConnection connection = ctx.getRequest().getConnection();
+        Permit permit = new Permit(connection, groupLimit);
+        Set<Permit> permits = watch(connection);
+        permits.add(permit);
+        if (!connection.isOpen()) {
+            // the connection is closed before the permit is watched
+            permit.release(false);
+        }
+        ctx.getResponse().onComplete(response -> permit.release(true));
+        ctx.next();
+    }
+
+    /**
+     * Watch the connection, the permits of the connection are released and the throttled settings are removed
+     * when the connection is closed.
+     *
+     * @param connection The HTTP connection.
+     * @return The permits of the connection.
+     */
+    private Set<Permit> watch(HTTPConnection connection) {
+        Set<Permit> permits = connectionPermits.get(connection);
+        if (permits != null) {
+            return permits;
+        }
+        permits = ConcurrentHashMap.newKeySet();
+        Set<Permit> previous = connectionPermits.putIfAbsent(connection, permits);
+        if (previous != null) {
+            return previous;
+        }
+        connection.onClose(this::connectionClosed);
+        if (!connection.isOpen()) {
+            connectionClosed(connection);
+        }
+        return permits;
+    }
+
+    private void connectionClosed(HTTPConnection connection) {
+        throttledConnections.remove(connection);
+        Set<Permit> permits = connectionPermits.remove(connection);
+        if (permits != null) {
+            permits.forEach(permit -> permit.release(false));
+        }
+    }
+
+    private AdaptiveConcurrencyLimit getGroupLimit(RoutingContext ctx) {
+        if (routeGroup == null) {
+            return null;
+        }
+        String group = routeGroup.apply(ctx);
+        if (group == null) {
+            return null;
+        }
+        return groupLimits.computeIfAbsent(group, k -> new AdaptiveConcurrencyLimit(routeGroupConfiguration));
+    }
+
+    private void reject(RoutingContext ctx) {
+        rejectedCount.increment();
+        throttle(ctx);
+        ctx.content(buffer -> {
+        }); // discard the request body
+        Handler rejectHandler = configuration.getRejectHandler();
+        if (rejectHandler != null) {
+            rejectHandler.handle(ctx);
+        } else {
+            ctx.setStatus(HttpStatus.SERVICE_UNAVAILABLE_503).end();
+        }
+    }
+
+    private void throttle(RoutingContext ctx) {
+        int maxConcurrentStreams = configuration.getSaturatedMaxConcurrentStreams();
+        if (maxConcurrentStreams < 0) {
+            return;
+        }
+        HTTPConnection connection = ((RoutingContextImpl) ctx).getRequest().getConnection();
+        if (!(connection instanceof HTTP2ServerConnection) || throttledConnections.containsKey(connection)) {
+            return;
+        }
+        HTTP2ServerConnection http2Connection = (HTTP2ServerConnection) connection;
+        HTTP2Session session = (HTTP2Session) http2Connection.getHttp2Session();
+        watch(connection);
+        if (throttledConnections.putIfAbsent(http2Connection, session.getMaxRemoteStreams()) == null) {
+            setMaxConcurrentStreams(session, maxConcurrentStreams);
+            if (!connection.isOpen()) {
+                throttledConnections.remove(http2Connection);
+            }
+        }
+    }
+
+    private void restore() {
+        if (throttledConnections.isEmpty()) {
+            return;
+        }
+        throttledConnections.forEach((connection, maxConcurrentStreams) -> {
+            if (throttledConnections.remove(connection, maxConcurrentStreams) && connection.isOpen()) {
+                setMaxConcurrentStreams((HTTP2Session) connection.getHttp2Session(), maxConcurrentStreams);
+            }
+        });
+    }
+
+    private static void setMaxConcurrentStreams(HTTP2Session session, int maxConcurrentStreams) {
+        session.setMaxRemoteStreams(maxConcurrentStreams);
+        int value = maxConcurrentStreams < 0 ? Integer.MAX_VALUE : maxConcurrentStreams;
+        session.settings(new SettingsFrame(Collections.singletonMap(SettingsFrame.MAX_CONCURRENT_STREAMS, value), false),
+                Callback.NOOP);
+    }
+
+    public ConcurrencyLimitConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public AdaptiveConcurrencyLimit getLimit() {
+        return limit;
+    }
+
+    public AdaptiveConcurrencyLimit getGroupLimit(String group) {
+        return groupLimits.get(group);
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public int getThrottledConnectionCount() {
+        return throttledConnections.size();
+    }
+
+    public int getWatchedConnectionCount() {
+        return connectionPermits.size();
+    }
+
+    private class Permit {
+        private final HTTPConnection connection;
+        private final AdaptiveConcurrencyLimit groupLimit;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(HTTPConnection connection, AdaptiveConcurrencyLimit groupLimit) {
+            this.connection = connection;
+            this.groupLimit = groupLimit;
+        }
+
+        /**
+         * Release the permits at most once. The latency of the closed connection does not adjust the limits.
+         *
+         * @param completed If true, the response is completed, otherwise the connection is closed.
+         */
+        private void release(boolean completed) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            Set<Permit> permits = connectionPermits.get(connection);
+            if (permits != null) {
+                permits.remove(this);
+            }
+            if (completed) {
+                long latency = System.nanoTime() - start;
+                limit.release(latency);
+                if (groupLimit != null) {
+                    groupLimit.release(latency);
+                }
+            } else {
+                limit.release();
+                if (groupLimit != null) {
+                    groupLimit.release();
+                }
+            }
+            if (limit.getInflight() * 2 < limit.getLimit()) {
+                restore();
+            }
+        }
+    }
+}
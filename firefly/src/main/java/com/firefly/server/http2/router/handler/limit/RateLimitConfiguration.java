@@ -0,0 +1,108 @@
+package com.firefly.server.http2.router.handler.limit;
+
+import com.firefly.server.http2.router.Handler;
+import com.firefly.server.http2.router.RoutingContext;
+
+import java.util.function.Function;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class RateLimitConfiguration {
+
+    private int capacity = 100;
+    private double refillRate = 100;
+    private int stripes = 64;
+    private long sweepInterval = 10 * 1000;
+    private Function<RoutingContext, String> keyExtractor = RateLimitKeys.remoteAddress();
+    private Handler rejectHandler;
+    private boolean headersEnabled = true;
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Set the max tokens of a bucket, it is the max burst of a client.
+     *
+     * @param capacity The max tokens of a bucket.
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public double getRefillRate() {
+        return refillRate;
+    }
+
+    /**
+     * Set the tokens that are added to a bucket per second, it is the sustained rate of a client.
+     *
+     * @param refillRate The tokens per second.
+     */
+    public void setRefillRate(double refillRate) {
+        this.refillRate = refillRate;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public long getSweepInterval() {
+        return sweepInterval;
+    }
+
+    /**
+     * Set the interval in milliseconds that all stripes are swept once, the refilled buckets are removed.
+     *
+     * @param sweepInterval The sweep interval in milliseconds.
+     */
+    public void setSweepInterval(long sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+
+    public Function<RoutingContext, String> getKeyExtractor() {
+        return keyExtractor;
+    }
+
+    /**
+     * Set the function that extracts the bucket key of the request, see {@link RateLimitKeys}.
+     * The request is not limited if the key is null.
+     *
+     * @param keyExtractor The key extractor.
+     */
+    public void setKeyExtractor(Function<RoutingContext, String> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    public Handler getRejectHandler() {
+        return rejectHandler;
+    }
+
+    /**
+     * Set the handler that responds the rejected requests. If it is null, the server responds 429.
+     *
+     * @param rejectHandler The reject handler.
+     */
+    public void setRejectHandler(Handler rejectHandler) {
+        this.rejectHandler = rejectHandler;
+    }
+
+    public boolean isHeadersEnabled() {
+        return headersEnabled;
+    }
+
+    /**
+     * If true, the handler adds the RateLimit-Limit, RateLimit-Remaining and RateLimit-Reset headers.
+     * The default value is true.
+     *
+     * @param headersEnabled Enable the RateLimit headers.
+     */
+    public void setHeadersEnabled(boolean headersEnabled) {
+        this.headersEnabled = headersEnabled;
+    }
+}
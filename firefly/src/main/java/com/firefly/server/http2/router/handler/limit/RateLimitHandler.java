@@ -0,0 +1,99 @@
+package com.firefly.server.http2.router.handler.limit;
+
+import com.firefly.codec.http2.model.HttpFields;
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.server.http2.router.Handler;
+import com.firefly.server.http2.router.RoutingContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The handler limits the request rate of every client using the token buckets of the {@link TokenBucketStore}.
+ * The client is identified by the key extractor of the configuration, e.g. the remote address, API key header,
+ * cookie or path parameter. It adds the RateLimit-Limit, RateLimit-Remaining and RateLimit-Reset headers, and
+ * rejects the request with 429 and Retry-After or the reject handler of the configuration.
+ *
+ * @author Pengtao Qiu
+ */
+public class RateLimitHandler implements Handler {
+
+    public static final String RATELIMIT_LIMIT = "RateLimit-Limit";
+    public static final String RATELIMIT_REMAINING = "RateLimit-Remaining";
+    public static final String RATELIMIT_RESET = "RateLimit-Reset";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitConfiguration configuration;
+    private final TokenBucketStore tokenBucketStore;
+    private final String limitValue;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public RateLimitHandler() {
+        this(new RateLimitConfiguration());
+    }
+
+    public RateLimitHandler(RateLimitConfiguration configuration) {
+        this.configuration = configuration;
+        this.tokenBucketStore = new TokenBucketStore(configuration.getCapacity(), configuration.getRefillRate(),
+                configuration.getStripes(), configuration.getSweepInterval());
+        this.limitValue = String.valueOf(configuration.getCapacity());
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        String key = configuration.getKeyExtractor().apply(ctx);
+        if (key == null) {
+            ctx.next();
+            return;
+        }
+
+        if (!tokenBucketStore.isStarted()) {
+            // start the expired bucket sweeping when the handler receives the first request
+            tokenBucketStore.start();
+        }
+        TokenBucketStore.Result result = tokenBucketStore.tryAcquire(key);
+        if (configuration.isHeadersEnabled()) {
+            HttpFields fields = ctx.getResponse().getFields();
+            fields.put(RATELIMIT_LIMIT, limitValue);
+            fields.put(RATELIMIT_REMAINING, String.valueOf(result.getRemaining()));
+            fields.put(RATELIMIT_RESET, String.valueOf(toSeconds(result.getResetNanos())));
+        }
+        if (result.isAllowed()) {
+            ctx.next();
+        } else {
+            rejectedCount.increment();
+            ctx.put(HttpHeader.RETRY_AFTER, String.valueOf(toSeconds(result.getRetryAfterNanos())));
+            Handler rejectHandler = configuration.getRejectHandler();
+            if (rejectHandler != null) {
+                rejectHandler.handle(ctx);
+            } else {
+                ctx.setStatus(HttpStatus.TOO_MANY_REQUESTS_429).end();
+            }
+        }
+    }
+
+    private static long toSeconds(long nanos) {
+        return nanos <= 0 ? 0 : (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+    }
+
+    public RateLimitConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public TokenBucketStore getTokenBucketStore() {
+        return tokenBucketStore;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Stop the expired bucket sweeping. The sweeping starts again when the handler receives a request.
+     */
+    public void stop() {
+        tokenBucketStore.stop();
+    }
+}
@@ -0,0 +1,64 @@
+package com.firefly.server.http2.router.handler.limit;
+
+import com.firefly.codec.http2.model.Cookie;
+import com.firefly.server.http2.router.RoutingContext;
+
+import java.net.InetSocketAddress;
+import java.util.function.Function;
+
+/**
+ * The key extractors of the {@link RateLimitHandler}.
+ *
+ * @author Pengtao Qiu
+ */
+abstract public class RateLimitKeys {
+
+    /**
+     * Get the key from the remote IP address of the connection.
+     *
+     * @return The key extractor.
+     */
+    public static Function<RoutingContext, String> remoteAddress() {
+        return ctx -> {
+            InetSocketAddress address = ctx.getRequest().getConnection().getRemoteAddress();
+            if (address == null) {
+                return null;
+            }
+            return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+        };
+    }
+
+    /**
+     * Get the key from the request header, e.g. the API key.
+     *
+     * @param name The header name.
+     * @return The key extractor.
+     */
+    public static Function<RoutingContext, String> header(String name) {
+        return ctx -> ctx.getFields().get(name);
+    }
+
+    /**
+     * Get the key from the cookie.
+     *
+     * @param name The cookie name.
+     * @return The key extractor.
+     */
+    public static Function<RoutingContext, String> cookie(String name) {
+        return ctx -> ctx.getRequest().getCookies().stream()
+                         .filter(c -> c.getName().equals(name))
+                         .map(Cookie::getValue)
+                         .findFirst()
+                         .orElse(null);
+    }
+
+    /**
+     * Get the key from the path parameter of the router.
+     *
+     * @param name The path parameter name.
+     * @return The key extractor.
+     */
+    public static Function<RoutingContext, String> pathParameter(String name) {
+        return ctx -> ctx.getPathParameter(name);
+    }
+}
@@ -0,0 +1,205 @@
+package com.firefly.server.http2.router.handler.limit;
+
+import com.firefly.utils.lang.AbstractLifeCycle;
+import com.firefly.utils.time.HashTimeWheel;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The lock-free store of the token buckets. The bucket is a single atomic theoretical arrival time (GCRA),
+ * a permit is acquired by a compare-and-set, and no lock is held. The buckets are spread into the stripes
+ * by the hash of the key, the {@link HashTimeWheel} sweeps one stripe at a time and removes the buckets that have
+ * been refilled completely, because a full bucket is the same as an absent bucket. The sweeping starts when
+ * the store starts.
+ *
+ * @author Pengtao Qiu
+ */
+public class TokenBucketStore extends AbstractLifeCycle {
+
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final long sweepInterval;
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final int mask;
+    private HashTimeWheel timeWheel;
+    private int sweepIndex;
+
+    /**
+     * Create the token bucket store.
+     *
+     * @param capacity      The max tokens of a bucket.
+     * @param refillRate    The tokens that are added to a bucket per second.
+     * @param stripes       The stripe number, it is rounded up to a power of two.
+     * @param sweepInterval The interval of the expired bucket sweeping in milliseconds.
+     */
+    @SuppressWarnings("unchecked")
+    public TokenBucketStore(int capacity, double refillRate, int stripes, long sweepInterval) {
+        if (capacity <= 0 || refillRate <= 0) {
+            throw new IllegalArgumentException("the capacity and refill rate must be greater than 0");
+        }
+        this.emissionInterval = Math.max((long) (TimeUnit.SECONDS.toNanos(1) / refillRate), 1L);
+        this.burstTolerance = emissionInterval * capacity;
+        this.sweepInterval = sweepInterval;
+        int n = Integer.highestOneBit(Math.max(stripes, 1) - 1) << 1;
+        n = Math.max(n, 1);
+        this.stripes = new ConcurrentHashMap[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.mask = n - 1;
+    }
+
+    /**
+     * Try to take a token from the bucket of the key.
+     *
+     * @param key The bucket key.
+     * @return The result of the acquisition.
+     */
+    public Result tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    /**
+     * Try to take a token from the bucket of the key.
+     *
+     * @param key The bucket key.
+     * @param now The current time in nanoseconds, it is the value of System.nanoTime().
+     * @return The result of the acquisition.
+     */
+    public Result tryAcquire(String key, long now) {
+        ConcurrentHashMap<String, AtomicLong> stripe = stripe(key);
+        while (true) {
+            AtomicLong bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+            }
+            Result result = tryAcquire(bucket, now);
+            // the sweeper may remove the bucket before the token is taken, take the token from the mapped bucket again
+            if (!result.isAllowed() || stripe.get(key) == bucket) {
+                return result;
+            }
+        }
+    }
+
+    private Result tryAcquire(AtomicLong bucket, long now) {
+        while (true) {
+            long tat = bucket.get();
+            long newTat = (tat - now > 0 ? tat : now) + emissionInterval;
+            long waiting = newTat - now;
+            if (waiting > burstTolerance) {
+                return new Result(false, 0, tat - now, waiting - burstTolerance);
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return new Result(true, (burstTolerance - waiting) / emissionInterval, waiting, 0);
+            }
+        }
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> stripe(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * Remove the buckets that have been refilled completely.
+     *
+     * @param now The current time in nanoseconds, it is the value of System.nanoTime().
+     */
+    public void removeExpiredBuckets(long now) {
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            removeExpiredBuckets(stripe, now);
+        }
+    }
+
+    private static void removeExpiredBuckets(ConcurrentHashMap<String, AtomicLong> stripe, long now) {
+        for (String key : stripe.keySet()) {
+            // check the bucket again inside the compute, the bucket is not removed if a token is taken after the iteration
+            stripe.computeIfPresent(key, (k, bucket) -> bucket.get() - now <= 0 ? null : bucket);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private void sweep() {
+        if (!start) {
+            return;
+        }
+        removeExpiredBuckets(stripes[sweepIndex], System.nanoTime());
+        sweepIndex = (sweepIndex + 1) & mask;
+        timeWheel.add(Math.max(sweepInterval / stripes.length, 1), this::sweep);
+    }
+
+    @Override
+    protected void init() {
+        timeWheel = new HashTimeWheel();
+        timeWheel.setInterval(Math.min(Math.max(sweepInterval / stripes.length, 10), 1000));
+        timeWheel.start();
+        start = true;
+        timeWheel.add(Math.max(sweepInterval / stripes.length, 1), this::sweep);
+    }
+
+    @Override
+    protected void destroy() {
+        if (timeWheel != null) {
+            timeWheel.stop();
+        }
+        start = false;
+    }
+
+    public static class Result {
+        private final boolean allowed;
+        private final long remaining;
+        private final long resetNanos;
+        private final long retryAfterNanos;
+
+        public Result(boolean allowed, long remaining, long resetNanos, long retryAfterNanos) {
+            this.allowed = allowed;
+            this.remaining = remaining;
+            this.resetNanos = resetNanos;
+            this.retryAfterNanos = retryAfterNanos;
+        }
+
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        /**
+         * Get the tokens that remain in the bucket.
+         *
+         * @return The remaining tokens.
+         */
+        public long getRemaining() {
+            return remaining;
+        }
+
+        /**
+         * Get the time until the bucket is refilled completely.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getResetNanos() {
+            return resetNanos;
+        }
+
+        /**
+         * Get the time until a token is available, it is 0 if the request is allowed.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getRetryAfterNanos() {
+            return retryAfterNanos;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.firefly.server.http2.router.handler.metric;
+
+import com.codahale.metrics.*;
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.MimeTypes;
+import com.firefly.server.http2.router.Handler;
+import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.utils.StringUtils;
+import com.firefly.utils.json.Json;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The handler renders the metrics of the registry as JSON. The query parameter "prefix" selects the metrics
+ * whose names start with it, e.g. "/metrics?prefix=http2.router". The durations are in milliseconds.
+ *
+ * @author Pengtao Qiu
+ */
+public class MetricReportHandler implements Handler {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final MetricRegistry metricRegistry;
+
+    public MetricReportHandler(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        String prefix = ctx.getParameter("prefix");
+        MetricFilter filter = StringUtils.hasText(prefix) ? MetricFilter.startsWith(prefix) : MetricFilter.ALL;
+        ctx.put(HttpHeader.CONTENT_TYPE, MimeTypes.Type.APPLICATION_JSON_UTF_8.asString())
+           .end(Json.toJson(report(filter)));
+    }
+
+    /**
+     * Get the values of the metrics that match the filter.
+     *
+     * @param filter The metric filter.
+     * @return The metric values, the key is the metric name.
+     */
+    public Map<String, Map<String, Object>> report(MetricFilter filter) {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        metricRegistry.getGauges(filter).forEach((name, gauge) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("value", gauge.getValue());
+            report.put(name, values);
+        });
+        metricRegistry.getCounters(filter).forEach((name, counter) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", counter.getCount());
+            report.put(name, values);
+        });
+        metricRegistry.getMeters(filter).forEach((name, meter) -> report.put(name, meter(meter)));
+        metricRegistry.getHistograms(filter).forEach((name, histogram) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", histogram.getCount());
+            Snapshot s = histogram.getSnapshot();
+            values.put("min", s.getMin());
+            values.put("mean", s.getMean());
+            values.put("p50", s.getMedian());
+            values.put("p90", s.getValue(0.9));
+            values.put("p99", s.get99thPercentile());
+            values.put("p999", s.get999thPercentile());
+            values.put("max", s.getMax());
+            report.put(name, values);
+        });
+        metricRegistry.getTimers(filter).forEach((name, timer) -> {
+            Map<String, Object> values = meter(timer);
+            Snapshot s = timer.getSnapshot();
+            values.put("min", s.getMin() / NANOS_PER_MILLI);
+            values.put("mean", s.getMean() / NANOS_PER_MILLI);
+            values.put("p50", s.getMedian() / NANOS_PER_MILLI);
+            values.put("p90", s.getValue(0.9) / NANOS_PER_MILLI);
+            values.put("p99", s.get99thPercentile() / NANOS_PER_MILLI);
+            values.put("p999", s.get999thPercentile() / NANOS_PER_MILLI);
+            values.put("max", s.getMax() / NANOS_PER_MILLI);
+            report.put(name, values);
+        });
+        return report;
+    }
+
+    private Map<String, Object> meter(Metered metered) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", metered.getCount());
+        values.put("m1Rate", metered.getOneMinuteRate());
+        values.put("m5Rate", metered.getFiveMinuteRate());
+        values.put("meanRate", metered.getMeanRate());
+        return values;
+    }
+}
@@ -0,0 +1,220 @@
+package com.firefly.server.http2.router.handler.metric;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.firefly.server.http2.SimpleRequest;
+import com.firefly.server.http2.router.Handler;
+import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.server.http2.router.impl.RouterImpl;
+import com.github.rollingmetrics.histogram.HdrBuilder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The router metrics record the latency, in-flight requests and status codes of every router.
+ * <p>
+ * The metrics of the router are named "http2.router.{id}.{paths}.*". The "handler" timer records the time of
+ * the handler invocation, it includes the handlers that are called by the RoutingContext.next() synchronously.
+ * The request is attributed to the last router that handles it, the "latency" timer of this router records the time
+ * from the request is accepted to the response is completed, and the "inflight" counter and "status.Nxx" meters
+ * are updated in the same way. The timers are backed by the HdrHistogram that resets periodically.
+ *
+ * @author Pengtao Qiu
+ */
+public class RouterMetrics {
+
+    public static final String PREFIX = "http2.router";
+
+    private final MetricRegistry metricRegistry;
+    private final Map<Integer, RouterMetric> routerMetrics = new ConcurrentHashMap<>();
+    private final Timer latency;
+    private final Counter inflight;
+    private final Meter[] statusMeters;
+
+    public RouterMetrics(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+        latency = createTimer(MetricRegistry.name(PREFIX, "latency"));
+        inflight = metricRegistry.counter(MetricRegistry.name(PREFIX, "inflight"));
+        statusMeters = createStatusMeters(PREFIX);
+    }
+
+    /**
+     * Start to record the request. The recorder completes when the response is closed.
+     *
+     * @param request The request.
+     * @return The request recorder.
+     */
+    public RequestRecorder begin(SimpleRequest request) {
+        RequestRecorder recorder = new RequestRecorder(System.nanoTime());
+        inflight.inc();
+        request.getResponse().onComplete(response -> recorder.complete(response.getStatus()));
+        return recorder;
+    }
+
+    public RouterMetric getRouterMetric(RouterImpl router) {
+        RouterMetric metric = routerMetrics.get(router.getId());
+        if (metric != null) {
+            return metric;
+        }
+        return routerMetrics.computeIfAbsent(router.getId(), id -> new RouterMetric(router));
+    }
+
+    public Collection<RouterMetric> getRouterMetrics() {
+        return Collections.unmodifiableCollection(routerMetrics.values());
+    }
+
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+
+    public Timer getLatency() {
+        return latency;
+    }
+
+    public Counter getInflight() {
+        return inflight;
+    }
+
+    public Meter getStatusMeter(int status) {
+        return statusMeter(statusMeters, status);
+    }
+
+    private Timer createTimer(String name) {
+        Timer timer = new HdrBuilder().resetReservoirPeriodicallyByChunks(Duration.ofSeconds(60), 3)
+                                      .withSignificantDigits(2)
+                                      .buildTimer();
+        try {
+            return metricRegistry.register(name, timer);
+        } catch (IllegalArgumentException e) {
+            return metricRegistry.timer(name);
+        }
+    }
+
+    private Meter[] createStatusMeters(String prefix) {
+        Meter[] meters = new Meter[5];
+        for (int i = 0; i < meters.length; i++) {
+            meters[i] = metricRegistry.meter(MetricRegistry.name(prefix, "status", (i + 1) + "xx"));
+        }
+        return meters;
+    }
+
+    private static Meter statusMeter(Meter[] meters, int status) {
+        if (status == 0) { // the status is 0 if the handler does not set it, it means 200
+            status = 200;
+        }
+        int index = status / 100 - 1;
+        return index >= 0 && index < meters.length ? meters[index] : null;
+    }
+
+    public class RouterMetric {
+        private final int id;
+        private final String name;
+        private final Timer handler;
+        private final Timer latency;
+        private final Counter inflight;
+        private final Meter[] statusMeters;
+
+        RouterMetric(RouterImpl router) {
+            id = router.getId();
+            String paths = router.getUrlList().isEmpty() ? "*" : String.join(",", router.getUrlList());
+            name = MetricRegistry.name(PREFIX, String.valueOf(id), paths);
+            handler = createTimer(MetricRegistry.name(name, "handler"));
+            latency = createTimer(MetricRegistry.name(name, "latency"));
+            inflight = metricRegistry.counter(MetricRegistry.name(name, "inflight"));
+            statusMeters = createStatusMeters(name);
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Timer getHandler() {
+            return handler;
+        }
+
+        public Timer getLatency() {
+            return latency;
+        }
+
+        public Counter getInflight() {
+            return inflight;
+        }
+
+        public Meter getStatusMeter(int status) {
+            return statusMeter(statusMeters, status);
+        }
+    }
+
+    public class RequestRecorder {
+        private final long start;
+        private RouterMetric current;
+        private boolean completed;
+
+        RequestRecorder(long start) {
+            this.start = start;
+        }
+
+        /**
+         * Call the handler of the router and record the time of the invocation.
+         *
+         * @param router  The router.
+         * @param handler The handler of the router.
+         * @param ctx     The routing context.
+         */
+        public void handle(RouterImpl router, Handler handler, RoutingContext ctx) {
+            RouterMetric metric = getRouterMetric(router);
+            enter(metric);
+            long handlerStart = System.nanoTime();
+            try {
+                handler.handle(ctx);
+            } finally {
+                metric.handler.update(System.nanoTime() - handlerStart, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private synchronized void enter(RouterMetric metric) {
+            if (completed) {
+                return;
+            }
+            if (current != null) {
+                current.inflight.dec();
+            }
+            metric.inflight.inc();
+            current = metric;
+        }
+
+        private synchronized void complete(int status) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            long time = System.nanoTime() - start;
+            latency.update(time, TimeUnit.NANOSECONDS);
+            inflight.dec();
+            mark(statusMeters, status);
+            if (current != null) {
+                current.latency.update(time, TimeUnit.NANOSECONDS);
+                current.inflight.dec();
+                mark(current.statusMeters, status);
+            }
+        }
+
+        private void mark(Meter[] meters, int status) {
+            Meter meter = statusMeter(meters, status);
+            if (meter != null) {
+                meter.mark();
+            }
+        }
+    }
+}
@@ -190,6 +190,10 @@ public class RouterImpl implements Router {
         return handler;
     }
 
+    public List<String> getUrlList() {
+        return Collections.unmodifiableList(urlList);
+    }
+
     @Override
     public int compareTo(Router o) {
         return Integer.compare(id, o.getId());
@@ -5,7 +5,7 @@ import com.firefly.server.http2.SimpleRequest;
 import com.firefly.server.http2.router.Matcher;
 import com.firefly.server.http2.router.Router;
 import com.firefly.server.http2.router.RouterManager;
-import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.server.http2.router.handler.metric.RouterMetrics;
 import com.firefly.utils.CollectionUtils;
 
 import java.util.*;
@@ -26,6 +26,7 @@ public class RouterManagerImpl implements RouterManager {
     private final Matcher contentTypePreciseMatcher;
     private final Matcher contentTypePatternMatcher;
     private final Matcher acceptHeaderMatcher;
+    private volatile RouterMetrics routerMetrics;
 
     public RouterManagerImpl() {
         matcherMap = new HashMap<>();
@@ -78,6 +79,19 @@ public class RouterManagerImpl implements RouterManager {
         return contentTypePatternMatcher;
     }
 
+    public RouterMetrics getRouterMetrics() {
+        return routerMetrics;
+    }
+
+    /**
+     * Set the router metrics. The requests are not recorded if the router metrics is null, it is the default value.
+     *
+     * @param routerMetrics The router metrics.
+     */
+    public void setRouterMetrics(RouterMetrics routerMetrics) {
+        this.routerMetrics = routerMetrics;
+    }
+
     @Override
     public NavigableSet<RouterMatchResult> findRouter(String method, String path, String contentType, String accept) {
         Map<Router, Set<Matcher.MatchType>> routerMatchTypes = new HashMap<>();
@@ -130,7 +144,11 @@ public class RouterManagerImpl implements RouterManager {
                 request.getURI().getDecodedPath(),
                 request.getFields().get(HttpHeader.CONTENT_TYPE),
                 request.getFields().get(HttpHeader.ACCEPT));
-        RoutingContext routingContext = new RoutingContextImpl(request, routers);
+        RoutingContextImpl routingContext = new RoutingContextImpl(request, routers);
+        RouterMetrics metrics = routerMetrics;
+        if (metrics != null) {
+            routingContext.setRequestRecorder(metrics.begin(request));
+        }
         routingContext.next();
     }
 }
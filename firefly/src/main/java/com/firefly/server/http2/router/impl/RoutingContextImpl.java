@@ -6,8 +6,10 @@ import com.firefly.codec.oauth2.model.message.types.ResponseType;
 import com.firefly.server.http2.SimpleRequest;
 import com.firefly.server.http2.SimpleResponse;
 import com.firefly.server.http2.router.HTTPSession;
+import com.firefly.server.http2.router.Handler;
 import com.firefly.server.http2.router.RouterManager;
 import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.server.http2.router.handler.metric.RouterMetrics;
 import com.firefly.server.http2.router.handler.template.TemplateHandlerSPILoader;
 import com.firefly.server.http2.router.spi.HTTPBodyHandlerSPI;
 import com.firefly.server.http2.router.spi.HTTPSessionHandlerSPI;
@@ -49,6 +51,7 @@ public class RoutingContextImpl implements RoutingContext {
     private PasswordAccessTokenRequest passwordAccessTokenRequest;
     private ClientCredentialAccessTokenRequest clientCredentialAccessTokenRequest;
     private RefreshingTokenRequest refreshingTokenRequest;
+    private RouterMetrics.RequestRecorder requestRecorder;
 
     public RoutingContextImpl(SimpleRequest request, NavigableSet<RouterManager.RouterMatchResult> routers) {
         this.request = request;
@@ -127,14 +130,29 @@ public class RoutingContextImpl implements RoutingContext {
         return Optional.ofNullable(current)
                        .map(RouterManager.RouterMatchResult::getRouter)
                        .map(c -> (RouterImpl) c)
-                       .map(RouterImpl::getHandler)
-                       .map(handler -> {
-                           handler.handle(this);
+                       .map(router -> {
+                           Handler handler = router.getHandler();
+                           if (handler == null) {
+                               return false;
+                           }
+                           if (requestRecorder == null) {
+                               handler.handle(this);
+                           } else {
+                               requestRecorder.handle(router, handler, this);
+                           }
                            return true;
                        })
                        .orElse(false);
     }
 
+    public RouterMetrics.RequestRecorder getRequestRecorder() {
+        return requestRecorder;
+    }
+
+    public void setRequestRecorder(RouterMetrics.RequestRecorder requestRecorder) {
+        this.requestRecorder = requestRecorder;
+    }
+
     @Override
     public boolean hasNext() {
         return !routers.isEmpty();
@@ -223,6 +241,15 @@ public class RoutingContextImpl implements RoutingContext {
                        .orElse(null);
     }
 
+    @Override
+    public ByteBuffer[] getBodyBuffers() {
+        return Optional.ofNullable(httpBodyHandlerSPI)
+                       .map(HTTPBodyHandlerSPI::getBodyBuffers)
+                       .orElseGet(() -> request.getRequestBody().stream()
+                                               .map(ByteBuffer::asReadOnlyBuffer)
+                                               .toArray(ByteBuffer[]::new));
+    }
+
     @Override
     public BufferedReader getBufferedReader() {
         return Optional.ofNullable(httpBodyHandlerSPI)
@@ -273,6 +300,20 @@ public class RoutingContextImpl implements RoutingContext {
                        .orElseGet(request::getJsonArrayBody);
     }
 
+    @Override
+    public JsonObject getLazyJsonObjectBody() {
+        return Optional.ofNullable(httpBodyHandlerSPI)
+                       .map(HTTPBodyHandlerSPI::getLazyJsonObjectBody)
+                       .orElseGet(request::getLazyJsonObjectBody);
+    }
+
+    @Override
+    public JsonArray getLazyJsonArrayBody() {
+        return Optional.ofNullable(httpBodyHandlerSPI)
+                       .map(HTTPBodyHandlerSPI::getLazyJsonArrayBody)
+                       .orElseGet(request::getLazyJsonArrayBody);
+    }
+
     public void setHTTPBodyHandlerSPI(HTTPBodyHandlerSPI httpBodyHandlerSPI) {
         this.httpBodyHandlerSPI = httpBodyHandlerSPI;
     }
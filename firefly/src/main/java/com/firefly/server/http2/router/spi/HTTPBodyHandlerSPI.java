@@ -7,6 +7,7 @@ import com.firefly.utils.lang.GenericTypeReference;
 import javax.servlet.http.Part;
 import java.io.BufferedReader;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,8 @@ public interface HTTPBodyHandlerSPI {
 
     BufferedReader getBufferedReader();
 
+    ByteBuffer[] getBodyBuffers();
+
     String getStringBody(String charset);
 
     String getStringBody();
@@ -42,4 +45,18 @@ public interface HTTPBodyHandlerSPI {
 
     JsonArray getJsonArrayBody();
 
+    /**
+     * Parse the JSON object body lazily, the fields are parsed when they are accessed.
+     *
+     * @return The lazy JSON object.
+     */
+    JsonObject getLazyJsonObjectBody();
+
+    /**
+     * Parse the JSON array body lazily, the elements are parsed when they are accessed.
+     *
+     * @return The lazy JSON array.
+     */
+    JsonArray getLazyJsonArrayBody();
+
 }
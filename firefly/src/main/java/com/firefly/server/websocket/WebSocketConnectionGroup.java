@@ -0,0 +1,242 @@
+package com.firefly.server.websocket;
+
+import com.firefly.codec.websocket.encode.Generator;
+import com.firefly.codec.websocket.exception.OutboundOverflowException;
+import com.firefly.codec.websocket.frame.BinaryFrame;
+import com.firefly.codec.websocket.frame.DataFrame;
+import com.firefly.codec.websocket.frame.TextFrame;
+import com.firefly.codec.websocket.model.OutboundOverflowBehavior;
+import com.firefly.codec.websocket.stream.WebSocketConnection;
+import com.firefly.codec.websocket.stream.WebSocketPolicy;
+import com.firefly.codec.websocket.stream.impl.WebSocketConnectionImpl;
+import com.firefly.utils.concurrent.Callback;
+import com.firefly.utils.io.BufferUtils;
+import com.firefly.utils.io.IO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The group of the WebSocket connections that broadcasts the messages. The frame is generated once, and the generated
+ * buffer is shared by all connections that have no extensions. The connections that negotiate the extensions
+ * (e.g. permessage-deflate) send the message using their own extensions.
+ * <p>
+ * If the buffered bytes of a connection exceed the max buffered bytes, the connection is a slow consumer,
+ * the group skips it or closes it according to the {@link SlowConsumerPolicy}. Otherwise, the message is sent
+ * according to the outbound overflow behavior of the connection, e.g. it is suspended until the connection
+ * is writable, or it is skipped when the connection is not writable and the behavior is FAIL.
+ *
+ * @author Pengtao Qiu
+ */
+public class WebSocketConnectionGroup {
+
+    private static Logger log = LoggerFactory.getLogger("firefly-system");
+
+    public enum SlowConsumerPolicy {
+        SKIP, CLOSE
+    }
+
+    private final Set<WebSocketConnection> connections = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Generator generator = new Generator(WebSocketPolicy.newServerPolicy(), true, true);
+    private final AtomicLong skippedMessages = new AtomicLong();
+    private final AtomicLong closedConnections = new AtomicLong();
+    private volatile long maxBufferedBytes = 4 * 1024 * 1024;
+    private volatile SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.SKIP;
+    private final Callback skipCallback = new Callback() {
+        @Override
+        public void failed(Throwable x) {
+            if (x instanceof OutboundOverflowException) {
+                skippedMessages.incrementAndGet();
+            }
+        }
+    };
+
+    /**
+     * Add the connection to the group. The connection is removed automatically when it is closed.
+     *
+     * @param connection The WebSocket connection.
+     * @return The connection group.
+     */
+    public WebSocketConnectionGroup add(WebSocketConnection connection) {
+        if (connections.add(connection)) {
+            connection.onClose(connections::remove);
+        }
+        return this;
+    }
+
+    public boolean remove(WebSocketConnection connection) {
+        return connections.remove(connection);
+    }
+
+    public int size() {
+        return connections.size();
+    }
+
+    public Set<WebSocketConnection> getConnections() {
+        return Collections.unmodifiableSet(connections);
+    }
+
+    /**
+     * Broadcast the text message.
+     *
+     * @param text The text message.
+     * @return The number of the connections that the message is sent to.
+     */
+    public int broadcastText(String text) {
+        TextFrame frame = new TextFrame();
+        frame.setPayload(text);
+        return broadcast(frame);
+    }
+
+    /**
+     * Broadcast the binary message.
+     *
+     * @param data The binary message.
+     * @return The number of the connections that the message is sent to.
+     */
+    public int broadcastData(byte[] data) {
+        BinaryFrame frame = new BinaryFrame();
+        frame.setPayload(data);
+        return broadcast(frame);
+    }
+
+    /**
+     * Broadcast the binary message. The position of the buffer is not changed.
+     *
+     * @param data The binary message.
+     * @return The number of the connections that the message is sent to.
+     */
+    public int broadcastData(ByteBuffer data) {
+        BinaryFrame frame = new BinaryFrame();
+        frame.setPayload(data.slice());
+        return broadcast(frame);
+    }
+
+    /**
+     * Broadcast the data frame. The frame must not be changed after it is broadcast.
+     *
+     * @param frame The data frame.
+     * @return The number of the connections that the frame is sent to.
+     */
+    public int broadcast(DataFrame frame) {
+        ByteBuffer encodedFrame = null;
+        int count = 0;
+        for (WebSocketConnection connection : connections) {
+            if (!connection.isOpen()) {
+                connections.remove(connection);
+                continue;
+            }
+
+            if (connection.getOutboundBufferedBytes() > maxBufferedBytes) {
+                slowConsumer(connection);
+                continue;
+            }
+
+            if (connection instanceof WebSocketConnectionImpl) {
+                // the frame is sent according to the outbound overflow behavior of the connection
+                WebSocketConnectionImpl conn = (WebSocketConnectionImpl) connection;
+                if (!conn.isWritable() && conn.getPolicy().getOutboundOverflowBehavior() == OutboundOverflowBehavior.FAIL) {
+                    skippedMessages.incrementAndGet();
+                    continue;
+                }
+                if (conn.isEncodedFrameSupported()) {
+                    if (encodedFrame == null) {
+                        encodedFrame = encode(frame);
+                    }
+                    conn.sendEncodedDataFrame(encodedFrame, skipCallback);
+                } else {
+                    conn.sendDataFrame(copy(frame), skipCallback);
+                }
+                count++;
+                continue;
+            }
+
+            if (!connection.isWritable()) {
+                skippedMessages.incrementAndGet();
+                continue;
+            }
+            connection.outgoingFrame(copy(frame), Callback.NOOP);
+            count++;
+        }
+        return count;
+    }
+
+    private ByteBuffer encode(DataFrame frame) {
+        ByteBuffer buf = ByteBuffer.allocate(Generator.MAX_HEADER_LENGTH + frame.getPayloadLength());
+        generator.generateWholeFrame(frame, buf);
+        BufferUtils.flipToFlush(buf, 0);
+        return buf.asReadOnlyBuffer();
+    }
+
+    private DataFrame copy(DataFrame frame) {
+        // the extensions may change the frame, so every connection gets its own frame that shares the payload
+        DataFrame dataFrame = new DataFrame(frame);
+        if (frame.hasPayload()) {
+            dataFrame.setPayload(frame.getPayload().slice());
+        }
+        return dataFrame;
+    }
+
+    private void slowConsumer(WebSocketConnection connection) {
+        switch (slowConsumerPolicy) {
+            case CLOSE:
+                log.warn("The websocket connection {} is a slow consumer, the buffered bytes are {}. It will close.",
+                        connection.getSessionId(), connection.getOutboundBufferedBytes());
+                closedConnections.incrementAndGet();
+                connections.remove(connection);
+                IO.close(connection);
+                break;
+            default:
+                skippedMessages.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    log.debug("The websocket connection {} is a slow consumer, the buffered bytes are {}. Skip the message.",
+                            connection.getSessionId(), connection.getOutboundBufferedBytes());
+                }
+                break;
+        }
+    }
+
+    public long getMaxBufferedBytes() {
+        return maxBufferedBytes;
+    }
+
+    /**
+     * Set the max bytes that a connection can buffer. The message is not sent to the connection that exceeds it.
+     *
+     * @param maxBufferedBytes The max buffered bytes of a connection.
+     */
+    public void setMaxBufferedBytes(long maxBufferedBytes) {
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    public SlowConsumerPolicy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    /**
+     * Get the number of the messages that are not sent to the slow consumers.
+     *
+     * @return The number of the skipped messages.
+     */
+    public long getSkippedMessages() {
+        return skippedMessages.get();
+    }
+
+    /**
+     * Get the number of the slow consumers that are closed.
+     *
+     * @return The number of the closed connections.
+     */
+    public long getClosedConnections() {
+        return closedConnections.get();
+    }
+}
@@ -954,6 +954,42 @@ public class HttpParserTest {
     }
 
 
+    @Test
+    public void testDirectBufferParse() throws Exception {
+        ByteBuffer b0 = BufferUtils.toBuffer(
+                "POST /chunk?a=1&b=2 HTTP/1.1\r\n"
+                        + "Host: localhost\r\n"
+                        + "Transfer-Encoding: chunked\r\n"
+                        + "\r\n"
+                        + "a;\r\n"
+                        + "0123456789\r\n"
+                        + "1a\r\n"
+                        + "ABCDEFGHIJKLMNOPQRSTUVWXYZ\r\n"
+                        + "0\r\n"
+                        + "\r\n");
+        ByteBuffer buffer = BufferUtils.allocateDirect(b0.capacity());
+        int pos = BufferUtils.flipToFill(buffer);
+        BufferUtils.put(b0, buffer);
+        BufferUtils.flipToFlush(buffer, pos);
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parseAll(parser, buffer);
+
+        Assert.assertEquals("POST", _methodOrVersion);
+        Assert.assertEquals("/chunk?a=1&b=2", _uriOrStatus);
+        Assert.assertEquals("HTTP/1.1", _versionOrReason);
+        Assert.assertEquals("Host", _hdr[0]);
+        Assert.assertEquals("localhost", _val[0]);
+        Assert.assertEquals("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ", _content);
+        Assert.assertTrue(_headerCompleted);
+        Assert.assertTrue(_messageCompleted);
+
+        ByteBuffer version = BufferUtils.allocateDirect(128);
+        BufferUtils.append(version, BufferUtils.toBuffer("HTTP/1.1 200 OK"));
+        Assert.assertEquals(HttpVersion.HTTP_1_1, HttpVersion.lookAheadGet(version));
+    }
+
     @Test
     public void testBadChunkParse() throws Exception {
         ByteBuffer buffer = BufferUtils.toBuffer(
@@ -70,6 +70,29 @@ public class HpackDecoderTest {
         assertFalse(iterator.hasNext());
     }
 
+    @Test
+    public void testDecodeDirectBuffer() throws Exception {
+        HpackDecoder decoder = new HpackDecoder(4096, 8192);
+
+        // the literal host name
+        MetaData.Request request = (MetaData.Request) decoder.decode(directBuffer("828684410f7777772e6578616d706c652e636f6d"));
+        assertEquals("GET", request.getMethod());
+        assertEquals("www.example.com", request.getURI().getHost());
+
+        // the huffman encoded host name
+        decoder = new HpackDecoder(4096, 8192);
+        request = (MetaData.Request) decoder.decode(directBuffer("828684418cf1e3c2e5f23a6ba0ab90f4ff"));
+        assertEquals("GET", request.getMethod());
+        assertEquals("www.example.com", request.getURI().getHost());
+    }
+
+    private static ByteBuffer directBuffer(String hex) {
+        byte[] bytes = TypeUtils.fromHexString(hex);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+
     @Test
     public void testDecodeD_4() throws Exception {
         HpackDecoder decoder = new HpackDecoder(4096, 8192);
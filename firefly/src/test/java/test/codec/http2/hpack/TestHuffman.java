@@ -31,6 +31,20 @@ public class TestHuffman {
         }
     }
 
+    @Test
+    public void testDecodeDirectBuffer() throws Exception {
+        for (String[] test : tests) {
+            byte[] encoded = TypeUtils.fromHexString(test[1]);
+            ByteBuffer buf = BufferUtils.allocateDirect(encoded.length);
+            int pos = BufferUtils.flipToFill(buf);
+            buf.put(encoded);
+            BufferUtils.flipToFlush(buf, pos);
+            String decoded = Huffman.decode(buf);
+            Assert.assertEquals(test[0], test[2], decoded);
+            Assert.assertFalse(buf.hasRemaining());
+        }
+    }
+
     @Test
     public void testEncode() throws Exception {
         for (String[] test : tests) {
@@ -10,7 +10,10 @@ import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.Part;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.*;
@@ -744,6 +747,55 @@ public class MultiPartFormInputStreamTest {
     }
 
 
+    @Test
+    public void testIncrementalParse() throws Exception {
+        MultipartConfigElement config = new MultipartConfigElement(_dirname, 1024, 3072, 50);
+        MultiPartFormInputStream mpis = new MultiPartFormInputStream(_contentType, config, _tmpDir);
+        mpis.setDeleteOnExit(true);
+        List<String> completedParts = new ArrayList<>();
+        mpis.setPartListener(part -> completedParts.add(part.getName()));
+
+        byte[] bytes = createMultipartRequestString(FILENAME).getBytes();
+        for (int i = 0; i < bytes.length; i += 7) {
+            // the direct buffer is copied, the position of the buffer is not changed
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.min(7, bytes.length - i));
+            buffer.put(bytes, i, buffer.remaining()).flip();
+            assertFalse(mpis.parse(buffer));
+            assertThat(buffer.position(), is(0));
+        }
+        assertThat(completedParts, contains("field1", "stuff"));
+        mpis.parseComplete();
+
+        Collection<Part> parts = mpis.getParts();
+        assertThat(parts.size(), is(2));
+        try (InputStream is = mpis.getPart("field1").getInputStream()) {
+            assertThat(IO.toString(is), is("Joe Blow"));
+        }
+        MultiPartFormInputStream.MultiPart stuff = (MultiPartFormInputStream.MultiPart) mpis.getPart("stuff");
+        assertThat(stuff.getSubmittedFileName(), is(FILENAME));
+        assertThat(stuff.getSize(), is(51L));
+        assertThat(stuff.getFile(), notNullValue()); // longer than 50 bytes, it is written to the tmp file as it arrives
+        stuff.cleanUp();
+    }
+
+    @Test
+    public void testIncrementalParseExceedsMaxRequestSize() throws Exception {
+        MultipartConfigElement config = new MultipartConfigElement(_dirname, 60, 100, 50);
+        MultiPartFormInputStream mpis = new MultiPartFormInputStream(_contentType, config, _tmpDir);
+        mpis.setDeleteOnExit(true);
+        byte[] bytes = createMultipartRequestString(FILENAME).getBytes();
+        assertFalse(mpis.parse(ByteBuffer.wrap(bytes, 0, 50)));
+        assertTrue(mpis.parse(ByteBuffer.wrap(bytes, 50, 60)));
+        assertTrue(mpis.parse(ByteBuffer.wrap(bytes, 110, bytes.length - 110)));
+        mpis.parseComplete();
+        try {
+            mpis.getParts();
+            fail("Request should have exceeded maxRequestSize");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("Request exceeds maxRequestSize"));
+        }
+    }
+
     private void testMulti(String filename) throws IOException {
         MultipartConfigElement config = new MultipartConfigElement(_dirname, 1024, 3072, 50);
         MultiPartFormInputStream mpis = new MultiPartFormInputStream(new ByteArrayInputStream(createMultipartRequestString(filename).getBytes()),
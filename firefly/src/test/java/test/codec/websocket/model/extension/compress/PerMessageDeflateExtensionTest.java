@@ -1,11 +1,15 @@
 package test.codec.websocket.model.extension.compress;
 
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.codec.common.CompressionPool;
 import com.firefly.codec.websocket.frame.*;
 import com.firefly.codec.websocket.model.ExtensionConfig;
+import com.firefly.codec.websocket.model.IncomingFrames;
 import com.firefly.codec.websocket.model.OpCode;
 import com.firefly.codec.websocket.model.extension.compress.CompressExtension;
 import com.firefly.codec.websocket.model.extension.compress.PerMessageDeflateExtension;
 import com.firefly.codec.websocket.stream.WebSocketPolicy;
+import com.firefly.utils.concurrent.Callback;
 import com.firefly.utils.io.BufferUtils;
 import com.firefly.utils.lang.TypeUtils;
 import org.junit.Assert;
@@ -18,8 +22,10 @@ import test.codec.websocket.model.extension.ExtensionTool.Tester;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.Matchers.is;
@@ -382,4 +388,105 @@ public class PerMessageDeflateExtensionTest extends AbstractExtensionTest {
 
         tester.assertHasFrames("tora", "tora", "tora");
     }
+
+    @Test
+    public void testPooledDeflaterAndInflater() {
+        String extension = "permessage-deflate; client_no_context_takeover; server_no_context_takeover";
+        CompressionPool pool = new CompressionPool(2);
+        MetricRegistry metrics = new MetricRegistry();
+
+        PerMessageDeflateExtension serverExtension = new PerMessageDeflateExtension();
+        serverExtension.setConfig(ExtensionConfig.parse(extension));
+        serverExtension.setPolicy(WebSocketPolicy.newServerPolicy());
+        serverExtension.setCompressionPool(pool);
+        serverExtension.setMetrics(metrics, "websocket.test");
+
+        PerMessageDeflateExtension clientExtension = new PerMessageDeflateExtension();
+        clientExtension.setPolicy(WebSocketPolicy.newClientPolicy());
+        clientExtension.getPolicy().setMaxBinaryMessageSize(64 * 1024);
+        clientExtension.getPolicy().setMaxBinaryMessageBufferSize(64 * 1024);
+        clientExtension.setConfig(ExtensionConfig.parse(extension));
+        clientExtension.setCompressionPool(pool);
+
+        Assert.assertTrue(serverExtension.isPooledDeflater());
+        Assert.assertTrue(serverExtension.isPooledInflater());
+        Assert.assertTrue(clientExtension.isPooledDeflater());
+        Assert.assertTrue(clientExtension.isPooledInflater());
+
+        serverExtension.setNextOutgoingFrames((frame, callback) -> {
+            clientExtension.incomingFrame(frame);
+            callback.succeeded();
+        });
+        List<byte[]> result = new ArrayList<>();
+        clientExtension.setNextIncomingFrames(new IncomingFrames() {
+            @Override
+            public void incomingError(Throwable t) {
+            }
+
+            @Override
+            public void incomingFrame(Frame frame) {
+                result.add(BufferUtils.toArray(frame.getPayload()));
+            }
+        });
+
+        byte[] data = new byte[20 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + i % 7);
+        }
+        for (int i = 0; i < 3; i++) {
+            // the direct buffer is supplied to the deflater in chunks
+            ByteBuffer payload = ByteBuffer.allocateDirect(data.length);
+            payload.put(data).flip();
+            serverExtension.outgoingFrame(new BinaryFrame().setPayload(payload), null);
+        }
+
+        assertThat(result.size(), is(3));
+        result.forEach(r -> Assert.assertTrue(Arrays.equals(data, r)));
+        // the deflater and inflater are returned to the pool after every message
+        assertThat(pool.getIdleDeflaters(), is(1));
+        assertThat(pool.getIdleInflaters(), is(1));
+        assertThat(metrics.histogram("websocket.test.permessage-deflate.compressionRatio").getCount(), is(3L));
+        Assert.assertTrue(metrics.histogram("websocket.test.permessage-deflate.compressionRatio").getSnapshot().getMax() < 10);
+        assertThat(metrics.timer("websocket.test.permessage-deflate.compressionTime").getCount(), is(3L));
+    }
+
+    @Test
+    public void testStopWhileFlushing() {
+        String extension = "permessage-deflate; client_no_context_takeover; server_no_context_takeover";
+        CompressionPool pool = new CompressionPool(2);
+
+        PerMessageDeflateExtension serverExtension = new PerMessageDeflateExtension();
+        serverExtension.setConfig(ExtensionConfig.parse(extension));
+        serverExtension.setPolicy(WebSocketPolicy.newServerPolicy());
+        serverExtension.setCompressionPool(pool);
+
+        List<Callback> pendingWrites = new ArrayList<>();
+        serverExtension.setNextOutgoingFrames((frame, callback) -> pendingWrites.add(callback));
+
+        List<Throwable> failures = new ArrayList<>();
+        Callback callback = new Callback() {
+            @Override
+            public void failed(Throwable x) {
+                failures.add(x);
+            }
+        };
+        // the message is not finished, so the flusher holds the deflater until the frame is written
+        serverExtension.outgoingFrame(new TextFrame().setPayload("hello").setFin(false), callback);
+        serverExtension.outgoingFrame(new ContinuationFrame().setPayload("world").setFin(true), callback);
+        assertThat(pendingWrites.size(), is(1));
+
+        serverExtension.stop();
+        assertThat(pool.getIdleDeflaters(), is(0));
+
+        // the deflater is released by the flusher after the current frame is written
+        pendingWrites.get(0).succeeded();
+        assertThat(pendingWrites.size(), is(1));
+        assertThat(pool.getIdleDeflaters(), is(1));
+        assertThat(failures.size(), is(1));
+        Assert.assertTrue(failures.get(0) instanceof ClosedChannelException);
+
+        serverExtension.outgoingFrame(new TextFrame().setPayload("closed"), callback);
+        assertThat(failures.size(), is(2));
+        assertThat(pool.getIdleDeflaters(), is(1));
+    }
 }
@@ -0,0 +1,97 @@
+package test.http.router.handler;
+
+import com.firefly.$;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleHTTPClientConfiguration;
+import com.firefly.client.http2.SimpleResponse;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.HandlerExecutorMode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestConnectionAffinity extends AbstractHTTPHandlerTest {
+
+    @Test
+    public void test() throws Exception {
+        Map<Integer, Set<String>> connectionThreads = new ConcurrentHashMap<>();
+        HTTP2ServerBuilder s = $.httpServer();
+        s.getServer().getConfiguration().setHandlerExecutorMode(HandlerExecutorMode.CONNECTION_AFFINITY);
+        s.getServer().getConfiguration().getTcpConfiguration().setAffinityPoolSize(2);
+        SimpleHTTPClientConfiguration clientConfiguration = new SimpleHTTPClientConfiguration();
+        clientConfiguration.setPoolSize(4);
+        SimpleHTTPClient c = $.createHTTPClient(clientConfiguration);
+        s.router().get("/affinity").asyncHandler(ctx -> {
+            String threadName = Thread.currentThread().getName();
+            connectionThreads.computeIfAbsent(ctx.getConnectionId(), k -> ConcurrentHashMap.newKeySet()).add(threadName);
+            ctx.end(threadName);
+        }).listen(host, port);
+
+        List<SimpleResponse> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            responses.add(c.get(uri + "/affinity").submit().get(2, TimeUnit.SECONDS));
+        }
+        for (SimpleResponse response : responses) {
+            Assert.assertThat(response.getStringBody(), startsWith("firefly-aio-tcp-server-affinity-"));
+        }
+        // the handlers of a connection always run on the same worker
+        connectionThreads.values().forEach(threads -> Assert.assertThat(threads.size(), is(1)));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testDefaultPoolSize() throws Exception {
+        HTTP2ServerBuilder s = $.httpServer();
+        s.getServer().getConfiguration().setHandlerExecutorMode(HandlerExecutorMode.CONNECTION_AFFINITY);
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().get("/affinity").asyncHandler(ctx -> ctx.end(Thread.currentThread().getName())).listen(host, port);
+
+        SimpleResponse response = c.get(uri + "/affinity").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(response.getStringBody(), startsWith("firefly-aio-tcp-server-affinity-"));
+        // the default pool size does not change the configuration of the caller
+        Assert.assertThat(s.getServer().getConfiguration().getTcpConfiguration().getAffinityPoolSize(), is(0));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testOrderedExecutor() throws Exception {
+        int tasks = 100;
+        List<Integer> executed = new CopyOnWriteArrayList<>();
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().get("/ordered").handler(ctx -> {
+            ctx.getResponse().setAsynchronous(true);
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                ctx.getConnectionExecutor().execute(() -> executed.add(index));
+            }
+            ctx.getConnectionExecutor().execute(() -> ctx.end("size: " + executed.size()));
+        }).listen(host, port);
+
+        SimpleResponse response = c.get(uri + "/ordered").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(response.getStringBody(), is("size: " + tasks));
+        for (int i = 0; i < tasks; i++) {
+            Assert.assertThat(executed.get(i), is(i));
+        }
+
+        s.stop();
+        c.stop();
+    }
+}
@@ -0,0 +1,111 @@
+package test.http.router.handler;
+
+import com.codahale.metrics.MetricRegistry;
+import com.firefly.$;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleResponse;
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.server.http2.DrainProgress;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestGracefulShutdown extends AbstractHTTPHandlerTest {
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private void testDrain(HTTP2ServerBuilder s, SimpleHTTPClient c, boolean http2) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch slow = new CountDownLatch(1);
+        List<DrainProgress> progress = new CopyOnWriteArrayList<>();
+        s.getServer().getConfiguration().setDrainTimeout(5000);
+        s.getServer().drainProgress(progress::add);
+        s.router().get("/slow").asyncHandler(ctx -> {
+            started.countDown();
+            await(slow);
+            ctx.end("slow");
+        }).listen(host, port);
+        MetricRegistry metrics = s.getServer().getConfiguration().getTcpConfiguration()
+                                  .getMetricReporterFactory().getMetricRegistry();
+        Assert.assertTrue(metrics.getGauges().containsKey("http2.HTTP2Server.inflight"));
+
+        CompletableFuture<SimpleResponse> slowResp = c.get(uri + "/slow").submit();
+        await(started);
+        CompletableFuture<Void> stop = CompletableFuture.runAsync(s::stop);
+        for (int i = 0; i < 100 && progress.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertThat(progress.get(0).getState(), is(DrainProgress.State.STARTED));
+        Assert.assertThat(progress.get(0).getInflightRequests(), is(1));
+        Assert.assertFalse(stop.isDone());
+
+        slow.countDown();
+        SimpleResponse resp = slowResp.get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+        Assert.assertThat(resp.getStringBody(), is("slow"));
+        if (!http2) {
+            Assert.assertThat(resp.getFields().get(HttpHeader.CONNECTION), is("close"));
+        }
+
+        stop.get(2, TimeUnit.SECONDS);
+        DrainProgress last = progress.get(progress.size() - 1);
+        Assert.assertThat(last.getState(), is(DrainProgress.State.COMPLETED));
+        Assert.assertThat(last.getInflightRequests(), is(0));
+        // the gauges of the stopped server are removed
+        Assert.assertFalse(metrics.getGauges().containsKey("http2.HTTP2Server.connections"));
+        Assert.assertFalse(metrics.getGauges().containsKey("http2.HTTP2Server.inflight"));
+        c.stop();
+    }
+
+    @Test
+    public void testHTTP1() throws Exception {
+        testDrain($.httpServer(), $.createHTTPClient(), false);
+    }
+
+    @Test
+    public void testHTTP2() throws Exception {
+        testDrain($.plaintextHTTP2Server(), $.createPlaintextHTTP2Client(), true);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch slow = new CountDownLatch(1);
+        List<DrainProgress> progress = new CopyOnWriteArrayList<>();
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.getServer().getConfiguration().setDrainTimeout(200);
+        s.getServer().drainProgress(progress::add);
+        s.router().get("/slow").asyncHandler(ctx -> {
+            started.countDown();
+            await(slow);
+            ctx.end("slow");
+        }).listen(host, port);
+
+        c.get(uri + "/slow").submit();
+        await(started);
+        long start = System.currentTimeMillis();
+        s.stop();
+        Assert.assertTrue(System.currentTimeMillis() - start >= 200);
+        Assert.assertThat(progress.get(progress.size() - 1).getState(), is(DrainProgress.State.TIMEOUT));
+        slow.countDown();
+        c.stop();
+    }
+}
@@ -0,0 +1,219 @@
+package test.http.router.handler;
+
+import com.firefly.$;
+import com.firefly.net.tcp.SimpleTcpClient;
+import com.firefly.net.tcp.TcpConnection;
+import com.firefly.server.http2.HTTP1ServerConnection;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestHTTP1Pipelining extends AbstractHTTPHandlerTest {
+
+    private static final Pattern responseBody = Pattern.compile("\\[r(\\d+)]");
+
+    private List<Integer> pipeline(int requests) throws Exception {
+        return bodies(send(requests, requests, -1));
+    }
+
+    /**
+     * Send the pipelined requests and receive the responses until the connection is closed
+     * or the expected responses are received.
+     */
+    private String send(int requests, int expected, int closeRequest) throws Exception {
+        SimpleTcpClient client = $.createTCPClient();
+        StringBuffer received = new StringBuffer();
+        AtomicBoolean closed = new AtomicBoolean();
+        TcpConnection connection = client.connect(host, port).get(5, TimeUnit.SECONDS);
+        connection.receive(buf -> received.append(StandardCharsets.UTF_8.decode(buf)))
+                  .onClose(() -> closed.set(true));
+
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < requests; i++) {
+            data.append("GET /pipeline?i=").append(i).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(host).append(":").append(port).append("\r\n");
+            if (i == closeRequest) {
+                data.append("Connection: close\r\n");
+            }
+            data.append("\r\n");
+        }
+        connection.write(data.toString());
+
+        for (int i = 0; i < 500 && !closed.get() && bodies(received).size() < expected; i++) {
+            Thread.sleep(10);
+        }
+        connection.close();
+        client.stop();
+        return received.toString();
+    }
+
+    private static List<Integer> bodies(CharSequence received) {
+        List<Integer> bodies = new ArrayList<>();
+        Matcher matcher = responseBody.matcher(received);
+        while (matcher.find()) {
+            bodies.add(Integer.parseInt(matcher.group(1)));
+        }
+        return bodies;
+    }
+
+    private static int count(String text, String str) {
+        int count = 0;
+        for (int i = text.indexOf(str); i >= 0; i = text.indexOf(str, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testResponseOrder() throws Exception {
+        int requests = 8;
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger bufferedResponses = new AtomicInteger();
+        HTTP2ServerBuilder s = $.httpServer();
+        s.router().get("/pipeline").handler(ctx -> {
+            ctx.getResponse().setAsynchronous(true);
+            int i = Integer.parseInt(ctx.getParameter("i"));
+            HTTP1ServerConnection connection = (HTTP1ServerConnection) ctx.getRequest().getConnection();
+            // the later request completes earlier
+            scheduler.schedule(() -> {
+                bufferedResponses.accumulateAndGet(connection.getBufferedResponses(), Math::max);
+                ctx.end("[r" + i + "]");
+            }, (requests - i) * 20, TimeUnit.MILLISECONDS);
+        }).listen(host, port);
+
+        List<Integer> bodies = pipeline(requests);
+        Assert.assertThat(bodies.size(), is(requests));
+        for (int i = 0; i < requests; i++) {
+            Assert.assertThat(bodies.get(i), is(i));
+        }
+        Assert.assertThat(bufferedResponses.get(), greaterThan(0));
+
+        s.stop();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testMaxPipelinedRequests() throws Exception {
+        int requests = 10;
+        int maxPipelinedRequests = 2;
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger maxDepth = new AtomicInteger();
+        HTTP2ServerBuilder s = $.httpServer();
+        s.getServer().getConfiguration().setMaxPipelinedRequests(maxPipelinedRequests);
+        s.router().get("/pipeline").handler(ctx -> {
+            ctx.getResponse().setAsynchronous(true);
+            int i = Integer.parseInt(ctx.getParameter("i"));
+            HTTP1ServerConnection connection = (HTTP1ServerConnection) ctx.getRequest().getConnection();
+            maxDepth.accumulateAndGet(connection.getPipelineDepth(), Math::max);
+            scheduler.schedule(() -> ctx.end("[r" + i + "]"), 10, TimeUnit.MILLISECONDS);
+        }).listen(host, port);
+
+        List<Integer> bodies = pipeline(requests);
+        Assert.assertThat(bodies.size(), is(requests));
+        for (int i = 0; i < requests; i++) {
+            Assert.assertThat(bodies.get(i), is(i));
+        }
+        Assert.assertThat(maxDepth.get(), lessThanOrEqualTo(maxPipelinedRequests));
+
+        s.stop();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testDrain() throws Exception {
+        int requests = 4;
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger started = new AtomicInteger();
+        HTTP2ServerBuilder s = $.httpServer();
+        s.router().get("/pipeline").handler(ctx -> {
+            ctx.getResponse().setAsynchronous(true);
+            int i = Integer.parseInt(ctx.getParameter("i"));
+            if (started.incrementAndGet() == requests) {
+                // the parsed requests are still responded after the connection starts draining
+                ((HTTP1ServerConnection) ctx.getRequest().getConnection()).drain();
+            }
+            scheduler.schedule(() -> ctx.end("[r" + i + "]"), (requests - i) * 20, TimeUnit.MILLISECONDS);
+        }).listen(host, port);
+
+        String received = send(requests, requests, -1);
+        List<Integer> bodies = bodies(received);
+        Assert.assertThat(bodies.size(), is(requests));
+        for (int i = 0; i < requests; i++) {
+            Assert.assertThat(bodies.get(i), is(i));
+        }
+        // only the last response closes the connection
+        Assert.assertThat(count(received, "Connection: close"), is(1));
+        Assert.assertThat(received.indexOf("Connection: close"), greaterThan(received.indexOf("[r" + (requests - 2) + "]")));
+
+        s.stop();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testNonPersistentRequest() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        HTTP2ServerBuilder s = $.httpServer();
+        s.router().get("/pipeline").handler(ctx -> {
+            handled.incrementAndGet();
+            ctx.end("[r" + ctx.getParameter("i") + "]");
+        }).listen(host, port);
+
+        // the requests after the non-persistent request are not handled
+        List<Integer> bodies = bodies(send(4, 2, 1));
+        Assert.assertThat(bodies.size(), is(2));
+        Assert.assertThat(bodies.get(0), is(0));
+        Assert.assertThat(bodies.get(1), is(1));
+        Thread.sleep(100);
+        Assert.assertThat(handled.get(), is(2));
+
+        s.stop();
+    }
+
+    @Test
+    public void testMaxPipelineBufferSize() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicBoolean aborted = new AtomicBoolean();
+        HTTP2ServerBuilder s = $.httpServer();
+        s.getServer().getConfiguration().setMaxPipelineBufferSize(1024);
+        s.router().get("/pipeline").handler(ctx -> {
+            int i = Integer.parseInt(ctx.getParameter("i"));
+            if (i == 0) {
+                ctx.getResponse().setAsynchronous(true);
+                scheduler.schedule(() -> ctx.end("[r0]"), 200, TimeUnit.MILLISECONDS);
+            } else {
+                try {
+                    ctx.write(new byte[4096]).end("[r" + i + "]");
+                } catch (Exception e) {
+                    aborted.set(true);
+                }
+            }
+        }).listen(host, port);
+
+        // the later response exceeds the buffer size, the connection is closed after the first response
+        List<Integer> bodies = bodies(send(2, 2, -1));
+        Assert.assertThat(bodies.size(), is(1));
+        Assert.assertThat(bodies.get(0), is(0));
+        Assert.assertTrue(aborted.get());
+
+        s.stop();
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,71 @@
+package test.http.router.handler;
+
+import com.firefly.$;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleResponse;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.HandlerExecutorMode;
+import com.firefly.utils.concurrent.ThreadUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestHandlerExecutorMode extends AbstractHTTPHandlerTest {
+
+    @Test
+    public void test() throws Exception {
+        int concurrency = 10;
+        CountDownLatch latch = new CountDownLatch(concurrency);
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.getServer().getConfiguration().setHandlerExecutorMode(HandlerExecutorMode.VIRTUAL_THREAD);
+        s.getServer().getConfiguration().setMaxHandlerThreads(concurrency);
+        s.router().get("/blocking").asyncHandler(ctx -> {
+            // every handler blocks until all the handlers are running
+            latch.countDown();
+            try {
+                ctx.end(latch.await(2, TimeUnit.SECONDS) + "|" + Thread.currentThread().getName());
+            } catch (InterruptedException e) {
+                ctx.fail(e);
+            }
+        }).listen(host, port);
+
+        List<CompletableFuture<SimpleResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(c.get(uri + "/blocking").submit());
+        }
+        String threadName = ThreadUtils.isVirtualThreadSupported()
+                ? "true|firefly-http-server-handler-virtual-"
+                : "true|firefly-http-server-handler-thread-";
+        for (CompletableFuture<SimpleResponse> response : responses) {
+            Assert.assertThat(response.get(3, TimeUnit.SECONDS).getStringBody(), startsWith(threadName));
+        }
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testVirtualThreadSupported() {
+        boolean supported;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            supported = true;
+        } catch (NoSuchMethodException e) {
+            supported = false;
+        }
+        Assert.assertThat(ThreadUtils.isVirtualThreadSupported(), is(supported));
+        Assert.assertThat(ThreadUtils.newVirtualThreadPerTaskExecutor("test-") != null, is(supported));
+    }
+}
@@ -0,0 +1,168 @@
+package test.http.router.handler;
+
+import com.firefly.$;
+import com.firefly.net.SessionSplice;
+import com.firefly.net.tcp.AbstractTcpConnection;
+import com.firefly.net.tcp.SimpleTcpClient;
+import com.firefly.net.tcp.SimpleTcpServer;
+import com.firefly.net.tcp.TcpConnection;
+import com.firefly.server.http2.SimpleHTTPServer;
+import com.firefly.server.http2.SimpleResponse;
+import com.firefly.utils.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestTunnelSplice extends AbstractHTTPHandlerTest {
+
+    private SimpleHTTPServer createProxy(SimpleTcpClient tcpClient, CompletableFuture<SessionSplice> spliceFuture,
+                                         CompletableFuture<SessionSplice> closedFuture) {
+        SimpleHTTPServer server = $.createHTTPServer();
+        server.acceptHTTPTunnelConnection((request, serverConnection) -> {
+            SimpleResponse response = request.getAsyncResponse();
+            tcpClient.connect(request.getURI().getHost(), request.getURI().getPort()).thenAccept(tcpConn -> {
+                serverConnection.upgradeHTTPTunnel().thenAccept(tunnel -> {
+                    SessionSplice splice = tunnel.splice(tcpConn, 1024, 512).onClose(closedFuture::complete);
+                    spliceFuture.complete(splice);
+                });
+                $.io.close(response);
+            }).exceptionally(e -> {
+                response.setStatus(502);
+                $.io.close(response);
+                return null;
+            });
+        }).listen(host, port);
+        return server;
+    }
+
+    private CompletableFuture<TcpConnection> connectTunnel(SimpleTcpClient client, int targetPort, AtomicLong received) {
+        CompletableFuture<TcpConnection> established = new CompletableFuture<>();
+        AtomicInteger headerEnd = new AtomicInteger();
+        return client.connect(host, port).thenCompose(c -> {
+            c.receive(buf -> {
+                // skip the CONNECT response header and count the tunnel data
+                while (headerEnd.get() < 4 && buf.hasRemaining()) {
+                    byte b = buf.get();
+                    boolean cr = headerEnd.get() % 2 == 0;
+                    if ((cr && b == '\r') || (!cr && b == '\n')) {
+                        if (headerEnd.incrementAndGet() == 4) {
+                            established.complete(c);
+                        }
+                    } else {
+                        headerEnd.set(b == '\r' ? 1 : 0);
+                    }
+                }
+                received.addAndGet(buf.remaining());
+            });
+            c.write("CONNECT " + host + ":" + targetPort + " HTTP/1.1\r\n" +
+                    "Host: " + host + ":" + targetPort + "\r\n\r\n");
+            return established;
+        });
+    }
+
+    private static ByteBuffer createData(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + i % 26);
+        }
+        return ByteBuffer.wrap(data);
+    }
+
+    private static void waitFor(AtomicLong value, long expected) throws InterruptedException {
+        for (int i = 0; i < 500 && value.get() < expected; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testEcho() throws Exception {
+        int targetPort = (int) RandomUtils.random(3000, 65534);
+        while (targetPort == port) {
+            targetPort = (int) RandomUtils.random(3000, 65534);
+        }
+        int size = 1024 * 1024;
+        SimpleTcpServer target = $.createTCPServer();
+        target.accept(connection -> connection.receive(connection::write)).listen(host, targetPort);
+
+        SimpleTcpClient tcpClient = $.createTCPClient();
+        CompletableFuture<SessionSplice> spliceFuture = new CompletableFuture<>();
+        CompletableFuture<SessionSplice> closedFuture = new CompletableFuture<>();
+        SimpleHTTPServer proxy = createProxy(tcpClient, spliceFuture, closedFuture);
+
+        SimpleTcpClient client = $.createTCPClient();
+        AtomicLong received = new AtomicLong();
+        TcpConnection c = connectTunnel(client, targetPort, received).get(5, TimeUnit.SECONDS);
+        c.write(createData(size));
+        waitFor(received, size);
+        Assert.assertThat(received.get(), is((long) size));
+
+        SessionSplice splice = spliceFuture.get(5, TimeUnit.SECONDS);
+        Assert.assertThat(splice.getUpstreamBytes(), is((long) size));
+        Assert.assertThat(splice.getDownstreamBytes(), is((long) size));
+        Assert.assertFalse(splice.isClosed());
+
+        c.close();
+        Assert.assertThat(closedFuture.get(5, TimeUnit.SECONDS), is(splice));
+        Assert.assertTrue(splice.isClosed());
+        Assert.assertTrue(splice.getDuration() >= 0);
+
+        client.stop();
+        proxy.stop();
+        tcpClient.stop();
+        target.stop();
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        int targetPort = (int) RandomUtils.random(3000, 65534);
+        while (targetPort == port) {
+            targetPort = (int) RandomUtils.random(3000, 65534);
+        }
+        int size = 32 * 1024 * 1024;
+        AtomicLong targetReceived = new AtomicLong();
+        CompletableFuture<TcpConnection> targetConnection = new CompletableFuture<>();
+        SimpleTcpServer target = $.createTCPServer();
+        target.accept(connection -> {
+            // the slow target stops reading after the first buffer
+            ((AbstractTcpConnection) connection).getSession().suspendRead();
+            connection.receive(buf -> targetReceived.addAndGet(buf.remaining()));
+            targetConnection.complete(connection);
+        }).listen(host, targetPort);
+
+        SimpleTcpClient tcpClient = $.createTCPClient();
+        CompletableFuture<SessionSplice> spliceFuture = new CompletableFuture<>();
+        SimpleHTTPServer proxy = createProxy(tcpClient, spliceFuture, new CompletableFuture<>());
+
+        SimpleTcpClient client = $.createTCPClient();
+        TcpConnection c = connectTunnel(client, targetPort, new AtomicLong()).get(5, TimeUnit.SECONDS);
+        c.write(createData(size));
+        SessionSplice splice = spliceFuture.get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 500 && splice.getSuspendedCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertThat(splice.getSuspendedCount(), greaterThan(0L));
+        Assert.assertTrue(splice.getUpstreamBytes() < size);
+
+        ((AbstractTcpConnection) targetConnection.get(5, TimeUnit.SECONDS)).getSession().resumeRead();
+        waitFor(targetReceived, size);
+        Assert.assertThat(targetReceived.get(), is((long) size));
+        Assert.assertThat(splice.getUpstreamBytes(), is((long) size));
+
+        c.close();
+        client.stop();
+        proxy.stop();
+        tcpClient.stop();
+        target.stop();
+    }
+}
@@ -15,6 +15,7 @@ import test.http.router.handler.AbstractHTTPHandlerTest;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Phaser;
 
@@ -40,6 +41,7 @@ public class TestHTTPBodyHandler extends AbstractHTTPHandlerTest {
             // small data test case
             System.out.println(ctx.getStringBody());
             Assert.assertThat(ctx.getStringBody(), is("test post data"));
+            Assert.assertThat($.buffer.toString(Arrays.asList(ctx.getBodyBuffers())), is("test post data"));
             ctx.end("server received data");
             phaser.arrive();
         }).router().post("/bigData").handler(ctx -> {
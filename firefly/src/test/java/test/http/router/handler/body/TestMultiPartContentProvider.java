@@ -3,6 +3,9 @@ package test.http.router.handler.body;
 import com.firefly.$;
 import com.firefly.codec.http2.model.*;
 import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.SimpleHTTPServerConfiguration;
+import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.server.http2.router.handler.body.HTTPBodyConfiguration;
 import org.junit.Assert;
 import org.junit.Test;
 import test.http.router.handler.AbstractHTTPHandlerTest;
@@ -16,6 +19,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Phaser;
 
 import static org.hamcrest.Matchers.*;
@@ -90,9 +95,15 @@ public class TestMultiPartContentProvider extends AbstractHTTPHandlerTest {
     public void testMultiPart() {
         Phaser phaser = new Phaser(3);
 
-        HTTP2ServerBuilder httpServer = $.httpServer();
+        // the parts are received incrementally before the handler
+        Map<RoutingContext, List<String>> receivedParts = new ConcurrentHashMap<>();
+        HTTPBodyConfiguration bodyConfiguration = new HTTPBodyConfiguration();
+        bodyConfiguration.setPartListener((ctx, part) -> receivedParts.computeIfAbsent(ctx, k -> new ArrayList<>()).add(part.getName()));
+
+        HTTP2ServerBuilder httpServer = $.httpServer(new SimpleHTTPServerConfiguration(), bodyConfiguration);
         httpServer.router().post("/upload/string").handler(ctx -> {
             // small multi part data test case
+            Assert.assertThat(receivedParts.remove(ctx), contains("test1", "test2"));
             Assert.assertThat(ctx.getParts().size(), is(2));
             Part test1 = ctx.getPart("test1");
             Part test2 = ctx.getPart("test2");
@@ -0,0 +1,334 @@
+package test.http.router.handler.cache;
+
+import com.firefly.$;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleResponse;
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.net.tcp.SimpleTcpClient;
+import com.firefly.net.tcp.TcpConnection;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.router.handler.cache.MicroCacheConfiguration;
+import com.firefly.server.http2.router.RoutingContext;
+import com.firefly.server.http2.router.handler.cache.MicroCacheHandler;
+import org.junit.Assert;
+import org.junit.Test;
+import test.http.router.handler.AbstractHTTPHandlerTest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestMicroCacheHandler extends AbstractHTTPHandlerTest {
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10L);
+        }
+    }
+
+    @Test
+    public void test() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        MicroCacheConfiguration configuration = new MicroCacheConfiguration();
+        configuration.setTimeToLive(5000);
+        MicroCacheHandler cacheHandler = new MicroCacheHandler(configuration);
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().path("*").handler(cacheHandler)
+         .router().get("/hello").handler(ctx -> ctx.end("hello " + count.incrementAndGet()))
+         .router().get("/cookie").handler(ctx -> ctx.put(HttpHeader.SET_COOKIE, "a=b").end("cookie " + count.incrementAndGet()))
+         .router().get("/missing").handler(ctx -> ctx.setStatus(HttpStatus.NOT_FOUND_404).end("missing " + count.incrementAndGet()))
+         .listen(host, port);
+
+        for (int i = 0; i < 3; i++) {
+            SimpleResponse resp = c.get(uri + "/hello").submit().get(2, TimeUnit.SECONDS);
+            Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+            Assert.assertThat(resp.getStringBody(), is("hello 1"));
+        }
+        SimpleResponse resp = c.get(uri + "/hello").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getFields().get(HttpHeader.AGE), notNullValue());
+        Assert.assertThat(cacheHandler.getMissCount(), is(1L));
+        Assert.assertThat(cacheHandler.getHitCount(), is(3L));
+
+        // the vary header is a part of the cache key
+        resp = c.get(uri + "/hello").put(HttpHeader.ACCEPT_ENCODING, "gzip").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("hello 2"));
+        resp = c.get(uri + "/hello").put(HttpHeader.ACCEPT_ENCODING, "gzip").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("hello 2"));
+
+        // the request bypasses the cache
+        resp = c.get(uri + "/hello").put(HttpHeader.CACHE_CONTROL, "no-cache").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("hello 3"));
+
+        // the response that sets cookies is not cached
+        resp = c.get(uri + "/cookie").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("cookie 4"));
+        resp = c.get(uri + "/cookie").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("cookie 5"));
+        Assert.assertThat(cacheHandler.getPassCount(), is(1L));
+
+        // the 404 response is cached
+        resp = c.get(uri + "/missing").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.NOT_FOUND_404));
+        resp = c.get(uri + "/missing").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.NOT_FOUND_404));
+        Assert.assertThat(resp.getStringBody(), is("missing 6"));
+        Assert.assertThat(cacheHandler.size(), is(3));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testCoalescing() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch slow = new CountDownLatch(1);
+        MicroCacheHandler cacheHandler = new MicroCacheHandler();
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().path("*").handler(cacheHandler)
+         .router().get("/slow").asyncHandler(ctx -> {
+             await(slow);
+             ctx.end("slow " + count.incrementAndGet());
+         })
+         .listen(host, port);
+
+        CompletableFuture<SimpleResponse> r1 = c.get(uri + "/slow").submit();
+        Thread.sleep(200L);
+        CompletableFuture<SimpleResponse> r2 = c.get(uri + "/slow").submit();
+        CompletableFuture<SimpleResponse> r3 = c.get(uri + "/slow").submit();
+        Thread.sleep(200L);
+        slow.countDown();
+
+        Assert.assertThat(r1.get(2, TimeUnit.SECONDS).getStringBody(), is("slow 1"));
+        Assert.assertThat(r2.get(2, TimeUnit.SECONDS).getStringBody(), is("slow 1"));
+        Assert.assertThat(r3.get(2, TimeUnit.SECONDS).getStringBody(), is("slow 1"));
+        Assert.assertThat(count.get(), is(1));
+        Assert.assertThat(cacheHandler.getCoalescedCount(), is(2L));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch slow = new CountDownLatch(1);
+        MicroCacheConfiguration configuration = new MicroCacheConfiguration();
+        configuration.setTimeToLive(200);
+        configuration.setStaleWhileRevalidate(5000);
+        MicroCacheHandler cacheHandler = new MicroCacheHandler(configuration);
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().path("*").handler(cacheHandler)
+         .router().get("/data").asyncHandler(ctx -> {
+             if (count.incrementAndGet() > 1) {
+                 await(slow);
+             }
+             ctx.end("data " + count.get());
+         })
+         .listen(host, port);
+
+        SimpleResponse resp = c.get(uri + "/data").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("data 1"));
+        Thread.sleep(500L);
+
+        // the first request revalidates the expired response and the others receive the stale response
+        CompletableFuture<SimpleResponse> revalidation = c.get(uri + "/data").submit();
+        Thread.sleep(200L);
+        resp = c.get(uri + "/data").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("data 1"));
+        Assert.assertThat(cacheHandler.getStaleCount(), is(1L));
+
+        slow.countDown();
+        Assert.assertThat(revalidation.get(2, TimeUnit.SECONDS).getStringBody(), is("data 2"));
+        // the response is stored after it is sent to the client
+        waitFor(() -> cacheHandler.getRevalidationCount() == 0);
+        resp = c.get(uri + "/data").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("data 2"));
+        Assert.assertThat(count.get(), is(2));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testWaitTimeout() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        AtomicReference<RoutingContext> slow = new AtomicReference<>();
+        MicroCacheConfiguration configuration = new MicroCacheConfiguration();
+        configuration.setMaxWaitTime(300);
+        MicroCacheHandler cacheHandler = new MicroCacheHandler(configuration);
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().path("*").handler(cacheHandler)
+         .router().get("/slow").handler(ctx -> {
+             if (count.incrementAndGet() == 1) {
+                 ctx.getResponse().setAsynchronous(true);
+                 slow.set(ctx);
+             } else {
+                 ctx.end("slow " + count.get());
+             }
+         })
+         .listen(host, port);
+
+        CompletableFuture<SimpleResponse> r1 = c.get(uri + "/slow").submit();
+        waitFor(() -> cacheHandler.getRevalidationCount() == 1);
+
+        // the waiting request is sent to the next handlers when the first request does not complete in time
+        long start = System.currentTimeMillis();
+        SimpleResponse resp = c.get(uri + "/slow").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("slow 2"));
+        Assert.assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(200L));
+        Assert.assertThat(cacheHandler.getTimeoutCount(), is(1L));
+
+        slow.get().end("slow 1");
+        Assert.assertThat(r1.get(2, TimeUnit.SECONDS).getStringBody(), is("slow 1"));
+
+        s.stop();
+        c.stop();
+        cacheHandler.stop();
+    }
+
+    @Test
+    public void testLeaderConnectionClosed() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        MicroCacheConfiguration configuration = new MicroCacheConfiguration();
+        configuration.setMaxWaitTime(10000);
+        MicroCacheHandler cacheHandler = new MicroCacheHandler(configuration);
+
+        HTTP2ServerBuilder s = $.httpServer();
+        s.router().path("*").handler(cacheHandler)
+         .router().get("/hang").handler(ctx -> {
+             if (count.incrementAndGet() == 1) {
+                 ctx.getResponse().setAsynchronous(true); // the first response never completes
+             } else {
+                 ctx.end("hang " + count.get());
+             }
+         })
+         .listen(host, port);
+
+        String request = "GET /hang HTTP/1.1\r\nHost: " + host + ":" + port + "\r\n\r\n";
+        SimpleTcpClient client = $.createTCPClient();
+        TcpConnection connection = client.connect(host, port).get(5, TimeUnit.SECONDS);
+        connection.write(request);
+        waitFor(() -> cacheHandler.getRevalidationCount() == 1);
+        Assert.assertThat(cacheHandler.getRevalidationCount(), is(1));
+
+        StringBuffer received = new StringBuffer();
+        SimpleTcpClient waitingClient = $.createTCPClient();
+        TcpConnection waiting = waitingClient.connect(host, port).get(5, TimeUnit.SECONDS);
+        waiting.receive(buf -> received.append(StandardCharsets.UTF_8.decode(buf)));
+        waiting.write(request);
+        waitFor(() -> cacheHandler.getCoalescedCount() == 1);
+        Assert.assertThat(cacheHandler.getCoalescedCount(), is(1L));
+
+        // the revalidation is abandoned when the connection of the first request is closed
+        connection.close();
+        waitFor(() -> received.indexOf("hang 2") >= 0);
+        Assert.assertThat(received.indexOf("hang 2") >= 0, is(true));
+        Assert.assertThat(cacheHandler.getTimeoutCount(), is(0L));
+        Assert.assertThat(cacheHandler.getRevalidationCount(), is(0));
+
+        waiting.close();
+        s.stop();
+        client.stop();
+        waitingClient.stop();
+        cacheHandler.stop();
+    }
+
+    @Test
+    public void testMemoryLimit() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        MicroCacheConfiguration configuration = new MicroCacheConfiguration();
+        configuration.setTimeToLive(5000);
+        configuration.setMaxMemorySize(16);
+        MicroCacheHandler cacheHandler = new MicroCacheHandler(configuration);
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().path("*").handler(cacheHandler)
+         .router().get("/small").handler(ctx -> ctx.end("small " + count.incrementAndGet()))
+         .router().get("/large").handler(ctx -> ctx.end("large response " + count.incrementAndGet()))
+         .listen(host, port);
+
+        SimpleResponse resp = c.get(uri + "/small").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("small 1"));
+        resp = c.get(uri + "/small").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("small 1"));
+        Assert.assertThat(cacheHandler.getMemorySize(), is(7L));
+
+        // the response is not cached when the total bytes exceed the max memory size
+        resp = c.get(uri + "/large").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("large response 2"));
+        resp = c.get(uri + "/large").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("large response 3"));
+        Assert.assertThat(cacheHandler.size(), is(1));
+        Assert.assertThat(cacheHandler.getMemorySize(), is(7L));
+
+        cacheHandler.clear();
+        Assert.assertThat(cacheHandler.getMemorySize(), is(0L));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testHostAndVary() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        MicroCacheConfiguration configuration = new MicroCacheConfiguration();
+        configuration.setTimeToLive(5000);
+        MicroCacheHandler cacheHandler = new MicroCacheHandler(configuration);
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().path("*").handler(cacheHandler)
+         .router().get("/host").handler(ctx -> ctx.end("host " + count.incrementAndGet()))
+         .router().get("/lang").handler(ctx -> ctx.put(HttpHeader.VARY, "Accept-Language")
+                                                  .end("lang " + count.incrementAndGet()))
+         .listen(host, port);
+
+        // the host is a part of the cache key
+        String otherURI = "http://127.0.0.1:" + port;
+        SimpleResponse resp = c.get(uri + "/host").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("host 1"));
+        resp = c.get(otherURI + "/host").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("host 2"));
+        resp = c.get(uri + "/host").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("host 1"));
+
+        // the response varies on a request header that is not a part of the cache key
+        resp = c.get(uri + "/lang").put(HttpHeader.ACCEPT_LANGUAGE, "en").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("lang 3"));
+        resp = c.get(uri + "/lang").put(HttpHeader.ACCEPT_LANGUAGE, "fr").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("lang 4"));
+        Assert.assertThat(cacheHandler.getPassCount(), is(1L));
+        Assert.assertThat(cacheHandler.size(), is(2));
+
+        s.stop();
+        c.stop();
+    }
+}
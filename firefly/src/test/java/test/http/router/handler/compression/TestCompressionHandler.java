@@ -0,0 +1,216 @@
+package test.http.router.handler.compression;
+
+import com.firefly.$;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleResponse;
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.router.handler.compression.CompressionHandler;
+import com.firefly.server.http2.router.handler.file.StaticFileConfiguration;
+import com.firefly.server.http2.router.handler.file.StaticFileHandler;
+import com.firefly.utils.io.BufferUtils;
+import com.firefly.utils.io.FileUtils;
+import com.firefly.utils.io.IO;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import test.http.router.handler.AbstractHTTPHandlerTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestCompressionHandler extends AbstractHTTPHandlerTest {
+
+    private Path root;
+
+    @After
+    public void after() throws Exception {
+        if (root != null) {
+            FileUtils.delete(root);
+        }
+    }
+
+    private static String text(int count) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            s.append("Hello compression ").append(i).append('\n');
+        }
+        return s.toString();
+    }
+
+    @Test
+    public void test() throws Exception {
+        String big = text(2000);
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+
+        s.router().path("/compress/*").handler(new CompressionHandler())
+         .router().path("/compress/big").handler(ctx -> ctx.put(HttpHeader.CONTENT_TYPE, "text/plain; charset=UTF-8").end(big))
+         .router().path("/compress/small").handler(ctx -> ctx.put(HttpHeader.CONTENT_TYPE, "text/plain").end("small"))
+         .router().path("/compress/binary").handler(ctx -> ctx.put(HttpHeader.CONTENT_TYPE, "image/png").end(big))
+         .router().path("/compress/flush").handler(ctx -> {
+             ctx.put(HttpHeader.CONTENT_TYPE, "text/plain");
+             try {
+                 // flush the data that is smaller than the min size before the rest of the body
+                 OutputStream out = ctx.getResponse().getOutputStream();
+                 out.flush();
+                 out.write("flush ".getBytes(StandardCharsets.UTF_8));
+                 out.flush();
+                 out.write(big.getBytes(StandardCharsets.UTF_8));
+                 out.close();
+             } catch (IOException e) {
+                 ctx.fail(e);
+             }
+         })
+         .listen(host, port);
+
+        SimpleResponse resp = c.get(uri + "/compress/big")
+                               .put(HttpHeader.ACCEPT_ENCODING, "gzip, deflate")
+                               .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), is("gzip"));
+        Assert.assertThat(resp.getFields().get(HttpHeader.VARY), is("Accept-Encoding"));
+        Assert.assertTrue(BufferUtils.remaining(resp.getResponseBody()) < big.length());
+        Assert.assertThat(resp.getStringBody(), is(big));
+
+        resp = c.get(uri + "/compress/big")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip;q=0.5, deflate")
+                .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), is("deflate"));
+        byte[] body = BufferUtils.toArray(resp.getResponseBody());
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(body))) {
+            Assert.assertThat(IO.toString(in, "UTF-8"), is(big));
+        }
+
+        resp = c.get(uri + "/compress/big").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), nullValue());
+        Assert.assertThat(resp.getStringBody(), is(big));
+
+        resp = c.get(uri + "/compress/small")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip")
+                .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), nullValue());
+        Assert.assertThat(resp.getStringBody(), is("small"));
+
+        resp = c.get(uri + "/compress/flush")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip")
+                .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), is("gzip"));
+        Assert.assertThat(resp.getStringBody(), is("flush " + big));
+
+        resp = c.get(uri + "/compress/binary")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip")
+                .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), nullValue());
+        Assert.assertThat(resp.getStringBody(), is(big));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testStaticFile() throws Exception {
+        String js = text(1000);
+        String css = text(500);
+        root = Files.createTempDirectory("firefly-static");
+        Files.write(root.resolve("app.js"), "the original file".getBytes(StandardCharsets.UTF_8));
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(root.resolve("app.js.gz").toFile()))) {
+            out.write(js.getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(root.resolve("style.css"), css.getBytes(StandardCharsets.UTF_8));
+
+        StaticFileConfiguration configuration = new StaticFileConfiguration();
+        configuration.setRootPath(root.toAbsolutePath().toString());
+        StaticFileHandler staticFileHandler = new StaticFileHandler(configuration);
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().get("/*").handler(staticFileHandler).listen(host, port);
+
+        SimpleResponse resp = c.get(uri + "/app.js")
+                               .put(HttpHeader.ACCEPT_ENCODING, "gzip")
+                               .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), is("gzip"));
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_TYPE), is("application/javascript"));
+        Assert.assertThat(resp.getStringBody(), is(js));
+        String gzipETag = resp.getFields().get(HttpHeader.ETAG);
+        Assert.assertTrue(gzipETag.endsWith("-gzip\""));
+
+        resp = c.get(uri + "/app.js")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip")
+                .put(HttpHeader.IF_NONE_MATCH, gzipETag)
+                .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.NOT_MODIFIED_304));
+        Assert.assertThat(resp.getFields().get(HttpHeader.ETAG), is(gzipETag));
+
+        resp = c.get(uri + "/app.js").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), nullValue());
+        Assert.assertThat(resp.getStringBody(), is("the original file"));
+
+        String etag = resp.getFields().get(HttpHeader.ETAG);
+        Assert.assertThat(etag, not(gzipETag));
+
+        resp = c.get(uri + "/app.js")
+                .put(HttpHeader.IF_NONE_MATCH, etag)
+                .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.NOT_MODIFIED_304));
+        Assert.assertThat(resp.getFields().get(HttpHeader.VARY), is("Accept-Encoding"));
+
+        // the identity ETag does not validate the gzip response
+        resp = c.get(uri + "/app.js")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip")
+                .put(HttpHeader.IF_NONE_MATCH, etag)
+                .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+        Assert.assertThat(resp.getStringBody(), is(js));
+
+        for (int i = 0; i < 2; i++) {
+            resp = c.get(uri + "/style.css")
+                    .put(HttpHeader.ACCEPT_ENCODING, "gzip")
+                    .submit().get(2, TimeUnit.SECONDS);
+            Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), is("gzip"));
+            Assert.assertThat(resp.getStringBody(), is(css));
+            Assert.assertThat(staticFileHandler.getCompressedFileCacheSize(), is(1));
+        }
+        long compressedMemorySize = staticFileHandler.getCompressedMemorySize();
+        Assert.assertTrue(compressedMemorySize > 0);
+
+        resp = c.get(uri + "/style.css")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip")
+                .put(HttpHeader.RANGE, "bytes=0-4")
+                .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.PARTIAL_CONTENT_206));
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), nullValue());
+        Assert.assertThat(resp.getStringBody(), is("Hello"));
+
+        // the compressed file exceeds the memory limit of the cache
+        Files.write(root.resolve("index.css"), css.getBytes(StandardCharsets.UTF_8));
+        configuration.setMaxCompressedCacheMemorySize(compressedMemorySize + 1);
+        resp = c.get(uri + "/index.css")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip")
+                .submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_ENCODING), is("gzip"));
+        Assert.assertThat(resp.getStringBody(), is(css));
+        Assert.assertThat(staticFileHandler.getCompressedFileCacheSize(), is(1));
+        Assert.assertThat(staticFileHandler.getCompressedMemorySize(), is(compressedMemorySize));
+
+        s.stop();
+        c.stop();
+    }
+}
@@ -1,19 +1,28 @@
 package test.http.router.handler.file;
 
+import com.codahale.metrics.MetricRegistry;
 import com.firefly.$;
 import com.firefly.codec.http2.model.HttpFields;
 import com.firefly.codec.http2.model.HttpHeader;
 import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleResponse;
 import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.router.handler.file.StaticFileConfiguration;
 import com.firefly.server.http2.router.handler.file.StaticFileHandler;
+import com.firefly.utils.io.FileUtils;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import test.http.router.handler.AbstractHTTPHandlerTest;
 
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.is;
 
@@ -22,6 +31,15 @@ import static org.hamcrest.Matchers.is;
  */
 public class TestStaticFileHandler extends AbstractHTTPHandlerTest {
 
+    private Path root;
+
+    @After
+    public void after() throws Exception {
+        if (root != null) {
+            FileUtils.delete(root);
+        }
+    }
+
     @Test
     public void test() throws URISyntaxException {
         Phaser phaser = new Phaser(4);
@@ -128,4 +146,95 @@ public class TestStaticFileHandler extends AbstractHTTPHandlerTest {
         httpServer.stop();
         $.httpClient().stop();
     }
+
+    @Test
+    public void testCacheAndConditionalRequest() throws Exception {
+        root = Files.createTempDirectory("firefly-static");
+        Path file = root.resolve("index.html");
+        Files.write(file, "<h1>v1</h1>".getBytes(StandardCharsets.UTF_8));
+
+        StaticFileConfiguration configuration = new StaticFileConfiguration();
+        configuration.setRootPath(root.toAbsolutePath().toString());
+        configuration.setFileCacheCheckInterval(0);
+        StaticFileHandler staticFileHandler = new StaticFileHandler(configuration);
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().get("/*").handler(staticFileHandler).listen(host, port);
+
+        SimpleResponse resp = c.get(uri + "/index.html").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+        Assert.assertThat(resp.getStringBody(), is("<h1>v1</h1>"));
+        Assert.assertThat(resp.getFields().get(HttpHeader.CONTENT_TYPE), is("text/html"));
+        String etag = resp.getFields().get(HttpHeader.ETAG);
+        String lastModified = resp.getFields().get(HttpHeader.LAST_MODIFIED);
+        Assert.assertNotNull(etag);
+        Assert.assertNotNull(lastModified);
+
+        resp = c.get(uri + "/index.html").put(HttpHeader.IF_NONE_MATCH, etag).submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.NOT_MODIFIED_304));
+        Assert.assertThat(resp.getFields().get(HttpHeader.ETAG), is(etag));
+
+        resp = c.get(uri + "/index.html").put(HttpHeader.IF_MODIFIED_SINCE, lastModified).submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.NOT_MODIFIED_304));
+
+        resp = c.get(uri + "/index.html").put(HttpHeader.IF_NONE_MATCH, "W/\"other\"").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+        Assert.assertThat(resp.getStringBody(), is("<h1>v1</h1>"));
+
+        Assert.assertThat(staticFileHandler.getFileCache().size(), is(1));
+        Assert.assertThat(staticFileHandler.getFileCache().getMissCount(), is(1L));
+        Assert.assertThat(staticFileHandler.getFileCache().getHitCount(), is(3L));
+        Assert.assertThat(staticFileHandler.getFileCache().getMemoryBytes(), is(22L));
+        Assert.assertThat(staticFileHandler.getFileCache().getMemorySize(), is(11L));
+
+        // the cache metrics are registered in the metric registry of the server by default
+        MetricRegistry metrics = s.getServer().getConfiguration().getTcpConfiguration().getMetricReporterFactory().getMetricRegistry();
+        Assert.assertThat(metrics.meter("http2.StaticFileHandler.cache.hit").getCount(), is(3L));
+
+        Files.write(file, "<h1>version 2</h1>".getBytes(StandardCharsets.UTF_8));
+        resp = c.get(uri + "/index.html").put(HttpHeader.IF_NONE_MATCH, etag).submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+        Assert.assertThat(resp.getStringBody(), is("<h1>version 2</h1>"));
+        Assert.assertThat(staticFileHandler.getFileCache().getMissCount(), is(2L));
+        Assert.assertThat(staticFileHandler.getFileCache().getMemorySize(), is(18L));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testCacheMemoryLimit() throws Exception {
+        root = Files.createTempDirectory("firefly-static");
+        for (int i = 0; i < 3; i++) {
+            Files.write(root.resolve(i + ".html"), ("<h1>" + i + "</h1>").getBytes(StandardCharsets.UTF_8));
+        }
+
+        StaticFileConfiguration configuration = new StaticFileConfiguration();
+        configuration.setRootPath(root.toAbsolutePath().toString());
+        configuration.setMaxFileCacheMemorySize(25);
+        StaticFileHandler staticFileHandler = new StaticFileHandler(configuration);
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().get("/*").handler(staticFileHandler).listen(host, port);
+
+        for (int j = 0; j < 2; j++) {
+            for (int i = 0; i < 3; i++) {
+                SimpleResponse resp = c.get(uri + "/" + i + ".html").submit().get(2, TimeUnit.SECONDS);
+                Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+                Assert.assertThat(resp.getStringBody(), is("<h1>" + i + "</h1>"));
+            }
+        }
+        // the third file exceeds the memory limit, only its metadata is cached
+        Assert.assertThat(staticFileHandler.getFileCache().size(), is(3));
+        Assert.assertThat(staticFileHandler.getFileCache().getMemorySize(), is(20L));
+        Assert.assertThat(staticFileHandler.getFileCache().getMemoryBytes(), is(40L));
+
+        staticFileHandler.getFileCache().clear();
+        Assert.assertThat(staticFileHandler.getFileCache().getMemorySize(), is(0L));
+
+        s.stop();
+        c.stop();
+    }
 }
@@ -0,0 +1,244 @@
+package test.http.router.handler.limit;
+
+import com.firefly.$;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleResponse;
+import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.router.handler.limit.AdaptiveConcurrencyLimit;
+import com.firefly.server.http2.router.handler.limit.ConcurrencyLimitConfiguration;
+import com.firefly.server.http2.router.handler.limit.ConcurrencyLimitHandler;
+import com.firefly.net.tcp.SimpleTcpClient;
+import com.firefly.net.tcp.TcpConnection;
+import org.junit.Assert;
+import org.junit.Test;
+import test.http.router.handler.AbstractHTTPHandlerTest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestConcurrencyLimitHandler extends AbstractHTTPHandlerTest {
+
+    private static ConcurrencyLimitConfiguration fixedLimit(int limit) {
+        ConcurrencyLimitConfiguration configuration = new ConcurrencyLimitConfiguration();
+        configuration.setInitialLimit(limit);
+        configuration.setMinLimit(limit);
+        configuration.setMaxLimit(limit);
+        return configuration;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    @Test
+    public void testAdaptiveLimit() {
+        ConcurrencyLimitConfiguration configuration = new ConcurrencyLimitConfiguration();
+        configuration.setInitialLimit(4);
+        configuration.setMinLimit(2);
+        configuration.setMaxLimit(8);
+        configuration.setBackoffRatio(0.5);
+        configuration.setLatencyThreshold(1);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(configuration);
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(limit.tryAcquire());
+        }
+        Assert.assertFalse(limit.tryAcquire());
+        Assert.assertTrue(limit.isSaturated());
+
+        limit.release(TimeUnit.MILLISECONDS.toNanos(2));
+        Assert.assertThat(limit.getLimit(), is(5));
+        limit.release(TimeUnit.MILLISECONDS.toNanos(2));
+        Assert.assertThat(limit.getLimit(), is(6));
+        Assert.assertThat(limit.getInflight(), is(2));
+
+        // the latency exceeds the min latency * tolerance
+        limit.release(TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertThat(limit.getLimit(), is(3));
+        limit.release(TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertThat(limit.getLimit(), is(2));
+        Assert.assertThat(limit.getInflight(), is(0));
+
+        // the limit is increased only when more than half of it is used
+        Assert.assertTrue(limit.tryAcquire());
+        limit.release(TimeUnit.MILLISECONDS.toNanos(2));
+        Assert.assertThat(limit.getLimit(), is(3));
+        Assert.assertTrue(limit.tryAcquire());
+        limit.release(TimeUnit.MILLISECONDS.toNanos(2));
+        Assert.assertThat(limit.getLimit(), is(3));
+    }
+
+    @Test
+    public void testConcurrentUpdate() throws Exception {
+        ConcurrencyLimitConfiguration configuration = new ConcurrencyLimitConfiguration();
+        configuration.setInitialLimit(8);
+        configuration.setMinLimit(2);
+        configuration.setMaxLimit(16);
+        configuration.setLatencyThreshold(1);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(configuration);
+
+        int threads = 8;
+        CountDownLatch completed = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    if (limit.tryAcquire()) {
+                        limit.release(TimeUnit.MILLISECONDS.toNanos(j % 2 == 0 ? 2 : 10));
+                    }
+                }
+                completed.countDown();
+            }).start();
+        }
+        Assert.assertTrue(completed.await(10, TimeUnit.SECONDS));
+        Assert.assertThat(limit.getInflight(), is(0));
+        Assert.assertTrue(limit.getLimit() >= 2 && limit.getLimit() <= 16);
+    }
+
+    @Test
+    public void test() throws Exception {
+        CountDownLatch slow = new CountDownLatch(1);
+        ConcurrencyLimitHandler limitHandler = new ConcurrencyLimitHandler(fixedLimit(2))
+                .routeGroup(ctx -> ctx.getURI().getPath().startsWith("/slow") ? "slow" : null, fixedLimit(1));
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router(-1).path("*").handler(limitHandler)
+         .router().get("/slow").asyncHandler(ctx -> {
+             await(slow);
+             ctx.end("slow");
+         })
+         .router().post("/data").handler(ctx -> ctx.end(ctx.getStringBody()))
+         .router().get("/fast").handler(ctx -> ctx.end("fast"))
+         .listen(host, port);
+
+        CompletableFuture<SimpleResponse> slowResp = c.get(uri + "/slow").submit();
+        for (int i = 0; i < 50 && limitHandler.getLimit().getInflight() < 1; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertThat(limitHandler.getGroupLimit("slow").getInflight(), is(1));
+
+        // the route group limit is reached
+        SimpleResponse resp = c.get(uri + "/slow").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.SERVICE_UNAVAILABLE_503));
+        Assert.assertThat(limitHandler.getRejectedCount(), is(1L));
+
+        resp = c.post(uri + "/data").body("hello").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("hello"));
+
+        slow.countDown();
+        resp = slowResp.get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("slow"));
+
+        for (int i = 0; i < 50 && (limitHandler.getLimit().getInflight() > 0
+                || limitHandler.getGroupLimit("slow").getInflight() > 0); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertThat(limitHandler.getLimit().getInflight(), is(0));
+        Assert.assertThat(limitHandler.getGroupLimit("slow").getInflight(), is(0));
+        resp = c.get(uri + "/fast").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("fast"));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testRejectHandlerAndHTTP2Settings() throws Exception {
+        CountDownLatch slow = new CountDownLatch(1);
+        ConcurrencyLimitConfiguration configuration = fixedLimit(1);
+        configuration.setSaturatedMaxConcurrentStreams(2);
+        configuration.setRejectHandler(ctx -> ctx.setStatus(HttpStatus.TOO_MANY_REQUESTS_429).end("busy"));
+        ConcurrencyLimitHandler limitHandler = new ConcurrencyLimitHandler(configuration);
+
+        HTTP2ServerBuilder s = $.plaintextHTTP2Server();
+        SimpleHTTPClient c = $.createPlaintextHTTP2Client();
+        s.router(-1).path("*").handler(limitHandler)
+         .router().get("/slow").asyncHandler(ctx -> {
+             await(slow);
+             ctx.end("slow");
+         })
+         .router().get("/fast").handler(ctx -> ctx.end("fast"))
+         .listen(host, port);
+
+        SimpleResponse resp = c.get(uri + "/fast").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("fast"));
+
+        CompletableFuture<SimpleResponse> slowResp = c.get(uri + "/slow").submit();
+        for (int i = 0; i < 50 && limitHandler.getLimit().getInflight() < 1; i++) {
+            Thread.sleep(10);
+        }
+        resp = c.get(uri + "/fast").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.TOO_MANY_REQUESTS_429));
+        Assert.assertThat(resp.getStringBody(), is("busy"));
+        Assert.assertThat(limitHandler.getThrottledConnectionCount(), is(1));
+
+        slow.countDown();
+        resp = slowResp.get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("slow"));
+        for (int i = 0; i < 50 && limitHandler.getThrottledConnectionCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertThat(limitHandler.getThrottledConnectionCount(), is(0));
+
+        resp = c.get(uri + "/fast").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("fast"));
+
+        s.stop();
+        c.stop();
+    }
+
+    @Test
+    public void testReleaseOnConnectionClose() throws Exception {
+        CountDownLatch slow = new CountDownLatch(1);
+        ConcurrencyLimitHandler limitHandler = new ConcurrencyLimitHandler(fixedLimit(1));
+
+        HTTP2ServerBuilder s = $.httpServer();
+        s.router(-1).path("*").handler(limitHandler)
+         .router().get("/slow").asyncHandler(ctx -> {
+             await(slow);
+             ctx.end("slow");
+         })
+         .router().get("/fast").handler(ctx -> ctx.end("fast"))
+         .listen(host, port);
+
+        SimpleTcpClient client = $.createTCPClient();
+        TcpConnection connection = client.connect(host, port).get(2, TimeUnit.SECONDS);
+        connection.write("GET /slow HTTP/1.1\r\nHost: " + host + ":" + port + "\r\n\r\n");
+        for (int i = 0; i < 200 && limitHandler.getWatchedConnectionCount() < 1; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertThat(limitHandler.getLimit().getInflight(), is(1));
+        Assert.assertThat(limitHandler.getWatchedConnectionCount(), is(1));
+
+        // the permit is released when the connection is closed before the response is completed
+        connection.close();
+        for (int i = 0; i < 200 && limitHandler.getLimit().getInflight() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertThat(limitHandler.getLimit().getInflight(), is(0));
+        Assert.assertThat(limitHandler.getWatchedConnectionCount(), is(0));
+
+        SimpleHTTPClient c = $.createHTTPClient();
+        SimpleResponse resp = c.get(uri + "/fast").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("fast"));
+
+        // the response of the closed connection does not release the permit again
+        slow.countDown();
+        Thread.sleep(100);
+        Assert.assertThat(limitHandler.getLimit().getInflight(), is(0));
+
+        s.stop();
+        c.stop();
+        client.stop();
+    }
+}
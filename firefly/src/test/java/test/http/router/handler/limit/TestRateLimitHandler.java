@@ -0,0 +1,100 @@
+package test.http.router.handler.limit;
+
+import com.firefly.$;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleResponse;
+import com.firefly.codec.http2.model.HttpHeader;
+import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.router.handler.limit.RateLimitConfiguration;
+import com.firefly.server.http2.router.handler.limit.RateLimitHandler;
+import com.firefly.server.http2.router.handler.limit.RateLimitKeys;
+import com.firefly.server.http2.router.handler.limit.TokenBucketStore;
+import org.junit.Assert;
+import org.junit.Test;
+import test.http.router.handler.AbstractHTTPHandlerTest;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestRateLimitHandler extends AbstractHTTPHandlerTest {
+
+    @Test
+    public void testTokenBucketStore() {
+        TokenBucketStore store = new TokenBucketStore(3, 1, 60, 1000);
+        Assert.assertThat(store.getStripeCount(), is(64));
+
+        long now = System.nanoTime();
+        for (int i = 2; i >= 0; i--) {
+            TokenBucketStore.Result result = store.tryAcquire("a", now);
+            Assert.assertTrue(result.isAllowed());
+            Assert.assertThat(result.getRemaining(), is((long) i));
+        }
+        TokenBucketStore.Result result = store.tryAcquire("a", now);
+        Assert.assertFalse(result.isAllowed());
+        Assert.assertThat(result.getRetryAfterNanos(), is(TimeUnit.SECONDS.toNanos(1)));
+        Assert.assertThat(result.getResetNanos(), is(TimeUnit.SECONDS.toNanos(3)));
+        Assert.assertTrue(store.tryAcquire("b", now).isAllowed());
+
+        result = store.tryAcquire("a", now + TimeUnit.SECONDS.toNanos(1));
+        Assert.assertTrue(result.isAllowed());
+        Assert.assertThat(result.getRemaining(), is(0L));
+        Assert.assertThat(store.size(), is(2));
+
+        store.removeExpiredBuckets(now + TimeUnit.SECONDS.toNanos(2));
+        Assert.assertThat(store.size(), is(1));
+        store.removeExpiredBuckets(now + TimeUnit.SECONDS.toNanos(10));
+        Assert.assertThat(store.size(), is(0));
+        result = store.tryAcquire("a", now + TimeUnit.SECONDS.toNanos(10));
+        Assert.assertThat(result.getRemaining(), is(2L));
+    }
+
+    @Test
+    public void test() throws Exception {
+        RateLimitConfiguration configuration = new RateLimitConfiguration();
+        configuration.setCapacity(2);
+        configuration.setRefillRate(0.1);
+        configuration.setKeyExtractor(RateLimitKeys.header("X-API-Key"));
+        RateLimitHandler rateLimitHandler = new RateLimitHandler(configuration);
+        Assert.assertFalse(rateLimitHandler.getTokenBucketStore().isStarted());
+
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.router().path("/api/*").handler(rateLimitHandler)
+         .router().get("/api/hello").handler(ctx -> ctx.end("hello"))
+         .listen(host, port);
+
+        for (int i = 1; i >= 0; i--) {
+            SimpleResponse resp = c.get(uri + "/api/hello").put("X-API-Key", "a").submit().get(2, TimeUnit.SECONDS);
+            Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+            Assert.assertThat(resp.getStringBody(), is("hello"));
+            Assert.assertThat(resp.getFields().get(RateLimitHandler.RATELIMIT_LIMIT), is("2"));
+            Assert.assertThat(resp.getFields().get(RateLimitHandler.RATELIMIT_REMAINING), is(String.valueOf(i)));
+        }
+        Assert.assertTrue(rateLimitHandler.getTokenBucketStore().isStarted());
+
+        SimpleResponse resp = c.get(uri + "/api/hello").put("X-API-Key", "a").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.TOO_MANY_REQUESTS_429));
+        Assert.assertThat(resp.getFields().get(RateLimitHandler.RATELIMIT_REMAINING), is("0"));
+        Assert.assertThat(resp.getFields().get(RateLimitHandler.RATELIMIT_RESET), is("20"));
+        Assert.assertThat(resp.getFields().get(HttpHeader.RETRY_AFTER), is("10"));
+        Assert.assertThat(rateLimitHandler.getRejectedCount(), is(1L));
+
+        resp = c.get(uri + "/api/hello").put("X-API-Key", "b").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+
+        resp = c.get(uri + "/api/hello").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.OK_200));
+        Assert.assertThat(resp.getFields().get(RateLimitHandler.RATELIMIT_LIMIT), nullValue());
+
+        rateLimitHandler.stop();
+        Assert.assertFalse(rateLimitHandler.getTokenBucketStore().isStarted());
+        s.stop();
+        c.stop();
+    }
+}
@@ -0,0 +1,91 @@
+package test.http.router.handler.limit;
+
+import com.firefly.server.http2.router.handler.limit.TokenBucketStore;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The contention benchmark of the token bucket store and a synchronized map of token buckets.
+ *
+ * @author Pengtao Qiu
+ */
+public class TokenBucketBenchmark {
+
+    interface RateLimiter {
+        boolean tryAcquire(String key);
+    }
+
+    static class SynchronizedRateLimiter implements RateLimiter {
+        private final Map<String, double[]> buckets = new HashMap<>();
+        private final int capacity;
+        private final double refillRate;
+
+        SynchronizedRateLimiter(int capacity, double refillRate) {
+            this.capacity = capacity;
+            this.refillRate = refillRate;
+        }
+
+        @Override
+        public synchronized boolean tryAcquire(String key) {
+            long now = System.nanoTime();
+            double[] bucket = buckets.computeIfAbsent(key, k -> new double[]{capacity, now});
+            bucket[0] = Math.min(capacity, bucket[0] + (now - bucket[1]) * refillRate / TimeUnit.SECONDS.toNanos(1));
+            bucket[1] = now;
+            if (bucket[0] >= 1) {
+                bucket[0] -= 1;
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int threadNum = 64;
+        int count = 200_000;
+        for (int keyNum : new int[]{1, 1024}) {
+            for (int i = 0; i < 3; i++) {
+                TokenBucketStore store = new TokenBucketStore(1000, 100_000, 64, 10_000);
+                test("TokenBucketStore", key -> store.tryAcquire(key).isAllowed(), threadNum, count, keyNum);
+                store.stop();
+                test("synchronized HashMap", new SynchronizedRateLimiter(1000, 100_000), threadNum, count, keyNum);
+            }
+        }
+    }
+
+    public static void test(String name, RateLimiter limiter, int threadNum, int count, int keyNum) {
+        String[] keys = new String[keyNum];
+        for (int i = 0; i < keyNum; i++) {
+            keys[i] = "client-" + i;
+        }
+        LongAdder allowed = new LongAdder();
+        Phaser phaser = new Phaser(threadNum + 1);
+        for (int i = 0; i < threadNum; i++) {
+            int offset = i;
+            new Thread(() -> {
+                phaser.arriveAndAwaitAdvance();
+                int n = 0;
+                for (int j = 0; j < count; j++) {
+                    if (limiter.tryAcquire(keys[(offset + j) % keyNum])) {
+                        n++;
+                    }
+                }
+                allowed.add(n);
+                phaser.arrive();
+            }, "rate-limit-benchmark-" + i).start();
+        }
+
+        phaser.arriveAndAwaitAdvance();
+        long start = System.nanoTime();
+        phaser.arriveAndAwaitAdvance();
+        long time = System.nanoTime() - start;
+        long total = (long) threadNum * count;
+        System.out.println(name + ", threads: " + threadNum + ", keys: " + keyNum
+                + ", ops/sec: " + (total * TimeUnit.SECONDS.toNanos(1) / time)
+                + ", allowed: " + allowed.sum());
+    }
+}
@@ -0,0 +1,98 @@
+package test.http.router.handler.metric;
+
+import com.firefly.$;
+import com.firefly.client.http2.SimpleHTTPClient;
+import com.firefly.client.http2.SimpleResponse;
+import com.firefly.codec.http2.model.HttpStatus;
+import com.firefly.server.http2.HTTP2ServerBuilder;
+import com.firefly.server.http2.router.handler.metric.MetricReportHandler;
+import com.firefly.server.http2.router.handler.metric.RouterMetrics;
+import com.firefly.utils.json.Json;
+import com.firefly.utils.json.JsonObject;
+import org.junit.Assert;
+import org.junit.Test;
+import test.http.router.handler.AbstractHTTPHandlerTest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestRouterMetrics extends AbstractHTTPHandlerTest {
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(condition.getAsBoolean());
+    }
+
+    private static RouterMetrics.RouterMetric find(RouterMetrics metrics, String path) {
+        return metrics.getRouterMetrics().stream()
+                      .filter(m -> m.getName().endsWith(path))
+                      .findFirst()
+                      .orElseThrow(() -> new AssertionError("the metric of " + path + " does not exist"));
+    }
+
+    @Test
+    public void test() throws Exception {
+        HTTP2ServerBuilder s = $.httpServer();
+        SimpleHTTPClient c = $.createHTTPClient();
+        s.enableRouterMetrics();
+        RouterMetrics metrics = s.getRouterMetrics();
+
+        s.router().get("/hello").handler(ctx -> ctx.end("hello"))
+         .router().get("/error").handler(ctx -> ctx.setStatus(HttpStatus.INTERNAL_SERVER_ERROR_500).end("error"))
+         .router().get("/async").handler(ctx -> {
+             ctx.getResponse().setAsynchronous(true);
+             new Thread(() -> {
+                 try {
+                     Thread.sleep(50);
+                 } catch (InterruptedException ignored) {
+                 }
+                 ctx.end("async");
+             }).start();
+         })
+         .router().get("/metrics").handler(new MetricReportHandler(metrics.getMetricRegistry()))
+         .listen(host, port);
+
+        for (int i = 0; i < 3; i++) {
+            SimpleResponse resp = c.get(uri + "/hello").submit().get(2, TimeUnit.SECONDS);
+            Assert.assertThat(resp.getStringBody(), is("hello"));
+        }
+        SimpleResponse resp = c.get(uri + "/error").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStatus(), is(HttpStatus.INTERNAL_SERVER_ERROR_500));
+        resp = c.get(uri + "/async").submit().get(2, TimeUnit.SECONDS);
+        Assert.assertThat(resp.getStringBody(), is("async"));
+
+        RouterMetrics.RouterMetric hello = find(metrics, "/hello/");
+        RouterMetrics.RouterMetric error = find(metrics, "/error/");
+        RouterMetrics.RouterMetric async = find(metrics, "/async/");
+        await(() -> hello.getLatency().getCount() == 3
+                && error.getLatency().getCount() == 1
+                && async.getLatency().getCount() == 1);
+        Assert.assertThat(hello.getHandler().getCount(), is(3L));
+        Assert.assertThat(hello.getStatusMeter(200).getCount(), is(3L));
+        Assert.assertThat(hello.getInflight().getCount(), is(0L));
+        Assert.assertThat(error.getStatusMeter(500).getCount(), is(1L));
+        Assert.assertThat(error.getStatusMeter(200).getCount(), is(0L));
+        Assert.assertThat(async.getInflight().getCount(), is(0L));
+        Assert.assertTrue(async.getLatency().getSnapshot().getMax() >= TimeUnit.MILLISECONDS.toNanos(50));
+        Assert.assertTrue(async.getHandler().getSnapshot().getMax() < TimeUnit.MILLISECONDS.toNanos(50));
+        Assert.assertThat(metrics.getLatency().getCount(), is(5L));
+        Assert.assertThat(metrics.getInflight().getCount(), is(0L));
+        Assert.assertThat(metrics.getStatusMeter(500).getCount(), is(1L));
+
+        resp = c.get(uri + "/metrics?prefix=" + hello.getName()).submit().get(2, TimeUnit.SECONDS);
+        JsonObject report = Json.toJsonObject(resp.getStringBody());
+        Assert.assertThat(report.getJsonObject(hello.getName() + ".latency").getInteger("count"), is(3));
+        Assert.assertThat(report.getJsonObject(hello.getName() + ".status.2xx").getInteger("count"), is(3));
+        Assert.assertFalse(report.containsKey(error.getName() + ".latency"));
+
+        s.stop();
+        c.stop();
+    }
+}
@@ -0,0 +1,178 @@
+package test.websocket;
+
+import com.firefly.$;
+import com.firefly.client.websocket.SimpleWebSocketClient;
+import com.firefly.codec.websocket.exception.OutboundOverflowException;
+import com.firefly.codec.websocket.model.OutboundOverflowBehavior;
+import com.firefly.codec.websocket.stream.WebSocketPolicy;
+import com.firefly.server.websocket.SimpleWebSocketServer;
+import com.firefly.utils.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestWebSocketBackpressure {
+
+    private static final int size = 32 * 1024;
+
+    @Test
+    public void testFail() throws Exception {
+        int count = 1000;
+        WebSocketPolicy policy = WebSocketPolicy.newServerPolicy();
+        policy.setMaxOutboundBufferedBytes(size);
+        policy.setOutboundOverflowBehavior(OutboundOverflowBehavior.FAIL);
+
+        SimpleWebSocketServer server = $.createWebSocketServer();
+        SimpleWebSocketClient client = $.createWebSocketClient();
+        String host = "localhost";
+        int port = (int) RandomUtils.random(3000, 65534);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch completed = new CountDownLatch(count);
+        CountDownLatch unwritable = new CountDownLatch(1);
+        CountDownLatch writable = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+
+        server.webSocket("/backpressure")
+              .policy(policy)
+              .onConnect(conn -> {
+                  conn.onWritabilityChanged((c, w) -> {
+                      if (w) {
+                          writable.countDown();
+                      } else {
+                          unwritable.countDown();
+                      }
+                  });
+                  for (int i = 0; i < count; i++) {
+                      conn.sendData(new byte[size]).whenComplete((r, e) -> {
+                          if (e == null) {
+                              succeeded.incrementAndGet();
+                          } else {
+                              Assert.assertTrue(e instanceof OutboundOverflowException);
+                              failed.incrementAndGet();
+                          }
+                          completed.countDown();
+                      });
+                  }
+              })
+              .listen(host, port);
+
+        client.webSocket("ws://" + host + ":" + port + "/backpressure")
+              .onData((buf, conn) -> {
+                  received.countDown();
+              })
+              .connect();
+
+        Assert.assertTrue(completed.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(unwritable.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(writable.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(received.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(failed.get() > 0);
+        Assert.assertThat(succeeded.get() + failed.get(), is(count));
+
+        server.stop();
+        client.stop();
+    }
+
+    @Test
+    public void testSuspend() throws Exception {
+        int count = 200;
+        WebSocketPolicy policy = WebSocketPolicy.newServerPolicy();
+        policy.setMaxOutboundBufferedFrames(4);
+        policy.setOutboundOverflowBehavior(OutboundOverflowBehavior.SUSPEND);
+
+        SimpleWebSocketServer server = $.createWebSocketServer();
+        SimpleWebSocketClient client = $.createWebSocketClient();
+        String host = "localhost";
+        int port = (int) RandomUtils.random(3000, 65534);
+
+        CompletableFuture<Integer> maxBufferedFrames = new CompletableFuture<>();
+        CountDownLatch received = new CountDownLatch(count);
+        AtomicInteger expected = new AtomicInteger();
+
+        server.webSocket("/backpressure")
+              .policy(policy)
+              .onConnect(conn -> {
+                  int max = 0;
+                  for (int i = 0; i < count; i++) {
+                      conn.sendText("Msg: " + i);
+                      max = Math.max(max, conn.getOutboundBufferedFrames());
+                  }
+                  maxBufferedFrames.complete(max);
+              })
+              .listen(host, port);
+
+        client.webSocket("ws://" + host + ":" + port + "/backpressure")
+              .onText((text, conn) -> {
+                  if (text.equals("Msg: " + expected.get())) {
+                      expected.incrementAndGet();
+                  }
+                  received.countDown();
+              })
+              .connect();
+
+        Assert.assertTrue(received.await(10, TimeUnit.SECONDS));
+        Assert.assertThat(expected.get(), is(count));
+        Assert.assertTrue(maxBufferedFrames.get(10, TimeUnit.SECONDS) <= 5);
+
+        server.stop();
+        client.stop();
+    }
+
+    @Test
+    public void testSuspendLimit() throws Exception {
+        int count = 200;
+        WebSocketPolicy policy = WebSocketPolicy.newServerPolicy();
+        policy.setMaxOutboundBufferedFrames(4);
+        policy.setMaxSuspendedFrames(10);
+        policy.setOutboundOverflowBehavior(OutboundOverflowBehavior.SUSPEND);
+
+        SimpleWebSocketServer server = $.createWebSocketServer();
+        SimpleWebSocketClient client = $.createWebSocketClient();
+        String host = "localhost";
+        int port = (int) RandomUtils.random(3000, 65534);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch completed = new CountDownLatch(count);
+
+        server.webSocket("/backpressure")
+              .policy(policy)
+              .onConnect(conn -> {
+                  for (int i = 0; i < count; i++) {
+                      conn.sendData(new byte[size]).whenComplete((r, e) -> {
+                          if (e == null) {
+                              succeeded.incrementAndGet();
+                          } else {
+                              Assert.assertTrue(e instanceof OutboundOverflowException);
+                              failed.incrementAndGet();
+                          }
+                          completed.countDown();
+                      });
+                  }
+              })
+              .listen(host, port);
+
+        client.webSocket("ws://" + host + ":" + port + "/backpressure")
+              .onData((buf, conn) -> {
+              })
+              .connect();
+
+        Assert.assertTrue(completed.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(failed.get() > 0);
+        Assert.assertThat(succeeded.get() + failed.get(), is(count));
+
+        server.stop();
+        client.stop();
+    }
+}
@@ -0,0 +1,129 @@
+package test.websocket;
+
+import com.firefly.$;
+import com.firefly.client.websocket.SimpleWebSocketClient;
+import com.firefly.codec.websocket.model.OutboundOverflowBehavior;
+import com.firefly.codec.websocket.stream.WebSocketConnection;
+import com.firefly.codec.websocket.stream.WebSocketPolicy;
+import com.firefly.server.websocket.SimpleWebSocketServer;
+import com.firefly.server.websocket.WebSocketConnectionGroup;
+import com.firefly.utils.RandomUtils;
+import com.firefly.utils.io.BufferUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Pengtao Qiu
+ */
+public class TestWebSocketBroadcast {
+
+    @Test
+    public void test() throws Exception {
+        SimpleWebSocketServer server = $.createWebSocketServer();
+        SimpleWebSocketClient client = $.createWebSocketClient();
+        String host = "localhost";
+        int port = (int) RandomUtils.random(3000, 65534);
+        List<List<String>> clientExtensions = Arrays.asList(
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.singletonList("permessage-deflate"));
+
+        WebSocketConnectionGroup group = new WebSocketConnectionGroup();
+        CountDownLatch connected = new CountDownLatch(clientExtensions.size());
+        CountDownLatch received = new CountDownLatch(clientExtensions.size() * 2);
+
+        server.webSocket("/broadcast")
+              .onConnect(conn -> {
+                  group.add(conn);
+                  connected.countDown();
+              })
+              .listen(host, port);
+
+        clientExtensions.forEach(extensions -> client
+                .webSocket("ws://" + host + ":" + port + "/broadcast")
+                .putExtension(extensions)
+                .onText((text, conn) -> {
+                    Assert.assertThat(text, is("Hello broadcast"));
+                    received.countDown();
+                })
+                .onData((buf, conn) -> {
+                    Assert.assertThat(BufferUtils.toString(buf), is("Data broadcast"));
+                    received.countDown();
+                })
+                .connect());
+
+        Assert.assertTrue(connected.await(10, TimeUnit.SECONDS));
+        Assert.assertThat(group.size(), is(clientExtensions.size()));
+        Assert.assertThat(group.broadcastText("Hello broadcast"), is(clientExtensions.size()));
+        Assert.assertThat(group.broadcastData("Data broadcast".getBytes(StandardCharsets.UTF_8)), is(clientExtensions.size()));
+        Assert.assertTrue(received.await(10, TimeUnit.SECONDS));
+        Assert.assertThat(group.getSkippedMessages(), is(0L));
+
+        group.setMaxBufferedBytes(-1);
+        Assert.assertThat(group.broadcastText("Skip"), is(0));
+        Assert.assertThat(group.getSkippedMessages(), is((long) clientExtensions.size()));
+
+        server.stop();
+        client.stop();
+    }
+
+    @Test
+    public void testSuspend() throws Exception {
+        int count = 200;
+        WebSocketPolicy policy = WebSocketPolicy.newServerPolicy();
+        policy.setMaxOutboundBufferedFrames(4);
+        policy.setOutboundOverflowBehavior(OutboundOverflowBehavior.SUSPEND);
+
+        SimpleWebSocketServer server = $.createWebSocketServer();
+        SimpleWebSocketClient client = $.createWebSocketClient();
+        String host = "localhost";
+        int port = (int) RandomUtils.random(3000, 65534);
+
+        WebSocketConnectionGroup group = new WebSocketConnectionGroup();
+        CountDownLatch connected = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(count);
+        AtomicInteger expected = new AtomicInteger();
+
+        server.webSocket("/broadcast")
+              .policy(policy)
+              .onConnect(conn -> {
+                  group.add(conn);
+                  connected.countDown();
+              })
+              .listen(host, port);
+
+        client.webSocket("ws://" + host + ":" + port + "/broadcast")
+              .onText((text, conn) -> {
+                  if (text.equals("Msg: " + expected.get())) {
+                      expected.incrementAndGet();
+                  }
+                  received.countDown();
+              })
+              .connect();
+
+        Assert.assertTrue(connected.await(10, TimeUnit.SECONDS));
+        WebSocketConnection connection = group.getConnections().iterator().next();
+        int maxBufferedFrames = 0;
+        for (int i = 0; i < count; i++) {
+            Assert.assertThat(group.broadcastText("Msg: " + i), is(1));
+            maxBufferedFrames = Math.max(maxBufferedFrames, connection.getOutboundBufferedFrames());
+        }
+        Assert.assertTrue(received.await(10, TimeUnit.SECONDS));
+        Assert.assertThat(expected.get(), is(count));
+        Assert.assertTrue(maxBufferedFrames <= 5);
+        Assert.assertThat(group.getSkippedMessages(), is(0L));
+
+        server.stop();
+        client.stop();
+    }
+}